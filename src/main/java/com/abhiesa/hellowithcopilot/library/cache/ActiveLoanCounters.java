@@ -0,0 +1,349 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
+import com.abhiesa.hellowithcopilot.library.support.LongIntHashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-member loan limit, enforced from the members' active loan counters instead of counting
+ * their loans. The counter column is the authority: checkouts and returns lock the member row,
+ * check the limit and write the new count in their own transaction, so concurrent checkouts of
+ * one member cannot overshoot. Committed counts are mirrored in memory, keyed by member ID, for
+ * paths that decide before they reach the database; the mirror is only trusted when it reports
+ * room, and a member it reports as full is re-read before being turned away. Each write takes a
+ * ticket while it holds the member row, so commits that reach the mirror out of order cannot put
+ * back an older count.
+ * A limit of 0 disables the check; the counters are maintained either way.
+ */
+@Component
+public class ActiveLoanCounters {
+
+  private static final Logger logger = LoggerFactory.getLogger(ActiveLoanCounters.class);
+
+  private final MemberRepository members;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate readOnlyTx;
+  private final int maxActive;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object rebuildLock = new Object();
+  private LongIntHashMap counts = new LongIntHashMap(1024);
+  private final LongIntHashMap tickets = new LongIntHashMap(1024);
+  private final AtomicInteger lastTicket = new AtomicInteger();
+  private LongIntHashMap replay;
+
+  /**
+   * Constructs the counters; the mirror is empty until it is built.
+   * @param members MemberRepository holding the counter column
+   * @param transactionManager transaction manager for rebuilds and recounts
+   * @param maxActive most open loans a member may hold, or 0 for no limit
+   * @throws IllegalArgumentException if any dependency is null or the limit is negative
+   */
+  public ActiveLoanCounters(MemberRepository members,
+      PlatformTransactionManager transactionManager,
+      @Value("${library.loans.max-active:0}") int maxActive) {
+    if (members == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (maxActive < 0) {
+      throw new IllegalArgumentException("library.loans.max-active cannot be negative");
+    }
+    this.members = members;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.maxActive = maxActive;
+  }
+
+  /**
+   * Loads the mirror once the application has started.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    rebuild();
+  }
+
+  /**
+   * Most open loans a member may hold.
+   * @return the limit, or 0 if there is none
+   */
+  public int maxActive() {
+    return maxActive;
+  }
+
+  /**
+   * Last committed active loan count of a member, from memory.
+   * @param memberId member ID
+   * @return the count, 0 if unknown
+   */
+  public int activeLoans(long memberId) {
+    lock.readLock().lock();
+    try {
+      return counts.get(memberId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rejects a checkout early if the member already holds as many loans as allowed. Answers from
+   * memory unless the member looks full. Callers must still {@link #take} the loan, or rely on a
+   * path that keeps the counter in step, since concurrent checkouts may pass this check together.
+   * @param memberId member ID
+   * @throws BusinessException if the member has reached the limit
+   */
+  public void checkRoom(long memberId) {
+    if (maxActive == 0 || activeLoans(memberId) < maxActive) {
+      return;
+    }
+    List<Object[]> rows = members.findActiveLoans(List.of(memberId));
+    int current = rows.isEmpty() ? 0 : (Integer) rows.getFirst()[1];
+    apply(memberId, current, 0);
+    if (current >= maxActive) {
+      throw limitReached();
+    }
+  }
+
+  /**
+   * Counts a new loan against a member: locks the member row, checks the limit and raises the
+   * counter. Must be called inside the transaction that writes the loan.
+   * @param memberId member ID
+   * @return the locked member
+   * @throws IllegalArgumentException if memberId is null
+   * @throws NotFoundException if the member does not exist
+   * @throws BusinessException if the member has reached the limit
+   */
+  public Member take(Long memberId) {
+    if (memberId == null) {
+      throw new IllegalArgumentException("Member ID cannot be null");
+    }
+    Member member = lock(List.of(memberId)).get(memberId);
+    if (member == null) {
+      throw new NotFoundException("Member not found: " + memberId);
+    }
+    if (room(member) == 0) {
+      throw limitReached();
+    }
+    adjust(member, 1);
+    return member;
+  }
+
+  /**
+   * Takes back loans returned in the current transaction from the members' counters.
+   * @param returned number of loans returned per member ID
+   * @throws IllegalArgumentException if returned is null
+   */
+  public void release(Map<Long, Integer> returned) {
+    if (returned == null) {
+      throw new IllegalArgumentException("Returned loans cannot be null");
+    }
+    if (returned.isEmpty()) {
+      return;
+    }
+    for (Member member : lock(returned.keySet()).values()) {
+      adjust(member, -returned.get(member.getId()));
+    }
+  }
+
+  /**
+   * Loads and row-locks members in ID order, for callers that grant several loans at once with
+   * {@link #room} and {@link #adjust}.
+   * @param memberIds member IDs
+   * @return locked members by ID; unknown IDs are missing
+   * @throws IllegalArgumentException if memberIds is null
+   */
+  public Map<Long, Member> lock(Collection<Long> memberIds) {
+    if (memberIds == null) {
+      throw new IllegalArgumentException("Member IDs cannot be null");
+    }
+    Map<Long, Member> locked = new LinkedHashMap<>();
+    if (!memberIds.isEmpty()) {
+      for (Member member : members.lockAllById(memberIds)) {
+        locked.put(member.getId(), member);
+      }
+    }
+    return locked;
+  }
+
+  /**
+   * How many more loans a locked member may take.
+   * @param member member locked by this transaction
+   * @return remaining loans, {@link Integer#MAX_VALUE} if there is no limit
+   * @throws IllegalArgumentException if member is null
+   */
+  public int room(Member member) {
+    if (member == null) {
+      throw new IllegalArgumentException("Member cannot be null");
+    }
+    return maxActive == 0 ? Integer.MAX_VALUE
+        : Math.max(0, maxActive - member.getActiveLoans());
+  }
+
+  /**
+   * Changes a locked member's counter; the mirror follows once the transaction commits.
+   * @param member member locked by this transaction
+   * @param delta loans taken, or negative for loans returned
+   * @throws IllegalArgumentException if member is null
+   * @throws IllegalStateException if the counter would go negative, which means a loan was
+   *     returned twice or written without the counters; {@link #recount} repairs it
+   */
+  public void adjust(Member member, int delta) {
+    if (member == null) {
+      throw new IllegalArgumentException("Member cannot be null");
+    }
+    int updated = member.getActiveLoans() + delta;
+    if (updated < 0) {
+      logger.error("Active loan counter of member {} would go from {} to {}", member.getId(),
+          member.getActiveLoans(), updated);
+      throw new IllegalStateException("Active loan counter of member " + member.getId()
+          + " would go negative");
+    }
+    member.setActiveLoans(updated);
+    committed(member.getId(), updated);
+  }
+
+  /**
+   * The error a checkout over the limit fails with.
+   * @return a new exception naming the limit
+   */
+  public BusinessException limitReached() {
+    return new BusinessException("Loan limit reached: at most " + maxActive + " active loans");
+  }
+
+  /**
+   * Recomputes the counters of some members from their loans, for paths that write loans
+   * without going through the counters. Must be called inside a transaction; safe to repeat.
+   * @param memberIds member IDs
+   * @throws IllegalArgumentException if memberIds is null
+   */
+  public void recount(Collection<Long> memberIds) {
+    if (memberIds == null) {
+      throw new IllegalArgumentException("Member IDs cannot be null");
+    }
+    if (memberIds.isEmpty()) {
+      return;
+    }
+    members.recountActiveLoans(memberIds);
+    for (Object[] row : members.findActiveLoans(memberIds)) {
+      committed((Long) row[0], (Integer) row[1]);
+    }
+  }
+
+  /**
+   * Recomputes every member's counter from the loans table and reloads the mirror, after bulk
+   * changes such as a snapshot restore.
+   */
+  public void recountAll() {
+    Integer updated = tx.execute(status -> members.recountAllActiveLoans());
+    logger.info("Recounted active loans of {} members", updated);
+    rebuild();
+  }
+
+  /**
+   * Reloads the mirror from the counter column. Runs nightly, picking up changes committed by
+   * other instances.
+   */
+  @Scheduled(cron = "${library.loans.counters-rebuild-cron:0 50 3 * * *}")
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      long started = System.nanoTime();
+      lock.writeLock().lock();
+      try {
+        replay = new LongIntHashMap(64);
+      } finally {
+        lock.writeLock().unlock();
+      }
+      LongIntHashMap fresh;
+      try {
+        fresh = readOnlyTx.execute(status -> {
+          LongIntHashMap loaded = new LongIntHashMap(1024);
+          try (Stream<Object[]> rows = members.streamActiveLoanCounts()) {
+            rows.forEach(row -> loaded.put((Long) row[0], (Integer) row[1]));
+          }
+          return loaded;
+        });
+      } catch (RuntimeException e) {
+        lock.writeLock().lock();
+        try {
+          replay = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+        throw e;
+      }
+      lock.writeLock().lock();
+      try {
+        replay.forEach(fresh::put);
+        replay = null;
+        counts = fresh;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      logger.info("Active loan counters loaded: {} members with open loans in {} ms",
+          fresh.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+  }
+
+  /** Called with the member row locked, so tickets of one member follow its commit order. */
+  private void committed(long memberId, int count) {
+    int ticket = nextTicket();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          apply(memberId, count, ticket);
+        }
+      });
+    } else {
+      apply(memberId, count, ticket);
+    }
+  }
+
+  private int nextTicket() {
+    int ticket = lastTicket.incrementAndGet();
+    // 0 stands for "no ticket"; comparisons below survive the counter wrapping around
+    return ticket != 0 ? ticket : lastTicket.incrementAndGet();
+  }
+
+  /**
+   * Stores a committed count unless a later ticket of the member got there first.
+   * @param ticket the write's ticket, or 0 for a plain read that does not order later writes
+   */
+  private void apply(long memberId, int count, int ticket) {
+    lock.writeLock().lock();
+    try {
+      if (ticket != 0) {
+        int last = tickets.get(memberId);
+        if (last != 0 && ticket - last < 0) {
+          return;
+        }
+        tickets.put(memberId, ticket);
+      }
+      counts.put(memberId, count);
+      if (replay != null) {
+        replay.put(memberId, count);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory index answering "which books of this category, optionally only those with a copy on
+ * the shelf" without reading the books table. Book IDs are dense identity values, so they are used
+ * as bit positions directly: one bitset per category, one for all books and one for books with
+ * available copies. A combined filter walks two bitsets in step, skipping whole words of zeros,
+ * and stops after one page, so its cost depends on the page size and the gaps between matches
+ * rather than on the catalogue size.
+ * The index follows committed writes of {@link Book} entities through Hibernate's post-commit
+ * listeners, which covers checkouts and returns on every inventory engine. Bulk statements that
+ * bypass the entities report their changes through {@link #copiesReturned}, or are followed by
+ * {@link #rebuild}. Changes committed by other instances are picked up by the nightly rebuild;
+ * until then callers re-check the books they load.
+ */
+@Component
+public class BrowseIndex implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(BrowseIndex.class);
+
+  private final BookRepository books;
+  private final EntityManagerFactory entityManagerFactory;
+  private final TransactionTemplate readOnlyTx;
+  private final AtomicBoolean registered = new AtomicBoolean();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object rebuildLock = new Object();
+  private Bitsets current;
+  private List<Change> replay;
+
+  /**
+   * Constructs an index that answers nothing until it is built.
+   * @param books BookRepository used for rebuilds
+   * @param entityManagerFactory factory whose entity writes are followed
+   * @param transactionManager transaction manager for the streaming rebuild
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public BrowseIndex(BookRepository books, EntityManagerFactory entityManagerFactory,
+      PlatformTransactionManager transactionManager) {
+    if (books == null || entityManagerFactory == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.books = books;
+    this.entityManagerFactory = entityManagerFactory;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+  }
+
+  /**
+   * Starts following book writes and builds the index once the application has started.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (registered.compareAndSet(false, true)) {
+      EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+          .getServiceRegistry().getService(EventListenerRegistry.class);
+      registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+      registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+      registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+    rebuild();
+  }
+
+  /**
+   * Lists the IDs of matching books in ascending order, one page at a time.
+   * @param category category to restrict to, or null for every category
+   * @param availableOnly whether to skip books without an available copy
+   * @param after only IDs greater than this are returned
+   * @param limit maximum number of IDs
+   * @return matching IDs, or null if the index is not built and the caller must query instead
+   * @throws IllegalArgumentException if limit is not positive
+   */
+  public List<Long> ids(Category category, boolean availableOnly, long after, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    lock.readLock().lock();
+    try {
+      if (current == null) {
+        return null;
+      }
+      List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+      if (after >= Integer.MAX_VALUE) {
+        return ids;
+      }
+      BitSet first = category == null ? current.all : current.byCategory.get(category);
+      BitSet second = availableOnly ? current.available : null;
+      int i = first.nextSetBit((int) Math.max(0, after + 1));
+      while (i >= 0 && ids.size() < limit) {
+        int j = second == null ? i : second.nextSetBit(i);
+        if (j < 0) {
+          break;
+        }
+        if (j == i) {
+          ids.add((long) i);
+          i = i == Integer.MAX_VALUE ? -1 : first.nextSetBit(i + 1);
+        } else {
+          i = first.nextSetBit(j);
+        }
+      }
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Marks books as having available copies after a bulk statement put copies back on the shelf.
+   * Inside a transaction the change is applied once it commits.
+   * @param bookIds IDs of the books that got copies back
+   * @throws IllegalArgumentException if bookIds is null
+   */
+  public void copiesReturned(Collection<Long> bookIds) {
+    if (bookIds == null) {
+      throw new IllegalArgumentException("Book IDs cannot be null");
+    }
+    List<Long> ids = List.copyOf(bookIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          ids.forEach(id -> apply(new Change(id, null, Change.AVAILABLE)));
+        }
+      });
+    } else {
+      ids.forEach(id -> apply(new Change(id, null, Change.AVAILABLE)));
+    }
+  }
+
+  /**
+   * Rebuilds the index from the books table. Runs nightly, and should be called after bulk
+   * changes that bypass the entities.
+   */
+  @Scheduled(cron = "${library.browse.rebuild-cron:0 45 3 * * *}")
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      long started = System.nanoTime();
+      lock.writeLock().lock();
+      try {
+        replay = new ArrayList<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      Bitsets fresh;
+      try {
+        fresh = readOnlyTx.execute(status -> {
+          Bitsets built = new Bitsets();
+          try (Stream<Object[]> rows = books.streamBrowseKeys()) {
+            rows.forEach(row -> built.apply(
+                new Change((Long) row[0], (Category) row[1], (Integer) row[2])));
+          }
+          return built;
+        });
+      } catch (RuntimeException e) {
+        lock.writeLock().lock();
+        try {
+          replay = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+        throw e;
+      }
+      lock.writeLock().lock();
+      try {
+        for (Change change : replay) {
+          fresh.apply(change);
+        }
+        replay = null;
+        current = fresh.usable() ? fresh : null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      if (!fresh.usable()) {
+        logger.warn("Book IDs exceed the browse index range; browsing queries the database");
+      }
+      logger.info("Browse index rebuilt: {} books in {} ms", fresh.all.cardinality(),
+          (System.nanoTime() - started) / 1_000_000);
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Book book) {
+      apply(Change.of(book));
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof Book book) {
+      apply(Change.of(book));
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Book book && book.getId() != null) {
+      apply(new Change(book.getId(), null, Change.DELETED));
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return Book.class.equals(persister.getMappedClass());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    // nothing was applied before the commit
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    // nothing was applied before the commit
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    // nothing was applied before the commit
+  }
+
+  private void apply(Change change) {
+    lock.writeLock().lock();
+    try {
+      if (current != null) {
+        current.apply(change);
+        if (!current.usable()) {
+          current = null;
+          logger.warn("Book IDs exceed the browse index range; browsing queries the database");
+        }
+      }
+      if (replay != null) {
+        replay.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * A committed book state. The category is null when only the availability is known.
+   * @param id book ID
+   * @param category category after the write, or null to keep the indexed one
+   * @param availableCopies copies on the shelf, {@link #AVAILABLE} for "at least one", or
+   *     {@link #DELETED}
+   */
+  private record Change(long id, Category category, int availableCopies) {
+    static final int AVAILABLE = Integer.MAX_VALUE;
+    static final int DELETED = -1;
+
+    static Change of(Book book) {
+      return new Change(book.getId(), book.getCategory(), book.getAvailableCopies());
+    }
+  }
+
+  /**
+   * One generation of the index. Guarded by the index lock once published.
+   */
+  private static final class Bitsets {
+    private final Map<Category, BitSet> byCategory = new EnumMap<>(Category.class);
+    private final BitSet all = new BitSet();
+    private final BitSet available = new BitSet();
+    private boolean overflow;
+
+    Bitsets() {
+      for (Category category : Category.values()) {
+        byCategory.put(category, new BitSet());
+      }
+    }
+
+    void apply(Change change) {
+      if (change.id() < 0 || change.id() >= Integer.MAX_VALUE) {
+        overflow = true;
+        return;
+      }
+      int bit = (int) change.id();
+      if (change.availableCopies() == Change.DELETED) {
+        all.clear(bit);
+        available.clear(bit);
+        byCategory.values().forEach(set -> set.clear(bit));
+        return;
+      }
+      if (change.category() == null) {
+        // Availability only: the book must already be indexed.
+        if (all.get(bit)) {
+          available.set(bit, change.availableCopies() > 0);
+        }
+        return;
+      }
+      all.set(bit);
+      available.set(bit, change.availableCopies() > 0);
+      byCategory.forEach((category, set) -> set.set(bit, category == change.category()));
+    }
+
+    boolean usable() {
+      return !overflow;
+    }
+  }
+}
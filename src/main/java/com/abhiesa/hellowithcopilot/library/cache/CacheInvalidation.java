@@ -0,0 +1,52 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+/**
+ * Notice that a cached entity changed on some application instance.
+ *
+ * @param type kind of entity
+ * @param id entity ID
+ * @param naturalKey ISBN or library card after the write, or null for deletes
+ */
+public record CacheInvalidation(Type type, Long id, String naturalKey) {
+
+  /**
+   * Kinds of entity that other instances may hold in memory.
+   */
+  public enum Type {
+    BOOK,
+    MEMBER
+  }
+
+  /**
+   * Validates the notice.
+   *
+   * @throws IllegalArgumentException if type or id is null
+   */
+  public CacheInvalidation {
+    if (type == null || id == null) {
+      throw new IllegalArgumentException("Invalidation type and ID must be non-null");
+    }
+  }
+
+  /**
+   * Notice for a written or deleted book.
+   *
+   * @param id book ID
+   * @param isbn ISBN after the write, or null
+   * @return the notice
+   */
+  public static CacheInvalidation book(Long id, String isbn) {
+    return new CacheInvalidation(Type.BOOK, id, isbn);
+  }
+
+  /**
+   * Notice for a written or deleted member.
+   *
+   * @param id member ID
+   * @param memberId library card after the write, or null
+   * @return the notice
+   */
+  public static CacheInvalidation member(Long id, String memberId) {
+    return new CacheInvalidation(Type.MEMBER, id, memberId);
+  }
+}
@@ -0,0 +1,38 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+/**
+ * Names of the Hibernate second-level cache regions used by the library.
+ * Each region is sized and given a time-to-live in {@code ehcache.xml}; the names here must stay in
+ * sync with that file because missing regions fail fast at startup.
+ */
+public final class CacheRegions {
+
+  /**
+   * Region holding {@code Author} entities. Authors are effectively immutable reference data.
+   */
+  public static final String AUTHOR = "library.author";
+
+  /**
+   * Region holding {@code Book} entities.
+   */
+  public static final String BOOK = "library.book";
+
+  /**
+   * Region mapping normalized ISBNs to book ids.
+   */
+  public static final String BOOK_ISBN = "library.book.isbn";
+
+  /**
+   * Region holding the {@code Book.authors} collection (author ids per book).
+   */
+  public static final String BOOK_AUTHORS = "library.book.authors";
+
+  /**
+   * Region holding results of frequently-run catalogue queries.
+   */
+  public static final String CATALOGUE_QUERIES = "library.catalogue-queries";
+
+  private CacheRegions() {
+    // constants holder
+  }
+}
@@ -0,0 +1,139 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Applies invalidations received from other instances in batches. Repeated notices for the same
+ * entity within one flush interval collapse into a single eviction, and region-wide evictions
+ * (natural IDs, catalogue queries) happen at most once per batch, so a burst of writes to a hot
+ * title elsewhere does not keep emptying the local cache.
+ * Natural keys carried by the notices are added to the local {@link NaturalKeyFilters}, so books
+ * and members created on another instance can be looked up here straight away.
+ */
+public class CoalescingInvalidationSubscriber {
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final NaturalKeyFilters keyFilters;
+  private final int maxPending;
+
+  private final Set<CacheInvalidation> pending = new LinkedHashSet<>();
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong applied = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+
+  /**
+   * Constructs the subscriber.
+   * @param entityManagerFactory factory whose second-level cache is evicted
+   * @param keyFilters natural key filters to extend
+   * @param maxPending number of pending notices that forces an early flush
+   * @throws IllegalArgumentException if a dependency is null or maxPending is not positive
+   */
+  public CoalescingInvalidationSubscriber(EntityManagerFactory entityManagerFactory,
+      NaturalKeyFilters keyFilters, int maxPending) {
+    if (entityManagerFactory == null || keyFilters == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (maxPending <= 0) {
+      throw new IllegalArgumentException("Pending limit must be positive");
+    }
+    this.entityManagerFactory = entityManagerFactory;
+    this.keyFilters = keyFilters;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Queues a notice for the next flush.
+   * @param invalidation notice from another instance
+   */
+  public void accept(CacheInvalidation invalidation) {
+    if (invalidation == null) {
+      throw new IllegalArgumentException("Invalidation cannot be null");
+    }
+    received.incrementAndGet();
+    boolean full;
+    synchronized (pending) {
+      pending.add(invalidation);
+      full = pending.size() >= maxPending;
+    }
+    if (full) {
+      flush();
+    }
+  }
+
+  /**
+   * Applies every queued notice.
+   * @return number of distinct notices applied
+   */
+  @Scheduled(fixedDelayString = "${library.cache.invalidation.flush-interval:PT0.5S}")
+  public int flush() {
+    List<CacheInvalidation> batch;
+    synchronized (pending) {
+      if (pending.isEmpty()) {
+        return 0;
+      }
+      batch = new ArrayList<>(pending);
+      pending.clear();
+    }
+    Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    boolean books = false;
+    for (CacheInvalidation invalidation : batch) {
+      switch (invalidation.type()) {
+        case BOOK -> {
+          cache.evict(Book.class, invalidation.id());
+          if (invalidation.naturalKey() != null) {
+            keyFilters.addIsbn(invalidation.naturalKey());
+          }
+          books = true;
+        }
+        case MEMBER -> {
+          cache.evict(Member.class, invalidation.id());
+          if (invalidation.naturalKey() != null) {
+            keyFilters.addMemberId(invalidation.naturalKey());
+          }
+        }
+      }
+    }
+    if (books) {
+      // Remote writes do not touch the local update timestamps, so dependent regions go too.
+      cache.evictNaturalIdData(Book.class);
+      cache.evictQueryRegion(CacheRegions.CATALOGUE_QUERIES);
+    }
+    applied.addAndGet(batch.size());
+    batches.incrementAndGet();
+    return batch.size();
+  }
+
+  /**
+   * Number of notices received so far, including duplicates.
+   * @return received count
+   */
+  public long received() {
+    return received.get();
+  }
+
+  /**
+   * Number of distinct notices applied so far.
+   * @return applied count
+   */
+  public long applied() {
+    return applied.get();
+  }
+
+  /**
+   * Number of flushes that applied at least one notice.
+   * @return batch count
+   */
+  public long batches() {
+    return batches.get();
+  }
+}
@@ -0,0 +1,21 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+/**
+ * Carries cache invalidations from the instance that wrote an entity to every other instance.
+ * Services publish inside the writing transaction where they have one, so a transport that stores
+ * notices in the database only delivers them once the write is committed.
+ */
+public interface InvalidationBus {
+
+  /**
+   * Bus for a single instance: local caches are kept current by Hibernate, so nothing is sent.
+   */
+  InvalidationBus NONE = invalidation -> { };
+
+  /**
+   * Publishes a notice to the other instances.
+   *
+   * @param invalidation the notice
+   */
+  void publish(CacheInvalidation invalidation);
+}
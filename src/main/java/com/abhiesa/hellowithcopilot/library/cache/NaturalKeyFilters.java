@@ -0,0 +1,226 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
+import com.abhiesa.hellowithcopilot.library.support.BloomFilter;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory Bloom filters over the natural keys scanners read: normalized ISBNs and library card
+ * strings. A negative answer means the key is certainly unknown, so the lookup can be rejected
+ * without touching the database. Until the filters are loaded, every key is reported as possibly
+ * present.
+ * Keys are added before they are written; a key from a rolled-back write only costs a false
+ * positive. Deleted keys stay in the filter until the next rebuild, which happens automatically
+ * once a filter holds more keys than it was sized for, or on demand after bulk changes that
+ * bypass the services.
+ */
+@Component
+public class NaturalKeyFilters {
+
+  private static final Logger logger = LoggerFactory.getLogger(NaturalKeyFilters.class);
+
+  /**
+   * Keys added this recently are replayed into a freshly loaded filter, covering writes that
+   * were not yet committed when the table was read.
+   */
+  private static final long RECENT_KEY_GRACE_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final int MAX_RECENT_KEYS = 100_000;
+
+  private final BookRepository books;
+  private final MemberRepository members;
+  private final TransactionTemplate readOnlyTx;
+  private final long minExpectedKeys;
+  private final double falsePositiveRate;
+
+  private final KeyFilter isbns = new KeyFilter("isbn");
+  private final KeyFilter memberIds = new KeyFilter("memberId");
+
+  /**
+   * Constructs the filters.
+   * @param books BookRepository used to load ISBNs
+   * @param members MemberRepository used to load card strings
+   * @param transactionManager transaction manager for the streaming loads
+   * @param minExpectedKeys minimum number of keys each filter is sized for
+   * @param falsePositiveRate target false-positive probability
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public NaturalKeyFilters(BookRepository books, MemberRepository members,
+      PlatformTransactionManager transactionManager,
+      @Value("${library.lookup.bloom.expected-keys:100000}") long minExpectedKeys,
+      @Value("${library.lookup.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+    if (books == null || members == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (minExpectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Invalid Bloom filter settings");
+    }
+    this.books = books;
+    this.members = members;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.minExpectedKeys = minExpectedKeys;
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  /**
+   * Loads both filters once the application has started.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    rebuildIsbns();
+    rebuildMemberIds();
+  }
+
+  /**
+   * Tests whether a book with this normalized ISBN may exist.
+   * @param isbn normalized ISBN
+   * @return false if no such book exists
+   */
+  public boolean mightContainIsbn(String isbn) {
+    return isbns.mightContain(isbn);
+  }
+
+  /**
+   * Records a normalized ISBN that is about to be stored.
+   * @param isbn normalized ISBN
+   */
+  public void addIsbn(String isbn) {
+    if (isbns.add(isbn)) {
+      Thread.ofVirtual().start(this::rebuildIsbns);
+    }
+  }
+
+  /**
+   * Tests whether a member with this card string may exist.
+   * @param memberId library card string
+   * @return false if no such member exists
+   */
+  public boolean mightContainMemberId(String memberId) {
+    return memberIds.mightContain(memberId);
+  }
+
+  /**
+   * Records a card string that is about to be stored.
+   * @param memberId library card string
+   */
+  public void addMemberId(String memberId) {
+    if (memberIds.add(memberId)) {
+      Thread.ofVirtual().start(this::rebuildMemberIds);
+    }
+  }
+
+  /**
+   * Rebuilds the ISBN filter from the books table.
+   */
+  public void rebuildIsbns() {
+    rebuild(isbns, books::count, books::streamIsbns);
+  }
+
+  /**
+   * Rebuilds the card string filter from the members table.
+   */
+  public void rebuildMemberIds() {
+    rebuild(memberIds, members::count, members::streamMemberIds);
+  }
+
+  private void rebuild(KeyFilter filter, Supplier<Long> count, Supplier<Stream<String>> keys) {
+    if (!filter.rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long started = System.nanoTime();
+      long expected = Math.max(minExpectedKeys, count.get() * 2);
+      BloomFilter next = new BloomFilter(expected, falsePositiveRate);
+      filter.next = next;
+      readOnlyTx.executeWithoutResult(status -> {
+        try (Stream<String> stream = keys.get()) {
+          stream.forEach(next::add);
+        }
+      });
+      // Writes still in flight while the table was read may not have been visible to it.
+      filter.replayRecent(next, started - RECENT_KEY_GRACE_NANOS);
+      filter.current = next;
+      filter.next = null;
+      logger.info("Loaded {} {} keys into Bloom filter sized for {}", next.insertions(),
+          filter.name, expected);
+    } catch (RuntimeException e) {
+      filter.next = null;
+      logger.warn("Could not rebuild {} Bloom filter, lookups fall through to the database",
+          filter.name, e);
+    } finally {
+      filter.rebuilding.set(false);
+    }
+  }
+
+  private static final class KeyFilter {
+    private final String name;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ConcurrentLinkedDeque<RecentKey> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentCount = new AtomicInteger();
+    private volatile BloomFilter current;
+    private volatile BloomFilter next;
+
+    private KeyFilter(String name) {
+      this.name = name;
+    }
+
+    private boolean mightContain(String key) {
+      BloomFilter filter = current;
+      return filter == null || filter.mightContain(key);
+    }
+
+    /**
+     * @return true if the current filter just became saturated
+     */
+    private boolean add(String key) {
+      if (key == null) {
+        return false;
+      }
+      long now = System.nanoTime();
+      recent.addLast(new RecentKey(key, now));
+      recentCount.incrementAndGet();
+      RecentKey oldest;
+      while ((oldest = recent.peekFirst()) != null
+          && (now - oldest.addedAt > RECENT_KEY_GRACE_NANOS || recentCount.get() > MAX_RECENT_KEYS)) {
+        if (recent.pollFirst() != null) {
+          recentCount.decrementAndGet();
+        }
+      }
+      BloomFilter pending = next;
+      if (pending != null) {
+        pending.add(key);
+      }
+      BloomFilter filter = current;
+      if (filter == null) {
+        return false;
+      }
+      filter.add(key);
+      return filter.isSaturated() && !rebuilding.get();
+    }
+
+    private void replayRecent(BloomFilter target, long since) {
+      for (RecentKey entry : recent) {
+        if (entry.addedAt - since >= 0) {
+          target.add(entry.key);
+        }
+      }
+    }
+  }
+
+  private record RecentKey(String key, long addedAt) {
+  }
+}
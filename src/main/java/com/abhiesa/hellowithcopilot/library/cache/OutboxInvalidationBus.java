@@ -0,0 +1,125 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.model.InvalidationMessage;
+import com.abhiesa.hellowithcopilot.library.repository.InvalidationMessageRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Invalidation bus that needs nothing but the shared database. Notices are written to an outbox
+ * table inside the writing transaction, and every instance polls the table for rows written by the
+ * others.
+ * Rows become visible in commit order rather than creation order, so each poll looks back a grace
+ * period before the previous one and skips the rows it has already delivered. The grace period
+ * must cover the longest writing transaction plus the clock skew between instances.
+ */
+public class OutboxInvalidationBus implements InvalidationBus {
+
+  private static final Logger logger = LoggerFactory.getLogger(OutboxInvalidationBus.class);
+
+  private final InvalidationMessageRepository messages;
+  private final CoalescingInvalidationSubscriber subscriber;
+  private final Clock clock;
+  private final Duration grace;
+  private final Duration retention;
+  private final int maxBatch;
+  private final String origin = UUID.randomUUID().toString();
+
+  private final Map<Long, Instant> delivered = new HashMap<>();
+  private Instant cursor;
+
+  /**
+   * Constructs the bus. Messages written before the bus was created are not delivered; a
+   * starting instance has nothing cached yet.
+   * @param messages outbox repository
+   * @param subscriber receiver of notices from other instances
+   * @param clock clock used to stamp and select messages
+   * @param grace look-back applied to every poll
+   * @param retention age after which messages are purged
+   * @param maxBatch maximum number of messages read per poll
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public OutboxInvalidationBus(InvalidationMessageRepository messages,
+      CoalescingInvalidationSubscriber subscriber, Clock clock, Duration grace,
+      Duration retention, int maxBatch) {
+    if (messages == null || subscriber == null || clock == null || grace == null
+        || retention == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (grace.isNegative() || retention.compareTo(grace) <= 0 || maxBatch <= 0) {
+      throw new IllegalArgumentException("Invalid outbox settings");
+    }
+    this.messages = messages;
+    this.subscriber = subscriber;
+    this.clock = clock;
+    this.grace = grace;
+    this.retention = retention;
+    this.maxBatch = maxBatch;
+    this.cursor = clock.instant();
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    if (invalidation == null) {
+      throw new IllegalArgumentException("Invalidation cannot be null");
+    }
+    messages.save(new InvalidationMessage(null, origin, invalidation.type(), invalidation.id(),
+        invalidation.naturalKey(), clock.instant()));
+  }
+
+  /**
+   * Reads new messages from the other instances and hands them to the subscriber.
+   * @return number of messages delivered
+   */
+  @Scheduled(fixedDelayString = "${library.cache.invalidation.poll-interval:PT1S}")
+  public synchronized int poll() {
+    Instant started = clock.instant();
+    Instant since = cursor.minus(grace);
+    List<InvalidationMessage> batch = messages
+        .findByOriginNotAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(origin, since,
+            Limit.of(maxBatch));
+    int count = 0;
+    for (InvalidationMessage message : batch) {
+      if (delivered.putIfAbsent(message.getId(), message.getCreatedAt()) == null) {
+        subscriber.accept(new CacheInvalidation(message.getEntityType(), message.getEntityId(),
+            message.getNaturalKey()));
+        count++;
+      }
+    }
+    // A full batch may have left rows behind; resume from the last one read instead.
+    cursor = batch.size() == maxBatch
+        ? batch.get(batch.size() - 1).getCreatedAt().plus(grace)
+        : started;
+    Instant forgetBefore = cursor.minus(grace);
+    delivered.values().removeIf(createdAt -> createdAt.isBefore(forgetBefore));
+    return count;
+  }
+
+  /**
+   * Deletes messages every instance has had time to read.
+   */
+  @Scheduled(fixedDelayString = "${library.cache.invalidation.purge-interval:PT10M}")
+  public void purge() {
+    int purged = messages.purgeBefore(clock.instant().minus(retention));
+    if (purged > 0) {
+      logger.debug("Purged {} cache invalidation messages", purged);
+    }
+  }
+
+  /**
+   * Identifier this instance stamps on its messages.
+   * @return origin identifier
+   */
+  public String origin() {
+    return origin;
+  }
+}
@@ -0,0 +1,61 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers compact binary encodings next to JSON so that internal clients can exchange
+ * {@code application/cbor} or {@code application/x-jackson-smile} with the same controllers.
+ * Both converters are copies of Spring Boot's JSON {@link ObjectMapper}, so dates, modules and
+ * other Jackson settings are encoded exactly as in the JSON responses. JSON stays the default when
+ * the client does not ask for a binary type.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryContentNegotiationConfig implements WebMvcConfigurer {
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Constructs the configuration from the application's JSON object mapper.
+   *
+   * @param objectMapper Boot-configured JSON object mapper
+   * @throws IllegalArgumentException if objectMapper is null
+   */
+  public BinaryContentNegotiationConfig(ObjectMapper objectMapper) {
+    if (objectMapper == null) {
+      throw new IllegalArgumentException("ObjectMapper cannot be null");
+    }
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Replaces Spring's default Smile/CBOR converters (which use a plain object mapper) with ones
+   * sharing the application's Jackson configuration, placed directly after the JSON converter.
+   *
+   * @param converters the converters configured so far
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter
+        || c instanceof MappingJackson2SmileHttpMessageConverter);
+    int json = 0;
+    for (int i = 0; i < converters.size(); i++) {
+      if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+        json = i + 1;
+        break;
+      }
+    }
+    converters.add(json, new MappingJackson2SmileHttpMessageConverter(
+        objectMapper.copyWith(new SmileFactory())));
+    converters.add(json, new MappingJackson2CborHttpMessageConverter(
+        objectMapper.copyWith(new CBORFactory())));
+  }
+}
@@ -0,0 +1,66 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import com.abhiesa.hellowithcopilot.library.jfr.RepositoryCallInterceptor;
+import com.abhiesa.hellowithcopilot.library.jfr.ServiceCallInterceptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Service;
+
+/**
+ * Wires the Java Flight Recorder instrumentation: service calls are advised through an
+ * infrastructure advisor, repository calls through a repository factory customizer. Both emit
+ * events only while a recording has them enabled.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FlightRecorderConfig {
+
+  /**
+   * Advises public methods of {@link Service} beans with a {@link ServiceCallInterceptor}.
+   *
+   * @return the advisor
+   */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  public static Advisor serviceCallFlightRecorderAdvisor() {
+    StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+      @Override
+      public boolean matches(Method method, Class<?> targetClass) {
+        return Modifier.isPublic(method.getModifiers())
+            && method.getDeclaringClass() != Object.class;
+      }
+    };
+    pointcut.setClassFilter(new AnnotationClassFilter(Service.class, true));
+    return new DefaultPointcutAdvisor(pointcut, new ServiceCallInterceptor());
+  }
+
+  /**
+   * Adds a {@link RepositoryCallInterceptor} to every Spring Data repository proxy.
+   *
+   * @return post-processor customizing the repository factory beans
+   */
+  @Bean
+  public static BeanPostProcessor repositoryFlightRecorderCustomizer() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+          factoryBean.addRepositoryFactoryCustomizer(factory ->
+              factory.addRepositoryProxyPostProcessor((proxyFactory, info) ->
+                  proxyFactory.addAdvice(new RepositoryCallInterceptor(
+                      info.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,74 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import com.abhiesa.hellowithcopilot.library.cache.CoalescingInvalidationSubscriber;
+import com.abhiesa.hellowithcopilot.library.cache.InvalidationBus;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import com.abhiesa.hellowithcopilot.library.cache.OutboxInvalidationBus;
+import com.abhiesa.hellowithcopilot.library.repository.InvalidationMessageRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the cache invalidation transport with {@code library.cache.invalidation.transport}.
+ * {@code none} (the default) suits a single instance; {@code outbox} polls a database table and
+ * suits several replicas sharing one database.
+ */
+@Configuration(proxyBeanMethods = false)
+public class InvalidationBusConfig {
+
+  private static final String TRANSPORT = "library.cache.invalidation.transport";
+
+  /**
+   * Subscriber applying invalidations from other instances.
+   *
+   * @param entityManagerFactory factory whose second-level cache is evicted
+   * @param keyFilters natural key filters to extend
+   * @param maxPending number of pending notices that forces an early flush
+   * @return the subscriber
+   */
+  @Bean
+  @ConditionalOnProperty(name = TRANSPORT, havingValue = "outbox")
+  public CoalescingInvalidationSubscriber invalidationSubscriber(
+      EntityManagerFactory entityManagerFactory, NaturalKeyFilters keyFilters,
+      @Value("${library.cache.invalidation.max-pending:1000}") int maxPending) {
+    return new CoalescingInvalidationSubscriber(entityManagerFactory, keyFilters, maxPending);
+  }
+
+  /**
+   * Bus writing to and polling the outbox table.
+   *
+   * @param messages outbox repository
+   * @param subscriber receiver of notices from other instances
+   * @param clock clock used to stamp and select messages
+   * @param grace look-back applied to every poll
+   * @param retention age after which messages are purged
+   * @param maxBatch maximum number of messages read per poll
+   * @return the outbox bus
+   */
+  @Bean
+  @ConditionalOnProperty(name = TRANSPORT, havingValue = "outbox")
+  public OutboxInvalidationBus outboxInvalidationBus(InvalidationMessageRepository messages,
+      CoalescingInvalidationSubscriber subscriber, Clock clock,
+      @Value("${library.cache.invalidation.grace:PT10S}") Duration grace,
+      @Value("${library.cache.invalidation.retention:PT1H}") Duration retention,
+      @Value("${library.cache.invalidation.max-batch:1000}") int maxBatch) {
+    return new OutboxInvalidationBus(messages, subscriber, clock, grace, retention, maxBatch);
+  }
+
+  /**
+   * Bus for a single instance, used when no transport is configured.
+   *
+   * @return a bus that sends nothing
+   */
+  @Bean
+  @ConditionalOnMissingBean(InvalidationBus.class)
+  public InvalidationBus invalidationBus() {
+    return InvalidationBus.NONE;
+  }
+}
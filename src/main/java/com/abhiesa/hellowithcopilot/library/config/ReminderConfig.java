@@ -0,0 +1,43 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import com.abhiesa.hellowithcopilot.library.reminder.LogFileReminderSink;
+import com.abhiesa.hellowithcopilot.library.reminder.ReminderSink;
+import java.nio.file.Path;
+import java.time.Clock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled tasks and provides the defaults the due-date reminder scheduler needs.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+public class ReminderConfig {
+
+  /**
+   * System clock used for scheduling; tests may replace it.
+   *
+   * @return the system default zone clock
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public Clock clock() {
+    return Clock.systemDefaultZone();
+  }
+
+  /**
+   * Default reminder sink writing to a local log file.
+   *
+   * @param file path of the reminder log
+   * @return the log-file sink
+   */
+  @Bean
+  @ConditionalOnMissingBean(ReminderSink.class)
+  public ReminderSink reminderSink(
+      @Value("${library.reminders.log-file:logs/reminders.log}") Path file) {
+    return new LogFileReminderSink(file);
+  }
+}
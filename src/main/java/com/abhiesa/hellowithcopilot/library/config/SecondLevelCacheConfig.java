@@ -0,0 +1,52 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+/**
+ * Wires the Ehcache (JCache) provider used as Hibernate's second-level cache.
+ * Each application context gets its own cache manager, built from {@code ehcache.xml}, so that
+ * several contexts in one JVM never share cached rows. Hibernate closes the manager together with
+ * the session factory.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+  /**
+   * Hands a freshly built cache manager to Hibernate.
+   *
+   * @param config location of the Ehcache XML configuration
+   * @return customizer registering the cache manager
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(
+      @Value("${library.cache.config:classpath:ehcache.xml}") Resource config) {
+    if (config == null || !config.exists()) {
+      throw new IllegalArgumentException("Second-level cache configuration not found: " + config);
+    }
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(config));
+  }
+
+  private static CacheManager createCacheManager(Resource config) {
+    EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+        EhcacheCachingProvider.class.getName());
+    try {
+      XmlConfiguration xml = new XmlConfiguration(config.getURL(),
+          SecondLevelCacheConfig.class.getClassLoader());
+      return provider.getCacheManager(URI.create("urn:library:l2:" + UUID.randomUUID()), xml);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read second-level cache configuration " + config, e);
+    }
+  }
+}
@@ -1,9 +1,17 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
+import com.abhiesa.hellowithcopilot.library.dto.BookAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.dto.RelatedBookDto;
+import com.abhiesa.hellowithcopilot.library.dto.TrendingBookDto;
 import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
 import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import com.abhiesa.hellowithcopilot.library.service.RelatedBooksService;
+import com.abhiesa.hellowithcopilot.library.service.TrendingBooksService;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +20,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -23,18 +32,44 @@ import org.springframework.web.bind.annotation.RestController;
 public class BookController {
 
   private final BookService bookService;
+  private final BranchService branchService;
+  private final RelatedBooksService relatedBooks;
+  private final TrendingBooksService trendingBooks;
+  private final int maxBatchIds;
 
   /**
    * Constructs a BookController with the given BookService.
    *
-   * @param bookService the service to manage books
-   * @throws IllegalArgumentException if bookService is null
+   * @param bookService   the service to manage books
+   * @param branchService the service holding per-branch copy counts
+   * @param relatedBooks  the service recommending books borrowed together
+   * @param trendingBooks the service tracking trending books
+   * @param maxBatchIds   maximum number of IDs accepted by the batch lookup
+   * @throws IllegalArgumentException if a service is null or maxBatchIds is not positive
    */
-  public BookController(BookService bookService) {
+  public BookController(BookService bookService, BranchService branchService,
+      RelatedBooksService relatedBooks, TrendingBooksService trendingBooks,
+      @Value("${library.batch.max-ids:500}") int maxBatchIds) {
     if (bookService == null) {
       throw new IllegalArgumentException("BookService cannot be null");
     }
+    if (branchService == null) {
+      throw new IllegalArgumentException("BranchService cannot be null");
+    }
+    if (relatedBooks == null) {
+      throw new IllegalArgumentException("RelatedBooksService cannot be null");
+    }
+    if (trendingBooks == null) {
+      throw new IllegalArgumentException("TrendingBooksService cannot be null");
+    }
+    if (maxBatchIds <= 0) {
+      throw new IllegalArgumentException("Batch limit must be positive");
+    }
     this.bookService = bookService;
+    this.branchService = branchService;
+    this.relatedBooks = relatedBooks;
+    this.trendingBooks = trendingBooks;
+    this.maxBatchIds = maxBatchIds;
   }
 
   /**
@@ -71,14 +106,122 @@ public class BookController {
   }
 
   /**
-   * Lists all books.
+   * Retrieves the availability of a book summed over all branches, with the per-branch counts.
+   *
+   * @param id the ID of the book
+   * @return ResponseEntity containing the availability, or bad request if ID is invalid
+   */
+  @GetMapping("/{id}/availability")
+  public ResponseEntity<BookAvailabilityDto> availability(@PathVariable Long id) {
+    if (id == null || id <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(branchService.availability(id));
+  }
+
+  /**
+   * Lists books frequently borrowed by members who also borrowed this one.
    *
-   * @return ResponseEntity containing the list of books
+   * @param id    the ID of the book
+   * @param limit maximum number of books, 10 by default
+   * @return ResponseEntity containing the related books strongest first, or bad request if input
+   * is invalid
+   */
+  @GetMapping("/{id}/related")
+  public ResponseEntity<List<RelatedBookDto>> related(@PathVariable Long id,
+      @RequestParam(defaultValue = "10") int limit) {
+    if (id == null || id <= 0 || limit <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(relatedBooks.related(id, limit));
+  }
+
+  /**
+   * Lists the books checked out most recently, overall or within one category.
+   *
+   * @param window   name of the decay window, for example "hour", "day" or "week"
+   * @param category category to restrict to, or all books if absent
+   * @param limit    maximum number of books, 10 by default
+   * @return ResponseEntity containing the trending books hottest first, or bad request if input
+   * is invalid
+   */
+  @GetMapping("/trending")
+  public ResponseEntity<List<TrendingBookDto>> trending(
+      @RequestParam(defaultValue = "day") String window,
+      @RequestParam(required = false) Category category,
+      @RequestParam(defaultValue = "10") int limit) {
+    if (window == null || !trendingBooks.windows().contains(window) || limit <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(trendingBooks.trending(window, category, limit));
+  }
+
+  /**
+   * Retrieves a book by its ISBN, as read by scanners.
+   *
+   * @param isbn the ISBN, with or without hyphens
+   * @return ResponseEntity containing the found book, not found, or bad request if ISBN is blank
+   */
+  @GetMapping("/isbn/{isbn}")
+  public ResponseEntity<Book> getByIsbn(@PathVariable String isbn) {
+    if (isbn == null || isbn.isBlank()) {
+      return ResponseEntity.badRequest().build();
+    }
+    Book found = bookService.getByIsbn(isbn);
+    if (found == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(found);
+  }
+
+  /**
+   * Retrieves several books in one round trip.
+   *
+   * @param ids the IDs to look up, at most the configured batch limit
+   * @return ResponseEntity containing the books found in request order, or bad request if the
+   * batch is empty, too large or contains an invalid ID
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<List<Book>> batch(@RequestBody List<Long> ids) {
+    if (ids == null || ids.isEmpty() || ids.size() > maxBatchIds) {
+      return ResponseEntity.badRequest().build();
+    }
+    for (Long id : ids) {
+      if (id == null || id <= 0) {
+        return ResponseEntity.badRequest().build();
+      }
+    }
+    List<Book> found = bookService.getAll(ids);
+    return ResponseEntity.ok(found == null ? List.of() : found);
+  }
+
+  /**
+   * Lists all books, or one page of them when browsing by category or availability. Pages are in
+   * ID order; the next page starts after the last ID of the previous one.
+   *
+   * @param category  category to restrict to, or every category if absent
+   * @param available true to list only books with a copy on the shelf
+   * @param after     ID after which the page starts, 0 by default
+   * @param limit     maximum number of books per page, 1 to 1000, 50 by default
+   * @return ResponseEntity containing the list of books, or bad request if input is invalid
    */
   @GetMapping
-  public ResponseEntity<List<Book>> list() {
-    List<Book> books = bookService.list();
-    return ResponseEntity.ok(books == null ? List.of() : books);
+  public ResponseEntity<List<Book>> list(@RequestParam(required = false) Category category,
+      @RequestParam(required = false) Boolean available,
+      @RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer limit) {
+    if (category == null && available == null && after == null && limit == null) {
+      List<Book> books = bookService.list();
+      return ResponseEntity.ok(books == null ? List.of() : books);
+    }
+    long cursor = after == null ? 0 : after;
+    int pageSize = limit == null ? 50 : limit;
+    if (cursor < 0 || pageSize <= 0 || pageSize > 1000) {
+      return ResponseEntity.badRequest().build();
+    }
+    List<Book> page = bookService.browse(category, Boolean.TRUE.equals(available), cursor,
+        pageSize);
+    return ResponseEntity.ok(page == null ? List.of() : page);
   }
 
   /**
@@ -0,0 +1,120 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import com.abhiesa.hellowithcopilot.library.model.BranchCopy;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for library branches and the copies they hold. Applies defensive programming and
+ * comprehensive documentation.
+ */
+@RestController
+@RequestMapping("/api/branches")
+public class BranchController {
+
+  private final BranchService branches;
+
+  /**
+   * Constructs a BranchController with the given BranchService.
+   *
+   * @param branches the service to manage branches
+   * @throws IllegalArgumentException if branches is null
+   */
+  public BranchController(BranchService branches) {
+    if (branches == null) {
+      throw new IllegalArgumentException("BranchService cannot be null");
+    }
+    this.branches = branches;
+  }
+
+  /**
+   * Creates a new branch.
+   *
+   * @param branch the branch to create
+   * @return ResponseEntity containing the created branch or bad request if input is invalid
+   */
+  @PostMapping
+  public ResponseEntity<Branch> create(@Valid @RequestBody Branch branch) {
+    if (branch == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(branches.create(branch));
+  }
+
+  /**
+   * Retrieves a branch by its ID.
+   *
+   * @param id the ID of the branch
+   * @return ResponseEntity containing the found branch, or bad request if ID is invalid
+   */
+  @GetMapping("/{id}")
+  public ResponseEntity<Branch> get(@PathVariable Long id) {
+    if (id == null || id <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(branches.get(id));
+  }
+
+  /**
+   * Lists all branches.
+   *
+   * @return ResponseEntity containing the list of branches
+   */
+  @GetMapping
+  public ResponseEntity<List<Branch>> list() {
+    List<Branch> all = branches.getAll();
+    return ResponseEntity.ok(all == null ? List.of() : all);
+  }
+
+  /**
+   * Lists the copies held by a branch.
+   *
+   * @param id the ID of the branch
+   * @return ResponseEntity containing the branch's copy rows, or bad request if ID is invalid
+   */
+  @GetMapping("/{id}/copies")
+  public ResponseEntity<List<BranchCopy>> stock(@PathVariable Long id) {
+    if (id == null || id <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(branches.stock(id));
+  }
+
+  /**
+   * Sets the number of copies of a book owned by a branch.
+   *
+   * @param id     the ID of the branch
+   * @param bookId the ID of the book
+   * @param req    a map containing "totalCopies"
+   * @return ResponseEntity containing the updated copy row, or bad request if input is invalid
+   */
+  @PutMapping("/{id}/copies/{bookId}")
+  public ResponseEntity<BranchCopy> setCopies(@PathVariable Long id, @PathVariable Long bookId,
+      @RequestBody Map<String, Object> req) {
+    if (id == null || id <= 0 || bookId == null || bookId <= 0 || req == null
+        || req.get("totalCopies") == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    int totalCopies;
+    try {
+      totalCopies = Integer.parseInt(req.get("totalCopies").toString());
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    if (totalCopies < 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(branches.setCopies(id, bookId, totalCopies));
+  }
+}
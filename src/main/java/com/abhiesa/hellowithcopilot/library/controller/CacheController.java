@@ -0,0 +1,66 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.dto.CacheRegionStatsDto;
+import com.abhiesa.hellowithcopilot.library.service.CacheStatisticsService;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller surfacing second-level cache statistics to operators. Applies defensive
+ * programming and comprehensive documentation.
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+  private final CacheStatisticsService cacheStats;
+
+  /**
+   * Constructs a CacheController with the given CacheStatisticsService.
+   *
+   * @param cacheStats the service reading cache statistics
+   * @throws IllegalArgumentException if cacheStats is null
+   */
+  public CacheController(CacheStatisticsService cacheStats) {
+    if (cacheStats == null) {
+      throw new IllegalArgumentException("CacheStatisticsService cannot be null");
+    }
+    this.cacheStats = cacheStats;
+  }
+
+  /**
+   * Returns overall and per-region cache statistics. When Hibernate statistics are off, the body
+   * only says so rather than reporting counters that never move.
+   *
+   * @return ResponseEntity containing whether statistics are enabled and, if they are, the
+   *     summary counters and the region statistics
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<Map<String, Object>> stats() {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("statisticsEnabled", cacheStats.statisticsEnabled());
+    if (cacheStats.statisticsEnabled()) {
+      List<CacheRegionStatsDto> regions = cacheStats.regionStats();
+      body.put("summary", cacheStats.summary());
+      body.put("regions", regions);
+    }
+    return ResponseEntity.ok(body);
+  }
+
+  /**
+   * Evicts all second-level cache regions.
+   *
+   * @return ResponseEntity with no content
+   */
+  @DeleteMapping
+  public ResponseEntity<Void> evictAll() {
+    cacheStats.evictAll();
+    return ResponseEntity.noContent().build();
+  }
+}
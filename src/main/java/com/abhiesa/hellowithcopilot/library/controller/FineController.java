@@ -0,0 +1,51 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.FineAccrualRun;
+import com.abhiesa.hellowithcopilot.library.service.FineService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller letting operators run the fine accrual outside its nightly schedule. Applies
+ * defensive programming and comprehensive documentation.
+ */
+@RestController
+@RequestMapping("/api/admin/fines")
+public class FineController {
+
+  private final FineService fines;
+
+  /**
+   * Constructs a FineController with the given FineService.
+   *
+   * @param fines the service managing fines
+   * @throws IllegalArgumentException if fines is null
+   */
+  public FineController(FineService fines) {
+    if (fines == null) {
+      throw new IllegalArgumentException("FineService cannot be null");
+    }
+    this.fines = fines;
+  }
+
+  /**
+   * Runs the fine accrual now.
+   *
+   * @param mode "incremental" (default) or "full"
+   * @return ResponseEntity containing the finished run, or bad request if the mode is unknown
+   */
+  @PostMapping("/accruals")
+  public ResponseEntity<FineAccrualRun> accrue(
+      @RequestParam(defaultValue = "incremental") String mode) {
+    FineAccrualRun.Mode accrualMode;
+    try {
+      accrualMode = FineAccrualRun.Mode.valueOf(mode.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(fines.accrue(accrualMode));
+  }
+}
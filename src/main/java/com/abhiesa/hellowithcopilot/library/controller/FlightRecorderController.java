@@ -0,0 +1,75 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.dto.JfrRecordingDto;
+import com.abhiesa.hellowithcopilot.library.service.FlightRecorderService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller letting operators capture a Java Flight Recorder recording of the running
+ * application. Applies defensive programming and comprehensive documentation.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+public class FlightRecorderController {
+
+  private final FlightRecorderService recorder;
+
+  /**
+   * Constructs a FlightRecorderController with the given FlightRecorderService.
+   *
+   * @param recorder the service controlling recordings
+   * @throws IllegalArgumentException if recorder is null
+   */
+  public FlightRecorderController(FlightRecorderService recorder) {
+    if (recorder == null) {
+      throw new IllegalArgumentException("FlightRecorderService cannot be null");
+    }
+    this.recorder = recorder;
+  }
+
+  /**
+   * Describes the running recording.
+   *
+   * @return ResponseEntity containing the recording, or not found if none is running
+   */
+  @GetMapping
+  public ResponseEntity<JfrRecordingDto> status() {
+    return ResponseEntity.ok(recorder.status());
+  }
+
+  /**
+   * Starts a recording.
+   *
+   * @return ResponseEntity containing the started recording, or bad request if one is running
+   */
+  @PostMapping("/start")
+  public ResponseEntity<JfrRecordingDto> start() {
+    return ResponseEntity.ok(recorder.start());
+  }
+
+  /**
+   * Dumps the running recording to disk without stopping it.
+   *
+   * @return ResponseEntity containing the recording and dump file, or bad request if none is
+   * running
+   */
+  @PostMapping("/dump")
+  public ResponseEntity<JfrRecordingDto> dump() {
+    return ResponseEntity.ok(recorder.dump());
+  }
+
+  /**
+   * Stops the running recording and dumps it to disk.
+   *
+   * @return ResponseEntity containing the stopped recording and dump file, or bad request if none
+   * is running
+   */
+  @PostMapping("/stop")
+  public ResponseEntity<JfrRecordingDto> stop() {
+    return ResponseEntity.ok(recorder.stop());
+  }
+}
@@ -1,16 +1,38 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnItemDto;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnResultDto;
+import com.abhiesa.hellowithcopilot.library.dto.MemberLoansDto;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.export.LoanExportFormat;
 import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.service.BulkReturnService;
+import com.abhiesa.hellowithcopilot.library.service.CheckoutBatcher;
+import com.abhiesa.hellowithcopilot.library.service.JournaledLoanService;
+import com.abhiesa.hellowithcopilot.library.service.LoanExportService;
 import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.ShardedLoanService;
+import com.abhiesa.hellowithcopilot.library.support.Futures;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * REST controller for managing loan operations in the library. Applies defensive programming and
@@ -21,24 +43,75 @@ import org.springframework.web.bind.annotation.RestController;
 public class LoanController {
 
   private final LoanService loans;
+  private final LoanExportService exports;
+  private final BulkReturnService bulkReturns;
+  private final CheckoutBatcher checkouts;
+  private final ShardedLoanService sharded;
+  private final JournaledLoanService journaled;
+  private final Duration exportTimeout;
+  private final Duration inventoryTimeout;
 
   /**
-   * Constructs a LoanController with the given LoanService.
+   * Constructs a LoanController with the given services.
    *
-   * @param loans the service to manage loans
-   * @throws IllegalArgumentException if loans is null
+   * @param loans       the service to manage loans
+   * @param exports     the service exporting loans
+   * @param bulkReturns the service returning loans in bulk
+   * @param checkouts   the batcher applying checkouts with group commit when enabled
+   * @param sharded     the service applying checkouts and returns on the sharded inventory
+   *                    when enabled
+   * @param journaled   the service applying checkouts and returns on the inventory journal
+   *                    when enabled
+   * @param exportTimeout how long an export may run before the request times out
+   * @param inventoryTimeout how long a checkout or return waits for the sharded or journal
+   *                    engine
+   * @throws IllegalArgumentException if a service is null or a timeout is not positive
    */
-  public LoanController(LoanService loans) {
+  public LoanController(LoanService loans, LoanExportService exports,
+      BulkReturnService bulkReturns, CheckoutBatcher checkouts,
+      ShardedLoanService sharded, JournaledLoanService journaled,
+      @Value("${library.export.timeout:PT1H}") Duration exportTimeout,
+      @Value("${library.inventory.await-timeout:PT30S}") Duration inventoryTimeout) {
     if (loans == null) {
       throw new IllegalArgumentException("LoanService cannot be null");
     }
+    if (exports == null) {
+      throw new IllegalArgumentException("LoanExportService cannot be null");
+    }
+    if (bulkReturns == null) {
+      throw new IllegalArgumentException("BulkReturnService cannot be null");
+    }
+    if (checkouts == null) {
+      throw new IllegalArgumentException("CheckoutBatcher cannot be null");
+    }
+    if (sharded == null) {
+      throw new IllegalArgumentException("ShardedLoanService cannot be null");
+    }
+    if (journaled == null) {
+      throw new IllegalArgumentException("JournaledLoanService cannot be null");
+    }
+    if (exportTimeout == null || exportTimeout.isNegative() || exportTimeout.isZero()) {
+      throw new IllegalArgumentException("Export timeout must be positive");
+    }
+    if (inventoryTimeout == null || inventoryTimeout.isNegative() || inventoryTimeout.isZero()) {
+      throw new IllegalArgumentException("Inventory timeout must be positive");
+    }
     this.loans = loans;
+    this.exports = exports;
+    this.bulkReturns = bulkReturns;
+    this.checkouts = checkouts;
+    this.sharded = sharded;
+    this.journaled = journaled;
+    this.exportTimeout = exportTimeout;
+    this.inventoryTimeout = inventoryTimeout;
   }
 
   /**
-   * Checks out a book for a member.
+   * Checks out a book for a member. Checkouts without a branch go through the inventory journal
+   * or the sharded inventory when one is enabled, or are group-committed with concurrent ones
+   * when the batcher is enabled.
    *
-   * @param req a map containing "bookId", "memberId", and optional "days"
+   * @param req a map containing "bookId", "memberId", optional "days" and optional "branchId"
    * @return ResponseEntity containing the created Loan or bad request if input is invalid
    */
   @PostMapping("/checkout")
@@ -50,10 +123,22 @@ public class LoanController {
       long bookId = Long.parseLong(req.get("bookId").toString());
       long memberId = Long.parseLong(req.get("memberId").toString());
       int days = req.containsKey("days") ? Integer.parseInt(req.get("days").toString()) : 14;
-      if (bookId <= 0 || memberId <= 0 || days <= 0) {
+      Long branchId = req.get("branchId") != null ? Long.valueOf(req.get("branchId").toString()) : null;
+      if (bookId <= 0 || memberId <= 0 || days <= 0 || (branchId != null && branchId <= 0)) {
         return ResponseEntity.badRequest().build();
       }
-      Loan loan = loans.checkout(bookId, memberId, days);
+      Loan loan;
+      if (branchId != null) {
+        loan = loans.checkout(bookId, memberId, days, branchId);
+      } else if (journaled.enabled()) {
+        loan = Futures.await(journaled.checkout(bookId, memberId, days), inventoryTimeout);
+      } else if (sharded.enabled()) {
+        loan = Futures.await(sharded.checkout(bookId, memberId, days), inventoryTimeout);
+      } else if (checkouts.enabled()) {
+        loan = checkouts.checkout(bookId, memberId, days);
+      } else {
+        loan = loans.checkout(bookId, memberId, days);
+      }
       if (loan == null) {
         return ResponseEntity.notFound().build();
       }
@@ -74,7 +159,14 @@ public class LoanController {
     if (id == null || id <= 0) {
       return ResponseEntity.badRequest().build();
     }
-    Loan loan = loans.returnLoan(id);
+    Loan loan;
+    if (journaled.enabled()) {
+      loan = Futures.await(journaled.returnLoan(id), inventoryTimeout);
+    } else if (sharded.enabled()) {
+      loan = Futures.await(sharded.returnLoan(id), inventoryTimeout);
+    } else {
+      loan = loans.returnLoan(id);
+    }
     if (loan == null) {
       return ResponseEntity.notFound().build();
     }
@@ -82,21 +174,96 @@ public class LoanController {
   }
 
   /**
-   * Retrieves all loans for a specific member.
+   * Returns many loans at once, for example the contents of a drop box.
+   *
+   * @param items the loans to return, each by "loanId" or by "isbn" and "memberId" (library card)
+   * @return ResponseEntity containing the outcome of every item, or bad request if the list is
+   * missing or too long
+   */
+  @PostMapping("/returns")
+  public ResponseEntity<BulkReturnResultDto> returnAll(
+      @RequestBody(required = false) List<BulkReturnItemDto> items) {
+    if (items == null || items.size() > bulkReturns.maxItems()) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(bulkReturns.returnAll(items));
+  }
+
+  /**
+   * Retrieves all loans for a specific member, optionally only those made in a date range.
    *
    * @param memberId the ID of the member
-   * @return ResponseEntity containing the list of Loans for the member or bad request if ID is
+   * @param from     first loan date, ISO format, inclusive; given together with {@code to}
+   * @param to       last loan date, ISO format, inclusive; given together with {@code from}
+   * @return ResponseEntity containing the list of Loans for the member or bad request if input is
    * invalid
    */
   @GetMapping("/member/{memberId}")
-  public ResponseEntity<List<Loan>> byMember(@PathVariable Long memberId) {
-    if (memberId == null || memberId <= 0) {
+  public ResponseEntity<List<Loan>> byMember(@PathVariable Long memberId,
+      @RequestParam(required = false) String from, @RequestParam(required = false) String to) {
+    if (memberId == null || memberId <= 0 || (from == null) != (to == null)) {
       return ResponseEntity.badRequest().build();
     }
-    List<Loan> memberLoans = loans.memberLoans(memberId);
+    List<Loan> memberLoans;
+    if (from == null) {
+      memberLoans = loans.memberLoans(memberId);
+    } else {
+      LocalDate first;
+      LocalDate last;
+      try {
+        first = LocalDate.parse(from);
+        last = LocalDate.parse(to);
+      } catch (DateTimeParseException e) {
+        return ResponseEntity.badRequest().build();
+      }
+      if (first.isAfter(last)) {
+        return ResponseEntity.badRequest().build();
+      }
+      memberLoans = loans.memberLoans(memberId, first, last);
+    }
     return ResponseEntity.ok(memberLoans == null ? List.of() : memberLoans);
   }
 
+  /**
+   * Retrieves open loans past their due date among the loans made since a date. Bounding the
+   * loan date keeps the query to recent partitions where loans are partitioned by month.
+   *
+   * @param loanedSince first loan date considered, ISO format; defaults to one year ago
+   * @param limit       maximum number of loans, 1 to 1000
+   * @return ResponseEntity containing the overdue loans, longest overdue first, or bad request if
+   * input is invalid
+   */
+  @GetMapping("/overdue")
+  public ResponseEntity<List<Loan>> overdue(@RequestParam(required = false) String loanedSince,
+      @RequestParam(defaultValue = "100") int limit) {
+    if (limit <= 0 || limit > 1000) {
+      return ResponseEntity.badRequest().build();
+    }
+    LocalDate since;
+    try {
+      since = loanedSince == null ? LocalDate.now().minusYears(1) : LocalDate.parse(loanedSince);
+    } catch (DateTimeParseException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    List<Loan> overdueLoans = loans.overdueLoans(since, limit);
+    return ResponseEntity.ok(overdueLoans == null ? List.of() : overdueLoans);
+  }
+
+  /**
+   * Retrieves a member with all their loans and the loaned books in one response.
+   *
+   * @param memberId the ID of the member
+   * @return ResponseEntity containing the member's loans with books, or bad request if ID is
+   * invalid
+   */
+  @GetMapping("/member/{memberId}/expanded")
+  public ResponseEntity<MemberLoansDto> byMemberExpanded(@PathVariable Long memberId) {
+    if (memberId == null || memberId <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(loans.memberLoansExpanded(memberId));
+  }
+
   /**
    * Retrieves all loans in the system.
    *
@@ -107,4 +274,60 @@ public class LoanController {
     List<Loan> allLoans = loans.allLoans();
     return ResponseEntity.ok(allLoans == null ? List.of() : allLoans);
   }
-}
\ No newline at end of file
+
+  /**
+   * Streams the loans created in a date range as a file download. Rows are written as they are
+   * read from the database, so the response starts immediately and memory use does not depend on
+   * the number of loans. The body is gzip-compressed when the client accepts it. Large ranges take
+   * longer than the container's default async timeout, so the export carries its own.
+   *
+   * @param from           first loan date, ISO format, inclusive
+   * @param to             last loan date, ISO format, inclusive
+   * @param format         "csv" (default) or "columnar"
+   * @param acceptEncoding the client's Accept-Encoding header
+   * @param response       the response the export is written to
+   * @return WebAsyncTask writing the export with the export timeout
+   * @throws BusinessException if the dates or the format are invalid
+   */
+  @GetMapping("/export")
+  public WebAsyncTask<Void> export(@RequestParam String from,
+      @RequestParam String to, @RequestParam(defaultValue = "csv") String format,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      HttpServletResponse response) {
+    LocalDate first;
+    LocalDate last;
+    try {
+      first = LocalDate.parse(from);
+      last = LocalDate.parse(to);
+    } catch (DateTimeParseException e) {
+      throw new BusinessException("Invalid export date: " + e.getParsedString());
+    }
+    LoanExportFormat exportFormat = LoanExportFormat.fromName(format);
+    if (exportFormat == null) {
+      throw new BusinessException("Unknown export format: " + format);
+    }
+    if (first.isAfter(last)) {
+      throw new BusinessException("Export range starts after it ends");
+    }
+    boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    response.setHeader(HttpHeaders.CONTENT_TYPE, exportFormat.contentType());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"loans-" + first
+        + "-" + last + "." + exportFormat.extension() + "\"");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+      OutputStream out = response.getOutputStream();
+      if (gzip) {
+        try (OutputStream zipped = new GZIPOutputStream(out, 1 << 16)) {
+          exports.export(first, last, exportFormat, zipped);
+        }
+      } else {
+        exports.export(first, last, exportFormat, out);
+      }
+      out.flush();
+      return null;
+    });
+  }
+}
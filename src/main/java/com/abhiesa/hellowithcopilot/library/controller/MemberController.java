@@ -1,9 +1,13 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
+import com.abhiesa.hellowithcopilot.library.dto.MemberBalanceDto;
+import com.abhiesa.hellowithcopilot.library.model.FineLedgerEntry;
 import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.FineService;
 import com.abhiesa.hellowithcopilot.library.service.MemberService;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +16,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -23,18 +28,31 @@ import org.springframework.web.bind.annotation.RestController;
 public class MemberController {
 
   private final MemberService members;
+  private final FineService fines;
+  private final int maxBatchIds;
 
   /**
-   * Constructs a MemberController with the given MemberService.
+   * Constructs a MemberController with the given services.
    *
-   * @param members the service to manage members
-   * @throws IllegalArgumentException if members is null
+   * @param members     the service to manage members
+   * @param fines       the service reporting members' fines
+   * @param maxBatchIds maximum number of IDs accepted by the batch lookup
+   * @throws IllegalArgumentException if a service is null or maxBatchIds is not positive
    */
-  public MemberController(MemberService members) {
+  public MemberController(MemberService members, FineService fines,
+      @Value("${library.batch.max-ids:500}") int maxBatchIds) {
     if (members == null) {
       throw new IllegalArgumentException("MemberService cannot be null");
     }
+    if (fines == null) {
+      throw new IllegalArgumentException("FineService cannot be null");
+    }
+    if (maxBatchIds <= 0) {
+      throw new IllegalArgumentException("Batch limit must be positive");
+    }
     this.members = members;
+    this.fines = fines;
+    this.maxBatchIds = maxBatchIds;
   }
 
   /**
@@ -73,6 +91,76 @@ public class MemberController {
     return ResponseEntity.ok(found);
   }
 
+  /**
+   * Retrieves a member's outstanding fines.
+   *
+   * @param id the ID of the member
+   * @return ResponseEntity containing the balance, or bad request if ID is invalid
+   */
+  @GetMapping("/{id}/balance")
+  public ResponseEntity<MemberBalanceDto> balance(@PathVariable Long id) {
+    if (id == null || id <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(fines.balance(id));
+  }
+
+  /**
+   * Retrieves a member's most recent fine ledger entries.
+   *
+   * @param id    the ID of the member
+   * @param limit maximum number of entries, 50 by default
+   * @return ResponseEntity containing the entries newest first, or bad request if input is invalid
+   */
+  @GetMapping("/{id}/fines")
+  public ResponseEntity<List<FineLedgerEntry>> fines(@PathVariable Long id,
+      @RequestParam(defaultValue = "50") int limit) {
+    if (id == null || id <= 0 || limit <= 0 || limit > 1000) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(fines.ledger(id, limit));
+  }
+
+  /**
+   * Retrieves a member by library card string, as read by scanners.
+   *
+   * @param memberId the library card string
+   * @return ResponseEntity containing the found member, not found, or bad request if the card is
+   * blank
+   */
+  @GetMapping("/card/{memberId}")
+  public ResponseEntity<Member> getByCard(@PathVariable String memberId) {
+    if (memberId == null || memberId.isBlank()) {
+      return ResponseEntity.badRequest().build();
+    }
+    Member found = members.getByCard(memberId);
+    if (found == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(found);
+  }
+
+  /**
+   * Retrieves several members in one round trip.
+   *
+   * @param ids the IDs to look up, at most the configured batch limit
+   * @return ResponseEntity containing the members found in request order, or bad request if the
+   * batch is empty, too large or contains an invalid ID
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<List<Member>> batch(@RequestBody List<Long> ids) {
+    if (ids == null || ids.isEmpty() || ids.size() > maxBatchIds) {
+      return ResponseEntity.badRequest().build();
+    }
+    for (Long id : ids) {
+      if (id == null || id <= 0) {
+        return ResponseEntity.badRequest().build();
+      }
+    }
+    List<Member> found = members.getAll(ids);
+    return ResponseEntity.ok(found == null ? List.of() : found);
+  }
+
   /**
    * Lists all members.
    *
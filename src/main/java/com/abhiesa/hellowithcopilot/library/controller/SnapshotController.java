@@ -0,0 +1,91 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.snapshot.DatabaseSnapshotService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+/**
+ * REST controller letting operators export the database to a binary snapshot and restore it,
+ * to re-seed staging and performance environments quickly. Applies defensive programming and
+ * comprehensive documentation.
+ * A restore replaces every book, member and loan, and the endpoints are not authenticated, so the
+ * controller only exists where {@code library.snapshot.enabled} is true; it is off by default.
+ */
+@RestController
+@ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+@RequestMapping("/api/admin/snapshot")
+public class SnapshotController {
+
+  private final DatabaseSnapshotService snapshots;
+  private final Duration exportTimeout;
+
+  /**
+   * Constructs a SnapshotController with the given DatabaseSnapshotService.
+   *
+   * @param snapshots     the service exporting and restoring snapshots
+   * @param exportTimeout how long an export may run before the request times out
+   * @throws IllegalArgumentException if snapshots is null or the timeout is not positive
+   */
+  public SnapshotController(DatabaseSnapshotService snapshots,
+      @Value("${library.snapshot.timeout:PT1H}") Duration exportTimeout) {
+    if (snapshots == null) {
+      throw new IllegalArgumentException("DatabaseSnapshotService cannot be null");
+    }
+    if (exportTimeout == null || exportTimeout.isNegative() || exportTimeout.isZero()) {
+      throw new IllegalArgumentException("Export timeout must be positive");
+    }
+    this.snapshots = snapshots;
+    this.exportTimeout = exportTimeout;
+  }
+
+  /**
+   * Streams a snapshot of the books, authors, members and loans. A full database takes longer
+   * than the container's default async timeout, so the export carries its own.
+   *
+   * @param response the response the snapshot is written to
+   * @return WebAsyncTask writing the snapshot as an attachment with the export timeout
+   */
+  @GetMapping
+  public WebAsyncTask<Void> export(HttpServletResponse response) {
+    response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"library-" + LocalDate.now() + ".snapshot\"");
+    return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+      OutputStream out = response.getOutputStream();
+      snapshots.export(out);
+      out.flush();
+      return null;
+    });
+  }
+
+  /**
+   * Replaces the books, authors, members and loans with the snapshot in the request body.
+   *
+   * @param body the snapshot, as returned by {@link #export(HttpServletResponse)}
+   * @return ResponseEntity containing the restored row count per table, or bad request if the
+   *     body is not a snapshot of the current schema
+   */
+  @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<Map<String, Long>> restore(InputStream body) {
+    try {
+      return ResponseEntity.ok(snapshots.restore(body));
+    } catch (IOException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object with the availability of a book summed over all branches.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAvailabilityDto {
+  /**
+   * Book ID.
+   */
+  private Long bookId;
+
+  /**
+   * Copies owned across all branches, or the book's own count if no branch stocks it.
+   */
+  private int totalCopies;
+
+  /**
+   * Copies on the shelf across all branches, or the book's own count if no branch stocks it.
+   */
+  private int availableCopies;
+
+  /**
+   * Per-branch breakdown; empty if no branch stocks the book.
+   */
+  private List<BranchAvailabilityDto> branches;
+}
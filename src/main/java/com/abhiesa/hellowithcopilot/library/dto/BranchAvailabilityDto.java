@@ -0,0 +1,33 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object with the copy counts of one book at one branch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchAvailabilityDto {
+  /**
+   * Branch ID.
+   */
+  private Long branchId;
+
+  /**
+   * Branch code.
+   */
+  private String branchCode;
+
+  /**
+   * Copies owned by the branch.
+   */
+  private int totalCopies;
+
+  /**
+   * Copies on the shelf at the branch.
+   */
+  private int availableCopies;
+}
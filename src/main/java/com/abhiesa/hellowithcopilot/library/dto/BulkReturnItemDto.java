@@ -0,0 +1,29 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one book in a bulk return. Either the loan ID is given, or the book's
+ * ISBN together with the borrower's library card.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReturnItemDto {
+  /**
+   * ID of the loan to return.
+   */
+  private Long loanId;
+
+  /**
+   * ISBN of the returned book, used when loanId is absent.
+   */
+  private String isbn;
+
+  /**
+   * Library card of the borrower, used when loanId is absent.
+   */
+  private String memberId;
+}
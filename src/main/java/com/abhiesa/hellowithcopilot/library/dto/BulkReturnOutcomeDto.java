@@ -0,0 +1,44 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the result of one item of a bulk return.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReturnOutcomeDto {
+  /**
+   * Result of a bulk return item.
+   */
+  public enum Outcome {
+    /** The loan was returned. */
+    RETURNED,
+    /** No such loan, or no active loan of that book for that card. */
+    NOT_FOUND,
+    /** The loan was already returned or is otherwise not active. */
+    NOT_ACTIVE,
+    /** The same loan was named earlier in the request. */
+    DUPLICATE,
+    /** The item names neither a loan nor an ISBN and card. */
+    INVALID
+  }
+
+  /**
+   * Position of the item in the request.
+   */
+  private int index;
+
+  /**
+   * ID of the loan the item resolved to, or null if none.
+   */
+  private Long loanId;
+
+  /**
+   * What happened to the item.
+   */
+  private Outcome outcome;
+}
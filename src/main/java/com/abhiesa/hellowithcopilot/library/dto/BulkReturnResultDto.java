@@ -0,0 +1,24 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the result of a bulk return.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReturnResultDto {
+  /**
+   * Number of loans returned.
+   */
+  private int returned;
+
+  /**
+   * Outcome of every item, in request order.
+   */
+  private List<BulkReturnOutcomeDto> items;
+}
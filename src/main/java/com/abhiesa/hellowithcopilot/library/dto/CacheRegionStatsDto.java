@@ -0,0 +1,38 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object describing hit/miss counters of one second-level cache region.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+  /**
+   * Name of the cache region.
+   */
+  private String region;
+
+  /**
+   * Number of successful lookups in the region.
+   */
+  private long hits;
+
+  /**
+   * Number of lookups that missed the region and went to the database.
+   */
+  private long misses;
+
+  /**
+   * Number of entries put into the region.
+   */
+  private long puts;
+
+  /**
+   * Number of entries currently held in memory, or -1 if the provider does not report it.
+   */
+  private long entriesInMemory;
+}
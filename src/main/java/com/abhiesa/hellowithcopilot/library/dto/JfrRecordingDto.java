@@ -0,0 +1,39 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object describing a Flight Recorder recording started through the admin API.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JfrRecordingDto {
+  /**
+   * Recording ID assigned by the JVM.
+   */
+  private long id;
+
+  /**
+   * Recording name.
+   */
+  private String name;
+
+  /**
+   * Recording state, such as RUNNING or STOPPED.
+   */
+  private String state;
+
+  /**
+   * When the recording started, or null if it has not started.
+   */
+  private Instant startTime;
+
+  /**
+   * Absolute path of the last dump, or null if the recording has not been dumped.
+   */
+  private String file;
+}
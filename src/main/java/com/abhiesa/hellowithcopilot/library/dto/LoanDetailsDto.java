@@ -0,0 +1,25 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object pairing a loan with the book it refers to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDetailsDto {
+  /**
+   * The loan.
+   */
+  private Loan loan;
+
+  /**
+   * The loaned book, or null if the book no longer exists.
+   */
+  private Book book;
+}
@@ -0,0 +1,29 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a member's outstanding fines.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberBalanceDto {
+  /**
+   * Member ID.
+   */
+  private Long memberId;
+
+  /**
+   * Outstanding fines in cents.
+   */
+  private long balanceCents;
+
+  /**
+   * Time the balance last changed, or null if the member was never fined.
+   */
+  private Instant updatedAt;
+}
@@ -0,0 +1,25 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a member together with all their loans and the loaned books.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberLoansDto {
+  /**
+   * The member.
+   */
+  private Member member;
+
+  /**
+   * The member's loans, each with its book.
+   */
+  private List<LoanDetailsDto> loans;
+}
@@ -0,0 +1,24 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a book borrowed by the same members as another book.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedBookDto {
+  /**
+   * The related book.
+   */
+  private Book book;
+
+  /**
+   * Number of members who borrowed both books.
+   */
+  private int borrowedTogether;
+}
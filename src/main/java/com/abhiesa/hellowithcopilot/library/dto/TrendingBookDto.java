@@ -0,0 +1,25 @@
+package com.abhiesa.hellowithcopilot.library.dto;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a book on the trending shelf.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingBookDto {
+  /**
+   * The trending book.
+   */
+  private Book book;
+
+  /**
+   * Checkouts in the window, each weighted down by its age; an estimate that may run slightly
+   * high.
+   */
+  private double score;
+}
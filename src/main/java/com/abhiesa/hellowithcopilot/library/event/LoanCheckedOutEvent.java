@@ -0,0 +1,15 @@
+package com.abhiesa.hellowithcopilot.library.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by the loan service when a book has been checked out.
+ * Listeners that need the committed state should use a transactional event listener.
+ *
+ * @param loanId ID of the new loan
+ * @param memberId ID of the borrowing member
+ * @param bookId ID of the loaned book
+ * @param dueDate date the book is due back
+ */
+public record LoanCheckedOutEvent(Long loanId, Long memberId, Long bookId, LocalDate dueDate) {
+}
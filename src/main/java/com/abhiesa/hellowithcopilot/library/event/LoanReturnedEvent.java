@@ -0,0 +1,14 @@
+package com.abhiesa.hellowithcopilot.library.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by the loan service when a loaned book has been returned.
+ *
+ * @param loanId ID of the returned loan
+ * @param memberId ID of the borrowing member
+ * @param bookId ID of the returned book
+ * @param returnedDate date the book came back
+ */
+public record LoanReturnedEvent(Long loanId, Long memberId, Long bookId, LocalDate returnedDate) {
+}
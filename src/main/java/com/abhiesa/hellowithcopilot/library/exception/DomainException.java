@@ -0,0 +1,46 @@
+package com.abhiesa.hellowithcopilot.library.exception;
+
+/**
+ * Base class for expected domain failures that are answered with a 4xx response.
+ * These are part of normal traffic (unknown IDs, rule violations), so they do not capture a stack
+ * trace when thrown, which is most of the cost of throwing. For debugging,
+ * {@code library.errors.capture-stack-traces=true} has {@link GlobalExceptionHandler} fill in and
+ * log the trace where it handles the failure.
+ * Defensive programming: always requires a non-null, non-empty message.
+ */
+public abstract class DomainException extends RuntimeException {
+
+  /**
+   * Constructs a DomainException with a detail message.
+   * @param msg the detail message (must not be null or empty)
+   * @throws IllegalArgumentException if msg is null or empty
+   */
+  protected DomainException(String msg) {
+    super(validateMessage(msg), null, false, true);
+  }
+
+  /**
+   * Skipped while the exception is constructed; see {@link #captureStackTrace}.
+   * @return this exception
+   */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+
+  /**
+   * Records the current thread's stack as this exception's stack trace.
+   * @return this exception
+   */
+  DomainException captureStackTrace() {
+    super.fillInStackTrace();
+    return this;
+  }
+
+  private static String validateMessage(String msg) {
+    if (msg == null || msg.trim().isEmpty()) {
+      throw new IllegalArgumentException("Exception message cannot be null or empty");
+    }
+    return msg;
+  }
+}
@@ -1,13 +1,15 @@
 package com.abhiesa.hellowithcopilot.library.exception;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Handles exceptions globally for the application and returns RFC 7807 compliant HTTP responses.
+ * Expected domain failures (4xx) are answered from pre-serialized {@link ProblemTemplate}s and are
+ * not logged unless stack trace capture is configured for debugging; unexpected errors always are.
  * Defensive programming: validates exception objects and logs unexpected errors.
  */
 @RestControllerAdvice
@@ -15,6 +17,26 @@ public class GlobalExceptionHandler {
 
   private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+  private static final ProblemTemplate NOT_FOUND =
+      new ProblemTemplate(404, "Not Found", "Resource not found");
+  private static final ProblemTemplate BUSINESS_ERROR =
+      new ProblemTemplate(400, "Business Error", "Business rule violation");
+  private static final ProblemTemplate INTERNAL_ERROR =
+      new ProblemTemplate(500, "Internal Server Error", "Internal server error");
+
+  private final boolean captureStackTraces;
+
+  /**
+   * Constructs the handler.
+   *
+   * @param captureStackTraces whether to fill in and log the stack trace of handled domain
+   *     exceptions, for debugging
+   */
+  public GlobalExceptionHandler(
+      @Value("${library.errors.capture-stack-traces:false}") boolean captureStackTraces) {
+    this.captureStackTraces = captureStackTraces;
+  }
+
   /**
    * Handles NotFoundException and returns a 404 RFC 7807 response.
    *
@@ -22,19 +44,9 @@ public class GlobalExceptionHandler {
    * @return ResponseEntity with problem details and 404 status
    */
   @ExceptionHandler(NotFoundException.class)
-  public ResponseEntity<?> notFound(NotFoundException ex) {
-    String detail = (ex != null && ex.getMessage() != null && !ex.getMessage().isBlank())
-      ? ex.getMessage()
-      : "Resource not found";
-    return ResponseEntity
-      .status(404)
-      .header("Content-Type", "application/problem+json")
-      .body(Map.of(
-        "type", "https://httpstatuses.com/404",
-        "title", "Not Found",
-        "status", 404,
-        "detail", detail
-      ));
+  public ResponseEntity<byte[]> notFound(NotFoundException ex) {
+    debug(ex);
+    return NOT_FOUND.response(ex == null ? null : ex.getMessage());
   }
 
   /**
@@ -44,19 +56,9 @@ public class GlobalExceptionHandler {
    * @return ResponseEntity with problem details and 400 status
    */
   @ExceptionHandler(BusinessException.class)
-  public ResponseEntity<?> business(BusinessException ex) {
-    String detail = (ex != null && ex.getMessage() != null && !ex.getMessage().isBlank())
-      ? ex.getMessage()
-      : "Business rule violation";
-    return ResponseEntity
-      .status(400)
-      .header("Content-Type", "application/problem+json")
-      .body(Map.of(
-        "type", "https://httpstatuses.com/400",
-        "title", "Business Error",
-        "status", 400,
-        "detail", detail
-      ));
+  public ResponseEntity<byte[]> business(BusinessException ex) {
+    debug(ex);
+    return BUSINESS_ERROR.response(ex == null ? null : ex.getMessage());
   }
 
   /**
@@ -66,19 +68,14 @@ public class GlobalExceptionHandler {
    * @return ResponseEntity with problem details and 500 status
    */
   @ExceptionHandler(Exception.class)
-  public ResponseEntity<?> generic(Exception ex) {
+  public ResponseEntity<byte[]> generic(Exception ex) {
     logger.error("Unhandled exception", ex);
-    String detail = (ex != null && ex.getMessage() != null && !ex.getMessage().isBlank())
-      ? ex.getMessage()
-      : "Internal server error";
-    return ResponseEntity
-      .status(500)
-      .header("Content-Type", "application/problem+json")
-      .body(Map.of(
-        "type", "https://httpstatuses.com/500",
-        "title", "Internal Server Error",
-        "status", 500,
-        "detail", detail
-      ));
+    return INTERNAL_ERROR.response(ex == null ? null : ex.getMessage());
+  }
+
+  private void debug(DomainException ex) {
+    if (captureStackTraces && ex != null) {
+      logger.info("Domain failure: {}", ex.getMessage(), ex.captureStackTrace());
+    }
   }
-}
\ No newline at end of file
+}
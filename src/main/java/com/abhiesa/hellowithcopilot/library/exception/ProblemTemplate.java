@@ -0,0 +1,61 @@
+package com.abhiesa.hellowithcopilot.library.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Pre-serialized RFC 7807 problem body for one status. Everything except the detail is encoded
+ * once; rendering a response only escapes the detail and copies three byte arrays.
+ */
+public final class ProblemTemplate {
+
+  private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final int status;
+  private final byte[] prefix;
+  private final byte[] defaultBody;
+  private final HttpHeaders headers;
+
+  /**
+   * Builds the template.
+   * @param status HTTP status code
+   * @param title problem title
+   * @param defaultDetail detail used when none is given
+   * @throws IllegalArgumentException if title or defaultDetail is null
+   */
+  public ProblemTemplate(int status, String title, String defaultDetail) {
+    if (title == null || defaultDetail == null) {
+      throw new IllegalArgumentException("Title and default detail cannot be null");
+    }
+    this.status = status;
+    this.prefix = ("{\"type\":\"https://httpstatuses.com/" + status + "\",\"title\":\""
+        + new String(JsonStringEncoder.getInstance().quoteAsString(title)) + "\",\"status\":"
+        + status + ",\"detail\":\"").getBytes(StandardCharsets.UTF_8);
+    this.defaultBody = render(defaultDetail);
+    HttpHeaders h = new HttpHeaders();
+    h.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+    this.headers = HttpHeaders.readOnlyHttpHeaders(h);
+  }
+
+  /**
+   * Builds the response for a detail message.
+   * @param detail problem detail, or null/blank for the default detail
+   * @return response with status, problem+json content type and serialized body
+   */
+  public ResponseEntity<byte[]> response(String detail) {
+    byte[] body = detail == null || detail.isBlank() ? defaultBody : render(detail);
+    return new ResponseEntity<>(body, headers, status);
+  }
+
+  private byte[] render(String detail) {
+    byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(detail);
+    byte[] body = Arrays.copyOf(prefix, prefix.length + escaped.length + SUFFIX.length);
+    System.arraycopy(escaped, 0, body, prefix.length, escaped.length);
+    System.arraycopy(SUFFIX, 0, body, prefix.length + escaped.length, SUFFIX.length);
+    return body;
+  }
+}
@@ -0,0 +1,150 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Compact column-oriented binary export, laid out like a Parquet file without the footer so it can
+ * be written in one pass:
+ * <pre>
+ * magic "LOANCOL1", column count (byte), then per column: name (UTF), type (byte)
+ * row groups: row count (int), then every column of the group stored contiguously
+ * end marker: row count 0
+ * </pre>
+ * Integer columns are zig-zag varints; IDs and dates are stored as deltas from the previous row,
+ * so the sorted ID column costs about one byte per row. Nullable columns are preceded by a
+ * presence bitmap. Dates are epoch days and status is the enum ordinal. Rows are buffered one
+ * group at a time in primitive arrays, so memory is fixed by the group size.
+ */
+public final class ColumnarLoanWriter implements LoanRowWriter {
+
+  static final byte[] MAGIC = "LOANCOL1".getBytes(StandardCharsets.US_ASCII);
+
+  /** Delta-encoded zig-zag varint of a non-null 64-bit value. */
+  static final byte TYPE_DELTA_VARINT = 1;
+  /** Presence bitmap followed by delta-encoded zig-zag varints of the present values. */
+  static final byte TYPE_NULLABLE_DELTA_VARINT = 2;
+  /** One byte per row. */
+  static final byte TYPE_BYTE = 3;
+
+  static final String[] COLUMNS =
+      {"id", "memberId", "bookId", "loanDate", "dueDate", "returnedDate", "status", "branchId"};
+  static final byte[] TYPES = {TYPE_DELTA_VARINT, TYPE_DELTA_VARINT, TYPE_DELTA_VARINT,
+      TYPE_DELTA_VARINT, TYPE_DELTA_VARINT, TYPE_NULLABLE_DELTA_VARINT, TYPE_BYTE,
+      TYPE_NULLABLE_DELTA_VARINT};
+
+  private final DataOutputStream out;
+  private final int groupSize;
+  private final long[][] values = new long[COLUMNS.length][];
+  private final boolean[][] present = new boolean[COLUMNS.length][];
+  private int rows;
+
+  /**
+   * Starts a columnar document.
+   * @param target stream to write to; not closed by this writer
+   * @param groupSize rows per row group
+   * @throws IOException if the header cannot be written
+   * @throws IllegalArgumentException if groupSize is not positive
+   */
+  public ColumnarLoanWriter(OutputStream target, int groupSize) throws IOException {
+    if (groupSize <= 0) {
+      throw new IllegalArgumentException("Row group size must be positive");
+    }
+    this.out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+    this.groupSize = groupSize;
+    for (int c = 0; c < COLUMNS.length; c++) {
+      values[c] = new long[groupSize];
+      present[c] = new boolean[groupSize];
+    }
+    out.write(MAGIC);
+    out.writeByte(COLUMNS.length);
+    for (int c = 0; c < COLUMNS.length; c++) {
+      out.writeUTF(COLUMNS[c]);
+      out.writeByte(TYPES[c]);
+    }
+  }
+
+  @Override
+  public void write(LoanExportRow row) throws IOException {
+    set(0, row.id());
+    set(1, row.memberId());
+    set(2, row.bookId());
+    set(3, epochDay(row.loanDate()));
+    set(4, epochDay(row.dueDate()));
+    set(5, epochDay(row.returnedDate()));
+    LoanStatus status = row.status();
+    set(6, status == null ? -1L : (long) status.ordinal());
+    set(7, row.branchId());
+    if (++rows == groupSize) {
+      flushGroup();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flushGroup();
+    out.writeInt(0);
+    out.flush();
+  }
+
+  private void set(int column, Long value) {
+    present[column][rows] = value != null;
+    values[column][rows] = value == null ? 0 : value;
+  }
+
+  private void flushGroup() throws IOException {
+    if (rows == 0) {
+      return;
+    }
+    out.writeInt(rows);
+    for (int c = 0; c < COLUMNS.length; c++) {
+      if (TYPES[c] == TYPE_BYTE) {
+        for (int r = 0; r < rows; r++) {
+          out.writeByte((int) values[c][r]);
+        }
+        continue;
+      }
+      if (TYPES[c] == TYPE_NULLABLE_DELTA_VARINT) {
+        writeBitmap(present[c]);
+      }
+      long previous = 0;
+      for (int r = 0; r < rows; r++) {
+        if (present[c][r] || TYPES[c] == TYPE_DELTA_VARINT) {
+          writeVarLong(values[c][r] - previous);
+          previous = values[c][r];
+        }
+      }
+    }
+    rows = 0;
+  }
+
+  private void writeBitmap(boolean[] flags) throws IOException {
+    for (int r = 0; r < rows; r += 8) {
+      int bits = 0;
+      for (int b = 0; b < 8 && r + b < rows; b++) {
+        if (flags[r + b]) {
+          bits |= 1 << b;
+        }
+      }
+      out.writeByte(bits);
+    }
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    out.writeByte((int) zigZag);
+  }
+
+  private static Long epochDay(LocalDate date) {
+    return date == null ? null : date.toEpochDay();
+  }
+}
@@ -0,0 +1,61 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV with a header line. Every column is a number, an ISO date or an enum constant, so
+ * no value needs quoting; empty fields stand for null.
+ */
+public final class CsvLoanWriter implements LoanRowWriter {
+
+  static final String HEADER = "id,memberId,bookId,loanDate,dueDate,returnedDate,status,branchId";
+
+  private final Writer out;
+
+  /**
+   * Starts a CSV document.
+   * @param target stream to write to; not closed by this writer
+   * @throws IOException if the header cannot be written
+   */
+  public CsvLoanWriter(OutputStream target) throws IOException {
+    this.out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 1 << 16);
+    out.write(HEADER);
+    out.write("\r\n");
+  }
+
+  @Override
+  public void write(LoanExportRow row) throws IOException {
+    out.write(String.valueOf(row.id()));
+    out.write(',');
+    field(row.memberId());
+    out.write(',');
+    field(row.bookId());
+    out.write(',');
+    field(row.loanDate());
+    out.write(',');
+    field(row.dueDate());
+    out.write(',');
+    field(row.returnedDate());
+    out.write(',');
+    field(row.status());
+    out.write(',');
+    field(row.branchId());
+    out.write("\r\n");
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.flush();
+  }
+
+  private void field(Object value) throws IOException {
+    if (value != null) {
+      out.write(value.toString());
+    }
+  }
+}
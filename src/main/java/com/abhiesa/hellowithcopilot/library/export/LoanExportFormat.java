@@ -0,0 +1,65 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Formats of the loan export.
+ */
+public enum LoanExportFormat {
+  /** Comma-separated values with a header line. */
+  CSV("csv", "text/csv;charset=UTF-8", "csv"),
+  /** {@link ColumnarLoanWriter} binary layout. */
+  COLUMNAR("columnar", "application/octet-stream", "lcol");
+
+  private final String label;
+  private final String contentType;
+  private final String extension;
+
+  LoanExportFormat(String label, String contentType, String extension) {
+    this.label = label;
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  /**
+   * Looks a format up by its request parameter value, ignoring case.
+   * @param name format name
+   * @return the format, or null if there is none by that name
+   */
+  public static LoanExportFormat fromName(String name) {
+    for (LoanExportFormat format : values()) {
+      if (format.label.equalsIgnoreCase(name)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * MIME type of the response body before any content encoding.
+   * @return content type
+   */
+  public String contentType() {
+    return contentType;
+  }
+
+  /**
+   * File extension suggested for downloads.
+   * @return extension without the dot
+   */
+  public String extension() {
+    return extension;
+  }
+
+  /**
+   * Opens a writer in this format.
+   * @param target stream to write to
+   * @param rowGroupSize rows per group, for formats that group rows
+   * @return the writer
+   * @throws IOException if the header cannot be written
+   */
+  public LoanRowWriter open(OutputStream target, int rowGroupSize) throws IOException {
+    return this == CSV ? new CsvLoanWriter(target) : new ColumnarLoanWriter(target, rowGroupSize);
+  }
+}
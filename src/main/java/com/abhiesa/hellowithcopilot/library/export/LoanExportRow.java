@@ -0,0 +1,21 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import java.time.LocalDate;
+
+/**
+ * One exported loan, read as a projection so that streaming the table never fills the
+ * persistence context with entities.
+ *
+ * @param id loan ID
+ * @param memberId member ID
+ * @param bookId book ID
+ * @param loanDate date the loan was created
+ * @param dueDate due date
+ * @param returnedDate return date, or null while the book is out
+ * @param status loan status
+ * @param branchId branch the copy came from, or null
+ */
+public record LoanExportRow(Long id, Long memberId, Long bookId, LocalDate loanDate,
+    LocalDate dueDate, LocalDate returnedDate, LoanStatus status, Long branchId) {
+}
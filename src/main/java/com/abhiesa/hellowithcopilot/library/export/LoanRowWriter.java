@@ -0,0 +1,25 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import java.io.IOException;
+
+/**
+ * Writes exported loans to an output stream one row at a time, holding at most a fixed-size
+ * buffer, so an export of any length runs in constant heap.
+ */
+public interface LoanRowWriter extends AutoCloseable {
+
+  /**
+   * Writes one loan.
+   * @param row the loan
+   * @throws IOException if the underlying stream fails
+   */
+  void write(LoanExportRow row) throws IOException;
+
+  /**
+   * Writes any buffered rows and the format trailer, and flushes without closing the target
+   * stream.
+   * @throws IOException if the underlying stream fails
+   */
+  @Override
+  void close() throws IOException;
+}
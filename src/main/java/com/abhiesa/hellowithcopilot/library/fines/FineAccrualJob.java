@@ -0,0 +1,209 @@
+package com.abhiesa.hellowithcopilot.library.fines;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.model.FineAccrualRun;
+import com.abhiesa.hellowithcopilot.library.model.JobLock;
+import com.abhiesa.hellowithcopilot.library.repository.FineAccrualRunRepository;
+import com.abhiesa.hellowithcopilot.library.repository.FineLedgerRepository;
+import com.abhiesa.hellowithcopilot.library.repository.JobLockRepository;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.repository.MemberBalanceRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Computes overdue fines and keeps the members' balances up to date.
+ * Loans are walked in ID order in chunks, each in its own transaction. For a chunk the database
+ * does all the work in four set-based statements: append a ledger entry for every loan whose fine
+ * changed, create missing balance rows, add the chunk's entries to the balances, and mark loans
+ * past their due date overdue. No loan entity is loaded.
+ * The nightly run is incremental: it examines only loans still out past their due date, whose
+ * fines grow every day, and loans changed since the previous run started. A full run examines
+ * every loan and repairs any drift; it is used when no run has finished yet.
+ * Every chunk writes the difference between a loan's fine and its ledger, so two runs at once
+ * would both write it. Runs therefore hold a lease in the database, renewed with every chunk, and
+ * only one instance accrues at a time however many share the database.
+ */
+@Component
+public class FineAccrualJob {
+
+  private static final Logger logger = LoggerFactory.getLogger(FineAccrualJob.class);
+  private static final String LOCK = "fine-accrual";
+
+  private final LoanRepository loans;
+  private final FineLedgerRepository ledger;
+  private final MemberBalanceRepository balances;
+  private final FineAccrualRunRepository runs;
+  private final JobLockRepository locks;
+  private final TransactionTemplate tx;
+  private final Clock clock;
+  private final long dailyRateCents;
+  private final long maxPerLoanCents;
+  private final int chunkSize;
+  private final Duration lease;
+
+  /**
+   * Constructs the job.
+   * @param loans LoanRepository instance
+   * @param ledger FineLedgerRepository instance
+   * @param balances MemberBalanceRepository instance
+   * @param runs FineAccrualRunRepository instance
+   * @param locks JobLockRepository holding the run lease
+   * @param transactionManager transaction manager each chunk runs in
+   * @param clock clock giving the accrual date
+   * @param dailyRateCents fine per overdue day in cents
+   * @param maxPerLoanCents maximum fine per loan in cents
+   * @param chunkSize loans per chunk
+   * @param lease time a run holds the lease without finishing a chunk
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public FineAccrualJob(LoanRepository loans, FineLedgerRepository ledger,
+      MemberBalanceRepository balances, FineAccrualRunRepository runs, JobLockRepository locks,
+      PlatformTransactionManager transactionManager, Clock clock,
+      @Value("${library.fines.daily-rate-cents:25}") long dailyRateCents,
+      @Value("${library.fines.max-per-loan-cents:1000}") long maxPerLoanCents,
+      @Value("${library.fines.chunk-size:1000}") int chunkSize,
+      @Value("${library.fines.lock-lease:PT10M}") Duration lease) {
+    if (loans == null || ledger == null || balances == null || runs == null || locks == null
+        || transactionManager == null || clock == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (dailyRateCents < 0 || maxPerLoanCents < 0 || chunkSize <= 0 || lease == null
+        || lease.isNegative() || lease.isZero()) {
+      throw new IllegalArgumentException("Invalid fine settings");
+    }
+    this.loans = loans;
+    this.ledger = ledger;
+    this.balances = balances;
+    this.runs = runs;
+    this.locks = locks;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.clock = clock;
+    this.dailyRateCents = dailyRateCents;
+    this.maxPerLoanCents = maxPerLoanCents;
+    this.chunkSize = chunkSize;
+    this.lease = lease;
+  }
+
+  /**
+   * Nightly incremental accrual. Every instance fires it; the first to take the lease runs it.
+   */
+  @Scheduled(cron = "${library.fines.accrual-cron:0 15 2 * * *}")
+  public void nightly() {
+    if (tryRun(FineAccrualRun.Mode.INCREMENTAL).isEmpty()) {
+      logger.info("Fine accrual skipped: another run holds the lease");
+    }
+  }
+
+  /**
+   * Accrues fines up to today.
+   * @param mode which loans to examine; incremental falls back to full if no run has finished
+   * @return the finished run
+   * @throws IllegalArgumentException if mode is null
+   * @throws BusinessException if another run is in progress
+   */
+  public FineAccrualRun run(FineAccrualRun.Mode mode) {
+    if (mode == null) {
+      throw new IllegalArgumentException("Accrual mode cannot be null");
+    }
+    return tryRun(mode)
+        .orElseThrow(() -> new BusinessException("Fine accrual is already running"));
+  }
+
+  private Optional<FineAccrualRun> tryRun(FineAccrualRun.Mode mode) {
+    String holder = UUID.randomUUID().toString();
+    if (!claim(holder)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(accrue(mode, holder));
+    } finally {
+      tx.executeWithoutResult(status -> locks.release(LOCK, holder));
+    }
+  }
+
+  private boolean claim(String holder) {
+    if (renew(holder)) {
+      return true;
+    }
+    if (locks.existsById(LOCK)) {
+      return false;
+    }
+    try {
+      tx.executeWithoutResult(status -> locks.save(new JobLock(LOCK, null, null)));
+    } catch (DataIntegrityViolationException e) {
+      // Another instance created the row first.
+    }
+    return renew(holder);
+  }
+
+  private boolean renew(String holder) {
+    Instant now = clock.instant();
+    Integer claimed = tx.execute(status -> locks.claim(LOCK, holder, now, now.plus(lease)));
+    return claimed != null && claimed == 1;
+  }
+
+  private FineAccrualRun accrue(FineAccrualRun.Mode mode, String holder) {
+    Instant since = mode == FineAccrualRun.Mode.INCREMENTAL
+        ? runs.findFirstByFinishedAtIsNotNullOrderByFinishedAtDesc()
+            .map(FineAccrualRun::getStartedAt).orElse(null)
+        : null;
+    FineAccrualRun.Mode effective = since == null ? FineAccrualRun.Mode.FULL : mode;
+    LocalDate asOf = LocalDate.now(clock);
+    FineAccrualRun run = runs.save(
+        new FineAccrualRun(null, effective, asOf, clock.instant(), null, 0, 0));
+
+    long after = 0;
+    long examined = 0;
+    long written = 0;
+    while (true) {
+      List<Long> ids = since == null
+          ? loans.findIdsAfter(after, Limit.of(chunkSize))
+          : loans.findAccrualCandidateIdsAfter(after, asOf, since, Limit.of(chunkSize));
+      if (ids.isEmpty()) {
+        break;
+      }
+      Integer entries = tx.execute(status -> accrueChunk(ids, asOf, run.getId(), holder));
+      written += entries == null ? 0 : entries;
+      examined += ids.size();
+      after = ids.get(ids.size() - 1);
+    }
+
+    run.setLoansExamined(examined);
+    run.setEntriesWritten(written);
+    run.setFinishedAt(clock.instant());
+    FineAccrualRun finished = runs.save(run);
+    logger.info("{} fine accrual as of {}: {} loans examined, {} ledger entries written",
+        effective, asOf, examined, written);
+    return finished;
+  }
+
+  private int accrueChunk(List<Long> ids, LocalDate asOf, Long runId, String holder) {
+    Instant now = clock.instant();
+    // Renewed in the chunk's transaction, so a run that lost its lease writes nothing more.
+    if (locks.claim(LOCK, holder, now, now.plus(lease)) == 0) {
+      throw new IllegalStateException("Fine accrual lease lost");
+    }
+    int entries = ledger.accrue(ids, asOf, dailyRateCents, maxPerLoanCents, runId, now);
+    if (entries > 0) {
+      balances.openMissing(runId, ids, now);
+      balances.applyRun(runId, ids, now);
+    }
+    loans.markOverdue(ids, asOf);
+    return entries;
+  }
+}
@@ -0,0 +1,62 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One entry of the inventory journal. Every entry carries the book's available copies after
+ * it, so replaying a prefix of the journal, or projecting an entry twice, ends in the same
+ * state.
+ *
+ * @param kind what happened
+ * @param seq position in the journal, starting at 1 and without gaps
+ * @param bookId book ID
+ * @param available available copies of the book after the entry
+ * @param loanId loan ID, 0 for {@link Kind#STOCK}
+ * @param memberId member ID, 0 for {@link Kind#STOCK}
+ * @param loanDay loan date as epoch day
+ * @param dueDay due date as epoch day
+ * @param returnDay return date as epoch day, 0 unless {@link Kind#RETURN}
+ */
+record InventoryEvent(Kind kind, long seq, long bookId, int available, long loanId,
+    long memberId, long loanDay, long dueDay, long returnDay) {
+
+  /**
+   * Encoded size of an entry, without framing.
+   */
+  static final int SIZE = 1 + 8 + 8 + 4 + 8 + 8 + 8 + 8 + 8;
+
+  enum Kind {
+    /** The journal learned a book's copy count from the database. */
+    STOCK,
+    /** A copy was lent out. */
+    CHECKOUT,
+    /** A copy came back. */
+    RETURN
+  }
+
+  static InventoryEvent stock(long seq, long bookId, int available) {
+    return new InventoryEvent(Kind.STOCK, seq, bookId, available, 0, 0, 0, 0, 0);
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.put((byte) kind.ordinal())
+        .putLong(seq)
+        .putLong(bookId)
+        .putInt(available)
+        .putLong(loanId)
+        .putLong(memberId)
+        .putLong(loanDay)
+        .putLong(dueDay)
+        .putLong(returnDay);
+  }
+
+  static InventoryEvent readFrom(ByteBuffer buffer) {
+    int kind = buffer.get();
+    if (kind < 0 || kind >= Kind.values().length) {
+      throw new IllegalStateException("Unknown journal entry kind " + kind);
+    }
+    return new InventoryEvent(Kind.values()[kind], buffer.getLong(), buffer.getLong(),
+        buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+        buffer.getLong());
+  }
+}
@@ -0,0 +1,351 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Event-sourced inventory: decisions are made against the in-memory {@link InventoryState} and
+ * recorded in a {@link WriteAheadLog}. A decision changes the model at once, so later decisions
+ * see it, but its future completes only when its entry is on disk. A single writer thread syncs
+ * whatever entries queued up while the previous sync ran, so concurrent decisions share one
+ * fsync. Every {@code snapshotEvery} entries the writer saves the model as a snapshot, starts
+ * a new log segment and deletes the segments that are both in a snapshot and projected.
+ * Opening a journal loads the newest readable snapshot and replays the log after it.
+ * If the log cannot be written, the journal fails every pending and later decision: the model
+ * may be ahead of the disk, and only reopening the journal restores a state that is known to
+ * be durable.
+ */
+final class InventoryJournal implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(InventoryJournal.class);
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+
+  private record Pending(InventoryEvent event, CompletableFuture<InventoryEvent> result) {
+  }
+
+  private final Path directory;
+  private final int snapshotEvery;
+  private final Consumer<List<InventoryEvent>> committed;
+  private final InventoryState state;
+  private final WriteAheadLog log;
+  private final List<InventoryEvent> unprojected = new ArrayList<>();
+  private final Thread writer;
+  private List<Pending> pending = new ArrayList<>();
+  private long snapshotSeq;
+  private volatile long durableSeq;
+  private volatile long projectedSeq;
+  private volatile IOException failure;
+  private boolean closing;
+
+  /**
+   * Opens a journal, recovering its state from disk.
+   * @param directory directory holding snapshots and log segments; created if missing
+   * @param snapshotEvery entries between snapshots
+   * @param seed state to start from if the directory holds neither a snapshot nor a log
+   * @param committed receives entries once they are on disk, in sequence order, on the writer
+   * thread
+   * @throws IOException if the directory cannot be read or the log is corrupt
+   */
+  InventoryJournal(Path directory, int snapshotEvery, Supplier<InventoryState> seed,
+      Consumer<List<InventoryEvent>> committed) throws IOException {
+    this.directory = directory;
+    this.snapshotEvery = snapshotEvery;
+    this.committed = committed;
+    Files.createDirectories(directory);
+    InventoryState snapshot = latestSnapshot();
+    this.log = new WriteAheadLog(directory);
+    if (snapshot == null && !hasLog()) {
+      snapshot = seed.get();
+      snapshot.writeTo(directory.resolve(snapshotName(snapshot.lastSeq)));
+    }
+    InventoryState recovered = snapshot == null ? new InventoryState() : snapshot;
+    long fromSnapshot = recovered.lastSeq;
+    long projected = recovered.projectedSeq;
+    log.replay(recovered.lastSeq + 1, event -> {
+      if (event.seq() > projected) {
+        unprojected.add(event);
+      }
+      if (event.seq() <= fromSnapshot) {
+        return;
+      }
+      if (event.seq() != recovered.lastSeq + 1) {
+        throw new IllegalStateException("Journal entry " + event.seq() + " follows "
+            + recovered.lastSeq);
+      }
+      recovered.apply(event);
+    });
+    this.state = recovered;
+    this.snapshotSeq = fromSnapshot;
+    this.durableSeq = recovered.lastSeq;
+    this.projectedSeq = projected;
+    logger.info("Inventory journal recovered through entry {} ({} from the log after the "
+        + "snapshot)", recovered.lastSeq, recovered.lastSeq - fromSnapshot);
+    this.writer = Thread.ofPlatform().name("inventory-journal").daemon().unstarted(this::run);
+    this.writer.start();
+  }
+
+  /**
+   * Entries on disk that may not have reached the projection yet, in sequence order.
+   */
+  List<InventoryEvent> unprojected() {
+    return List.copyOf(unprojected);
+  }
+
+  synchronized Integer available(long bookId) {
+    return state.available.get(bookId);
+  }
+
+  synchronized InventoryState.OpenLoan openLoan(long loanId) {
+    return state.loans.get(loanId);
+  }
+
+  synchronized InventoryState state() {
+    return state.copy();
+  }
+
+  /**
+   * Records a book's copy count read from the database, unless the journal already knows it.
+   * @return future of the entry, or null if the book was already known
+   */
+  synchronized CompletableFuture<InventoryEvent> stock(long bookId, int available) {
+    if (state.available.containsKey(bookId)) {
+      return null;
+    }
+    return record(InventoryEvent.stock(state.lastSeq + 1, bookId, available));
+  }
+
+  /**
+   * Replaces a book's copy count after it was changed outside the journal.
+   * @return future of the entry
+   */
+  synchronized CompletableFuture<InventoryEvent> restock(long bookId, int available) {
+    return record(InventoryEvent.stock(state.lastSeq + 1, bookId, available));
+  }
+
+  /**
+   * Lends a copy of a known book.
+   * @return future of the checkout entry, or failing with BusinessException if no copies are
+   * available
+   * @throws NotFoundException if the journal does not know the book
+   */
+  synchronized CompletableFuture<InventoryEvent> checkout(long bookId, long memberId,
+      LocalDate today, int days) {
+    return checkout(bookId, memberId, today, days, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Lends a copy of a known book if the member holds fewer than {@code room} of the journal's
+   * open loans. Every checkout passes through here one at a time, so concurrent checkouts of one
+   * member cannot overshoot.
+   * @return future of the checkout entry, or failing with BusinessException if no copies are
+   * available; null if the member has no room
+   * @throws NotFoundException if the journal does not know the book
+   */
+  synchronized CompletableFuture<InventoryEvent> checkout(long bookId, long memberId,
+      LocalDate today, int days, int room) {
+    Integer available = state.available.get(bookId);
+    if (available == null) {
+      throw new NotFoundException("Book not found: " + bookId);
+    }
+    if (state.openLoans(memberId) >= room) {
+      return null;
+    }
+    if (available <= 0) {
+      return CompletableFuture.failedFuture(new BusinessException("No copies available"));
+    }
+    return record(new InventoryEvent(InventoryEvent.Kind.CHECKOUT, state.lastSeq + 1, bookId,
+        available - 1, state.nextLoanId, memberId, today.toEpochDay(),
+        today.plusDays(days).toEpochDay(), 0));
+  }
+
+  /**
+   * Takes back the copy of an open loan.
+   * @return future of the return entry, or null if the journal has no such open loan
+   */
+  synchronized CompletableFuture<InventoryEvent> returnLoan(long loanId, LocalDate today) {
+    InventoryState.OpenLoan loan = state.loans.get(loanId);
+    if (loan == null) {
+      return null;
+    }
+    int available = state.available.getOrDefault(loan.bookId(), 0);
+    return record(new InventoryEvent(InventoryEvent.Kind.RETURN, state.lastSeq + 1,
+        loan.bookId(), available + 1, loanId, loan.memberId(), loan.loanDay(), loan.dueDay(),
+        today.toEpochDay()));
+  }
+
+  /**
+   * Notes that entries up to {@code seq} are in the projection, so their log may be deleted.
+   */
+  void projected(long seq) {
+    projectedSeq = Math.max(projectedSeq, seq);
+  }
+
+  long durableSequence() {
+    return durableSeq;
+  }
+
+  /**
+   * Writes out the pending entries and stops the writer.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closing = true;
+      notifyAll();
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    log.close();
+  }
+
+  private CompletableFuture<InventoryEvent> record(InventoryEvent event) {
+    if (failure != null) {
+      throw new IllegalStateException("Inventory journal failed", failure);
+    }
+    if (closing) {
+      throw new IllegalStateException("Inventory journal is closed");
+    }
+    state.apply(event);
+    Pending entry = new Pending(event, new CompletableFuture<>());
+    pending.add(entry);
+    if (pending.size() == 1) {
+      notifyAll();
+    }
+    return entry.result();
+  }
+
+  private void run() {
+    while (true) {
+      List<Pending> batch;
+      synchronized (this) {
+        while (pending.isEmpty() && !closing) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            closing = true;
+          }
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = takePending();
+      }
+      try {
+        write(batch);
+        if (durableSeq - snapshotSeq >= snapshotEvery) {
+          snapshot();
+        }
+      } catch (Throwable e) {
+        // Errors stop the journal like I/O failures do, so no caller waits on a dead writer.
+        fail(e instanceof IOException io ? io : new IOException(e), batch);
+        return;
+      }
+    }
+  }
+
+  private List<Pending> takePending() {
+    List<Pending> batch = pending;
+    pending = new ArrayList<>();
+    return batch;
+  }
+
+  private void write(List<Pending> batch) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<InventoryEvent> events = new ArrayList<>(batch.size());
+    for (Pending p : batch) {
+      events.add(p.event());
+    }
+    log.append(events);
+    durableSeq = events.getLast().seq();
+    for (Pending p : batch) {
+      p.result().complete(p.event());
+    }
+    committed.accept(events);
+  }
+
+  private void snapshot() throws IOException {
+    InventoryState copy;
+    List<Pending> rest;
+    synchronized (this) {
+      copy = state.copy();
+      rest = takePending();
+    }
+    // The copy may include entries that are not on disk yet; write them before the snapshot.
+    write(rest);
+    copy.projectedSeq = Math.min(projectedSeq, copy.lastSeq);
+    copy.writeTo(directory.resolve(snapshotName(copy.lastSeq)));
+    log.roll(copy.lastSeq + 1);
+    snapshotSeq = copy.lastSeq;
+    log.deleteThrough(copy.projectedSeq);
+    for (Path old : snapshots()) {
+      if (!old.getFileName().toString().equals(snapshotName(copy.lastSeq))) {
+        Files.deleteIfExists(old);
+      }
+    }
+  }
+
+  private void fail(IOException e, List<Pending> batch) {
+    logger.error("Inventory journal cannot be written; decisions stop until it is reopened", e);
+    List<Pending> rest;
+    synchronized (this) {
+      failure = e;
+      rest = takePending();
+    }
+    for (Pending p : batch) {
+      p.result().completeExceptionally(e);
+    }
+    for (Pending p : rest) {
+      p.result().completeExceptionally(e);
+    }
+  }
+
+  private InventoryState latestSnapshot() throws IOException {
+    List<Path> snapshots = snapshots();
+    for (int i = snapshots.size() - 1; i >= 0; i--) {
+      try {
+        return InventoryState.readFrom(snapshots.get(i));
+      } catch (IOException e) {
+        logger.warn("Skipping unreadable inventory snapshot {}", snapshots.get(i), e);
+      }
+    }
+    return null;
+  }
+
+  private List<Path> snapshots() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> p.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+              && p.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private boolean hasLog() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.anyMatch(p -> p.getFileName().toString().endsWith(".log"));
+    }
+  }
+
+  private static String snapshotName(long seq) {
+    return String.format("%s%020d%s", SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX);
+  }
+}
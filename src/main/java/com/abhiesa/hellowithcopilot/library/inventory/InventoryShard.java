@@ -0,0 +1,178 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.support.RingBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One shard of {@link ShardedInventory}: a ring buffer of pending operations and the only
+ * thread that reads or writes the shard's copy counts. The writer drains up to a batch of
+ * operations, loads the counts of books it has not seen in one query, applies the operations in
+ * memory, writes every changed count in one transaction and only then completes the
+ * operations' futures, so a completed take is durable.
+ */
+final class InventoryShard {
+
+  private static final Logger logger = LoggerFactory.getLogger(InventoryShard.class);
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long FULL_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+  /**
+   * Loads and stores copy counts.
+   */
+  interface Store {
+
+    /**
+     * Reads available copies.
+     * @param bookIds book IDs
+     * @return available copies per book found
+     */
+    Map<Long, Integer> load(Collection<Long> bookIds);
+
+    /**
+     * Writes available copies in one transaction.
+     * @param availableByBook available copies per book
+     */
+    void save(Map<Long, Integer> availableByBook);
+  }
+
+  /**
+   * What an operation does with a book's count: take one copy, give copies back, or replace
+   * the count with one decided outside the shard.
+   */
+  enum Kind { TAKE, GIVE, STOCK }
+
+  record Op(Kind kind, long bookId, int copies, CompletableFuture<Boolean> result) {
+  }
+
+  private final Store store;
+  private final RingBuffer<Op> ring;
+  private final int batchSize;
+  private final Map<Long, Integer> counts = new HashMap<>();
+  private final Thread writer;
+  private volatile boolean sleeping;
+  private volatile boolean stopped;
+
+  InventoryShard(int index, Store store, int ringCapacity, int batchSize) {
+    this.store = store;
+    this.ring = new RingBuffer<>(ringCapacity);
+    this.batchSize = batchSize;
+    this.writer = Thread.ofPlatform().name("inventory-shard-" + index).daemon().unstarted(this::run);
+    this.writer.start();
+  }
+
+  CompletableFuture<Boolean> submit(Kind kind, long bookId, int copies) {
+    Op op = new Op(kind, bookId, copies, new CompletableFuture<>());
+    // A full ring means the writer is behind; wait for room rather than queue without bound.
+    while (!ring.offer(op)) {
+      if (stopped) {
+        op.result().completeExceptionally(new IllegalStateException("Inventory is shut down"));
+        return op.result();
+      }
+      LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+    }
+    if (sleeping) {
+      LockSupport.unpark(writer);
+    }
+    return op.result();
+  }
+
+  void stop() {
+    stopped = true;
+    LockSupport.unpark(writer);
+  }
+
+  private void run() {
+    List<Op> batch = new ArrayList<>(batchSize);
+    while (!stopped) {
+      ring.drain(batch::add, batchSize);
+      if (batch.isEmpty()) {
+        sleeping = true;
+        // Re-check after announcing sleep, so a producer that missed the flag is not stranded.
+        if (ring.isEmpty() && !stopped) {
+          LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        sleeping = false;
+        continue;
+      }
+      try {
+        apply(batch);
+      } catch (Throwable e) {
+        // apply fails its batch itself; this only keeps the writer alive for the next one.
+        logger.error("Inventory shard writer failed", e);
+        for (Op op : batch) {
+          op.result().completeExceptionally(e);
+        }
+      }
+      batch.clear();
+    }
+    ring.drain(op -> op.result().completeExceptionally(
+        new IllegalStateException("Inventory is shut down")), Integer.MAX_VALUE);
+  }
+
+  private void apply(List<Op> batch) {
+    Set<Long> unknown = new HashSet<>();
+    for (Op op : batch) {
+      if (op.kind() != Kind.STOCK && !counts.containsKey(op.bookId())) {
+        unknown.add(op.bookId());
+      }
+    }
+    Map<Long, Integer> dirty = new HashMap<>();
+    Object[] outcomes = new Object[batch.size()];
+    try {
+      if (!unknown.isEmpty()) {
+        counts.putAll(store.load(unknown));
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        Op op = batch.get(i);
+        Integer available = counts.get(op.bookId());
+        if (op.kind() == Kind.STOCK) {
+          counts.put(op.bookId(), op.copies());
+          dirty.put(op.bookId(), op.copies());
+          outcomes[i] = Boolean.TRUE;
+        } else if (available == null) {
+          outcomes[i] = new NotFoundException("Book not found: " + op.bookId());
+        } else if (op.kind() == Kind.GIVE) {
+          counts.put(op.bookId(), available + op.copies());
+          dirty.put(op.bookId(), available + op.copies());
+          outcomes[i] = Boolean.TRUE;
+        } else if (available > 0) {
+          counts.put(op.bookId(), available - 1);
+          dirty.put(op.bookId(), available - 1);
+          outcomes[i] = Boolean.TRUE;
+        } else {
+          outcomes[i] = Boolean.FALSE;
+        }
+      }
+      if (!dirty.isEmpty()) {
+        store.save(dirty);
+      }
+    } catch (Throwable e) {
+      logger.warn("Inventory batch of {} failed", batch.size(), e);
+      // The in-memory counts may be ahead of the database now; reload them on next use.
+      counts.keySet().removeAll(dirty.keySet());
+      for (Op op : batch) {
+        op.result().completeExceptionally(e);
+      }
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      if (outcomes[i] instanceof Boolean granted) {
+        batch.get(i).result().complete(granted);
+      } else {
+        batch.get(i).result().completeExceptionally((RuntimeException) outcomes[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The journal's model: available copies of every known book and the open loans lent from the
+ * books' global counters, as of entry {@link #lastSeq}. Not thread-safe; the journal guards it.
+ * Snapshots are this state written to one file with a trailing checksum. The open loans per
+ * member are derived from the loans and not written.
+ */
+final class InventoryState {
+
+  private static final int MAGIC = 0x494e5653; // "INVS"
+  private static final int VERSION = 1;
+
+  /**
+   * An open loan as the journal knows it.
+   */
+  record OpenLoan(long bookId, long memberId, long loanDay, long dueDay) {
+  }
+
+  final Map<Long, Integer> available = new HashMap<>();
+  final Map<Long, OpenLoan> loans = new HashMap<>();
+  final Map<Long, Integer> openByMember = new HashMap<>();
+  long lastSeq;
+  long projectedSeq;
+  long nextLoanId;
+
+  void apply(InventoryEvent event) {
+    available.put(event.bookId(), event.available());
+    switch (event.kind()) {
+      case STOCK -> { }
+      case CHECKOUT -> {
+        OpenLoan loan = new OpenLoan(event.bookId(), event.memberId(), event.loanDay(),
+            event.dueDay());
+        if (loans.put(event.loanId(), loan) == null) {
+          openByMember.merge(loan.memberId(), 1, Integer::sum);
+        }
+        nextLoanId = Math.max(nextLoanId, event.loanId() + 1);
+      }
+      case RETURN -> {
+        OpenLoan loan = loans.remove(event.loanId());
+        if (loan != null) {
+          openByMember.computeIfPresent(loan.memberId(), (id, open) -> open > 1 ? open - 1 : null);
+        }
+      }
+    }
+    lastSeq = event.seq();
+  }
+
+  /**
+   * Open loans of a member lent by the journal.
+   */
+  int openLoans(long memberId) {
+    return openByMember.getOrDefault(memberId, 0);
+  }
+
+  /**
+   * Adds an open loan known from outside the log, such as the database when seeding.
+   */
+  void addLoan(long loanId, OpenLoan loan) {
+    if (loans.put(loanId, loan) == null) {
+      openByMember.merge(loan.memberId(), 1, Integer::sum);
+    }
+  }
+
+  InventoryState copy() {
+    InventoryState copy = new InventoryState();
+    copy.available.putAll(available);
+    copy.loans.putAll(loans);
+    copy.openByMember.putAll(openByMember);
+    copy.lastSeq = lastSeq;
+    copy.projectedSeq = projectedSeq;
+    copy.nextLoanId = nextLoanId;
+    return copy;
+  }
+
+  /**
+   * Writes the state to a temporary file, syncs it and renames it into place, so a crash
+   * leaves either the old file or the complete new one.
+   */
+  void writeTo(Path file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + available.size() * 12
+        + loans.size() * 40);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(lastSeq);
+    out.writeLong(projectedSeq);
+    out.writeLong(nextLoanId);
+    out.writeInt(available.size());
+    for (Map.Entry<Long, Integer> entry : available.entrySet()) {
+      out.writeLong(entry.getKey());
+      out.writeInt(entry.getValue());
+    }
+    out.writeInt(loans.size());
+    for (Map.Entry<Long, OpenLoan> entry : loans.entrySet()) {
+      OpenLoan loan = entry.getValue();
+      out.writeLong(entry.getKey());
+      out.writeLong(loan.bookId());
+      out.writeLong(loan.memberId());
+      out.writeLong(loan.loanDay());
+      out.writeLong(loan.dueDay());
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    out.writeLong(crc.getValue());
+    out.flush();
+
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (OutputStream os = Files.newOutputStream(tmp)) {
+      bytes.writeTo(os);
+    }
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    WriteAheadLog.syncDirectory(file.getParent());
+  }
+
+  /**
+   * Reads a snapshot.
+   * @throws IOException if the file cannot be read or fails its checksum
+   */
+  static InventoryState readFrom(Path file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file);
+    if (bytes.length < 8) {
+      throw new IOException("Snapshot too short: " + file);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length - 8);
+    if (ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc.getValue()) {
+      throw new IOException("Snapshot checksum mismatch: " + file);
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not an inventory snapshot: " + file);
+      }
+      InventoryState state = new InventoryState();
+      state.lastSeq = in.readLong();
+      state.projectedSeq = in.readLong();
+      state.nextLoanId = in.readLong();
+      int books = in.readInt();
+      for (int i = 0; i < books; i++) {
+        state.available.put(in.readLong(), in.readInt());
+      }
+      int loans = in.readInt();
+      for (int i = 0; i < loans; i++) {
+        state.addLoan(in.readLong(),
+            new OpenLoan(in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+      }
+      return state;
+    }
+  }
+}
@@ -0,0 +1,403 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inventory engine whose source of truth is an {@link InventoryJournal} on local disk rather
+ * than the database. Checkouts and returns against the books' global counters are decided in
+ * memory and acknowledged once their journal entry is synced; the {@code loans} rows and the
+ * books' {@code available_copies} are a projection that a background thread brings up to date
+ * in batches, recounting the borrowers' active loans, after which the loan events are published.
+ * The loan limit is checked against the last projected counts, so a member checking out several
+ * books at once may briefly overshoot it. Loans decided here get their IDs from
+ * the journal, starting at {@code library.inventory.journal.loan-id-base}, well above what the
+ * database identity hands out to branch loans.
+ * On first start the journal is seeded from the database. After a crash, the journal is
+ * recovered from its last snapshot and log, and every entry the projection may have missed is
+ * projected again; projecting an entry twice is harmless.
+ * While the engine is enabled the journal owns the global counters and the open global loans,
+ * and the projection writes its counts back as absolute values, so no other path may change them
+ * behind it: bulk returns of global loans go through {@link #returnLoan}, and book edits pass the
+ * edited count to {@link #restock}. The engine is for a single instance and is disabled unless
+ * {@code library.inventory.engine} is {@code journal}.
+ */
+@Component
+public class JournaledInventory {
+
+  private static final Logger logger = LoggerFactory.getLogger(JournaledInventory.class);
+  private static final int PROJECTION_BATCH = 512;
+  private static final String INSERT_LOAN = "insert into loans (id, member_id, book_id, "
+      + "loan_date, due_date, returned_date, status, branch_id, updated_at) "
+      + "select ?, ?, ?, ?, ?, null, ?, null, ? where not exists "
+      + "(select 1 from loans where id = ?)";
+  private static final String RETURN_LOAN = "update loans set returned_date = ?, status = ?, "
+      + "updated_at = ? where id = ?";
+
+  private final JdbcTemplate jdbc;
+  private final BookRepository books;
+  private final ActiveLoanCounters loanCounters;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final boolean enabled;
+  private final Path directory;
+  private final int snapshotEvery;
+  private final long loanIdBase;
+  private final BlockingQueue<InventoryEvent> projection = new LinkedBlockingQueue<>();
+  private volatile InventoryJournal journal;
+  private volatile long projectedSeq;
+  private long replayedThrough;
+  private Thread projector;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs the engine.
+   * @param jdbc JdbcTemplate used to seed the journal and write the projected loans
+   * @param books BookRepository used to write the projected copy counts
+   * @param loanCounters members' active loan counters, recounted by the projection
+   * @param events publisher for loan events
+   * @param transactionManager transaction manager of the projection
+   * @param engine "journal" to enable this engine
+   * @param directory directory of the journal's snapshots and log
+   * @param snapshotEvery journal entries between snapshots
+   * @param loanIdBase lowest ID of loans created by the journal
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public JournaledInventory(JdbcTemplate jdbc, BookRepository books,
+      ActiveLoanCounters loanCounters, ApplicationEventPublisher events,
+      PlatformTransactionManager transactionManager,
+      @Value("${library.inventory.engine:database}") String engine,
+      @Value("${library.inventory.journal.directory:data/inventory-journal}") Path directory,
+      @Value("${library.inventory.journal.snapshot-every:10000}") int snapshotEvery,
+      @Value("${library.inventory.journal.loan-id-base:1000000000000}") long loanIdBase) {
+    if (jdbc == null || books == null || loanCounters == null || events == null
+        || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (directory == null || snapshotEvery <= 0 || loanIdBase <= 0) {
+      throw new IllegalArgumentException("Invalid inventory journal settings");
+    }
+    this.jdbc = jdbc;
+    this.books = books;
+    this.loanCounters = loanCounters;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.enabled = "journal".equals(engine);
+    this.directory = directory;
+    this.snapshotEvery = snapshotEvery;
+    this.loanIdBase = loanIdBase;
+  }
+
+  /**
+   * Whether checkouts and returns should go through this engine.
+   * @return true if the journal engine is enabled
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Recovers the journal and catches the projection up once the application is ready.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    if (enabled) {
+      journal();
+    }
+  }
+
+  /**
+   * Lends a copy of a book from its global counter. The member's existence is not checked here;
+   * the loan limit is, against the journal's own open loans plus the member's open branch loans,
+   * which the journal does not lend.
+   * @param bookId Book ID
+   * @param memberId Member ID
+   * @param days Number of days for the loan
+   * @return future completing with the loan once it is in the journal, or failing with
+   * BusinessException if no copies are available or the member has reached the loan limit
+   * @throws IllegalArgumentException if any parameter is invalid
+   * @throws NotFoundException if the book does not exist
+   */
+  public CompletableFuture<Loan> checkout(Long bookId, Long memberId, int days) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    if (days <= 0) {
+      throw new IllegalArgumentException("Loan days must be positive");
+    }
+    InventoryJournal current = journal();
+    if (current.available(bookId) == null) {
+      // A book added since the journal was seeded: learn its count once.
+      current.stock(bookId, copiesInDatabase(bookId));
+    }
+    int room = Integer.MAX_VALUE;
+    if (loanCounters.maxActive() > 0) {
+      room = loanCounters.maxActive() - openBranchLoans(memberId);
+    }
+    CompletableFuture<InventoryEvent> entry =
+        current.checkout(bookId, memberId, LocalDate.now(), days, room);
+    if (entry == null) {
+      return CompletableFuture.failedFuture(loanCounters.limitReached());
+    }
+    return entry.thenApply(JournaledInventory::toLoan);
+  }
+
+  /**
+   * Takes back the copy of an open loan the journal knows.
+   * @param loanId Loan ID
+   * @return future completing with the returned loan once it is in the journal, or null if
+   * the journal has no such open loan, for example a branch loan or one already returned
+   * @throws IllegalArgumentException if loanId is invalid
+   */
+  public CompletableFuture<Loan> returnLoan(Long loanId) {
+    if (loanId == null || loanId <= 0) {
+      throw new IllegalArgumentException("Loan ID must be positive");
+    }
+    CompletableFuture<InventoryEvent> entry = journal().returnLoan(loanId, LocalDate.now());
+    return entry == null ? null : entry.thenApply(JournaledInventory::toLoan);
+  }
+
+  /**
+   * Replaces a book's count with one decided outside the journal, such as the available copies
+   * of an edited book. The projection then writes it to the database.
+   * @param bookId Book ID
+   * @param available available copies
+   * @return future completing once the new count is in the journal
+   * @throws IllegalArgumentException if bookId is invalid or available is negative
+   */
+  public CompletableFuture<Void> restock(Long bookId, int available) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (available < 0) {
+      throw new IllegalArgumentException("Available copies cannot be negative");
+    }
+    return journal().restock(bookId, available).thenAccept(entry -> { });
+  }
+
+  /**
+   * Last journal entry that is on disk.
+   * @return sequence number, 0 before the first entry
+   */
+  public long committedSequence() {
+    return journal().durableSequence();
+  }
+
+  /**
+   * Last journal entry written to the database.
+   * @return sequence number
+   */
+  public long projectedSequence() {
+    return projectedSeq;
+  }
+
+  /**
+   * Stops the projection and closes the journal. Entries not yet projected are projected
+   * again on the next start.
+   */
+  @PreDestroy
+  public synchronized void shutdown() {
+    stopped = true;
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        logger.warn("Failed to close the inventory journal", e);
+      }
+    }
+    if (projector != null) {
+      projector.interrupt();
+    }
+  }
+
+  private InventoryJournal journal() {
+    InventoryJournal current = journal;
+    return current != null ? current : start();
+  }
+
+  private synchronized InventoryJournal start() {
+    if (stopped) {
+      throw new IllegalStateException("Inventory journal is shut down");
+    }
+    if (journal == null) {
+      try {
+        InventoryJournal opened = new InventoryJournal(directory, snapshotEvery, this::seed,
+            projection::addAll);
+        List<InventoryEvent> replay = opened.unprojected();
+        if (!replay.isEmpty()) {
+          replayedThrough = replay.getLast().seq();
+          logger.info("Projecting {} journal entries again after restart", replay.size());
+        }
+        // Nothing is decided before the journal is published, so recovered entries go first.
+        projection.addAll(replay);
+        journal = opened;
+        projector = Thread.ofPlatform().name("inventory-projector").daemon()
+            .unstarted(this::project);
+        projector.start();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot open the inventory journal in " + directory, e);
+      }
+    }
+    return journal;
+  }
+
+  private InventoryState seed() {
+    InventoryState state = new InventoryState();
+    jdbc.query("select id, available_copies from books",
+        rs -> {
+          state.available.put(rs.getLong(1), rs.getInt(2));
+        });
+    jdbc.query("select id, book_id, member_id, loan_date, due_date from loans "
+            + "where branch_id is null and status in (?, ?)",
+        rs -> {
+          state.addLoan(rs.getLong(1), new InventoryState.OpenLoan(rs.getLong(2),
+              rs.getLong(3), rs.getDate(4).toLocalDate().toEpochDay(),
+              rs.getDate(5).toLocalDate().toEpochDay()));
+        }, LoanStatus.ACTIVE.ordinal(), LoanStatus.OVERDUE.ordinal());
+    Long maxId = jdbc.queryForObject("select max(id) from loans", Long.class);
+    state.nextLoanId = Math.max(loanIdBase, maxId == null ? 1 : maxId + 1);
+    logger.info("Seeded the inventory journal with {} books and {} open loans",
+        state.available.size(), state.loans.size());
+    return state;
+  }
+
+  private int openBranchLoans(long memberId) {
+    Integer open = jdbc.queryForObject("select count(*) from loans where member_id = ? "
+            + "and branch_id is not null and status in (?, ?)", Integer.class, memberId,
+        LoanStatus.ACTIVE.ordinal(), LoanStatus.OVERDUE.ordinal());
+    return open == null ? 0 : open;
+  }
+
+  private int copiesInDatabase(long bookId) {
+    List<Integer> copies = jdbc.queryForList(
+        "select available_copies from books where id = ?", Integer.class, bookId);
+    if (copies.isEmpty()) {
+      throw new NotFoundException("Book not found: " + bookId);
+    }
+    return copies.getFirst();
+  }
+
+  private void project() {
+    List<InventoryEvent> batch = new ArrayList<>(PROJECTION_BATCH);
+    while (!stopped) {
+      try {
+        InventoryEvent first = projection.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        projection.drainTo(batch, PROJECTION_BATCH - 1);
+        while (!stopped && !projectBatch(batch)) {
+          Thread.sleep(1_000); // database unavailable; keep the batch and retry
+        }
+        batch.clear();
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private boolean projectBatch(List<InventoryEvent> batch) {
+    Map<Long, Integer> copies = new HashMap<>();
+    Set<Long> borrowers = new HashSet<>();
+    try {
+      tx.executeWithoutResult(status -> {
+        Timestamp now = Timestamp.from(Instant.now());
+        for (InventoryEvent event : batch) {
+          copies.put(event.bookId(), event.available());
+          if (event.kind() != InventoryEvent.Kind.STOCK) {
+            borrowers.add(event.memberId());
+          }
+          if (event.kind() == InventoryEvent.Kind.CHECKOUT) {
+            jdbc.update(INSERT_LOAN, event.loanId(), event.memberId(), event.bookId(),
+                Date.valueOf(LocalDate.ofEpochDay(event.loanDay())),
+                Date.valueOf(LocalDate.ofEpochDay(event.dueDay())),
+                LoanStatus.ACTIVE.ordinal(), now, event.loanId());
+          } else if (event.kind() == InventoryEvent.Kind.RETURN) {
+            jdbc.update(RETURN_LOAN, Date.valueOf(LocalDate.ofEpochDay(event.returnDay())),
+                LoanStatus.RETURNED.ordinal(), now, event.loanId());
+          }
+        }
+        // Recounting rather than adding makes projecting an entry twice harmless here too.
+        loanCounters.recount(borrowers);
+        // Counts go through the entities so the second-level cache stays coherent.
+        for (Book book : books.findAllById(copies.keySet())) {
+          book.setAvailableCopies(copies.get(book.getId()));
+        }
+      });
+    } catch (Throwable e) {
+      // Errors are retried like database failures, so the projector thread stays alive.
+      logger.warn("Projecting {} inventory journal entries failed", batch.size(), e);
+      return false;
+    }
+    for (InventoryEvent event : batch) {
+      // Entries recovered after a restart were most likely published before the crash.
+      if (event.seq() > replayedThrough) {
+        try {
+          publish(event);
+        } catch (Throwable e) {
+          logger.error("Publishing inventory journal entry {} failed", event.seq(), e);
+        }
+      }
+    }
+    long last = batch.getLast().seq();
+    projectedSeq = last;
+    journal.projected(last);
+    return true;
+  }
+
+  private void publish(InventoryEvent event) {
+    if (event.kind() == InventoryEvent.Kind.CHECKOUT) {
+      events.publishEvent(new LoanCheckedOutEvent(event.loanId(), event.memberId(),
+          event.bookId(), LocalDate.ofEpochDay(event.dueDay())));
+    } else if (event.kind() == InventoryEvent.Kind.RETURN) {
+      events.publishEvent(new LoanReturnedEvent(event.loanId(), event.memberId(),
+          event.bookId(), LocalDate.ofEpochDay(event.returnDay())));
+    }
+  }
+
+  private static Loan toLoan(InventoryEvent event) {
+    boolean returned = event.kind() == InventoryEvent.Kind.RETURN;
+    return new Loan(event.loanId(), event.memberId(), event.bookId(),
+        LocalDate.ofEpochDay(event.loanDay()), LocalDate.ofEpochDay(event.dueDay()),
+        returned ? LocalDate.ofEpochDay(event.returnDay()) : null,
+        returned ? LoanStatus.RETURNED : LoanStatus.ACTIVE, null, null);
+  }
+}
@@ -0,0 +1,243 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Alternative inventory engine for the books' global copy counters. Operations are published
+ * onto lock-free ring buffers sharded by book ID; each shard has a single writer thread that
+ * owns its books' counts in memory and persists them in batches (see {@link InventoryShard}).
+ * Because one thread decides for each book, there is no row lock and no retry, and a batch of
+ * changes costs one transaction.
+ * The shards own the counters while this engine is enabled, and write their counts back as
+ * absolute values, so no other path may change a count behind them: bulk returns hand their
+ * copies over with {@link #giveBack}, and book edits pass the edited count to {@link #restock}.
+ * The engine is for a single instance; it is disabled unless
+ * {@code library.inventory.engine} is {@code sharded}, and its threads start on first use.
+ */
+@Component
+public class ShardedInventory {
+
+  private static final Logger logger = LoggerFactory.getLogger(ShardedInventory.class);
+  private static final int GIVE_BACK_ATTEMPTS = 5;
+  private static final long GIVE_BACK_BACKOFF_MILLIS = 100;
+
+  private final BookRepository books;
+  private final TransactionTemplate tx;
+  private final boolean enabled;
+  private final int shardCount;
+  private final int ringCapacity;
+  private final int batchSize;
+  private volatile InventoryShard[] shards;
+  private boolean stopped;
+
+  /**
+   * Constructs the engine.
+   * @param books BookRepository used to load and write counts
+   * @param transactionManager transaction manager of the writes
+   * @param engine "database" for the per-request path, "sharded" for this engine, "journal"
+   * for {@link JournaledInventory}
+   * @param shards number of shards, 0 for one per processor
+   * @param ringCapacity ring buffer slots per shard, a power of two
+   * @param batchSize most operations a shard applies per write
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public ShardedInventory(BookRepository books, PlatformTransactionManager transactionManager,
+      @Value("${library.inventory.engine:database}") String engine,
+      @Value("${library.inventory.shards:0}") int shards,
+      @Value("${library.inventory.ring-capacity:1024}") int ringCapacity,
+      @Value("${library.inventory.batch-size:256}") int batchSize) {
+    if (books == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (!"database".equals(engine) && !"sharded".equals(engine) && !"journal".equals(engine)) {
+      throw new IllegalArgumentException("Unknown inventory engine: " + engine);
+    }
+    if (shards < 0 || ringCapacity <= 0 || Integer.bitCount(ringCapacity) != 1
+        || batchSize <= 0) {
+      throw new IllegalArgumentException("Invalid inventory settings");
+    }
+    this.books = books;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.enabled = "sharded".equals(engine);
+    this.shardCount = shards == 0 ? Runtime.getRuntime().availableProcessors() : shards;
+    this.ringCapacity = ringCapacity;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Whether checkouts and returns should go through this engine.
+   * @return true if the sharded engine is enabled
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Takes one copy of a book off the shelf if one is available.
+   * @param bookId book ID
+   * @return future completing with true once the decrement is stored, false if no copy was
+   * available, or failing with NotFoundException for an unknown book
+   * @throws IllegalArgumentException if bookId is null or not positive
+   */
+  public CompletableFuture<Boolean> take(Long bookId) {
+    return submit(InventoryShard.Kind.TAKE, bookId, 1);
+  }
+
+  /**
+   * Puts copies of a book back on the shelf.
+   * @param bookId book ID
+   * @param copies number of copies returned
+   * @return future completing with true once the increment is stored, or failing with
+   * NotFoundException for an unknown book
+   * @throws IllegalArgumentException if bookId or copies is not positive
+   */
+  public CompletableFuture<Boolean> give(Long bookId, int copies) {
+    if (copies <= 0) {
+      throw new IllegalArgumentException("Copies must be positive");
+    }
+    return submit(InventoryShard.Kind.GIVE, bookId, copies);
+  }
+
+  /**
+   * Puts back copies whose loans are already stored as returned, or whose checkout was rolled
+   * back, so nothing else would restore them if the write failed. A failed write is retried
+   * with a growing delay; once the attempts run out the lost copies are logged as an error.
+   * @param bookId book ID
+   * @param copies number of copies returned
+   * @return future completing with true once the increment is stored, or failing with the last
+   * failure
+   * @throws IllegalArgumentException if bookId or copies is not positive
+   */
+  public CompletableFuture<Boolean> giveBack(Long bookId, int copies) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (copies <= 0) {
+      throw new IllegalArgumentException("Copies must be positive");
+    }
+    return giveBack(bookId, copies, 1);
+  }
+
+  private CompletableFuture<Boolean> giveBack(Long bookId, int copies, int attempt) {
+    CompletableFuture<Boolean> given;
+    try {
+      given = give(bookId, copies);
+    } catch (Throwable e) {
+      given = CompletableFuture.failedFuture(e);
+    }
+    return given.exceptionallyCompose(failure -> {
+      Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+      // An unknown book or a stopped engine will not get better by waiting.
+      if (attempt >= GIVE_BACK_ATTEMPTS || cause instanceof NotFoundException
+          || cause instanceof IllegalStateException) {
+        logger.error("Lost {} returned copies of book {} after {} attempts", copies, bookId,
+            attempt, cause);
+        return CompletableFuture.failedFuture(cause);
+      }
+      logger.warn("Returning {} copies of book {} failed, retrying", copies, bookId, cause);
+      long delay = GIVE_BACK_BACKOFF_MILLIS << (attempt - 1);
+      return CompletableFuture.supplyAsync(() -> giveBack(bookId, copies, attempt + 1),
+              CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+          .thenCompose(next -> next);
+    });
+  }
+
+  /**
+   * Replaces a book's count with one decided outside this engine, such as the available copies
+   * of an edited book, and stores it. Operations queued before it still apply to the old count;
+   * later ones apply to the new one.
+   * @param bookId book ID
+   * @param available available copies
+   * @return future completing once the count is stored
+   * @throws IllegalArgumentException if bookId is not positive or available is negative
+   */
+  public CompletableFuture<Boolean> restock(Long bookId, int available) {
+    if (available < 0) {
+      throw new IllegalArgumentException("Available copies cannot be negative");
+    }
+    return submit(InventoryShard.Kind.STOCK, bookId, available);
+  }
+
+  /**
+   * Stops the shard writers; queued operations fail.
+   */
+  @PreDestroy
+  public synchronized void shutdown() {
+    stopped = true;
+    if (shards != null) {
+      for (InventoryShard shard : shards) {
+        shard.stop();
+      }
+    }
+  }
+
+  private CompletableFuture<Boolean> submit(InventoryShard.Kind kind, Long bookId, int copies) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    InventoryShard[] current = shards;
+    if (current == null) {
+      current = start();
+    }
+    return current[shardOf(bookId, current.length)].submit(kind, bookId, copies);
+  }
+
+  private synchronized InventoryShard[] start() {
+    if (stopped) {
+      throw new IllegalStateException("Inventory is shut down");
+    }
+    if (shards == null) {
+      InventoryShard.Store store = new RepositoryStore();
+      InventoryShard[] created = new InventoryShard[shardCount];
+      for (int i = 0; i < shardCount; i++) {
+        created[i] = new InventoryShard(i, store, ringCapacity, batchSize);
+      }
+      shards = created;
+    }
+    return shards;
+  }
+
+  static int shardOf(long bookId, int shards) {
+    // Spread sequential IDs; the multiplier is the 64-bit golden ratio.
+    long h = bookId * 0x9E3779B97F4A7C15L;
+    return (int) ((h >>> 32) % shards);
+  }
+
+  private final class RepositoryStore implements InventoryShard.Store {
+
+    @Override
+    public Map<Long, Integer> load(Collection<Long> bookIds) {
+      Map<Long, Integer> counts = new HashMap<>();
+      for (Object[] row : books.findAvailableCopies(bookIds)) {
+        counts.put((Long) row[0], (Integer) row[1]);
+      }
+      return counts;
+    }
+
+    @Override
+    public void save(Map<Long, Integer> availableByBook) {
+      // Written through the entities rather than a bulk statement, so the second-level cache
+      // locks the entries and a concurrent read cannot cache a count that is being replaced.
+      tx.executeWithoutResult(status -> {
+        for (Book book : books.findAllById(availableByBook.keySet())) {
+          book.setAvailableCopies(availableByBook.get(book.getId()));
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal on local disk, split into segment files named after the sequence number
+ * of their first entry. Each entry is framed as its length, a CRC32 of the payload and the
+ * payload. {@link #append} writes a whole batch and forces it to disk before returning, so one
+ * sync covers every entry of the batch. A crash can leave the last entry of the last segment
+ * half written; {@link #replay} stops there and cuts it off.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+  private static final int HEADER = 8;
+  private static final String PREFIX = "wal-";
+  private static final String SUFFIX = ".log";
+
+  private final Path directory;
+  private FileChannel current;
+
+  WriteAheadLog(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reads every entry in order and truncates a torn tail, then opens the last segment for
+   * appending, or a new one starting at {@code nextSeq} if there is none.
+   * @param nextSeq sequence number of the first entry if the log is empty
+   * @param sink receives the entries
+   * @throws IOException if a segment cannot be read, or is corrupt before its end
+   */
+  void replay(long nextSeq, Consumer<InventoryEvent> sink) throws IOException {
+    List<Path> segments = segments();
+    for (int i = 0; i < segments.size(); i++) {
+      Path segment = segments.get(i);
+      long valid = read(segment, sink);
+      if (valid < Files.size(segment)) {
+        if (i < segments.size() - 1) {
+          throw new IOException("Corrupt journal segment " + segment + " at byte " + valid);
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+          channel.truncate(valid);
+          channel.force(true);
+        }
+      }
+    }
+    if (segments.isEmpty()) {
+      roll(nextSeq);
+    } else {
+      current = FileChannel.open(segments.getLast(), StandardOpenOption.WRITE,
+          StandardOpenOption.APPEND);
+    }
+  }
+
+  /**
+   * Appends entries and waits until they are on disk.
+   * @param events entries in sequence order
+   * @throws IOException if the write or sync fails
+   */
+  void append(List<InventoryEvent> events) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(events.size() * (HEADER + InventoryEvent.SIZE));
+    CRC32 crc = new CRC32();
+    for (InventoryEvent event : events) {
+      int start = buffer.position();
+      buffer.position(start + HEADER);
+      event.writeTo(buffer);
+      crc.reset();
+      crc.update(buffer.array(), start + HEADER, InventoryEvent.SIZE);
+      buffer.putInt(start, InventoryEvent.SIZE).putInt(start + 4, (int) crc.getValue());
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      current.write(buffer);
+    }
+    current.force(false);
+  }
+
+  /**
+   * Starts a new segment; entries from {@code nextSeq} on go there.
+   * @param nextSeq sequence number of the next entry
+   * @throws IOException if the segment cannot be created
+   */
+  void roll(long nextSeq) throws IOException {
+    if (current != null) {
+      current.close();
+    }
+    current = FileChannel.open(directory.resolve(name(nextSeq)), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    syncDirectory(directory);
+  }
+
+  /**
+   * Deletes the segments that hold only entries up to {@code seq}. The current segment is kept.
+   * @param seq last sequence number that is no longer needed
+   * @throws IOException if a segment cannot be deleted
+   */
+  void deleteThrough(long seq) throws IOException {
+    List<Path> segments = segments();
+    for (int i = 0; i < segments.size() - 1; i++) {
+      if (firstSeq(segments.get(i + 1)) - 1 <= seq) {
+        Files.delete(segments.get(i));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (current != null) {
+      current.close();
+      current = null;
+    }
+  }
+
+  static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // Not every platform can sync a directory; the rename is still atomic.
+    }
+  }
+
+  private static long read(Path segment, Consumer<InventoryEvent> sink) throws IOException {
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+    CRC32 crc = new CRC32();
+    long valid = 0;
+    while (data.remaining() >= HEADER) {
+      int length = data.getInt();
+      int checksum = data.getInt();
+      if (length != InventoryEvent.SIZE || data.remaining() < length) {
+        break;
+      }
+      crc.reset();
+      crc.update(data.array(), data.position(), length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      sink.accept(InventoryEvent.readFrom(data));
+      valid = data.position();
+    }
+    return valid;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> p.getFileName().toString().startsWith(PREFIX)
+              && p.getFileName().toString().endsWith(SUFFIX))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static String name(long firstSeq) {
+    return String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX);
+  }
+
+  private static long firstSeq(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+}
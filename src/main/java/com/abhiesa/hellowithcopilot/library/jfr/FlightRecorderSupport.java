@@ -0,0 +1,36 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+/**
+ * Helpers shared by the Flight Recorder interceptors and services.
+ */
+public final class FlightRecorderSupport {
+
+  private FlightRecorderSupport() {
+    // utility class
+  }
+
+  /**
+   * Returns the first integral argument, which for this code base is nearly always an entity ID.
+   * @param args invocation arguments
+   * @return the argument as a long, or -1 if there is none
+   */
+  public static long firstNumericArgument(Object[] args) {
+    if (args != null) {
+      for (Object arg : args) {
+        if (arg instanceof Long || arg instanceof Integer) {
+          return ((Number) arg).longValue();
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Describes how an operation ended, for the outcome field of lifecycle events.
+   * @param failure exception that ended the operation, or null if it completed
+   * @return "OK" or the exception's simple name
+   */
+  public static String outcome(Throwable failure) {
+    return failure == null ? "OK" : failure.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,54 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one checkout, broken down into its phases.
+ */
+@Name("library.LoanCheckout")
+@Label("Loan Checkout")
+@Category({"Library", "Loans"})
+@Description("LoanService.checkout with the time spent in each phase")
+@StackTrace(false)
+public class LoanCheckoutEvent extends Event {
+
+  @Label("Book ID")
+  public long bookId;
+
+  @Label("Member ID")
+  public long memberId;
+
+  @Label("Branch ID")
+  @Description("Branch the copy was taken from, or -1 for the book's global counter")
+  public long branchId;
+
+  @Label("Loan ID")
+  public long loanId;
+
+  @Label("Outcome")
+  @Description("OK, or the simple name of the exception that ended the checkout")
+  public String outcome;
+
+  @Label("Book Fetch")
+  @Description("0: the book is read and written in one step, timed as Book Update")
+  @Timespan(Timespan.NANOSECONDS)
+  public long bookFetch;
+
+  @Label("Member Fetch")
+  @Timespan(Timespan.NANOSECONDS)
+  public long memberFetch;
+
+  @Label("Book Update")
+  @Timespan(Timespan.NANOSECONDS)
+  public long bookUpdate;
+
+  @Label("Loan Insert")
+  @Timespan(Timespan.NANOSECONDS)
+  public long loanInsert;
+}
@@ -0,0 +1,47 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one loan return, broken down into its phases.
+ */
+@Name("library.LoanReturn")
+@Label("Loan Return")
+@Category({"Library", "Loans"})
+@Description("LoanService.returnLoan with the time spent in each phase")
+@StackTrace(false)
+public class LoanReturnEvent extends Event {
+
+  @Label("Loan ID")
+  public long loanId;
+
+  @Label("Book ID")
+  public long bookId;
+
+  @Label("Outcome")
+  @Description("OK, or the simple name of the exception that ended the return")
+  public String outcome;
+
+  @Label("Loan Fetch")
+  @Timespan(Timespan.NANOSECONDS)
+  public long loanFetch;
+
+  @Label("Book Fetch")
+  @Description("0: the book is read and written in one step, timed as Book Update")
+  @Timespan(Timespan.NANOSECONDS)
+  public long bookFetch;
+
+  @Label("Book Update")
+  @Timespan(Timespan.NANOSECONDS)
+  public long bookUpdate;
+
+  @Label("Loan Update")
+  @Timespan(Timespan.NANOSECONDS)
+  public long loanUpdate;
+}
@@ -0,0 +1,37 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a Spring Data repository call.
+ */
+@Name("library.RepositoryCall")
+@Label("Repository Call")
+@Category({"Library", "Persistence"})
+@Description("Invocation of a Spring Data repository method")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+  @Label("Repository")
+  public String repository;
+
+  @Label("Method")
+  public String method;
+
+  @Label("Entity ID")
+  @Description("First numeric argument, usually the entity ID, or -1")
+  public long entityId;
+
+  @Label("Result Size")
+  @Description("Number of rows returned for collection results, 1 or 0 for single results, -1 otherwise")
+  public int resultSize;
+
+  @Label("Exception")
+  @Description("Simple name of the exception thrown, if any")
+  public String exception;
+}
@@ -0,0 +1,74 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import jakarta.persistence.Entity;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Emits a {@link RepositoryCallEvent} around each call on one Spring Data repository.
+ * When no recording has the event enabled the call goes straight through.
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+  private final String repository;
+
+  /**
+   * Creates an interceptor for one repository.
+   * @param repository repository name recorded in the events
+   * @throws IllegalArgumentException if repository is null
+   */
+  public RepositoryCallInterceptor(String repository) {
+    if (repository == null) {
+      throw new IllegalArgumentException("Repository name cannot be null");
+    }
+    this.repository = repository;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    RepositoryCallEvent event = new RepositoryCallEvent();
+    if (!event.isEnabled()) {
+      return invocation.proceed();
+    }
+    Object result = null;
+    event.begin();
+    try {
+      result = invocation.proceed();
+      return result;
+    } catch (Throwable t) {
+      event.exception = t.getClass().getSimpleName();
+      throw t;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.repository = repository;
+        event.method = invocation.getMethod().getName();
+        event.entityId = FlightRecorderSupport.firstNumericArgument(invocation.getArguments());
+        event.resultSize = resultSize(result, event.exception != null);
+        event.commit();
+      }
+    }
+  }
+
+  private static int resultSize(Object result, boolean failed) {
+    if (failed) {
+      return -1;
+    }
+    if (result == null) {
+      return 0;
+    }
+    if (result instanceof Collection<?> c) {
+      return c.size();
+    }
+    if (result instanceof Map<?, ?> m) {
+      return m.size();
+    }
+    if (result instanceof Optional<?> o) {
+      return o.isPresent() ? 1 : 0;
+    }
+    return result.getClass().isAnnotationPresent(Entity.class) ? 1 : -1;
+  }
+}
@@ -0,0 +1,33 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a call into a library service.
+ */
+@Name("library.ServiceCall")
+@Label("Service Call")
+@Category({"Library", "Services"})
+@Description("Invocation of a public method on a library service")
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+
+  @Label("Service")
+  public String service;
+
+  @Label("Method")
+  public String method;
+
+  @Label("Entity ID")
+  @Description("First numeric argument, usually the entity ID, or -1")
+  public long entityId;
+
+  @Label("Exception")
+  @Description("Simple name of the exception thrown, if any")
+  public String exception;
+}
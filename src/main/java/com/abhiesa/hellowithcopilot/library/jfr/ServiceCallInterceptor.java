@@ -0,0 +1,38 @@
+package com.abhiesa.hellowithcopilot.library.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Emits a {@link ServiceCallEvent} around each intercepted service method.
+ * When no recording has the event enabled the call goes straight through.
+ */
+public class ServiceCallInterceptor implements MethodInterceptor {
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    ServiceCallEvent event = new ServiceCallEvent();
+    if (!event.isEnabled()) {
+      return invocation.proceed();
+    }
+    event.begin();
+    try {
+      return invocation.proceed();
+    } catch (Throwable t) {
+      event.exception = t.getClass().getSimpleName();
+      throw t;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        Object target = invocation.getThis();
+        event.service = ClassUtils.getUserClass(
+            target != null ? target.getClass() : invocation.getMethod().getDeclaringClass())
+            .getSimpleName();
+        event.method = invocation.getMethod().getName();
+        event.entityId = FlightRecorderSupport.firstNumericArgument(invocation.getArguments());
+        event.commit();
+      }
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.abhiesa.hellowithcopilot.library.model;
 
+import com.abhiesa.hellowithcopilot.library.cache.CacheRegions;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -10,13 +12,18 @@ import lombok.Setter;
 import lombok.ToString;
 import jakarta.validation.constraints.NotBlank;
 import java.util.Objects;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entity representing an author in the library.
  * Applies defensive programming and bean validation.
+ * Authors are shared reference data and are kept in a read-only second-level cache region.
  */
 @Entity
 @Table(name = "authors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.AUTHOR)
 @Getter
 @Setter
 @ToString
@@ -1,9 +1,12 @@
 package com.abhiesa.hellowithcopilot.library.model;
 
+import com.abhiesa.hellowithcopilot.library.cache.CacheRegions;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -11,6 +14,10 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -24,9 +31,13 @@ import jakarta.validation.constraints.Size;
 /**
  * Entity representing a book in the library.
  * Applies defensive programming and bean validation.
+ * Books and their author associations are held in the second-level cache.
  */
 @Entity
-@Table(name = "books")
+@Table(name = "books",
+    indexes = @Index(name = "idx_books_category_id", columnList = "category, id, available_copies"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BOOK)
 @Getter
 @Setter
 @ToString
@@ -49,6 +60,7 @@ public class Book {
      * List of authors for the book.
      */
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BOOK_AUTHORS)
     @JoinTable(
         name = "book_author",
         joinColumns = @JoinColumn(name = "book_id"),
@@ -66,8 +78,10 @@ public class Book {
     private Category category;
 
     /**
-     * ISBN of the book.
+     * ISBN of the book, stored normalized (see {@link Isbn#normalize(String)}).
+     * Unique natural key used by scanners.
      */
+    @NaturalId(mutable = true)
     @NotBlank(message = "ISBN cannot be blank")
     @Size(max = 20, message = "ISBN must be at most 20 characters")
     private String isbn;
@@ -130,15 +144,15 @@ public class Book {
     }
 
     /**
-     * Sets the ISBN of the book.
-     * @param isbn ISBN string
+     * Sets the ISBN of the book in normalized form.
+     * @param isbn ISBN string, hyphens and spaces allowed
      * @throws IllegalArgumentException if ISBN is null or blank
      */
     public void setIsbn(String isbn) {
       if (isbn == null || isbn.trim().isEmpty()) {
         throw new IllegalArgumentException("ISBN cannot be null or empty");
       }
-      this.isbn = isbn;
+      this.isbn = Isbn.normalize(isbn);
     }
 
     /**
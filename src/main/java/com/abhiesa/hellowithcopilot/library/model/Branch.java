@@ -0,0 +1,70 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Entity representing a library branch that holds its own copies of books.
+ * Applies defensive programming and bean validation.
+ */
+@Entity
+@Table(name = "branches")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class Branch {
+    /**
+     * Unique identifier for the branch.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Short unique branch code, for example "CENTRAL".
+     */
+    @NotBlank(message = "Branch code cannot be blank")
+    @Column(unique = true, nullable = false)
+    private String code;
+
+    /**
+     * Display name of the branch.
+     */
+    @NotBlank(message = "Branch name cannot be blank")
+    private String name;
+
+    /**
+     * Equality based on branch id.
+     * @param o Other object
+     * @return true if ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Branch branch = (Branch) o;
+      return Objects.equals(id, branch.id);
+    }
+
+    /**
+     * Hash code based on branch id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(id);
+    }
+}
@@ -0,0 +1,86 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Copy counts of one book at one branch. Each (branch, book) pair has its own row, so checkouts
+ * at different branches update different rows and never wait on each other.
+ */
+@Entity
+@Table(name = "branch_copies",
+    uniqueConstraints = @UniqueConstraint(name = "uk_branch_copies_branch_book",
+        columnNames = {"branch_id", "book_id"}),
+    indexes = @Index(name = "idx_branch_copies_book", columnList = "book_id"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchCopy {
+    /**
+     * Unique identifier for the row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Branch holding the copies.
+     */
+    @NotNull(message = "Branch ID cannot be null")
+    private Long branchId;
+
+    /**
+     * Book the copies belong to.
+     */
+    @NotNull(message = "Book ID cannot be null")
+    private Long bookId;
+
+    /**
+     * Copies owned by the branch.
+     */
+    @Min(value = 0, message = "Total copies cannot be negative")
+    private int totalCopies;
+
+    /**
+     * Copies currently on the shelf at the branch.
+     */
+    @Min(value = 0, message = "Available copies cannot be negative")
+    private int availableCopies;
+
+    /**
+     * Equality based on row id.
+     * @param o Other object
+     * @return true if ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      BranchCopy copy = (BranchCopy) o;
+      return Objects.equals(id, copy.id);
+    }
+
+    /**
+     * Hash code based on row id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(id);
+    }
+}
@@ -0,0 +1,107 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One run of the fine accrual job. The start time of the last finished run is where the next
+ * incremental run starts looking for changed loans.
+ */
+@Entity
+@Table(name = "fine_accrual_runs",
+    indexes = @Index(name = "idx_fine_accrual_runs_finished", columnList = "finished_at"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineAccrualRun {
+    /**
+     * Which loans a run examines.
+     */
+    public enum Mode {
+        /** Every loan, to rebuild fines from scratch or repair drift. */
+        FULL,
+        /** Open overdue loans and loans changed since the previous run. */
+        INCREMENTAL
+    }
+
+    /**
+     * Unique identifier for the run.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Which loans the run examined.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Mode mode;
+
+    /**
+     * Date fines were computed up to.
+     */
+    @Column(nullable = false)
+    private LocalDate asOf;
+
+    /**
+     * Time the run started.
+     */
+    @Column(nullable = false)
+    private Instant startedAt;
+
+    /**
+     * Time the run finished, or null while it runs or if it failed.
+     */
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    /**
+     * Number of loans examined.
+     */
+    private long loansExamined;
+
+    /**
+     * Number of ledger entries written.
+     */
+    private long entriesWritten;
+
+    /**
+     * Equality based on run id.
+     * @param o Other object
+     * @return true if ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      FineAccrualRun run = (FineAccrualRun) o;
+      return Objects.equals(id, run.id);
+    }
+
+    /**
+     * Hash code based on run id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(id);
+    }
+}
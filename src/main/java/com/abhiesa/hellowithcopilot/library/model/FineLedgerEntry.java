@@ -0,0 +1,93 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One change to a member's fines. Entries are only ever appended: when a loan's fine changes, the
+ * accrual job writes the difference, so the fine of a loan is the sum of its entries and a
+ * member's balance is the sum of all of theirs.
+ */
+@Entity
+@Table(name = "fine_ledger", indexes = {
+    @Index(name = "idx_fine_ledger_member", columnList = "member_id, id"),
+    @Index(name = "idx_fine_ledger_loan", columnList = "loan_id"),
+    @Index(name = "idx_fine_ledger_run", columnList = "run_id")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineLedgerEntry {
+    /**
+     * Unique identifier for the entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Member the fine is charged to.
+     */
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    /**
+     * Loan the fine is for.
+     */
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    /**
+     * Change in the loan's fine, in cents; negative when a fine was reduced.
+     */
+    @Column(nullable = false)
+    private long amountCents;
+
+    /**
+     * Accrual run that wrote the entry.
+     */
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    /**
+     * Time the entry was written.
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Equality based on entry id.
+     * @param o Other object
+     * @return true if ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      FineLedgerEntry entry = (FineLedgerEntry) o;
+      return Objects.equals(id, entry.id);
+    }
+
+    /**
+     * Hash code based on entry id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(id);
+    }
+}
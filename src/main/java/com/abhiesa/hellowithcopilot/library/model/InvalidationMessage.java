@@ -0,0 +1,91 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import com.abhiesa.hellowithcopilot.library.cache.CacheInvalidation;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Outbox row carrying one cache invalidation to the other application instances.
+ */
+@Entity
+@Table(name = "cache_invalidations",
+    indexes = @Index(name = "idx_cache_invalidations_created", columnList = "created_at"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvalidationMessage {
+    /**
+     * Unique identifier for the message.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Instance that wrote the entity; it never reads its own messages.
+     */
+    @Column(nullable = false, length = 36)
+    private String origin;
+
+    /**
+     * Kind of entity that changed.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheInvalidation.Type entityType;
+
+    /**
+     * ID of the entity that changed.
+     */
+    @Column(nullable = false)
+    private Long entityId;
+
+    /**
+     * Natural key after the write, or null for deletes.
+     */
+    private String naturalKey;
+
+    /**
+     * Time the message was written, by the writing instance's clock.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Equality based on message id.
+     * @param o Other object
+     * @return true if ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      InvalidationMessage message = (InvalidationMessage) o;
+      return Objects.equals(id, message.id);
+    }
+
+    /**
+     * Hash code based on message id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(id);
+    }
+}
@@ -0,0 +1,33 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+/**
+ * Helper for the canonical storage form of ISBNs.
+ * Scanners and clients send ISBNs with or without hyphens and spaces and with a lower-case check
+ * digit {@code x}; all of them are stored and looked up in one normalized form.
+ */
+public final class Isbn {
+
+  private Isbn() {
+    // utility class
+  }
+
+  /**
+   * Normalizes an ISBN by removing hyphens and whitespace and upper-casing the check digit.
+   * @param isbn raw ISBN
+   * @return normalized ISBN, or null if isbn is null
+   */
+  public static String normalize(String isbn) {
+    if (isbn == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(isbn.length());
+    for (int i = 0; i < isbn.length(); i++) {
+      char c = isbn.charAt(i);
+      if (c == '-' || Character.isWhitespace(c)) {
+        continue;
+      }
+      sb.append(c == 'x' ? 'X' : c);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,67 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Lease on a scheduled job shared by every instance using the database, so a job that must not
+ * run twice at once runs on one instance only. A lease that is not renewed expires, so a holder
+ * that dies does not block the job for good.
+ */
+@Entity
+@Table(name = "job_locks")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+    /**
+     * Name of the job.
+     */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * Token of the run holding the lease, or null if it was never taken.
+     */
+    @Column(length = 64)
+    private String holder;
+
+    /**
+     * Time the lease expires, or null if it is free.
+     */
+    private Instant lockedUntil;
+
+    /**
+     * Equality based on job name.
+     * @param o Other object
+     * @return true if names are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      JobLock lock = (JobLock) o;
+      return Objects.equals(name, lock.name);
+    }
+
+    /**
+     * Hash code based on job name.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(name);
+    }
+}
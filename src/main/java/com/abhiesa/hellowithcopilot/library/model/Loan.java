@@ -1,9 +1,12 @@
 package com.abhiesa.hellowithcopilot.library.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Objects;
 import jakarta.persistence.Table;
@@ -12,6 +15,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.UpdateTimestamp;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 
@@ -20,7 +24,13 @@ import jakarta.validation.constraints.PastOrPresent;
  * Applies defensive programming and bean validation.
  */
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+    @Index(name = "idx_loans_branch", columnList = "branch_id"),
+    @Index(name = "idx_loans_loan_date", columnList = "loan_date"),
+    @Index(name = "idx_loans_member", columnList = "member_id, loan_date"),
+    @Index(name = "idx_loans_status_due", columnList = "status, due_date"),
+    @Index(name = "idx_loans_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @ToString
@@ -69,6 +79,20 @@ public class Loan {
     @NotNull(message = "Loan status cannot be null")
     private LoanStatus status;
 
+    /**
+     * Branch the copy was checked out from, or null for loans against the global book counter.
+     */
+    private Long branchId;
+
+    /**
+     * Time of the last change, used by incremental jobs to find the loans that changed since
+     * their previous run. Set by Hibernate on every insert and update; bulk updates set it
+     * explicitly.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     /**
      * Equality based on loan id.
      * @param o Other object
@@ -4,5 +4,13 @@ package com.abhiesa.hellowithcopilot.library.model;
  * Enum representing the status of a loan in the library.
  */
 public enum LoanStatus {
-   ACTIVE, RETURNED, OVERDUE, LOST
+   ACTIVE, RETURNED, OVERDUE, LOST;
+
+   /**
+    * Whether the book is still out and can be returned.
+    * @return true for active and overdue loans
+    */
+   public boolean isOpen() {
+     return this == ACTIVE || this == OVERDUE;
+   }
 }
@@ -7,6 +7,8 @@ import jakarta.persistence.Id;
 import java.time.LocalDate;
 import java.util.Objects;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -14,6 +16,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.PositiveOrZero;
 
 /**
  * Entity representing a member in the library.
@@ -34,8 +37,9 @@ public class Member {
     private Long id;
 
     /**
-     * Member's unique library ID.
+     * Member's unique library ID (the library card string read by scanners).
      */
+    @NaturalId(mutable = true)
     @NotBlank(message = "Member ID cannot be blank")
     private String memberId;
 
@@ -62,6 +66,14 @@ public class Member {
      */
     private boolean active = true;
 
+    /**
+     * Number of the member's open loans, kept in step with every checkout and return so the loan
+     * limit is checked without counting loans. Ignored on create and update.
+     */
+    @ColumnDefault("0")
+    @PositiveOrZero(message = "Active loans cannot be negative")
+    private int activeLoans;
+
     /**
      * Equality based on member id.
      * @param o Other object
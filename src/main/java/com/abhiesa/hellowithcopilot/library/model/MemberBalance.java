@@ -0,0 +1,68 @@
+package com.abhiesa.hellowithcopilot.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Summary row holding a member's outstanding fines, kept equal to the sum of their
+ * {@link FineLedgerEntry} rows by the accrual job so that reading a balance is a primary key
+ * lookup.
+ */
+@Entity
+@Table(name = "member_balances")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberBalance {
+    /**
+     * Member the balance belongs to.
+     */
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    /**
+     * Outstanding fines in cents.
+     */
+    @Column(nullable = false)
+    private long balanceCents;
+
+    /**
+     * Time the balance last changed.
+     */
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    /**
+     * Equality based on member id.
+     * @param o Other object
+     * @return true if member ids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      MemberBalance balance = (MemberBalance) o;
+      return Objects.equals(memberId, balance.memberId);
+    }
+
+    /**
+     * Hash code based on member id.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(memberId);
+    }
+}
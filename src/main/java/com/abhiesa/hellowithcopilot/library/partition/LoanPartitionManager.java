@@ -0,0 +1,149 @@
+package com.abhiesa.hellowithcopilot.library.partition;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the monthly partitions of the PostgreSQL loans table, which is partitioned by loan
+ * date (see {@code db/postgres/schema.sql}). At startup and daily it creates the partitions for
+ * the current month and a number of months ahead, so inserts never fall into the default
+ * partition, and detaches partitions older than the retention period. A detached partition stays
+ * in the database as an ordinary table named {@code loans_pYYYYMM}, so archiving or dropping it
+ * is a metadata change instead of a bulk delete.
+ */
+@Component
+@Profile("postgres")
+public class LoanPartitionManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoanPartitionManager.class);
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+  private static final Pattern PARTITION_NAME = Pattern.compile("loans_p(\\d{6})");
+
+  private final JdbcTemplate jdbc;
+  private final Clock clock;
+  private final int monthsAhead;
+  private final int retentionMonths;
+
+  /**
+   * Constructs the manager.
+   * @param jdbc JdbcTemplate instance
+   * @param clock clock giving the current month
+   * @param monthsAhead partitions created beyond the current month
+   * @param retentionMonths months kept attached, counting the current one; 0 keeps all
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public LoanPartitionManager(JdbcTemplate jdbc, Clock clock,
+      @Value("${library.loans.partitions.months-ahead:3}") int monthsAhead,
+      @Value("${library.loans.partitions.retention-months:0}") int retentionMonths) {
+    if (jdbc == null || clock == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (monthsAhead < 0 || retentionMonths < 0) {
+      throw new IllegalArgumentException("Invalid partition settings");
+    }
+    this.jdbc = jdbc;
+    this.clock = clock;
+    this.monthsAhead = monthsAhead;
+    this.retentionMonths = retentionMonths;
+  }
+
+  /**
+   * Creates upcoming partitions and detaches expired ones.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${library.loans.partitions.maintenance-cron:0 0 1 * * *}")
+  public void maintain() {
+    YearMonth current = YearMonth.now(clock);
+    for (int i = 0; i <= monthsAhead; i++) {
+      ensurePartition(current.plusMonths(i));
+    }
+    if (retentionMonths > 0) {
+      List<String> detached = detachBefore(current.minusMonths(retentionMonths - 1L));
+      if (!detached.isEmpty()) {
+        logger.info("Detached loan partitions {}", detached);
+      }
+    }
+  }
+
+  /**
+   * Creates the partition holding the loans of a month, if it does not exist yet. Creation fails
+   * if the default partition already holds loans of that month; the loans then stay there and a
+   * warning is logged.
+   * @param month the month
+   * @return true if the partition exists afterwards
+   * @throws IllegalArgumentException if month is null
+   */
+  public boolean ensurePartition(YearMonth month) {
+    if (month == null) {
+      throw new IllegalArgumentException("Month cannot be null");
+    }
+    try {
+      jdbc.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF loans "
+          + "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1)
+          + "')");
+      return true;
+    } catch (DataAccessException e) {
+      logger.warn("Could not create loan partition for {}", month, e);
+      return false;
+    }
+  }
+
+  /**
+   * Lists the months that have an attached partition.
+   * @return months in ascending order
+   */
+  public List<YearMonth> partitions() {
+    List<String> names = jdbc.queryForList("SELECT c.relname FROM pg_inherits i "
+        + "JOIN pg_class c ON c.oid = i.inhrelid "
+        + "WHERE i.inhparent = 'loans'::regclass ORDER BY c.relname", String.class);
+    List<YearMonth> months = new ArrayList<>(names.size());
+    for (String name : names) {
+      Matcher m = PARTITION_NAME.matcher(name);
+      if (m.matches()) {
+        months.add(YearMonth.parse(m.group(1), SUFFIX));
+      }
+    }
+    return months;
+  }
+
+  /**
+   * Detaches the partitions of all months before a cutoff. Their loans disappear from the loans
+   * table but remain in the detached tables.
+   * @param cutoff first month kept attached
+   * @return names of the detached tables
+   * @throws IllegalArgumentException if cutoff is null
+   */
+  public List<String> detachBefore(YearMonth cutoff) {
+    if (cutoff == null) {
+      throw new IllegalArgumentException("Cutoff cannot be null");
+    }
+    List<String> detached = new ArrayList<>();
+    for (YearMonth month : partitions()) {
+      if (month.isBefore(cutoff)) {
+        String name = partitionName(month);
+        jdbc.execute("ALTER TABLE loans DETACH PARTITION " + name);
+        detached.add(name);
+      }
+    }
+    return detached;
+  }
+
+  static String partitionName(YearMonth month) {
+    return "loans_p" + month.format(SUFFIX);
+  }
+}
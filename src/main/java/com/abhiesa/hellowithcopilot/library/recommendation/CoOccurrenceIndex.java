@@ -0,0 +1,222 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.support.LongHashSet;
+import com.abhiesa.hellowithcopilot.library.support.LongIntHashMap;
+import com.abhiesa.hellowithcopilot.library.support.LongObjectHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * "Also borrowed" index: for every book, how many members borrowed it together with each other
+ * book, and the top K of those.
+ * The sparse co-occurrence matrix and the per-member borrowing history are kept in primitive-keyed
+ * maps. Each checkout pairs the new book with the member's earlier books, so the matrix is
+ * maintained incrementally; a member borrowing the same book again adds nothing. Queries read a
+ * ranking that was published when it last changed, so they cost one map lookup.
+ * A full rebuild streams the loans table into a fresh matrix and swaps it in; checkouts made
+ * while the rebuild runs are replayed into the new matrix before the swap.
+ */
+@Component
+public class CoOccurrenceIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(CoOccurrenceIndex.class);
+
+  private final LoanRepository loans;
+  private final TransactionTemplate readOnlyTx;
+  private final int topK;
+  private final int maxBooksPerMember;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object rebuildLock = new Object();
+  private Matrix matrix;
+  private List<long[]> replay;
+
+  /**
+   * Constructs an empty index.
+   * @param loans LoanRepository used for rebuilds
+   * @param transactionManager transaction manager for the streaming rebuild
+   * @param topK number of related books kept per book
+   * @param maxBooksPerMember distinct books per member that are paired; books borrowed beyond
+   *     this are ignored so a few very heavy borrowers cannot dominate the matrix
+   * @throws IllegalArgumentException if any dependency is null or a setting is not positive
+   */
+  public CoOccurrenceIndex(LoanRepository loans, PlatformTransactionManager transactionManager,
+      @Value("${library.related.top-k:20}") int topK,
+      @Value("${library.related.max-books-per-member:1000}") int maxBooksPerMember) {
+    if (loans == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (topK <= 0 || maxBooksPerMember <= 0) {
+      throw new IllegalArgumentException("Invalid related-books settings");
+    }
+    this.loans = loans;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.topK = topK;
+    this.maxBooksPerMember = maxBooksPerMember;
+    this.matrix = new Matrix(topK, maxBooksPerMember, 1024);
+  }
+
+  /**
+   * Builds the index from the loan history once the application has started.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    rebuild();
+  }
+
+  /**
+   * Adds a committed checkout to the index.
+   * @param event the checkout
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCheckout(LoanCheckedOutEvent event) {
+    if (event.memberId() == null || event.bookId() == null) {
+      return;
+    }
+    record(event.memberId(), event.bookId());
+  }
+
+  /**
+   * Records that a member borrowed a book.
+   * @param memberId member ID
+   * @param bookId book ID
+   * @throws IllegalArgumentException if an ID is not positive
+   */
+  public void record(long memberId, long bookId) {
+    if (memberId <= 0 || bookId <= 0) {
+      throw new IllegalArgumentException("Member and book IDs must be positive");
+    }
+    lock.writeLock().lock();
+    try {
+      matrix.record(memberId, bookId);
+      if (replay != null) {
+        replay.add(new long[] {memberId, bookId});
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the books most often borrowed by members who also borrowed the given book.
+   * @param bookId book ID
+   * @return related books, strongest first; empty if the book has none
+   */
+  public RelatedRanking related(long bookId) {
+    lock.readLock().lock();
+    try {
+      TopRelated top = matrix.top.get(bookId);
+      return top == null ? RelatedRanking.EMPTY : top.ranking();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the loans table. Runs nightly, and can be called after bulk changes
+   * that bypass LoanService.
+   */
+  @Scheduled(cron = "${library.related.rebuild-cron:0 30 3 * * *}")
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      long started = System.nanoTime();
+      int expectedMembers;
+      lock.writeLock().lock();
+      try {
+        replay = new ArrayList<>();
+        expectedMembers = Math.max(1024, matrix.members());
+      } finally {
+        lock.writeLock().unlock();
+      }
+      Matrix fresh;
+      try {
+        fresh = readOnlyTx.execute(status -> {
+          Matrix built = new Matrix(topK, maxBooksPerMember, expectedMembers);
+          try (Stream<Object[]> pairs = loans.streamMemberBookPairs()) {
+            pairs.forEach(row -> {
+              if (row[0] != null && row[1] != null) {
+                built.record((Long) row[0], (Long) row[1]);
+              }
+            });
+          }
+          return built;
+        });
+      } catch (RuntimeException e) {
+        lock.writeLock().lock();
+        try {
+          replay = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+        throw e;
+      }
+      lock.writeLock().lock();
+      try {
+        for (long[] pair : replay) {
+          fresh.record(pair[0], pair[1]);
+        }
+        replay = null;
+        matrix = fresh;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      logger.info("Related-books index rebuilt: {} members, {} books in {} ms", fresh.members(),
+          fresh.top.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+  }
+
+  /**
+   * One generation of the index. Guarded by the index lock once published.
+   */
+  private static final class Matrix {
+    private final int topK;
+    private final int maxBooksPerMember;
+    private final LongObjectHashMap<LongHashSet> booksByMember;
+    private final LongObjectHashMap<LongIntHashMap> pairCounts;
+    private final LongObjectHashMap<TopRelated> top;
+
+    Matrix(int topK, int maxBooksPerMember, int expectedMembers) {
+      this.topK = topK;
+      this.maxBooksPerMember = maxBooksPerMember;
+      this.booksByMember = new LongObjectHashMap<>(expectedMembers);
+      this.pairCounts = new LongObjectHashMap<>(expectedMembers);
+      this.top = new LongObjectHashMap<>(expectedMembers);
+    }
+
+    void record(long memberId, long bookId) {
+      LongHashSet history = booksByMember.computeIfAbsent(memberId, id -> new LongHashSet(8));
+      if (history.size() >= maxBooksPerMember || history.contains(bookId)) {
+        return;
+      }
+      history.forEach(other -> {
+        bump(bookId, other);
+        bump(other, bookId);
+      });
+      history.add(bookId);
+    }
+
+    private void bump(long bookId, long otherId) {
+      int count = pairCounts.computeIfAbsent(bookId, id -> new LongIntHashMap(8)).addTo(otherId, 1);
+      top.computeIfAbsent(bookId, id -> new TopRelated(topK)).offer(otherId, count);
+    }
+
+    int members() {
+      return booksByMember.size();
+    }
+  }
+}
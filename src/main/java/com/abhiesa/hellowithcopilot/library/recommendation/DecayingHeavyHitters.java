@@ -0,0 +1,157 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import com.abhiesa.hellowithcopilot.library.support.CountMinSketch;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Exponentially decayed checkout counts for an unbounded set of books in fixed memory: a
+ * Count-Min sketch estimates every book's score, and a bounded min-heap keeps the books with the
+ * highest estimates as trending candidates.
+ * Decay uses forward decay: a checkout at time t adds {@code exp(lambda * (t - landmark))}, so old
+ * weights never have to be touched; scores are divided by the same factor when read. When the
+ * weights grow large the sketch and heap are rescaled once and the landmark moves forward.
+ * Thread-safe.
+ */
+final class DecayingHeavyHitters {
+
+  /**
+   * Rescale once weights reach about e^64, far below double overflow.
+   */
+  private static final double MAX_EXPONENT = 64;
+
+  /**
+   * Candidates whose decayed score has fallen below this are treated as gone.
+   */
+  private static final double MIN_SCORE = 0.01;
+
+  private final CountMinSketch sketch;
+  private final double lambdaPerMilli;
+  private final long[] ids;
+  private final double[] scores;
+  private int size;
+  private long landmark;
+
+  /**
+   * @param halfLife time after which a checkout counts half
+   * @param depth sketch rows
+   * @param width sketch counters per row
+   * @param candidates number of books kept as trending candidates
+   * @param startMillis initial landmark
+   */
+  DecayingHeavyHitters(Duration halfLife, int depth, int width, int candidates, long startMillis) {
+    if (halfLife == null || halfLife.toMillis() <= 0 || candidates <= 0) {
+      throw new IllegalArgumentException("Invalid trending settings");
+    }
+    this.sketch = new CountMinSketch(depth, width);
+    this.lambdaPerMilli = Math.log(2) / halfLife.toMillis();
+    this.ids = new long[candidates];
+    this.scores = new double[candidates];
+    this.landmark = startMillis;
+  }
+
+  synchronized void record(long bookId, long atMillis) {
+    if (lambdaPerMilli * (atMillis - landmark) > MAX_EXPONENT) {
+      rescale(atMillis);
+    }
+    double estimate = sketch.add(bookId, Math.exp(lambdaPerMilli * (atMillis - landmark)));
+    offer(bookId, estimate);
+  }
+
+  synchronized TrendingRanking top(int limit, long nowMillis) {
+    double decay = Math.exp(-lambdaPerMilli * (nowMillis - landmark));
+    long[] rankedIds = Arrays.copyOf(ids, size);
+    double[] rankedScores = new double[size];
+    for (int i = 0; i < size; i++) {
+      rankedScores[i] = scores[i] * decay;
+    }
+    // Selection of the best `limit` entries; the heap holds at most a few hundred books.
+    int count = 0;
+    for (int i = 0; i < size && count < limit; i++) {
+      int best = i;
+      for (int j = i + 1; j < size; j++) {
+        if (rankedScores[j] > rankedScores[best]
+            || (rankedScores[j] == rankedScores[best] && rankedIds[j] < rankedIds[best])) {
+          best = j;
+        }
+      }
+      if (rankedScores[best] < MIN_SCORE) {
+        break;
+      }
+      swap(rankedIds, rankedScores, i, best);
+      count++;
+    }
+    return new TrendingRanking(Arrays.copyOf(rankedIds, count), Arrays.copyOf(rankedScores, count));
+  }
+
+  synchronized int candidates() {
+    return size;
+  }
+
+  private void offer(long bookId, double estimate) {
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == bookId) {
+        scores[i] = estimate;
+        siftDown(i);
+        return;
+      }
+    }
+    if (size < ids.length) {
+      ids[size] = bookId;
+      scores[size] = estimate;
+      siftUp(size++);
+    } else if (estimate > scores[0]) {
+      ids[0] = bookId;
+      scores[0] = estimate;
+      siftDown(0);
+    }
+  }
+
+  private void rescale(long nowMillis) {
+    double factor = Math.exp(-lambdaPerMilli * (nowMillis - landmark));
+    sketch.scale(Math.max(factor, Double.MIN_VALUE));
+    for (int i = 0; i < size; i++) {
+      scores[i] *= factor;
+    }
+    landmark = nowMillis;
+  }
+
+  private void siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (scores[parent] <= scores[i]) {
+        return;
+      }
+      swap(ids, scores, i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    while (true) {
+      int smallest = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < size && scores[left] < scores[smallest]) {
+        smallest = left;
+      }
+      if (right < size && scores[right] < scores[smallest]) {
+        smallest = right;
+      }
+      if (smallest == i) {
+        return;
+      }
+      swap(ids, scores, i, smallest);
+      i = smallest;
+    }
+  }
+
+  private static void swap(long[] ids, double[] scores, int a, int b) {
+    long id = ids[a];
+    ids[a] = ids[b];
+    ids[b] = id;
+    double score = scores[a];
+    scores[a] = scores[b];
+    scores[b] = score;
+  }
+}
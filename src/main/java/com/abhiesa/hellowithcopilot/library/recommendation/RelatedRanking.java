@@ -0,0 +1,23 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+/**
+ * Books borrowed together with one book, strongest first. Instances are immutable once published.
+ *
+ * @param bookIds related book IDs
+ * @param counts number of members who borrowed both books, aligned with bookIds
+ */
+public record RelatedRanking(long[] bookIds, int[] counts) {
+
+  /**
+   * Ranking of a book nobody borrowed together with anything else.
+   */
+  public static final RelatedRanking EMPTY = new RelatedRanking(new long[0], new int[0]);
+
+  /**
+   * Number of related books.
+   * @return size
+   */
+  public int size() {
+    return bookIds.length;
+  }
+}
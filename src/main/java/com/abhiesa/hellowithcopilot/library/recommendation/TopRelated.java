@@ -0,0 +1,114 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * The K books most often borrowed together with one book, kept in a bounded min-heap ordered by
+ * co-borrow count so the weakest entry is always at the root.
+ * Counts only ever grow between rebuilds, so a book outside the heap can only enter by overtaking
+ * the root, and the heap stays exact. Every change republishes an immutable ranking, so readers
+ * get the answer without sorting. Not thread-safe for writers.
+ */
+final class TopRelated {
+
+  private final long[] ids;
+  private final int[] counts;
+  private int size;
+  private RelatedRanking ranking = RelatedRanking.EMPTY;
+
+  TopRelated(int capacity) {
+    this.ids = new long[capacity];
+    this.counts = new int[capacity];
+  }
+
+  /**
+   * Records the new co-borrow count of a book.
+   * @return true if the ranking changed
+   */
+  boolean offer(long bookId, int count) {
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == bookId) {
+        counts[i] = count;
+        siftDown(i);
+        publish();
+        return true;
+      }
+    }
+    if (size < ids.length) {
+      ids[size] = bookId;
+      counts[size] = count;
+      siftUp(size++);
+    } else if (count > counts[0]) {
+      ids[0] = bookId;
+      counts[0] = count;
+      siftDown(0);
+    } else {
+      return false;
+    }
+    publish();
+    return true;
+  }
+
+  RelatedRanking ranking() {
+    return ranking;
+  }
+
+  private void publish() {
+    long[] rankedIds = Arrays.copyOf(ids, size);
+    int[] rankedCounts = Arrays.copyOf(counts, size);
+    // Insertion sort: K is small and the heap is already partly ordered.
+    for (int i = 1; i < size; i++) {
+      long id = rankedIds[i];
+      int count = rankedCounts[i];
+      int j = i - 1;
+      while (j >= 0 && (rankedCounts[j] < count
+          || (rankedCounts[j] == count && rankedIds[j] > id))) {
+        rankedIds[j + 1] = rankedIds[j];
+        rankedCounts[j + 1] = rankedCounts[j];
+        j--;
+      }
+      rankedIds[j + 1] = id;
+      rankedCounts[j + 1] = count;
+    }
+    ranking = new RelatedRanking(rankedIds, rankedCounts);
+  }
+
+  private void siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (counts[parent] <= counts[i]) {
+        return;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    while (true) {
+      int smallest = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < size && counts[left] < counts[smallest]) {
+        smallest = left;
+      }
+      if (right < size && counts[right] < counts[smallest]) {
+        smallest = right;
+      }
+      if (smallest == i) {
+        return;
+      }
+      swap(i, smallest);
+      i = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    long id = ids[a];
+    ids[a] = ids[b];
+    ids[b] = id;
+    int count = counts[a];
+    counts[a] = counts[b];
+    counts[b] = count;
+  }
+}
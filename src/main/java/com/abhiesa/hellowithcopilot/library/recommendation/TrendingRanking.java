@@ -0,0 +1,18 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+/**
+ * Trending books, hottest first. Instances are immutable once returned.
+ *
+ * @param bookIds book IDs
+ * @param scores time-decayed checkout counts, aligned with bookIds
+ */
+public record TrendingRanking(long[] bookIds, double[] scores) {
+
+  /**
+   * Number of trending books.
+   * @return size
+   */
+  public int size() {
+    return bookIds.length;
+  }
+}
@@ -0,0 +1,152 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tracks which books are being checked out most right now, overall and per category, for each
+ * configured window. A window is the half-life of the decay: a checkout one half-life ago counts
+ * half as much as one now.
+ * Every (window, category) pair has its own {@link DecayingHeavyHitters}, so memory is fixed by
+ * the sketch size and candidate count and does not grow with the catalogue or the loan history.
+ */
+@Component
+public class TrendingTracker {
+
+  private final BookService books;
+  private final Clock clock;
+  private final Map<String, Window> windows;
+
+  /**
+   * Constructs the tracker.
+   * @param books BookService used to look up the category of checked-out books
+   * @param clock clock checkouts are stamped with
+   * @param windows comma-separated {@code name=half-life} pairs, for example {@code day=P1D}
+   * @param depth Count-Min sketch rows
+   * @param width Count-Min sketch counters per row
+   * @param candidates books kept as trending candidates per window and category
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public TrendingTracker(BookService books, Clock clock,
+      @Value("${library.trending.windows:hour=PT1H,day=P1D,week=P7D}") String windows,
+      @Value("${library.trending.sketch-depth:4}") int depth,
+      @Value("${library.trending.sketch-width:2048}") int width,
+      @Value("${library.trending.candidates:100}") int candidates) {
+    if (books == null || clock == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.books = books;
+    this.clock = clock;
+    Map<String, Window> parsed = new LinkedHashMap<>();
+    for (Map.Entry<String, Duration> entry : parseWindows(windows).entrySet()) {
+      parsed.put(entry.getKey(),
+          new Window(entry.getValue(), depth, width, candidates, clock.millis()));
+    }
+    this.windows = Collections.unmodifiableMap(parsed);
+  }
+
+  /**
+   * Counts a committed checkout.
+   * @param event the checkout
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCheckout(LoanCheckedOutEvent event) {
+    if (event.bookId() == null) {
+      return;
+    }
+    Book book;
+    try {
+      book = books.get(event.bookId());
+    } catch (NotFoundException e) {
+      return;
+    }
+    record(event.bookId(), book.getCategory(), clock.millis());
+  }
+
+  /**
+   * Counts a checkout of a book in every window.
+   * @param bookId book ID
+   * @param category the book's category, or null if it has none
+   * @param atMillis checkout time in epoch milliseconds
+   */
+  public void record(long bookId, Category category, long atMillis) {
+    for (Window window : windows.values()) {
+      window.all.record(bookId, atMillis);
+      if (category != null) {
+        window.byCategory.get(category).record(bookId, atMillis);
+      }
+    }
+  }
+
+  /**
+   * Returns the hottest books of a window.
+   * @param window window name
+   * @param category category to restrict to, or null for all books
+   * @param limit maximum number of books
+   * @return trending books, hottest first
+   * @throws IllegalArgumentException if the window is unknown or limit is not positive
+   */
+  public TrendingRanking trending(String window, Category category, int limit) {
+    Window selected = windows.get(window);
+    if (selected == null) {
+      throw new IllegalArgumentException("Unknown trending window: " + window);
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    DecayingHeavyHitters counts = category == null ? selected.all : selected.byCategory.get(category);
+    return counts.top(limit, clock.millis());
+  }
+
+  /**
+   * Names of the configured windows.
+   * @return window names in configuration order
+   */
+  public Set<String> windows() {
+    return windows.keySet();
+  }
+
+  /**
+   * Parses {@code name=half-life} pairs separated by commas.
+   */
+  static Map<String, Duration> parseWindows(String spec) {
+    if (spec == null || spec.isBlank()) {
+      throw new IllegalArgumentException("At least one trending window is required");
+    }
+    Map<String, Duration> windows = new LinkedHashMap<>();
+    for (String part : spec.split(",")) {
+      String[] pair = part.trim().split("=");
+      if (pair.length != 2 || pair[0].isBlank()) {
+        throw new IllegalArgumentException("Invalid trending window: " + part);
+      }
+      windows.put(pair[0].trim(), Duration.parse(pair[1].trim()));
+    }
+    return windows;
+  }
+
+  private static final class Window {
+    private final DecayingHeavyHitters all;
+    private final Map<Category, DecayingHeavyHitters> byCategory = new EnumMap<>(Category.class);
+
+    Window(Duration halfLife, int depth, int width, int candidates, long startMillis) {
+      this.all = new DecayingHeavyHitters(halfLife, depth, width, candidates, startMillis);
+      for (Category category : Category.values()) {
+        byCategory.put(category,
+            new DecayingHeavyHitters(halfLife, depth, width, candidates, startMillis));
+      }
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.support.TimingWheel;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Schedules due-date reminders for active loans on an in-memory timing wheel.
+ * Active loans are loaded once at startup; afterwards checkouts schedule and returns cancel their
+ * reminders, so the loans table is never scanned for upcoming due dates. A periodic tick hands
+ * due reminders to the {@link ReminderSink}.
+ * Reminders whose time has passed are sent right away if they fall on the current day, so a
+ * restart on the due date does not skip them; older ones are dropped.
+ */
+@Component
+public class DueDateReminderScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(DueDateReminderScheduler.class);
+
+  private final LoanRepository loans;
+  private final ReminderSink sink;
+  private final Clock clock;
+  private final TransactionTemplate readOnlyTx;
+  private final int[] daysBefore;
+  private final LocalTime sendAt;
+  private final TimingWheel<Reminder> wheel;
+  private final ConcurrentHashMap<Long, List<TimingWheel.Timeout<Reminder>>> byLoan =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs the scheduler.
+   * @param loans LoanRepository used to load active loans at startup
+   * @param sink destination for due reminders
+   * @param clock clock reminders are scheduled against
+   * @param transactionManager transaction manager for the startup load
+   * @param daysBefore days before the due date to remind on; 0 means the due date itself
+   * @param sendAt local time of day reminders are sent at
+   * @param tick resolution of the timing wheel
+   * @param wheelSize number of buckets per wheel level
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public DueDateReminderScheduler(LoanRepository loans, ReminderSink sink, Clock clock,
+      PlatformTransactionManager transactionManager,
+      @Value("${library.reminders.days-before:3,0}") int[] daysBefore,
+      @Value("${library.reminders.send-at:09:00}") LocalTime sendAt,
+      @Value("${library.reminders.tick:PT1M}") Duration tick,
+      @Value("${library.reminders.wheel-size:64}") int wheelSize) {
+    if (loans == null || sink == null || clock == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (daysBefore == null || daysBefore.length == 0 || sendAt == null || tick == null
+        || tick.toMillis() <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("Invalid reminder settings");
+    }
+    for (int days : daysBefore) {
+      if (days < 0) {
+        throw new IllegalArgumentException("Reminder offsets cannot be negative");
+      }
+    }
+    this.loans = loans;
+    this.sink = sink;
+    this.clock = clock;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.daysBefore = daysBefore.clone();
+    this.sendAt = sendAt;
+    this.wheel = new TimingWheel<>(tick.toMillis(), wheelSize, clock.millis());
+  }
+
+  /**
+   * Schedules reminders for every active loan once the application has started.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadActiveLoans() {
+    Integer loaded = readOnlyTx.execute(status -> {
+      int count = 0;
+      try (Stream<Loan> active = loans.streamByStatus(LoanStatus.ACTIVE)) {
+        for (Loan loan : (Iterable<Loan>) active::iterator) {
+          schedule(loan.getId(), loan.getMemberId(), loan.getBookId(), loan.getDueDate());
+          count++;
+        }
+      }
+      return count;
+    });
+    logger.info("Scheduled due-date reminders for {} active loans", loaded);
+  }
+
+  /**
+   * Schedules reminders for a committed checkout.
+   * @param event checkout event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCheckout(LoanCheckedOutEvent event) {
+    schedule(event.loanId(), event.memberId(), event.bookId(), event.dueDate());
+  }
+
+  /**
+   * Cancels the reminders of a committed return.
+   * @param event return event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onReturn(LoanReturnedEvent event) {
+    cancel(event.loanId());
+  }
+
+  /**
+   * Schedules the reminders of a loan, replacing any it already had.
+   * @param loanId Loan ID
+   * @param memberId Member ID
+   * @param bookId Book ID
+   * @param dueDate due date
+   * @return number of reminders scheduled
+   * @throws IllegalArgumentException if loanId or dueDate is null
+   */
+  public int schedule(Long loanId, Long memberId, Long bookId, LocalDate dueDate) {
+    if (loanId == null || dueDate == null) {
+      throw new IllegalArgumentException("Loan ID and due date must be non-null");
+    }
+    Instant now = clock.instant();
+    LocalDate today = LocalDate.ofInstant(now, clock.getZone());
+    List<TimingWheel.Timeout<Reminder>> timeouts = new ArrayList<>(daysBefore.length);
+    for (int days : daysBefore) {
+      LocalDate day = dueDate.minusDays(days);
+      if (day.isBefore(today)) {
+        continue;
+      }
+      Instant at = day.atTime(sendAt).atZone(clock.getZone()).toInstant();
+      if (at.isBefore(now)) {
+        at = now;
+      }
+      ReminderType type = days == 0 ? ReminderType.DUE_TODAY : ReminderType.DUE_SOON;
+      Reminder reminder = new Reminder(loanId, memberId, bookId, dueDate, type, at);
+      TimingWheel.Timeout<Reminder> timeout = wheel.schedule(reminder, at.toEpochMilli());
+      if (timeout == null) {
+        deliver(reminder);
+      } else {
+        timeouts.add(timeout);
+      }
+    }
+    List<TimingWheel.Timeout<Reminder>> previous = timeouts.isEmpty()
+        ? byLoan.remove(loanId)
+        : byLoan.put(loanId, List.copyOf(timeouts));
+    cancelAll(previous);
+    return timeouts.size();
+  }
+
+  /**
+   * Cancels all pending reminders of a loan.
+   * @param loanId Loan ID
+   * @return number of reminders cancelled
+   */
+  public int cancel(Long loanId) {
+    if (loanId == null) {
+      return 0;
+    }
+    return cancelAll(byLoan.remove(loanId));
+  }
+
+  /**
+   * Periodic tick of the wheel.
+   */
+  @Scheduled(fixedDelayString = "${library.reminders.tick:PT1M}")
+  public void tick() {
+    sendDueReminders();
+  }
+
+  /**
+   * Sends every reminder that has come due.
+   * @return number of reminders sent
+   */
+  public int sendDueReminders() {
+    return wheel.advance(clock.millis(), this::fire);
+  }
+
+  /**
+   * Number of reminders waiting on the wheel.
+   * @return pending reminder count
+   */
+  public long pendingReminders() {
+    return wheel.size();
+  }
+
+  private void fire(Reminder reminder) {
+    byLoan.computeIfPresent(reminder.loanId(), (id, timeouts) -> {
+      List<TimingWheel.Timeout<Reminder>> remaining = new ArrayList<>(timeouts.size());
+      for (TimingWheel.Timeout<Reminder> timeout : timeouts) {
+        if (timeout.payload() != reminder) {
+          remaining.add(timeout);
+        }
+      }
+      return remaining.isEmpty() ? null : List.copyOf(remaining);
+    });
+    deliver(reminder);
+  }
+
+  private void deliver(Reminder reminder) {
+    try {
+      sink.send(reminder);
+    } catch (RuntimeException e) {
+      logger.warn("Could not deliver {} reminder for loan {}", reminder.type(), reminder.loanId(),
+          e);
+    }
+  }
+
+  private static int cancelAll(List<TimingWheel.Timeout<Reminder>> timeouts) {
+    int cancelled = 0;
+    if (timeouts != null) {
+      for (TimingWheel.Timeout<Reminder> timeout : timeouts) {
+        if (timeout.cancel()) {
+          cancelled++;
+        }
+      }
+    }
+    return cancelled;
+  }
+}
@@ -0,0 +1,78 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reminder sink that appends one line per reminder to a local file.
+ * Used by default and in tests; production deployments plug in a real notification channel.
+ */
+public class LogFileReminderSink implements ReminderSink, Closeable {
+
+  private final Path file;
+  private final BufferedWriter writer;
+
+  /**
+   * Opens the file for appending, creating it and its parent directories if needed.
+   * @param file path of the reminder log
+   * @throws IllegalArgumentException if file is null
+   * @throws UncheckedIOException if the file cannot be opened
+   */
+  public LogFileReminderSink(Path file) {
+    if (file == null) {
+      throw new IllegalArgumentException("Reminder log file cannot be null");
+    }
+    this.file = file;
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open reminder log " + file, e);
+    }
+  }
+
+  /**
+   * Appends the reminder as a single line.
+   * @param reminder reminder to log
+   */
+  @Override
+  public synchronized void send(Reminder reminder) {
+    if (reminder == null) {
+      throw new IllegalArgumentException("Reminder cannot be null");
+    }
+    try {
+      writer.write(reminder.sendAt() + " " + reminder.type()
+          + " loan=" + reminder.loanId()
+          + " member=" + reminder.memberId()
+          + " book=" + reminder.bookId()
+          + " due=" + reminder.dueDate());
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write reminder log " + file, e);
+    }
+  }
+
+  /**
+   * Path of the reminder log.
+   * @return file path
+   */
+  public Path file() {
+    return file;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,18 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A due-date reminder for one loan.
+ *
+ * @param loanId ID of the loan
+ * @param memberId ID of the member to notify
+ * @param bookId ID of the loaned book
+ * @param dueDate date the book is due back
+ * @param type kind of reminder
+ * @param sendAt instant the reminder is scheduled for
+ */
+public record Reminder(Long loanId, Long memberId, Long bookId, LocalDate dueDate,
+    ReminderType type, Instant sendAt) {
+}
@@ -0,0 +1,15 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+/**
+ * Destination for due-date reminders, such as e-mail or a push gateway.
+ * Define a bean of this type to replace the default log-file sink.
+ */
+public interface ReminderSink {
+
+  /**
+   * Delivers a reminder. Called from the scheduler thread, so implementations should not block
+   * for long.
+   * @param reminder reminder to deliver
+   */
+  void send(Reminder reminder);
+}
@@ -0,0 +1,11 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+/**
+ * Kind of due-date reminder.
+ */
+public enum ReminderType {
+  /** Sent a configured number of days before the due date. */
+  DUE_SOON,
+  /** Sent on the due date itself. */
+  DUE_TODAY
+}
@@ -0,0 +1,72 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Shared implementation of multi-get lookups for the batch repository fragments.
+ * Ids already held in the second-level cache are resolved from it; the rest are loaded with
+ * {@code IN} queries of at most {@code chunkSize} ids each.
+ */
+final class BatchLoading {
+
+  private BatchLoading() {
+    // utility class
+  }
+
+  /**
+   * Loads entities by id, preserving the order of first occurrence in {@code ids}.
+   * @param em entity manager of the current persistence context
+   * @param type entity type
+   * @param ids requested ids (duplicates and nulls are ignored)
+   * @param chunkSize maximum number of ids per IN query
+   * @param query runs the IN query for one chunk of ids
+   * @param idOf extracts the id of a loaded entity
+   * @param <T> entity type
+   * @return entities found, in request order; unknown ids are skipped
+   */
+  static <T> List<T> load(EntityManager em, Class<T> type, Collection<Long> ids, int chunkSize,
+      Function<List<Long>, List<T>> query, Function<T, Long> idOf) {
+    if (ids == null || ids.isEmpty()) {
+      return List.of();
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    LinkedHashSet<Long> wanted = new LinkedHashSet<>(ids);
+    wanted.remove(null);
+    Map<Long, T> found = new LinkedHashMap<>();
+    List<Long> toQuery = new ArrayList<>();
+    var cache = em.getEntityManagerFactory().getCache();
+    for (Long id : wanted) {
+      if (cache.contains(type, id)) {
+        T cached = em.find(type, id);
+        if (cached != null) {
+          found.put(id, cached);
+          continue;
+        }
+      }
+      toQuery.add(id);
+    }
+    for (int from = 0; from < toQuery.size(); from += chunkSize) {
+      List<Long> chunk = toQuery.subList(from, Math.min(from + chunkSize, toQuery.size()));
+      for (T entity : query.apply(chunk)) {
+        found.put(idOf.apply(entity), entity);
+      }
+    }
+    List<T> ordered = new ArrayList<>(found.size());
+    for (Long id : wanted) {
+      T entity = found.get(id);
+      if (entity != null) {
+        ordered.add(entity);
+      }
+    }
+    return ordered;
+  }
+}
@@ -0,0 +1,19 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment for loading many books in one round trip.
+ */
+public interface BookBatchRepository {
+
+  /**
+   * Loads books by id together with their authors. Cached books are served from the second-level
+   * cache; the rest are fetched with chunked {@code IN} queries that join the authors.
+   * @param ids book ids
+   * @return books found, in the order of the requested ids
+   */
+  List<Book> findAllByIdInBatches(Collection<Long> ids);
+}
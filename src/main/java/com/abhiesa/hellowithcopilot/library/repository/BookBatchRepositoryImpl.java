@@ -0,0 +1,37 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Default implementation of {@link BookBatchRepository}.
+ */
+class BookBatchRepositoryImpl implements BookBatchRepository {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  private final int chunkSize;
+
+  BookBatchRepositoryImpl(@Value("${library.batch.chunk-size:500}") int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("library.batch.chunk-size must be positive");
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public List<Book> findAllByIdInBatches(Collection<Long> ids) {
+    return BatchLoading.load(em, Book.class, ids, chunkSize,
+        chunk -> em.createQuery(
+                "select b from Book b left join fetch b.authors where b.id in :ids",
+                Book.class)
+            .setParameter("ids", chunk)
+            .getResultList(),
+        Book::getId);
+  }
+}
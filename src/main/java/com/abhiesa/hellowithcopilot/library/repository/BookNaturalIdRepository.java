@@ -0,0 +1,18 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import java.util.Optional;
+
+/**
+ * Repository fragment for looking books up by their natural key.
+ */
+public interface BookNaturalIdRepository {
+
+  /**
+   * Finds a book by normalized ISBN through Hibernate's natural-id resolution, which consults the
+   * natural-id and entity cache regions before querying the unique ISBN index.
+   * @param isbn normalized ISBN
+   * @return the book, if any
+   */
+  Optional<Book> findByIsbn(String isbn);
+}
@@ -0,0 +1,28 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Optional;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Default implementation of {@link BookNaturalIdRepository}.
+ * Runs in its own read-only transaction when called without one, so the unwrapped session stays
+ * open for the lookup even where no request-scoped entity manager is bound.
+ */
+class BookNaturalIdRepositoryImpl implements BookNaturalIdRepository {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<Book> findByIsbn(String isbn) {
+    if (isbn == null) {
+      throw new IllegalArgumentException("isbn must not be null");
+    }
+    return em.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbn);
+  }
+}
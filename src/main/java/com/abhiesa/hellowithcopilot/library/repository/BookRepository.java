@@ -1,12 +1,104 @@
 package com.abhiesa.hellowithcopilot.library.repository;
 
+import com.abhiesa.hellowithcopilot.library.cache.CacheRegions;
 import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repository interface for Book entity.
  * Provides CRUD operations for books.
  * Defensive programming: always validate input parameters in custom methods.
  */
-public interface BookRepository extends JpaRepository<Book, Long> {
-}
\ No newline at end of file
+public interface BookRepository extends JpaRepository<Book, Long>, BookBatchRepository,
+    BookNaturalIdRepository {
+
+  /**
+   * Lists the whole catalogue. The result is held in the catalogue query cache region and is
+   * invalidated by Hibernate whenever the books table is written.
+   * @return list of all books
+   */
+  @Override
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATALOGUE_QUERIES)
+  })
+  List<Book> findAll();
+
+  /**
+   * Streams every stored ISBN. Must be consumed inside a transaction and closed.
+   * @return stream of normalized ISBNs
+   */
+  @Query("select b.isbn from Book b")
+  Stream<String> streamIsbns();
+
+  /**
+   * Resolves ISBNs to book IDs without loading entities.
+   * @param isbns normalized ISBNs
+   * @return (id, isbn) rows of the books found
+   */
+  @Query("select b.id, b.isbn from Book b where b.isbn in :isbns")
+  List<Object[]> findIdsByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+  /**
+   * Puts several returned copies of one book back on the shelf in one statement.
+   * @param id book ID
+   * @param count number of copies returned
+   * @return 1 if the book exists, 0 otherwise
+   */
+  @Modifying
+  @Query("update Book b set b.availableCopies = b.availableCopies + :count where b.id = :id")
+  int addAvailableCopies(@Param("id") Long id, @Param("count") int count);
+
+  /**
+   * Loads and row-locks books by ID in ID order, so concurrent batches lock rows in the same
+   * order and the copy counters cannot change before the transaction ends.
+   * @param ids book IDs
+   * @return books found
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from Book b where b.id in :ids order by b.id")
+  List<Book> lockAllById(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Reads the available copies of several books without loading entities.
+   * @param ids book IDs
+   * @return (id, availableCopies) rows of the books found
+   */
+  @Query("select b.id, b.availableCopies from Book b where b.id in :ids")
+  List<Object[]> findAvailableCopies(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Streams what the browse index needs of every book. Must be consumed inside a transaction and
+   * closed.
+   * @return stream of (id, category, availableCopies) rows
+   */
+  @Query("select b.id, b.category, b.availableCopies from Book b")
+  Stream<Object[]> streamBrowseKeys();
+
+  /**
+   * Lists one page of books in ID order, optionally of one category and only those with an
+   * available copy. Served by the {@code idx_books_category_id} index when a category is given.
+   * @param category category to restrict to, or null for every category
+   * @param availableOnly whether to skip books without an available copy
+   * @param after only books with a greater ID are returned
+   * @param limit maximum number of books
+   * @return books found, in ID order
+   */
+  @Query("select b from Book b where (:category is null or b.category = :category) "
+      + "and (:availableOnly = false or b.availableCopies > 0) and b.id > :after order by b.id")
+  List<Book> browse(@Param("category") Category category,
+      @Param("availableOnly") boolean availableOnly, @Param("after") long after, Limit limit);
+}
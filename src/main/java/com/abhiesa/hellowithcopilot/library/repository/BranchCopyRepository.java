@@ -0,0 +1,82 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.dto.BranchAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.model.BranchCopy;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository interface for per-branch copy counts.
+ * Counter changes are single conditional UPDATE statements on one (branch, book) row, so the
+ * database row lock is the only coordination and it is never shared between branches.
+ */
+public interface BranchCopyRepository extends JpaRepository<BranchCopy, Long> {
+
+  /**
+   * Finds the copy row of a book at a branch using the (branch_id, book_id) unique index.
+   * @param branchId branch ID
+   * @param bookId book ID
+   * @return the row, if the branch stocks the book
+   */
+  Optional<BranchCopy> findByBranchIdAndBookId(Long branchId, Long bookId);
+
+  /**
+   * Lists the stock of one branch, served by the leading branch_id column of the unique index.
+   * @param branchId branch ID
+   * @return copy rows of the branch
+   */
+  List<BranchCopy> findByBranchIdOrderByBookId(Long branchId);
+
+  /**
+   * Takes one copy off the shelf if one is available.
+   * @param branchId branch ID
+   * @param bookId book ID
+   * @return 1 if a copy was taken, 0 if none was available or the branch does not stock the book
+   */
+  @Modifying
+  @Query("update BranchCopy c set c.availableCopies = c.availableCopies - 1 "
+      + "where c.branchId = :branchId and c.bookId = :bookId and c.availableCopies > 0")
+  int takeCopy(@Param("branchId") Long branchId, @Param("bookId") Long bookId);
+
+  /**
+   * Puts one copy back on the shelf, never above the number of copies the branch owns.
+   * @param branchId branch ID
+   * @param bookId book ID
+   * @return 1 if the copy was put back, 0 otherwise
+   */
+  @Modifying
+  @Query("update BranchCopy c set c.availableCopies = c.availableCopies + 1 "
+      + "where c.branchId = :branchId and c.bookId = :bookId "
+      + "and c.availableCopies < c.totalCopies")
+  int returnCopy(@Param("branchId") Long branchId, @Param("bookId") Long bookId);
+
+  /**
+   * Lists the copy counts of a book at every branch that stocks it, using the book_id index.
+   * @param bookId book ID
+   * @return per-branch counts ordered by branch code
+   */
+  @Query("select new com.abhiesa.hellowithcopilot.library.dto.BranchAvailabilityDto("
+      + "b.id, b.code, c.totalCopies, c.availableCopies) "
+      + "from BranchCopy c join Branch b on b.id = c.branchId "
+      + "where c.bookId = :bookId order by b.code")
+  List<BranchAvailabilityDto> availabilityByBook(@Param("bookId") Long bookId);
+
+  /**
+   * Puts several returned copies back on the shelf, never above the number the branch owns.
+   * @param branchId branch ID
+   * @param bookId book ID
+   * @param count number of copies returned
+   * @return 1 if the branch stocks the book, 0 otherwise
+   */
+  @Modifying
+  @Query("update BranchCopy c set c.availableCopies = case "
+      + "when c.availableCopies + :count > c.totalCopies then c.totalCopies "
+      + "else c.availableCopies + :count end "
+      + "where c.branchId = :branchId and c.bookId = :bookId")
+  int returnCopies(@Param("branchId") Long branchId, @Param("bookId") Long bookId,
+      @Param("count") int count);
+}
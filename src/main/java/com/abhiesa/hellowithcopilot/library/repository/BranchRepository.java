@@ -0,0 +1,19 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for Branch entity.
+ * Provides CRUD operations for branches.
+ */
+public interface BranchRepository extends JpaRepository<Branch, Long> {
+
+  /**
+   * Finds a branch by its unique code.
+   * @param code branch code
+   * @return the branch, if any
+   */
+  Optional<Branch> findByCode(String code);
+}
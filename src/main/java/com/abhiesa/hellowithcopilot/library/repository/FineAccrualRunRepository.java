@@ -0,0 +1,17 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.FineAccrualRun;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for fine accrual runs.
+ */
+public interface FineAccrualRunRepository extends JpaRepository<FineAccrualRun, Long> {
+
+  /**
+   * Finds the most recent run that finished.
+   * @return the run, if any run has finished
+   */
+  Optional<FineAccrualRun> findFirstByFinishedAtIsNotNullOrderByFinishedAtDesc();
+}
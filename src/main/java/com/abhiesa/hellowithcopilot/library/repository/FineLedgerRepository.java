@@ -0,0 +1,60 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.FineLedgerEntry;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository interface for the fines ledger.
+ */
+public interface FineLedgerRepository extends JpaRepository<FineLedgerEntry, Long> {
+
+  /**
+   * Lists a member's most recent ledger entries, newest first.
+   * @param memberId member ID
+   * @param limit maximum number of entries
+   * @return ledger entries
+   */
+  List<FineLedgerEntry> findByMemberIdOrderByIdDesc(Long memberId, Limit limit);
+
+  /**
+   * Sums a member's ledger entries; the reference the summary row must agree with.
+   * @param memberId member ID
+   * @return balance in cents
+   */
+  @Query("select coalesce(sum(e.amountCents), 0) from FineLedgerEntry e where e.memberId = :memberId")
+  long sumByMemberId(@Param("memberId") Long memberId);
+
+  /**
+   * Appends, in one statement, an entry for every loan whose fine differs from the sum of its
+   * entries so far. A loan's fine is {@code rate} per day from the due date to its return, or to
+   * {@code asOf} while it is out, capped at {@code cap}; lost loans are not fined here.
+   * @param ids loan IDs to examine
+   * @param asOf date fines are computed up to for loans still out
+   * @param rate fine per overdue day in cents
+   * @param cap maximum fine per loan in cents
+   * @param runId accrual run writing the entries
+   * @param now entry time
+   * @return number of entries written
+   */
+  @Modifying
+  @Query("insert into FineLedgerEntry (memberId, loanId, amountCents, runId, createdAt) "
+      + "select l.memberId, l.id, "
+      + "least(:cap, greatest(0, (coalesce(l.returnedDate, :asOf) - l.dueDate) by day) * :rate) "
+      + "- coalesce((select sum(e.amountCents) from FineLedgerEntry e where e.loanId = l.id), 0), "
+      + ":runId, :now "
+      + "from Loan l where l.id in :ids "
+      + "and l.status <> com.abhiesa.hellowithcopilot.library.model.LoanStatus.LOST "
+      + "and least(:cap, greatest(0, (coalesce(l.returnedDate, :asOf) - l.dueDate) by day) * :rate) "
+      + "<> coalesce((select sum(e.amountCents) from FineLedgerEntry e where e.loanId = l.id), 0)")
+  int accrue(@Param("ids") Collection<Long> ids, @Param("asOf") LocalDate asOf,
+      @Param("rate") long rate, @Param("cap") long cap, @Param("runId") Long runId,
+      @Param("now") Instant now);
+}
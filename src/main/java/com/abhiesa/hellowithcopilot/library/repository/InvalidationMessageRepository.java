@@ -0,0 +1,37 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.InvalidationMessage;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface for the cache invalidation outbox.
+ */
+public interface InvalidationMessageRepository extends JpaRepository<InvalidationMessage, Long> {
+
+  /**
+   * Reads messages written by other instances since a point in time, oldest first.
+   * @param origin the reading instance, whose own messages are skipped
+   * @param since earliest creation time to return
+   * @param limit maximum number of messages
+   * @return matching messages ordered by creation time
+   */
+  List<InvalidationMessage> findByOriginNotAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(
+      String origin, Instant since, Limit limit);
+
+  /**
+   * Deletes messages older than the retention period.
+   * @param before messages created before this time are deleted
+   * @return number of deleted messages
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from InvalidationMessage m where m.createdAt < :before")
+  int purgeBefore(@Param("before") Instant before);
+}
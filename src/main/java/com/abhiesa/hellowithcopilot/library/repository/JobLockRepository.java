@@ -0,0 +1,40 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.JobLock;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository interface for job leases. Taking and renewing a lease is one conditional UPDATE,
+ * so of several instances racing for it exactly one sees a changed row.
+ */
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+  /**
+   * Takes or renews a lease if it is free, expired or already held by the same run.
+   * @param name job name
+   * @param holder token of the run
+   * @param now current time
+   * @param until new expiry
+   * @return 1 if the run holds the lease now, 0 otherwise
+   */
+  @Modifying
+  @Query("update JobLock j set j.holder = :holder, j.lockedUntil = :until "
+      + "where j.name = :name and (j.lockedUntil is null or j.lockedUntil < :now "
+      + "or j.holder = :holder)")
+  int claim(@Param("name") String name, @Param("holder") String holder,
+      @Param("now") Instant now, @Param("until") Instant until);
+
+  /**
+   * Gives a lease up if the run still holds it.
+   * @param name job name
+   * @param holder token of the run
+   * @return 1 if the lease was released
+   */
+  @Modifying
+  @Query("update JobLock j set j.lockedUntil = null where j.name = :name and j.holder = :holder")
+  int release(@Param("name") String name, @Param("holder") String holder);
+}
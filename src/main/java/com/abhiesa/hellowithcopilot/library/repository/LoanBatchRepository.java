@@ -0,0 +1,18 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import java.util.List;
+
+/**
+ * Repository fragment for inserting many loans in one round trip.
+ */
+public interface LoanBatchRepository {
+
+  /**
+   * Inserts new loans with one batched statement and sets their generated IDs. Identity keys
+   * keep Hibernate from batching inserts, so this goes through JDBC on the transaction's
+   * connection; the loans do not become managed entities.
+   * @param loans loans without an ID
+   */
+  void insertAll(List<Loan> loans);
+}
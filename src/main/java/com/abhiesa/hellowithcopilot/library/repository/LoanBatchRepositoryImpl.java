@@ -0,0 +1,82 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+/**
+ * Default implementation of {@link LoanBatchRepository}.
+ */
+class LoanBatchRepositoryImpl implements LoanBatchRepository {
+
+  private static final String INSERT = "insert into loans (member_id, book_id, loan_date, "
+      + "due_date, returned_date, status, branch_id, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbc;
+
+  LoanBatchRepositoryImpl(JdbcTemplate jdbc) {
+    if (jdbc == null) {
+      throw new IllegalArgumentException("JdbcTemplate cannot be null");
+    }
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public void insertAll(List<Loan> loans) {
+    if (loans == null) {
+      throw new IllegalArgumentException("Loans cannot be null");
+    }
+    if (loans.isEmpty()) {
+      return;
+    }
+    Timestamp now = Timestamp.from(Instant.now());
+    GeneratedKeyHolder keys = new GeneratedKeyHolder();
+    jdbc.batchUpdate(con -> con.prepareStatement(INSERT, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            Loan loan = loans.get(i);
+            ps.setLong(1, loan.getMemberId());
+            ps.setLong(2, loan.getBookId());
+            ps.setDate(3, Date.valueOf(loan.getLoanDate()));
+            ps.setDate(4, Date.valueOf(loan.getDueDate()));
+            if (loan.getReturnedDate() == null) {
+              ps.setNull(5, Types.DATE);
+            } else {
+              ps.setDate(5, Date.valueOf(loan.getReturnedDate()));
+            }
+            ps.setInt(6, loan.getStatus().ordinal());
+            if (loan.getBranchId() == null) {
+              ps.setNull(7, Types.BIGINT);
+            } else {
+              ps.setLong(7, loan.getBranchId());
+            }
+            ps.setTimestamp(8, now);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return loans.size();
+          }
+        }, keys);
+    List<Map<String, Object>> generated = keys.getKeyList();
+    if (generated.size() != loans.size()) {
+      throw new IllegalStateException("Expected " + loans.size() + " generated loan IDs, got "
+          + generated.size());
+    }
+    for (int i = 0; i < loans.size(); i++) {
+      Loan loan = loans.get(i);
+      loan.setId(((Number) generated.get(i).values().iterator().next()).longValue());
+      loan.setUpdatedAt(now.toInstant());
+    }
+  }
+}
@@ -1,15 +1,31 @@
 package com.abhiesa.hellowithcopilot.library.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import com.abhiesa.hellowithcopilot.library.export.LoanExportRow;
 import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Loan entity.
  * Provides CRUD operations and custom queries for loans.
  * Defensive programming: validate input parameters in custom methods.
  */
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanBatchRepository {
     /**
      * Finds loans by member ID.
      * @param memberId the ID of the member (must not be null)
@@ -24,4 +40,145 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     }
 
     List<Loan> findByMemberId(Long memberId);
+
+    /**
+     * Finds a member's loans made between two dates, inclusive. On a database that partitions
+     * loans by loan date only the partitions covering the range are scanned.
+     * @param memberId the ID of the member
+     * @param from first loan date
+     * @param to last loan date
+     * @return loans in loan date order
+     */
+    List<Loan> findByMemberIdAndLoanDateBetweenOrderByLoanDate(Long memberId, LocalDate from,
+        LocalDate to);
+
+    /**
+     * Finds open (active or overdue) loans past their due date that were made on or after a
+     * date. The loan date bound lets a partitioned table skip every older partition.
+     * @param loanedSince first loan date considered
+     * @param asOf loans due before this date are included
+     * @param limit maximum number of loans
+     * @return loans, longest overdue first
+     */
+    @Query("select l from Loan l where l.loanDate >= :loanedSince and l.status in ("
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE) and l.dueDate < :asOf "
+        + "order by l.dueDate, l.id")
+    List<Loan> findOverdueLoanedSince(@Param("loanedSince") LocalDate loanedSince,
+        @Param("asOf") LocalDate asOf, Limit limit);
+
+    /**
+     * Streams loans in the given status; must be consumed inside a transaction and closed.
+     * @param status loan status
+     * @return stream of matching loans
+     */
+    Stream<Loan> streamByStatus(LoanStatus status);
+
+    /**
+     * Streams the (memberId, bookId) pair of every loan ever made, without loading entities;
+     * must be consumed inside a transaction and closed.
+     * @return stream of two-element rows
+     */
+    @Query("select l.memberId, l.bookId from Loan l")
+    Stream<Object[]> streamMemberBookPairs();
+
+    /**
+     * Streams loans created between two dates, inclusive, in ID order, through a forward-only
+     * cursor that fetches a fixed number of rows per round trip. Rows are projections, so the
+     * persistence context stays empty however many loans are read. Must be consumed inside a
+     * transaction and closed.
+     * @param from first loan date
+     * @param to last loan date
+     * @return stream of export rows
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.abhiesa.hellowithcopilot.library.export.LoanExportRow("
+        + "l.id, l.memberId, l.bookId, l.loanDate, l.dueDate, l.returnedDate, l.status, l.branchId) "
+        + "from Loan l where l.loanDate between :from and :to order by l.id")
+    Stream<LoanExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Loads and row-locks one loan, so its status cannot change before the caller returns it.
+     * @param id loan ID
+     * @return the loan, if it exists
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id = :id")
+    Optional<Loan> lockById(@Param("id") Long id);
+
+    /**
+     * Loads and row-locks loans by ID, so their status cannot change before a following bulk
+     * update.
+     * @param ids loan IDs
+     * @return loans found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id in :ids")
+    List<Loan> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads and row-locks the open (active or overdue) loans of several members, oldest first.
+     * @param memberIds member IDs
+     * @return open loans of those members
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.memberId in :memberIds and l.status in ("
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE) order by l.id")
+    List<Loan> lockActiveByMemberIds(@Param("memberIds") Collection<Long> memberIds);
+
+    /**
+     * Marks open (active or overdue) loans returned in one statement.
+     * @param ids loan IDs
+     * @param returnedDate return date to record
+     * @param now change time to record
+     * @return number of loans changed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Loan l set l.status = com.abhiesa.hellowithcopilot.library.model.LoanStatus.RETURNED, "
+        + "l.returnedDate = :returnedDate, l.updatedAt = :now where l.id in :ids and l.status in ("
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE)")
+    int markReturned(@Param("ids") Collection<Long> ids, @Param("returnedDate") LocalDate returnedDate,
+        @Param("now") Instant now);
+
+    /**
+     * Lists loan IDs in order, for walking the whole table in keyset-paginated chunks.
+     * @param after IDs greater than this are returned
+     * @param limit chunk size
+     * @return loan IDs
+     */
+    @Query("select l.id from Loan l where l.id > :after order by l.id")
+    List<Long> findIdsAfter(@Param("after") long after, Limit limit);
+
+    /**
+     * Lists the IDs of loans whose fine may have changed: loans still out past their due date,
+     * and loans changed since a point in time, in keyset-paginated chunks.
+     * @param after IDs greater than this are returned
+     * @param asOf loans due before this date and not returned are included
+     * @param since loans changed at or after this time are included
+     * @param limit chunk size
+     * @return loan IDs
+     */
+    @Query("select l.id from Loan l where l.id > :after and ((l.status in ("
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+        + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE) and l.dueDate < :asOf) "
+        + "or l.updatedAt >= :since) order by l.id")
+    List<Long> findAccrualCandidateIdsAfter(@Param("after") long after,
+        @Param("asOf") LocalDate asOf, @Param("since") Instant since, Limit limit);
+
+    /**
+     * Marks active loans past their due date overdue in one statement.
+     * @param ids loan IDs
+     * @param asOf loans due before this date are overdue
+     * @return number of loans changed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Loan l set l.status = com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE "
+        + "where l.id in :ids and l.dueDate < :asOf "
+        + "and l.status = com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE")
+    int markOverdue(@Param("ids") Collection<Long> ids, @Param("asOf") LocalDate asOf);
 }
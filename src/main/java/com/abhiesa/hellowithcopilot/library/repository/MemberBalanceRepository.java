@@ -0,0 +1,49 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.MemberBalance;
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository interface for the per-member fine summary rows. The accrual job folds the ledger
+ * entries of each chunk into the summaries with two set-based statements: one creating missing
+ * rows and one adding the chunk's totals.
+ */
+public interface MemberBalanceRepository extends JpaRepository<MemberBalance, Long> {
+
+  /**
+   * Creates zero balances for members charged in a chunk of a run who have none yet.
+   * @param runId accrual run
+   * @param loanIds loans of the chunk
+   * @param now creation time
+   * @return number of rows created
+   */
+  @Modifying
+  @Query("insert into MemberBalance (memberId, balanceCents, updatedAt) "
+      + "select distinct e.memberId, 0, :now from FineLedgerEntry e "
+      + "where e.runId = :runId and e.loanId in :loanIds "
+      + "and not exists (select 1 from MemberBalance b where b.memberId = e.memberId)")
+  int openMissing(@Param("runId") Long runId, @Param("loanIds") Collection<Long> loanIds,
+      @Param("now") Instant now);
+
+  /**
+   * Adds the ledger entries of a chunk of a run to the members' balances.
+   * @param runId accrual run
+   * @param loanIds loans of the chunk
+   * @param now change time
+   * @return number of balances changed
+   */
+  @Modifying
+  @Query("update MemberBalance b set b.balanceCents = b.balanceCents + "
+      + "(select sum(e.amountCents) from FineLedgerEntry e "
+      + "where e.runId = :runId and e.loanId in :loanIds and e.memberId = b.memberId), "
+      + "b.updatedAt = :now "
+      + "where b.memberId in (select e.memberId from FineLedgerEntry e "
+      + "where e.runId = :runId and e.loanId in :loanIds)")
+  int applyRun(@Param("runId") Long runId, @Param("loanIds") Collection<Long> loanIds,
+      @Param("now") Instant now);
+}
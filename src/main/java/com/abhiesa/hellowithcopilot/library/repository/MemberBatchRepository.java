@@ -0,0 +1,19 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment for loading many members in one round trip.
+ */
+public interface MemberBatchRepository {
+
+  /**
+   * Loads members by id with chunked {@code IN} queries, skipping ids already in the
+   * second-level cache when members are cached.
+   * @param ids member ids
+   * @return members found, in the order of the requested ids
+   */
+  List<Member> findAllByIdInBatches(Collection<Long> ids);
+}
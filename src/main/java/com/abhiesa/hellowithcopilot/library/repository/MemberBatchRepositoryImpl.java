@@ -0,0 +1,35 @@
+package com.abhiesa.hellowithcopilot.library.repository;
+
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Default implementation of {@link MemberBatchRepository}.
+ */
+class MemberBatchRepositoryImpl implements MemberBatchRepository {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  private final int chunkSize;
+
+  MemberBatchRepositoryImpl(@Value("${library.batch.chunk-size:500}") int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("library.batch.chunk-size must be positive");
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public List<Member> findAllByIdInBatches(Collection<Long> ids) {
+    return BatchLoading.load(em, Member.class, ids, chunkSize,
+        chunk -> em.createQuery("select m from Member m where m.id in :ids", Member.class)
+            .setParameter("ids", chunk)
+            .getResultList(),
+        Member::getId);
+  }
+}
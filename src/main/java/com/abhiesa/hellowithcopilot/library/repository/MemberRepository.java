@@ -1,13 +1,98 @@
 package com.abhiesa.hellowithcopilot.library.repository;
 
 import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repository interface for Member entity.
  * Provides CRUD operations for members.
  * Defensive programming: always validate input parameters in custom methods.
  */
-public interface MemberRepository extends JpaRepository<Member, Long> {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberBatchRepository {
 
+  /**
+   * Finds a member by library card string using the unique member_id index.
+   * @param memberId library card string
+   * @return the member, if any
+   */
+  Optional<Member> findByMemberId(String memberId);
+
+  /**
+   * Streams every library card string. Must be consumed inside a transaction and closed.
+   * @return stream of card strings
+   */
+  @Query("select m.memberId from Member m")
+  Stream<String> streamMemberIds();
+
+  /**
+   * Resolves library card strings to member IDs without loading entities.
+   * @param memberIds library card strings
+   * @return (id, memberId) rows of the members found
+   */
+  @Query("select m.id, m.memberId from Member m where m.memberId in :memberIds")
+  List<Object[]> findIdsByMemberIdIn(@Param("memberIds") Collection<String> memberIds);
+
+  /**
+   * Filters member IDs down to those that exist, without loading entities.
+   * @param ids member IDs
+   * @return the IDs found
+   */
+  @Query("select m.id from Member m where m.id in :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Loads and row-locks members by ID in ID order, so their active loan counts cannot change
+   * before the transaction ends and concurrent callers lock rows in the same order.
+   * @param ids member IDs
+   * @return members found
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select m from Member m where m.id in :ids order by m.id")
+  List<Member> lockAllById(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Reads the active loan counts of several members without loading entities.
+   * @param ids member IDs
+   * @return (id, activeLoans) rows of the members found
+   */
+  @Query("select m.id, m.activeLoans from Member m where m.id in :ids")
+  List<Object[]> findActiveLoans(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Streams the members that hold open loans. Must be consumed inside a transaction and closed.
+   * @return stream of (id, activeLoans) rows
+   */
+  @Query("select m.id, m.activeLoans from Member m where m.activeLoans > 0")
+  Stream<Object[]> streamActiveLoanCounts();
+
+  /**
+   * Recomputes the active loan counts of several members from their open (active or overdue)
+   * loans. Safe to repeat.
+   * @param ids member IDs
+   * @return number of members updated
+   */
+  @Modifying
+  @Query("update Member m set m.activeLoans = (select count(l) from Loan l where l.memberId = m.id "
+      + "and l.status in (com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+      + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE)) where m.id in :ids")
+  int recountActiveLoans(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Recomputes every member's active loan count from the open (active or overdue) loans.
+   * @return number of members updated
+   */
+  @Modifying(clearAutomatically = true)
+  @Query("update Member m set m.activeLoans = (select count(l) from Loan l where l.memberId = m.id "
+      + "and l.status in (com.abhiesa.hellowithcopilot.library.model.LoanStatus.ACTIVE, "
+      + "com.abhiesa.hellowithcopilot.library.model.LoanStatus.OVERDUE))")
+  int recountAllActiveLoans();
 }
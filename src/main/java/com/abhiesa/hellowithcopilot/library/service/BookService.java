@@ -1,30 +1,88 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.BrowseIndex;
+import com.abhiesa.hellowithcopilot.library.cache.CacheInvalidation;
+import com.abhiesa.hellowithcopilot.library.cache.InvalidationBus;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
 import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Isbn;
 import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
 import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.support.SingleFlight;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import org.hibernate.LazyInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.validation.Valid;
 
 /**
  * Service class for managing books.
  * Applies defensive programming, bean validation, and provides comprehensive documentation.
+ * Writes are announced on the {@link InvalidationBus} in the same transaction. While the sharded
+ * or journal inventory engine owns the copy counters, an edited count is handed to it once the
+ * edit commits.
  */
 @Service
 public class BookService {
   private final BookRepository books;
+  private final NaturalKeyFilters keyFilters;
+  private final BrowseIndex browseIndex;
+  private final InvalidationBus invalidations;
+  private final ShardedInventory shardedInventory;
+  private final JournaledInventory journaledInventory;
+  private final SingleFlight<Long, Book> inFlight;
 
   /**
    * Constructs a BookService with the given BookRepository.
    * @param books BookRepository instance
-   * @throws IllegalArgumentException if books is null
+   * @param keyFilters filters used to reject unknown natural keys
+   * @param browseIndex in-memory index of books by category and availability
+   * @param invalidations bus telling other instances about writes
+   * @param shardedInventory sharded inventory engine, told about edited counts while enabled
+   * @param journaledInventory journal inventory engine, told about edited counts while enabled
+   * @param coalescingTimeout how long a lookup waits for a concurrent lookup of the same book
+   * @throws IllegalArgumentException if any dependency is null
    */
-  public BookService(BookRepository books) {
+  public BookService(BookRepository books, NaturalKeyFilters keyFilters,
+      BrowseIndex browseIndex, InvalidationBus invalidations, ShardedInventory shardedInventory,
+      JournaledInventory journaledInventory,
+      @Value("${library.coalescing.timeout:PT5S}") Duration coalescingTimeout) {
     if (books == null) {
       throw new IllegalArgumentException("BookRepository cannot be null");
     }
+    if (keyFilters == null) {
+      throw new IllegalArgumentException("NaturalKeyFilters cannot be null");
+    }
+    if (browseIndex == null) {
+      throw new IllegalArgumentException("BrowseIndex cannot be null");
+    }
+    if (invalidations == null) {
+      throw new IllegalArgumentException("InvalidationBus cannot be null");
+    }
+    if (shardedInventory == null) {
+      throw new IllegalArgumentException("ShardedInventory cannot be null");
+    }
+    if (journaledInventory == null) {
+      throw new IllegalArgumentException("JournaledInventory cannot be null");
+    }
     this.books = books;
+    this.keyFilters = keyFilters;
+    this.browseIndex = browseIndex;
+    this.invalidations = invalidations;
+    this.shardedInventory = shardedInventory;
+    this.journaledInventory = journaledInventory;
+    this.inFlight = new SingleFlight<>(coalescingTimeout);
   }
 
   /**
@@ -33,16 +91,22 @@ public class BookService {
    * @return persisted Book
    * @throws IllegalArgumentException if book is null
    */
+  @Transactional
   public Book create(@Valid Book b) {
     if (b == null) {
       throw new IllegalArgumentException("Book cannot be null");
     }
     if (b.getAvailableCopies() == 0) b.setAvailableCopies(b.getTotalCopies());
-    return books.save(b);
+    keyFilters.addIsbn(b.getIsbn());
+    Book saved = books.save(b);
+    invalidations.publish(CacheInvalidation.book(saved.getId(), saved.getIsbn()));
+    return saved;
   }
 
   /**
    * Retrieves a book by its ID.
+   * Outside a transaction, concurrent lookups of the same book share one query; inside one the
+   * book is loaded into that transaction's persistence context as usual.
    * @param id Book ID
    * @return Book entity
    * @throws IllegalArgumentException if id is null or not positive
@@ -52,9 +116,86 @@ public class BookService {
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("Book ID must be positive");
     }
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return find(id);
+    }
+    return inFlight.load(id, () -> {
+      Book book = find(id);
+      // Load the lazy authors on this thread while the request's session is open, so the
+      // requests sharing the book never touch that session. Without an open session they stay
+      // unloaded, exactly as for an uncoalesced lookup.
+      try {
+        book.getAuthors();
+      } catch (LazyInitializationException e) {
+        // no session to load them from
+      }
+      return book;
+    });
+  }
+
+  private Book find(Long id) {
     return books.findById(id).orElseThrow(() -> new NotFoundException("Book not found: " + id));
   }
 
+  /**
+   * Retrieves a book by its ISBN.
+   * Unknown ISBNs are usually rejected by the in-memory filter without a database query.
+   * @param isbn ISBN, hyphens and spaces allowed
+   * @return Book entity
+   * @throws IllegalArgumentException if isbn is null or blank
+   * @throws NotFoundException if book not found
+   */
+  public Book getByIsbn(String isbn) {
+    if (isbn == null || isbn.isBlank()) {
+      throw new IllegalArgumentException("ISBN cannot be null or empty");
+    }
+    String normalized = Isbn.normalize(isbn);
+    if (!keyFilters.mightContainIsbn(normalized)) {
+      throw new NotFoundException("Book not found for ISBN: " + normalized);
+    }
+    return books.findByIsbn(normalized)
+        .orElseThrow(() -> new NotFoundException("Book not found for ISBN: " + normalized));
+  }
+
+  /**
+   * Retrieves several books in one round trip.
+   * @param ids Book IDs; duplicates are ignored
+   * @return Books found, in the order of the requested IDs; unknown IDs are skipped
+   * @throws IllegalArgumentException if ids is null or contains a null or non-positive ID
+   */
+  public List<Book> getAll(Collection<Long> ids) {
+    if (ids == null) {
+      throw new IllegalArgumentException("Book IDs cannot be null");
+    }
+    for (Long id : ids) {
+      if (id == null || id <= 0) {
+        throw new IllegalArgumentException("Book ID must be positive");
+      }
+    }
+    return books.findAllByIdInBatches(ids);
+  }
+
+  /**
+   * Resolves several ISBNs to book IDs in one query, without loading the books.
+   * ISBNs the in-memory filter rules out are not queried.
+   * @param isbns normalized ISBNs
+   * @return book ID by ISBN; unknown ISBNs are missing
+   * @throws IllegalArgumentException if isbns is null
+   */
+  public Map<String, Long> idsByIsbn(Collection<String> isbns) {
+    if (isbns == null) {
+      throw new IllegalArgumentException("ISBNs cannot be null");
+    }
+    List<String> candidates = isbns.stream().filter(keyFilters::mightContainIsbn).toList();
+    Map<String, Long> ids = new HashMap<>();
+    if (!candidates.isEmpty()) {
+      for (Object[] row : books.findIdsByIsbnIn(candidates)) {
+        ids.put((String) row[1], (Long) row[0]);
+      }
+    }
+    return ids;
+  }
+
   /**
    * Lists all books.
    * @return List of books
@@ -63,18 +204,115 @@ public class BookService {
     return books.findAll();
   }
 
+  /**
+   * Lists one page of books in ID order, optionally of one category and only those with an
+   * available copy. The matching IDs come from the {@link BrowseIndex} and the books from the
+   * second-level cache where possible; until the index is built, the database is queried. Books
+   * whose category or copies changed since they were indexed are left out, so a page can hold
+   * fewer books than the limit; an empty page marks the end.
+   * @param category category to restrict to, or null for every category
+   * @param availableOnly whether to skip books without an available copy
+   * @param after only books with a greater ID are returned; 0 for the first page
+   * @param limit maximum number of books
+   * @return books found, in ID order
+   * @throws IllegalArgumentException if after is negative or limit is not positive
+   */
+  public List<Book> browse(Category category, boolean availableOnly, long after, int limit) {
+    if (after < 0 || limit <= 0) {
+      throw new IllegalArgumentException("Browse cursor must not be negative and limit positive");
+    }
+    List<Long> ids = browseIndex.ids(category, availableOnly, after, limit);
+    if (ids == null) {
+      return books.browse(category, availableOnly, after, Limit.of(limit));
+    }
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return books.findAllByIdInBatches(ids).stream()
+        .filter(b -> category == null || b.getCategory() == category)
+        .filter(b -> !availableOnly || b.getAvailableCopies() > 0)
+        .toList();
+  }
+
   /**
    * Updates an existing book.
    * @param b Book entity
    * @return updated Book
    * @throws IllegalArgumentException if book is null or id is invalid
    */
+  @Transactional
   public Book update(@Valid Book b) {
     if (b == null || b.getId() == null || b.getId() <= 0) {
       throw new IllegalArgumentException("Book or Book ID is invalid");
     }
     get(b.getId());
-    return books.save(b);
+    keyFilters.addIsbn(b.getIsbn());
+    Book saved = books.save(b);
+    invalidations.publish(CacheInvalidation.book(saved.getId(), saved.getIsbn()));
+    // The engines would otherwise write their own counts back over the edited one.
+    Long id = saved.getId();
+    int available = saved.getAvailableCopies();
+    if (shardedInventory.enabled()) {
+      afterCommit(() -> shardedInventory.restock(id, available));
+    } else if (journaledInventory.enabled()) {
+      afterCommit(() -> journaledInventory.restock(id, available));
+    }
+    return saved;
+  }
+
+  /**
+   * Puts returned copies back on the shelf with one UPDATE per book, without loading the books.
+   * @param returnedByBook number of copies returned per book ID
+   * @throws IllegalArgumentException if the map is null or holds an invalid ID or count
+   */
+  @Transactional
+  public void returnCopies(Map<Long, Integer> returnedByBook) {
+    if (returnedByBook == null) {
+      throw new IllegalArgumentException("Returned copies cannot be null");
+    }
+    for (Map.Entry<Long, Integer> entry : returnedByBook.entrySet()) {
+      if (entry.getKey() == null || entry.getKey() <= 0 || entry.getValue() == null
+          || entry.getValue() <= 0) {
+        throw new IllegalArgumentException("Book ID and copy count must be positive");
+      }
+      books.addAvailableCopies(entry.getKey(), entry.getValue());
+      invalidations.publish(CacheInvalidation.book(entry.getKey(), null));
+    }
+    browseIndex.copiesReturned(returnedByBook.keySet());
+  }
+
+  /**
+   * Takes copies of several books off the shelf under row locks, granting each book as many of
+   * the wanted copies as it has available. Changed books are written back when the surrounding
+   * transaction flushes, one UPDATE per book.
+   * @param wantedByBook number of copies wanted per book ID
+   * @return copies granted per book ID, 0 when none were available; unknown books are missing
+   * @throws IllegalArgumentException if the map is null or holds an invalid ID or count
+   */
+  @Transactional
+  public Map<Long, Integer> takeCopies(Map<Long, Integer> wantedByBook) {
+    if (wantedByBook == null) {
+      throw new IllegalArgumentException("Wanted copies cannot be null");
+    }
+    for (Map.Entry<Long, Integer> entry : wantedByBook.entrySet()) {
+      if (entry.getKey() == null || entry.getKey() <= 0 || entry.getValue() == null
+          || entry.getValue() <= 0) {
+        throw new IllegalArgumentException("Book ID and copy count must be positive");
+      }
+    }
+    Map<Long, Integer> granted = new HashMap<>();
+    if (wantedByBook.isEmpty()) {
+      return granted;
+    }
+    for (Book book : books.lockAllById(wantedByBook.keySet())) {
+      int count = Math.min(Math.max(0, book.getAvailableCopies()), wantedByBook.get(book.getId()));
+      granted.put(book.getId(), count);
+      if (count > 0) {
+        book.setAvailableCopies(book.getAvailableCopies() - count);
+        invalidations.publish(CacheInvalidation.book(book.getId(), book.getIsbn()));
+      }
+    }
+    return granted;
   }
 
   /**
@@ -82,10 +320,25 @@ public class BookService {
    * @param id Book ID
    * @throws IllegalArgumentException if id is invalid
    */
+  @Transactional
   public void delete(Long id) {
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("Book ID must be positive");
     }
     books.deleteById(id);
+    invalidations.publish(CacheInvalidation.book(id, null));
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
   }
-}
\ No newline at end of file
+}
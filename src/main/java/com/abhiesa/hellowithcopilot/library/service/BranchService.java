@@ -0,0 +1,206 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.dto.BookAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.dto.BranchAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import com.abhiesa.hellowithcopilot.library.model.BranchCopy;
+import com.abhiesa.hellowithcopilot.library.repository.BranchCopyRepository;
+import com.abhiesa.hellowithcopilot.library.repository.BranchRepository;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for branches and the copies each branch holds.
+ * Books stocked at branches are counted per (branch, book) row; the book's own counters are only
+ * used for checkouts that do not name a branch.
+ */
+@Service
+public class BranchService {
+  private final BranchRepository branches;
+  private final BranchCopyRepository copies;
+  private final BookService bookService;
+
+  /**
+   * Constructs a BranchService with required dependencies.
+   * @param branches BranchRepository instance
+   * @param copies BranchCopyRepository instance
+   * @param bookService BookService instance
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public BranchService(BranchRepository branches, BranchCopyRepository copies,
+      BookService bookService) {
+    if (branches == null || copies == null || bookService == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.branches = branches;
+    this.copies = copies;
+    this.bookService = bookService;
+  }
+
+  /**
+   * Creates a new branch.
+   * @param branch Branch entity
+   * @return persisted Branch
+   * @throws IllegalArgumentException if branch is null
+   */
+  public Branch create(@Valid Branch branch) {
+    if (branch == null) {
+      throw new IllegalArgumentException("Branch cannot be null");
+    }
+    return branches.save(branch);
+  }
+
+  /**
+   * Retrieves a branch by its ID.
+   * @param id Branch ID
+   * @return Branch entity
+   * @throws IllegalArgumentException if id is null or not positive
+   * @throws NotFoundException if branch not found
+   */
+  public Branch get(Long id) {
+    if (id == null || id <= 0) {
+      throw new IllegalArgumentException("Branch ID must be positive");
+    }
+    return branches.findById(id).orElseThrow(() -> new NotFoundException("Branch not found: " + id));
+  }
+
+  /**
+   * Retrieves all branches.
+   * @return List of all branches
+   */
+  public List<Branch> getAll() {
+    return branches.findAll();
+  }
+
+  /**
+   * Lists the copies held by a branch.
+   * @param branchId Branch ID
+   * @return copy rows of the branch ordered by book ID
+   * @throws NotFoundException if branch not found
+   */
+  public List<BranchCopy> stock(Long branchId) {
+    get(branchId);
+    return copies.findByBranchIdOrderByBookId(branchId);
+  }
+
+  /**
+   * Sets the number of copies of a book owned by a branch. Copies currently on loan from the
+   * branch stay on loan, so the shelf count moves by the same amount as the total.
+   * @param branchId Branch ID
+   * @param bookId Book ID
+   * @param totalCopies new number of owned copies
+   * @return the updated copy row
+   * @throws IllegalArgumentException if totalCopies is negative
+   * @throws NotFoundException if branch or book not found
+   * @throws BusinessException if fewer copies than are on loan would remain
+   */
+  @Transactional
+  public BranchCopy setCopies(Long branchId, Long bookId, int totalCopies) {
+    if (totalCopies < 0) {
+      throw new IllegalArgumentException("Total copies cannot be negative");
+    }
+    get(branchId);
+    bookService.get(bookId);
+    BranchCopy copy = copies.findByBranchIdAndBookId(branchId, bookId)
+        .orElseGet(() -> new BranchCopy(null, branchId, bookId, 0, 0));
+    int onLoan = copy.getTotalCopies() - copy.getAvailableCopies();
+    if (totalCopies < onLoan) {
+      throw new BusinessException("Branch has " + onLoan + " copies on loan");
+    }
+    copy.setTotalCopies(totalCopies);
+    copy.setAvailableCopies(totalCopies - onLoan);
+    return copies.save(copy);
+  }
+
+  /**
+   * Takes a copy of a book off the shelf at a branch. Must run inside the caller's transaction.
+   * @param branchId Branch ID
+   * @param bookId Book ID
+   * @throws IllegalArgumentException if an ID is null or not positive
+   * @throws NotFoundException if the branch does not stock the book
+   * @throws BusinessException if no copies are available at the branch
+   */
+  @Transactional
+  public void takeCopy(Long branchId, Long bookId) {
+    requireIds(branchId, bookId);
+    if (copies.takeCopy(branchId, bookId) == 0) {
+      if (copies.findByBranchIdAndBookId(branchId, bookId).isEmpty()) {
+        throw new NotFoundException("Book " + bookId + " is not stocked at branch " + branchId);
+      }
+      throw new BusinessException("No copies available at branch");
+    }
+  }
+
+  /**
+   * Puts a copy of a book back on the shelf at a branch. Must run inside the caller's transaction.
+   * @param branchId Branch ID
+   * @param bookId Book ID
+   * @throws IllegalArgumentException if an ID is null or not positive
+   * @throws BusinessException if every copy the branch owns is already on the shelf
+   */
+  @Transactional
+  public void returnCopy(Long branchId, Long bookId) {
+    requireIds(branchId, bookId);
+    if (copies.returnCopy(branchId, bookId) == 0) {
+      throw new BusinessException("All copies are already on the shelf at branch " + branchId);
+    }
+  }
+
+  /**
+   * Puts several returned copies of a book back on the shelf at a branch in one statement, never
+   * above the number of copies the branch owns. Must run inside the caller's transaction.
+   * @param branchId Branch ID
+   * @param bookId Book ID
+   * @param count number of copies returned
+   * @throws IllegalArgumentException if an ID or the count is not positive
+   */
+  @Transactional
+  public void returnCopies(Long branchId, Long bookId, int count) {
+    requireIds(branchId, bookId);
+    if (count <= 0) {
+      throw new IllegalArgumentException("Copy count must be positive");
+    }
+    copies.returnCopies(branchId, bookId, count);
+  }
+
+  /**
+   * Retrieves the availability of a book summed over all branches. Books that no branch stocks
+   * report their own counters.
+   * @param bookId Book ID
+   * @return aggregated availability with the per-branch breakdown
+   * @throws IllegalArgumentException if bookId is null or not positive
+   * @throws NotFoundException if the book is not found
+   */
+  public BookAvailabilityDto availability(Long bookId) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    List<BranchAvailabilityDto> perBranch = copies.availabilityByBook(bookId);
+    if (perBranch.isEmpty()) {
+      Book book = bookService.get(bookId);
+      return new BookAvailabilityDto(bookId, book.getTotalCopies(), book.getAvailableCopies(),
+          List.of());
+    }
+    int total = 0;
+    int available = 0;
+    for (BranchAvailabilityDto branch : perBranch) {
+      total += branch.getTotalCopies();
+      available += branch.getAvailableCopies();
+    }
+    return new BookAvailabilityDto(bookId, total, available, perBranch);
+  }
+
+  private static void requireIds(Long branchId, Long bookId) {
+    if (branchId == null || branchId <= 0) {
+      throw new IllegalArgumentException("Branch ID must be positive");
+    }
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnItemDto;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnOutcomeDto;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnOutcomeDto.Outcome;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnResultDto;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
+import com.abhiesa.hellowithcopilot.library.model.Isbn;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.support.Futures;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service returning many loans at once, for drop-box processing.
+ * Instead of fetching and saving every loan and book, the whole batch costs a fixed number of
+ * statements per chunk of items: the loans are locked with {@code IN} queries, marked returned
+ * with one set-based UPDATE, and each book's or branch row's counter is raised once by the number
+ * of its copies that came back. Each borrower's active loan counter is lowered once likewise.
+ * While the sharded inventory engine owns the books' counters, their copies are handed to it
+ * once the returns commit instead, ahead of any later checkout of the same books. While the
+ * journal inventory engine owns the open loans on the books' counters, those loans are returned
+ * through the journal one by one, and the journal's projection updates the database.
+ */
+@Service
+public class BulkReturnService {
+  private final LoanRepository loans;
+  private final BookService bookService;
+  private final MemberService memberService;
+  private final ActiveLoanCounters loanCounters;
+  private final BranchService branchService;
+  private final ShardedInventory shardedInventory;
+  private final JournaledInventory journaledInventory;
+  private final ApplicationEventPublisher events;
+  private final int chunkSize;
+  private final int maxItems;
+  private final Duration awaitTimeout;
+
+  /**
+   * Constructs a BulkReturnService with required dependencies.
+   * @param loans LoanRepository instance
+   * @param bookService BookService instance
+   * @param memberService MemberService instance
+   * @param loanCounters members' active loan counters
+   * @param branchService BranchService instance
+   * @param shardedInventory sharded inventory engine, given the copies while enabled
+   * @param journaledInventory journal inventory engine, returning its loans while enabled
+   * @param events publisher for loan events
+   * @param chunkSize maximum number of keys per IN query
+   * @param maxItems maximum number of items per request
+   * @param awaitTimeout longest wait for the journal to accept a return
+   * @throws IllegalArgumentException if any dependency is null or a limit is not positive
+   */
+  public BulkReturnService(LoanRepository loans, BookService bookService,
+      MemberService memberService, ActiveLoanCounters loanCounters, BranchService branchService,
+      ShardedInventory shardedInventory, JournaledInventory journaledInventory,
+      ApplicationEventPublisher events,
+      @Value("${library.batch.chunk-size:500}") int chunkSize,
+      @Value("${library.returns.max-items:10000}") int maxItems,
+      @Value("${library.inventory.await-timeout:PT30S}") Duration awaitTimeout) {
+    if (loans == null || bookService == null || memberService == null || loanCounters == null
+        || branchService == null || shardedInventory == null || journaledInventory == null
+        || events == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (chunkSize <= 0 || maxItems <= 0 || awaitTimeout == null || awaitTimeout.isNegative()
+        || awaitTimeout.isZero()) {
+      throw new IllegalArgumentException("Bulk return limits must be positive");
+    }
+    this.loans = loans;
+    this.bookService = bookService;
+    this.memberService = memberService;
+    this.loanCounters = loanCounters;
+    this.branchService = branchService;
+    this.shardedInventory = shardedInventory;
+    this.journaledInventory = journaledInventory;
+    this.events = events;
+    this.chunkSize = chunkSize;
+    this.maxItems = maxItems;
+    this.awaitTimeout = awaitTimeout;
+  }
+
+  /**
+   * Maximum number of items accepted per request.
+   * @return item limit
+   */
+  public int maxItems() {
+    return maxItems;
+  }
+
+  /**
+   * Returns every loan named in the batch. Items that cannot be returned are reported and do not
+   * affect the others. An ISBN and card pair returns the borrower's oldest active loan of that
+   * book that the batch has not already returned.
+   * @param items loans to return, by loan ID or by ISBN and library card
+   * @return the number of loans returned and the outcome of every item
+   * @throws IllegalArgumentException if items is null or longer than the limit
+   */
+  @Transactional
+  public BulkReturnResultDto returnAll(List<BulkReturnItemDto> items) {
+    if (items == null || items.size() > maxItems) {
+      throw new IllegalArgumentException("Between 0 and " + maxItems + " items are accepted");
+    }
+    int n = items.size();
+    Outcome[] outcomes = new Outcome[n];
+    String[] isbns = new String[n];
+    Set<Long> loanIds = new LinkedHashSet<>();
+    Set<String> isbnKeys = new LinkedHashSet<>();
+    Set<String> cards = new LinkedHashSet<>();
+    for (int i = 0; i < n; i++) {
+      BulkReturnItemDto item = items.get(i);
+      if (item != null && item.getLoanId() != null) {
+        if (item.getLoanId() <= 0) {
+          outcomes[i] = Outcome.INVALID;
+        } else {
+          loanIds.add(item.getLoanId());
+        }
+      } else if (item != null && item.getIsbn() != null && !item.getIsbn().isBlank()
+          && item.getMemberId() != null && !item.getMemberId().isBlank()) {
+        isbns[i] = Isbn.normalize(item.getIsbn());
+        isbnKeys.add(isbns[i]);
+        cards.add(item.getMemberId());
+      } else {
+        outcomes[i] = Outcome.INVALID;
+      }
+    }
+
+    Map<String, Long> bookIds = inChunks(isbnKeys, bookService::idsByIsbn);
+    Map<String, Long> memberIds = inChunks(cards, memberService::idsByCard);
+    Map<Long, Loan> byId = new HashMap<>();
+    for (Loan loan : listInChunks(loanIds, loans::lockAllById)) {
+      byId.put(loan.getId(), loan);
+    }
+    Set<Long> pairBooks = new HashSet<>(bookIds.values());
+    Map<Long, Map<Long, ArrayDeque<Loan>>> activeByMember = new HashMap<>();
+    for (Loan loan : listInChunks(new LinkedHashSet<>(memberIds.values()),
+        loans::lockActiveByMemberIds)) {
+      if (pairBooks.contains(loan.getBookId())) {
+        activeByMember.computeIfAbsent(loan.getMemberId(), k -> new HashMap<>())
+            .computeIfAbsent(loan.getBookId(), k -> new ArrayDeque<>())
+            .add(loan);
+      }
+    }
+
+    boolean journaled = journaledInventory.enabled();
+    Set<Long> returning = new LinkedHashSet<>();
+    List<Loan> returned = new ArrayList<>();
+    Long[] resolved = new Long[n];
+    Map<Integer, Long> toJournal = new LinkedHashMap<>();
+    for (int i = 0; i < n; i++) {
+      Loan loan = null;
+      if (outcomes[i] == null) {
+        BulkReturnItemDto item = items.get(i);
+        if (item.getLoanId() != null) {
+          loan = byId.get(item.getLoanId());
+          if (loan == null && journaled && returning.add(item.getLoanId())) {
+            // Possibly a journal loan the projection has not written yet.
+            resolved[i] = item.getLoanId();
+            toJournal.put(i, item.getLoanId());
+            continue;
+          } else if (loan == null) {
+            outcomes[i] = journaled ? Outcome.DUPLICATE : Outcome.NOT_FOUND;
+          } else if (returning.contains(loan.getId())) {
+            outcomes[i] = Outcome.DUPLICATE;
+          } else if (!loan.getStatus().isOpen()) {
+            outcomes[i] = Outcome.NOT_ACTIVE;
+          }
+        } else {
+          loan = nextActive(activeByMember, memberIds.get(item.getMemberId()),
+              bookIds.get(isbns[i]), returning);
+          if (loan == null) {
+            outcomes[i] = Outcome.NOT_FOUND;
+          }
+        }
+        if (outcomes[i] == null) {
+          returning.add(loan.getId());
+          if (journaled && loan.getBranchId() == null) {
+            toJournal.put(i, loan.getId());
+          } else {
+            outcomes[i] = Outcome.RETURNED;
+            returned.add(loan);
+          }
+        }
+      }
+      resolved[i] = loan == null ? resolved[i] : loan.getId();
+    }
+
+    apply(returned);
+    int count = returned.size() + returnThroughJournal(toJournal, byId, outcomes);
+    List<BulkReturnOutcomeDto> results = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      results.add(new BulkReturnOutcomeDto(i, resolved[i], outcomes[i]));
+    }
+    return new BulkReturnResultDto(count, results);
+  }
+
+  /**
+   * Returns the journal's loans. The journal refuses loans it holds no open copy for, such as
+   * ones returned since the projection last wrote them.
+   * @return the number of loans returned
+   */
+  private int returnThroughJournal(Map<Integer, Long> toJournal, Map<Long, Loan> byId,
+      Outcome[] outcomes) {
+    Map<Integer, CompletableFuture<Loan>> pending = new LinkedHashMap<>();
+    toJournal.forEach((i, loanId) -> {
+      CompletableFuture<Loan> entry = journaledInventory.returnLoan(loanId);
+      if (entry != null) {
+        pending.put(i, entry);
+      } else {
+        outcomes[i] = byId.containsKey(loanId) ? Outcome.NOT_ACTIVE : Outcome.NOT_FOUND;
+      }
+    });
+    pending.forEach((i, entry) -> {
+      Futures.await(entry, awaitTimeout);
+      outcomes[i] = Outcome.RETURNED;
+    });
+    return pending.size();
+  }
+
+  private void apply(List<Loan> returned) {
+    if (returned.isEmpty()) {
+      return;
+    }
+    LocalDate today = LocalDate.now();
+    Instant now = Instant.now();
+    int updated = 0;
+    List<Long> ids = returned.stream().map(Loan::getId).toList();
+    for (int from = 0; from < ids.size(); from += chunkSize) {
+      List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+      updated += loans.markReturned(chunk, today, now);
+    }
+    if (updated != returned.size()) {
+      throw new BusinessException("Loans changed while they were being returned");
+    }
+    Map<Long, Integer> perMember = new LinkedHashMap<>();
+    Map<Long, Integer> perBook = new LinkedHashMap<>();
+    Map<Long, Map<Long, Integer>> perBranch = new LinkedHashMap<>();
+    for (Loan loan : returned) {
+      if (loan.getMemberId() != null) {
+        perMember.merge(loan.getMemberId(), 1, Integer::sum);
+      }
+      if (loan.getBranchId() == null) {
+        perBook.merge(loan.getBookId(), 1, Integer::sum);
+      } else {
+        perBranch.computeIfAbsent(loan.getBranchId(), k -> new LinkedHashMap<>())
+            .merge(loan.getBookId(), 1, Integer::sum);
+      }
+    }
+    // Members before books, the order checkouts lock them in.
+    loanCounters.release(perMember);
+    if (shardedInventory.enabled()) {
+      giveToShards(perBook);
+    } else {
+      bookService.returnCopies(perBook);
+    }
+    perBranch.forEach((branchId, books) ->
+        books.forEach((bookId, count) -> branchService.returnCopies(branchId, bookId, count)));
+    for (Loan loan : returned) {
+      events.publishEvent(
+          new LoanReturnedEvent(loan.getId(), loan.getMemberId(), loan.getBookId(), today));
+    }
+  }
+
+  private void giveToShards(Map<Long, Integer> perBook) {
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        perBook.forEach(shardedInventory::giveBack);
+      }
+    });
+  }
+
+  private static Loan nextActive(Map<Long, Map<Long, ArrayDeque<Loan>>> activeByMember,
+      Long memberId, Long bookId, Set<Long> returning) {
+    if (memberId == null || bookId == null) {
+      return null;
+    }
+    ArrayDeque<Loan> active = activeByMember.getOrDefault(memberId, Map.of()).get(bookId);
+    while (active != null && !active.isEmpty()) {
+      Loan loan = active.poll();
+      if (!returning.contains(loan.getId())) {
+        return loan;
+      }
+    }
+    return null;
+  }
+
+  private <K, V> Map<K, V> inChunks(Collection<K> keys, Function<List<K>, Map<K, V>> lookup) {
+    Map<K, V> found = new HashMap<>();
+    List<K> all = new ArrayList<>(keys);
+    for (int from = 0; from < all.size(); from += chunkSize) {
+      found.putAll(lookup.apply(all.subList(from, Math.min(from + chunkSize, all.size()))));
+    }
+    return found;
+  }
+
+  private <K, V> List<V> listInChunks(Collection<K> keys, Function<List<K>, List<V>> query) {
+    List<V> found = new ArrayList<>();
+    List<K> all = new ArrayList<>(keys);
+    for (int from = 0; from < all.size(); from += chunkSize) {
+      found.addAll(query.apply(all.subList(from, Math.min(from + chunkSize, all.size()))));
+    }
+    return found;
+  }
+}
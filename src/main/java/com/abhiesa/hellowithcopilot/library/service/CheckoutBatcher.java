@@ -0,0 +1,322 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Group commit for checkouts against the books' global counters. Concurrent checkout requests
+ * are queued and a single worker applies them in micro-batches: it waits at most the batch
+ * window after the first request, or until the batch is full, then runs the whole batch in one
+ * transaction. The transaction locks all members with one query and hands out their remaining
+ * loan slots in arrival order, locks the requested books in ID order and grants copies in arrival
+ * order, writes the changed counters as one JDBC batch and
+ * inserts all loans as another. Each caller blocks until its batch commits and then gets its own
+ * loan, or the same exception the per-request path would have thrown. If the transaction itself
+ * fails, every request in the batch fails with that error. A caller waits at most the checkout
+ * timeout, and a worker that dies is replaced on the next checkout.
+ * Disabled by default; when disabled, checkouts run one transaction each in {@link LoanService}.
+ */
+@Service
+public class CheckoutBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(CheckoutBatcher.class);
+
+  private final BookService bookService;
+  private final ActiveLoanCounters loanCounters;
+  private final LoanRepository loans;
+  private final ApplicationEventPublisher events;
+  private final EntityManager entityManager;
+  private final TransactionTemplate tx;
+  private final boolean enabled;
+  private final int maxBatch;
+  private final long windowNanos;
+  private final long timeoutNanos;
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+  private Thread worker;
+  private volatile boolean stopped;
+
+  private record Request(long bookId, long memberId, int days, CompletableFuture<Loan> result) {
+  }
+
+  /**
+   * Constructs the batcher.
+   * @param bookService BookService instance
+   * @param loanCounters members' active loan counters and limit
+   * @param loans LoanRepository instance
+   * @param events publisher for loan events
+   * @param entityManager entity manager of the batch transactions
+   * @param transactionManager transaction manager each batch runs in
+   * @param enabled whether checkouts are batched
+   * @param maxBatch most checkouts per batch
+   * @param window longest wait for more checkouts after the first one of a batch
+   * @param timeout longest wait of a caller for its batch to commit
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public CheckoutBatcher(BookService bookService, ActiveLoanCounters loanCounters,
+      LoanRepository loans, ApplicationEventPublisher events, EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      @Value("${library.checkout.group-commit.enabled:false}") boolean enabled,
+      @Value("${library.checkout.group-commit.max-batch:64}") int maxBatch,
+      @Value("${library.checkout.group-commit.window:PT0.002S}") Duration window,
+      @Value("${library.checkout.group-commit.timeout:PT30S}") Duration timeout) {
+    if (bookService == null || loanCounters == null || loans == null || events == null
+        || entityManager == null || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (maxBatch <= 0 || window == null || window.isNegative() || timeout == null
+        || timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("Invalid group commit settings");
+    }
+    this.bookService = bookService;
+    this.loanCounters = loanCounters;
+    this.loans = loans;
+    this.events = events;
+    this.entityManager = entityManager;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.maxBatch = maxBatch;
+    this.windowNanos = window.toNanos();
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * Whether checkouts should go through this batcher.
+   * @return true if group commit is enabled
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Checks out a book for a member as part of the next batch and waits for that batch to commit.
+   * @param bookId Book ID
+   * @param memberId Member ID
+   * @param days Number of days for the loan
+   * @return persisted Loan
+   * @throws IllegalArgumentException if any parameter is invalid
+   * @throws NotFoundException if the book or member does not exist
+   * @throws BusinessException if no copies are available or the member has reached the loan
+   * limit
+   * @throws IllegalStateException if the batcher is shut down, or the wait is interrupted or
+   * times out; a checkout whose batch was already being written when the wait timed out may
+   * still be stored
+   */
+  public Loan checkout(Long bookId, Long memberId, int days) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    if (days <= 0) {
+      throw new IllegalArgumentException("Loan days must be positive");
+    }
+    if (stopped) {
+      throw new IllegalStateException("Checkout batcher is shut down");
+    }
+    Request request = new Request(bookId, memberId, days, new CompletableFuture<>());
+    queue.add(request);
+    ensureWorker();
+    try {
+      return request.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      IllegalStateException timedOut =
+          new IllegalStateException("Timed out waiting for checkout", e);
+      // Completing the future first keeps a batch that has not started from applying it.
+      request.result().completeExceptionally(timedOut);
+      queue.remove(request);
+      throw timedOut;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Checkout failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for checkout", e);
+    }
+  }
+
+  /**
+   * Stops the worker; queued checkouts fail.
+   */
+  @PreDestroy
+  public synchronized void shutdown() {
+    stopped = true;
+    if (worker != null) {
+      worker.interrupt();
+    }
+    Request request;
+    while ((request = queue.poll()) != null) {
+      request.result().completeExceptionally(
+          new IllegalStateException("Checkout batcher is shut down"));
+    }
+  }
+
+  private synchronized void ensureWorker() {
+    if ((worker == null || !worker.isAlive()) && !stopped) {
+      worker = Thread.ofPlatform().name("checkout-batcher").daemon().start(this::drain);
+    }
+  }
+
+  private void drain() {
+    List<Request> batch = new ArrayList<>(maxBatch);
+    try {
+      while (!stopped) {
+        try {
+          batch.add(queue.take());
+          long deadline = System.nanoTime() + windowNanos;
+          while (batch.size() < maxBatch) {
+            Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+              break;
+            }
+            batch.add(next);
+          }
+        } catch (InterruptedException e) {
+          for (Request request : batch) {
+            request.result().completeExceptionally(
+                new IllegalStateException("Checkout batcher is shut down"));
+          }
+          return;
+        }
+        apply(batch);
+        batch.clear();
+      }
+    } catch (Throwable e) {
+      logger.error("Checkout batcher worker failed", e);
+      for (Request request : batch) {
+        request.result().completeExceptionally(e);
+      }
+    } finally {
+      retire();
+    }
+  }
+
+  /**
+   * Clears the exiting worker, and replaces it if checkouts are still waiting.
+   */
+  private synchronized void retire() {
+    if (worker == Thread.currentThread()) {
+      worker = null;
+    }
+    if (!queue.isEmpty()) {
+      ensureWorker();
+    }
+  }
+
+  private void apply(List<Request> batch) {
+    // A caller that timed out has given up on its checkout.
+    batch.removeIf(request -> request.result().isDone());
+    if (batch.isEmpty()) {
+      return;
+    }
+    Map<Request, Object> outcomes;
+    try {
+      outcomes = tx.execute(status -> applyInTransaction(batch));
+    } catch (Throwable e) {
+      logger.warn("Checkout batch of {} failed", batch.size(), e);
+      for (Request request : batch) {
+        request.result().completeExceptionally(e);
+      }
+      return;
+    }
+    for (Map.Entry<Request, Object> outcome : outcomes.entrySet()) {
+      if (outcome.getValue() instanceof Loan loan) {
+        outcome.getKey().result().complete(loan);
+      } else {
+        outcome.getKey().result().completeExceptionally((RuntimeException) outcome.getValue());
+      }
+    }
+  }
+
+  /**
+   * Applies a batch and returns, per request, its loan or the exception to throw.
+   */
+  private Map<Request, Object> applyInTransaction(List<Request> batch) {
+    entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+    List<Long> memberIds = new ArrayList<>(batch.size());
+    for (Request request : batch) {
+      memberIds.add(request.memberId());
+    }
+    Map<Long, Member> members = loanCounters.lock(memberIds);
+    // Loan slots are handed out before copies are counted, as if every earlier request of the
+    // same member in the batch gets its copy.
+    Map<Long, Integer> room = new HashMap<>();
+    members.forEach((id, member) -> room.put(id, loanCounters.room(member)));
+    Set<Request> withinLimit = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<Long, Integer> wanted = new HashMap<>();
+    for (Request request : batch) {
+      int left = room.getOrDefault(request.memberId(), 0);
+      if (left > 0) {
+        room.put(request.memberId(), left - 1);
+        withinLimit.add(request);
+        wanted.merge(request.bookId(), 1, Integer::sum);
+      }
+    }
+    Map<Long, Integer> remaining = new HashMap<>(bookService.takeCopies(wanted));
+
+    Map<Request, Object> outcomes = new LinkedHashMap<>();
+    List<Loan> created = new ArrayList<>(batch.size());
+    LocalDate today = LocalDate.now();
+    for (Request request : batch) {
+      Integer copies = remaining.get(request.bookId());
+      if (!members.containsKey(request.memberId())) {
+        outcomes.put(request, new NotFoundException("Member not found: " + request.memberId()));
+      } else if (!withinLimit.contains(request)) {
+        outcomes.put(request, loanCounters.limitReached());
+      } else if (copies == null) {
+        outcomes.put(request, new NotFoundException("Book not found: " + request.bookId()));
+      } else if (copies == 0) {
+        outcomes.put(request, new BusinessException("No copies available"));
+      } else {
+        remaining.put(request.bookId(), copies - 1);
+        loanCounters.adjust(members.get(request.memberId()), 1);
+        Loan loan = new Loan(null, request.memberId(), request.bookId(), today,
+            today.plusDays(request.days()), null, LoanStatus.ACTIVE, null, null);
+        created.add(loan);
+        outcomes.put(request, loan);
+      }
+    }
+    // Write the counter updates before the loans, as the per-request path does.
+    entityManager.flush();
+    loans.insertAll(created);
+    for (Loan loan : created) {
+      events.publishEvent(new LoanCheckedOutEvent(loan.getId(), loan.getMemberId(),
+          loan.getBookId(), loan.getDueDate()));
+    }
+    return outcomes;
+  }
+}
@@ -0,0 +1,88 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.dto.MemberBalanceDto;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.fines.FineAccrualJob;
+import com.abhiesa.hellowithcopilot.library.model.FineAccrualRun;
+import com.abhiesa.hellowithcopilot.library.model.FineLedgerEntry;
+import com.abhiesa.hellowithcopilot.library.repository.FineLedgerRepository;
+import com.abhiesa.hellowithcopilot.library.repository.MemberBalanceRepository;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for members' fines. Balances are read from the summary rows the
+ * {@link FineAccrualJob} maintains, never summed from the ledger on request.
+ */
+@Service
+public class FineService {
+  private final FineAccrualJob accrual;
+  private final MemberBalanceRepository balances;
+  private final FineLedgerRepository ledger;
+  private final MemberService memberService;
+
+  /**
+   * Constructs a FineService with required dependencies.
+   * @param accrual fine accrual job
+   * @param balances MemberBalanceRepository instance
+   * @param ledger FineLedgerRepository instance
+   * @param memberService MemberService instance
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public FineService(FineAccrualJob accrual, MemberBalanceRepository balances,
+      FineLedgerRepository ledger, MemberService memberService) {
+    if (accrual == null || balances == null || ledger == null || memberService == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.accrual = accrual;
+    this.balances = balances;
+    this.ledger = ledger;
+    this.memberService = memberService;
+  }
+
+  /**
+   * Retrieves a member's outstanding fines.
+   * @param memberId Member ID
+   * @return the balance; zero if the member was never fined
+   * @throws IllegalArgumentException if memberId is null or not positive
+   * @throws NotFoundException if the member is not found
+   */
+  public MemberBalanceDto balance(Long memberId) {
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    return balances.findById(memberId)
+        .map(b -> new MemberBalanceDto(memberId, b.getBalanceCents(), b.getUpdatedAt()))
+        .orElseGet(() -> {
+          memberService.get(memberId);
+          return new MemberBalanceDto(memberId, 0, null);
+        });
+  }
+
+  /**
+   * Lists a member's most recent ledger entries.
+   * @param memberId Member ID
+   * @param limit maximum number of entries
+   * @return ledger entries, newest first
+   * @throws IllegalArgumentException if memberId or limit is not positive
+   * @throws NotFoundException if the member is not found
+   */
+  public List<FineLedgerEntry> ledger(Long memberId, int limit) {
+    if (memberId == null || memberId <= 0 || limit <= 0) {
+      throw new IllegalArgumentException("Member ID and limit must be positive");
+    }
+    memberService.get(memberId);
+    return ledger.findByMemberIdOrderByIdDesc(memberId, Limit.of(limit));
+  }
+
+  /**
+   * Runs the fine accrual now instead of waiting for the nightly run.
+   * @param mode which loans to examine
+   * @return the finished run
+   * @throws IllegalArgumentException if mode is null
+   */
+  public FineAccrualRun accrue(FineAccrualRun.Mode mode) {
+    return accrual.run(mode);
+  }
+}
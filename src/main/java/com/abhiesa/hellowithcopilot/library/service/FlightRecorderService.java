@@ -0,0 +1,145 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.dto.JfrRecordingDto;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service controlling an on-demand Java Flight Recorder recording with the library settings
+ * ({@code jfr/library.jfc}). At most one recording runs at a time; it can be dumped to disk while
+ * running and is dumped once more when stopped.
+ */
+@Service
+public class FlightRecorderService {
+  private static final DateTimeFormatter FILE_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  private final Configuration configuration;
+  private final Path dumpDirectory;
+  private final Duration maxAge;
+  private Recording recording;
+  private Path lastDump;
+
+  /**
+   * Constructs a FlightRecorderService.
+   * @param settings JFR configuration (.jfc) to record with
+   * @param dumpDirectory directory recordings are dumped to
+   * @param maxAge how much history the running recording keeps
+   * @throws IllegalArgumentException if an argument is null or the settings cannot be parsed
+   */
+  public FlightRecorderService(
+      @Value("${library.jfr.settings:classpath:jfr/library.jfc}") Resource settings,
+      @Value("${library.jfr.dump-dir:jfr}") Path dumpDirectory,
+      @Value("${library.jfr.max-age:PT30M}") Duration maxAge) {
+    if (settings == null || dumpDirectory == null || maxAge == null) {
+      throw new IllegalArgumentException("All arguments must be non-null");
+    }
+    try (Reader reader = new InputStreamReader(settings.getInputStream(), StandardCharsets.UTF_8)) {
+      this.configuration = Configuration.create(reader);
+    } catch (IOException | ParseException e) {
+      throw new IllegalArgumentException("Cannot read JFR settings " + settings, e);
+    }
+    this.dumpDirectory = dumpDirectory;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Starts a recording.
+   * @return the running recording
+   * @throws BusinessException if a recording is already running
+   */
+  public synchronized JfrRecordingDto start() {
+    if (recording != null) {
+      throw new BusinessException("A flight recording is already running");
+    }
+    Recording started = new Recording(configuration);
+    started.setName("library-" + FILE_TIMESTAMP.format(Instant.now()));
+    started.setMaxAge(maxAge);
+    started.setToDisk(true);
+    started.start();
+    recording = started;
+    lastDump = null;
+    return describe(started);
+  }
+
+  /**
+   * Dumps the running recording to disk and keeps it running.
+   * @return the recording, with the dump file
+   * @throws BusinessException if no recording is running
+   */
+  public synchronized JfrRecordingDto dump() {
+    Recording current = requireRunning();
+    lastDump = dumpTo(current);
+    return describe(current);
+  }
+
+  /**
+   * Stops the running recording and dumps it to disk.
+   * @return the stopped recording, with the dump file
+   * @throws BusinessException if no recording is running
+   */
+  public synchronized JfrRecordingDto stop() {
+    Recording current = requireRunning();
+    try {
+      current.stop();
+      lastDump = dumpTo(current);
+      return describe(current);
+    } finally {
+      current.close();
+      recording = null;
+    }
+  }
+
+  /**
+   * Describes the running recording.
+   * @return the running recording
+   * @throws NotFoundException if no recording is running
+   */
+  public synchronized JfrRecordingDto status() {
+    if (recording == null) {
+      throw new NotFoundException("No flight recording is running");
+    }
+    return describe(recording);
+  }
+
+  private Recording requireRunning() {
+    if (recording == null) {
+      throw new BusinessException("No flight recording is running");
+    }
+    return recording;
+  }
+
+  private Path dumpTo(Recording current) {
+    try {
+      Files.createDirectories(dumpDirectory);
+      Path file = dumpDirectory.resolve(
+          current.getName() + "-" + FILE_TIMESTAMP.format(Instant.now()) + ".jfr").toAbsolutePath();
+      current.dump(file);
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot dump flight recording to " + dumpDirectory, e);
+    }
+  }
+
+  private JfrRecordingDto describe(Recording r) {
+    return new JfrRecordingDto(r.getId(), r.getName(), r.getState().name(), r.getStartTime(),
+        lastDump == null ? null : lastDump.toString());
+  }
+}
@@ -0,0 +1,101 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checkouts and returns against the books' global counters through {@link JournaledInventory}.
+ * The journal decides and makes the decision durable; the loan rows follow asynchronously, so
+ * a loan returned here may still read as active in the database for a moment. Branch loans keep
+ * using {@link LoanService}.
+ */
+@Service
+public class JournaledLoanService {
+
+  private final JournaledInventory inventory;
+  private final LoanService loanService;
+  private final MemberService memberService;
+  private final ActiveLoanCounters loanCounters;
+  private final LoanRepository loans;
+
+  /**
+   * Constructs the service.
+   * @param inventory journal-backed inventory engine
+   * @param loanService LoanService used for branch loans
+   * @param memberService MemberService instance
+   * @param loanCounters members' active loan counters and limit
+   * @param loans LoanRepository instance
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public JournaledLoanService(JournaledInventory inventory, LoanService loanService,
+      MemberService memberService, ActiveLoanCounters loanCounters, LoanRepository loans) {
+    if (inventory == null || loanService == null || memberService == null
+        || loanCounters == null || loans == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.inventory = inventory;
+    this.loanService = loanService;
+    this.memberService = memberService;
+    this.loanCounters = loanCounters;
+    this.loans = loans;
+  }
+
+  /**
+   * Whether checkouts and returns should go through this service.
+   * @return true if the journal engine is enabled
+   */
+  public boolean enabled() {
+    return inventory.enabled();
+  }
+
+  /**
+   * Checks out a book for a member.
+   * @param bookId Book ID
+   * @param memberId Member ID
+   * @param days Number of days for the loan
+   * @return future completing with the Loan once it is durable, or failing with
+   * BusinessException if no copies are available or the journal finds the member at the limit
+   * @throws IllegalArgumentException if any parameter is invalid
+   * @throws NotFoundException if the book or member does not exist
+   * @throws BusinessException if the member has reached the loan limit
+   */
+  public CompletableFuture<Loan> checkout(Long bookId, Long memberId, int days) {
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    memberService.get(memberId); // validate member exists
+    // The projected counter trails the journal, so this only rejects early; the journal
+    // enforces the limit against its own open loans
+    loanCounters.checkRoom(memberId);
+    return inventory.checkout(bookId, memberId, days);
+  }
+
+  /**
+   * Returns a loaned book.
+   * @param loanId Loan ID
+   * @return future completing with the updated Loan once the return is durable
+   * @throws IllegalArgumentException if loanId is invalid
+   * @throws NotFoundException if the loan does not exist
+   * @throws BusinessException if the loan is not active
+   */
+  public CompletableFuture<Loan> returnLoan(Long loanId) {
+    CompletableFuture<Loan> returned = inventory.returnLoan(loanId);
+    if (returned != null) {
+      return returned;
+    }
+    // The journal knows every open loan on the global counters; anything else is a branch
+    // loan, already returned, or unknown.
+    Loan loan = loans.findById(loanId)
+        .orElseThrow(() -> new NotFoundException("Loan not found: " + loanId));
+    if (loan.getBranchId() == null) {
+      throw new BusinessException("Loan is not active");
+    }
+    return CompletableFuture.completedFuture(loanService.returnLoan(loanId));
+  }
+}
@@ -1,37 +1,78 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.dto.LoanDetailsDto;
+import com.abhiesa.hellowithcopilot.library.dto.MemberLoansDto;
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.jfr.FlightRecorderSupport;
+import com.abhiesa.hellowithcopilot.library.jfr.LoanCheckoutEvent;
+import com.abhiesa.hellowithcopilot.library.jfr.LoanReturnEvent;
 import com.abhiesa.hellowithcopilot.library.model.*;
 import com.abhiesa.hellowithcopilot.library.repository.*;
 import com.abhiesa.hellowithcopilot.library.exception.*;
+import com.abhiesa.hellowithcopilot.library.support.SingleFlight;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.validation.Valid;
 
 /**
  * Service class for managing loans.
  * Applies defensive programming, bean validation, and provides comprehensive documentation.
+ * Checkouts and returns publish {@link LoanCheckedOutEvent} and {@link LoanReturnedEvent}, and
+ * record their phase timings as Flight Recorder events. Checkouts that name a branch take the copy
+ * from that branch's own counter row instead of the book's global counter. Every checkout and
+ * return moves the member's active loan counter, which enforces the loan limit.
  */
 @Service
 public class LoanService {
   private final LoanRepository loans;
   private final BookService bookService;
   private final MemberService memberService;
+  private final ActiveLoanCounters loanCounters;
+  private final BranchService branchService;
+  private final ApplicationEventPublisher events;
+  private final SingleFlight<Long, List<Loan>> memberLoansInFlight;
 
   /**
    * Constructs a LoanService with required dependencies.
    * @param loans LoanRepository instance
    * @param bookService BookService instance
    * @param memberService MemberService instance
+   * @param loanCounters members' active loan counters and limit
+   * @param branchService BranchService instance
+   * @param events publisher for loan events
+   * @param coalescingTimeout how long a lookup waits for a concurrent lookup of the same member's
+   * loans
    * @throws IllegalArgumentException if any dependency is null
    */
-  public LoanService(LoanRepository loans, BookService bookService, MemberService memberService) {
-    if (loans == null || bookService == null || memberService == null) {
+  public LoanService(LoanRepository loans, BookService bookService, MemberService memberService,
+      ActiveLoanCounters loanCounters, BranchService branchService,
+      ApplicationEventPublisher events,
+      @Value("${library.coalescing.timeout:PT5S}") Duration coalescingTimeout) {
+    if (loans == null || bookService == null || memberService == null || loanCounters == null
+        || branchService == null || events == null) {
       throw new IllegalArgumentException("All dependencies must be non-null");
     }
     this.loans = loans;
     this.bookService = bookService;
     this.memberService = memberService;
+    this.loanCounters = loanCounters;
+    this.branchService = branchService;
+    this.events = events;
+    this.memberLoansInFlight = new SingleFlight<>(coalescingTimeout);
   }
 
   /**
@@ -41,9 +82,28 @@ public class LoanService {
    * @param days Number of days for the loan
    * @return persisted Loan
    * @throws IllegalArgumentException if any parameter is invalid
-   * @throws BusinessException if no copies are available
+   * @throws BusinessException if no copies are available or the member has reached the loan
+   * limit
    */
+  @Transactional
   public Loan checkout(Long bookId, Long memberId, int days) {
+    return checkout(bookId, memberId, days, null);
+  }
+
+  /**
+   * Checks out a book for a member from a branch.
+   * @param bookId Book ID
+   * @param memberId Member ID
+   * @param days Number of days for the loan
+   * @param branchId Branch ID, or null to use the book's global counter
+   * @return persisted Loan
+   * @throws IllegalArgumentException if any parameter is invalid
+   * @throws NotFoundException if the book does not exist or the branch does not stock it
+   * @throws BusinessException if no copies are available or the member has reached the loan
+   * limit
+   */
+  @Transactional
+  public Loan checkout(Long bookId, Long memberId, int days, Long branchId) {
     if (bookId == null || bookId <= 0) {
       throw new IllegalArgumentException("Book ID must be positive");
     }
@@ -53,13 +113,46 @@ public class LoanService {
     if (days <= 0) {
       throw new IllegalArgumentException("Loan days must be positive");
     }
-    Book book = bookService.get(bookId);
-    memberService.get(memberId); // validate member exists
-    if (book.getAvailableCopies() <= 0) throw new BusinessException("No copies available");
-    book.setAvailableCopies(book.getAvailableCopies() - 1);
-    bookService.update(book);
-    Loan loan = new Loan(null, bookId, memberId, LocalDate.now(), LocalDate.now().plusDays(days), null, LoanStatus.ACTIVE);
-    return loans.save(loan);
+    if (branchId != null && branchId <= 0) {
+      throw new IllegalArgumentException("Branch ID must be positive");
+    }
+    LoanCheckoutEvent event = new LoanCheckoutEvent();
+    event.begin();
+    Throwable failure = null;
+    try {
+      long start = System.nanoTime();
+      loanCounters.take(memberId); // locks the member and counts the loan
+      long memberFetched = System.nanoTime();
+      event.memberFetch = memberFetched - start;
+      if (branchId != null) {
+        branchService.takeCopy(branchId, bookId);
+      } else {
+        // Decided on the locked row, not a possibly cached copy of the book
+        Integer taken = bookService.takeCopies(Map.of(bookId, 1)).get(bookId);
+        if (taken == null) throw new NotFoundException("Book not found: " + bookId);
+        if (taken == 0) throw new BusinessException("No copies available");
+      }
+      long bookUpdated = System.nanoTime();
+      event.bookUpdate = bookUpdated - memberFetched;
+      Loan loan = new Loan(null, memberId, bookId, LocalDate.now(), LocalDate.now().plusDays(days), null, LoanStatus.ACTIVE, branchId, null);
+      Loan saved = loans.save(loan);
+      event.loanInsert = System.nanoTime() - bookUpdated;
+      event.loanId = saved.getId() == null ? -1 : saved.getId();
+      events.publishEvent(new LoanCheckedOutEvent(saved.getId(), memberId, bookId, saved.getDueDate()));
+      return saved;
+    } catch (RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.bookId = bookId;
+        event.memberId = memberId;
+        event.branchId = branchId == null ? -1 : branchId;
+        event.outcome = FlightRecorderSupport.outcome(failure);
+        event.commit();
+      }
+    }
   }
 
   /**
@@ -70,22 +163,54 @@ public class LoanService {
    * @throws BusinessException if loan is not active
    * @throws NotFoundException if loan not found
    */
+  @Transactional
   public Loan returnLoan(Long loanId) {
     if (loanId == null || loanId <= 0) {
       throw new IllegalArgumentException("Loan ID must be positive");
     }
-    Loan loan = loans.findById(loanId).orElseThrow(() -> new NotFoundException("Loan not found: " + loanId));
-    if (loan.getStatus() != LoanStatus.ACTIVE) throw new BusinessException("Loan is not active");
-    loan.setReturnedDate(LocalDate.now());
-    loan.setStatus(LoanStatus.RETURNED);
-    Book book = bookService.get(loan.getBookId());
-    book.setAvailableCopies(book.getAvailableCopies() + 1);
-    bookService.update(book);
-    return loans.save(loan);
+    LoanReturnEvent event = new LoanReturnEvent();
+    event.begin();
+    Throwable failure = null;
+    try {
+      long start = System.nanoTime();
+      Loan loan = loans.lockById(loanId).orElseThrow(() -> new NotFoundException("Loan not found: " + loanId));
+      long loanFetched = System.nanoTime();
+      event.loanFetch = loanFetched - start;
+      event.bookId = loan.getBookId() == null ? -1 : loan.getBookId();
+      if (!loan.getStatus().isOpen()) throw new BusinessException("Loan is not active");
+      if (loan.getMemberId() != null) {
+        loanCounters.release(Map.of(loan.getMemberId(), 1));
+      }
+      loan.setReturnedDate(LocalDate.now());
+      loan.setStatus(LoanStatus.RETURNED);
+      if (loan.getBranchId() != null) {
+        branchService.returnCopy(loan.getBranchId(), loan.getBookId());
+      } else {
+        // One relative UPDATE, so concurrent bulk returns of the book are not written over
+        bookService.returnCopies(Map.of(loan.getBookId(), 1));
+      }
+      long bookUpdated = System.nanoTime();
+      event.bookUpdate = bookUpdated - loanFetched;
+      Loan saved = loans.save(loan);
+      event.loanUpdate = System.nanoTime() - bookUpdated;
+      events.publishEvent(new LoanReturnedEvent(saved.getId(), saved.getMemberId(), saved.getBookId(), saved.getReturnedDate()));
+      return saved;
+    } catch (RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.loanId = loanId;
+        event.outcome = FlightRecorderSupport.outcome(failure);
+        event.commit();
+      }
+    }
   }
 
   /**
    * Retrieves all loans for a specific member.
+   * Outside a transaction, concurrent lookups for the same member share one query and one list.
    * @param memberId Member ID
    * @return List of loans for the member
    * @throws IllegalArgumentException if memberId is invalid
@@ -94,7 +219,73 @@ public class LoanService {
     if (memberId == null || memberId <= 0) {
       throw new IllegalArgumentException("Member ID must be positive");
     }
-    return loans.findByMemberId(memberId);
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return loans.findByMemberId(memberId);
+    }
+    return memberLoansInFlight.load(memberId, () -> loans.findByMemberId(memberId));
+  }
+
+  /**
+   * Retrieves a member's loans made between two dates, inclusive.
+   * @param memberId Member ID
+   * @param from first loan date
+   * @param to last loan date
+   * @return List of loans for the member in loan date order
+   * @throws IllegalArgumentException if any parameter is invalid
+   */
+  public List<Loan> memberLoans(Long memberId, LocalDate from, LocalDate to) {
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    if (from == null || to == null || from.isAfter(to)) {
+      throw new IllegalArgumentException("Invalid loan date range");
+    }
+    return loans.findByMemberIdAndLoanDateBetweenOrderByLoanDate(memberId, from, to);
+  }
+
+  /**
+   * Retrieves open loans past their due date among the loans made since a date.
+   * @param loanedSince first loan date considered
+   * @param limit maximum number of loans
+   * @return overdue loans, longest overdue first
+   * @throws IllegalArgumentException if any parameter is invalid
+   */
+  public List<Loan> overdueLoans(LocalDate loanedSince, int limit) {
+    if (loanedSince == null || limit <= 0) {
+      throw new IllegalArgumentException("Invalid overdue query");
+    }
+    return loans.findOverdueLoanedSince(loanedSince, LocalDate.now(), Limit.of(limit));
+  }
+
+  /**
+   * Retrieves a member together with all their loans and the loaned books.
+   * Books are resolved with a single batched lookup instead of one request per loan.
+   * @param memberId Member ID
+   * @return the member's loans with their books
+   * @throws IllegalArgumentException if memberId is invalid
+   * @throws NotFoundException if member not found
+   */
+  public MemberLoansDto memberLoansExpanded(Long memberId) {
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    Member member = memberService.get(memberId);
+    List<Loan> memberLoans = loans.findByMemberId(memberId);
+    Set<Long> bookIds = new LinkedHashSet<>();
+    for (Loan loan : memberLoans) {
+      if (loan.getBookId() != null) {
+        bookIds.add(loan.getBookId());
+      }
+    }
+    Map<Long, Book> booksById = new HashMap<>();
+    for (Book book : bookService.getAll(bookIds)) {
+      booksById.put(book.getId(), book);
+    }
+    List<LoanDetailsDto> details = new ArrayList<>(memberLoans.size());
+    for (Loan loan : memberLoans) {
+      details.add(new LoanDetailsDto(loan, booksById.get(loan.getBookId())));
+    }
+    return new MemberLoansDto(member, details);
   }
 
   /**
@@ -1,30 +1,61 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.CacheInvalidation;
+import com.abhiesa.hellowithcopilot.library.cache.InvalidationBus;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
 import com.abhiesa.hellowithcopilot.library.model.Member;
 import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
 import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.support.SingleFlight;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.validation.Valid;
 
 /**
  * Service class for managing members.
  * Applies defensive programming, bean validation, and provides comprehensive documentation.
+ * Writes are announced on the {@link InvalidationBus} in the same transaction.
  */
 @Service
 public class MemberService {
   private final MemberRepository members;
+  private final NaturalKeyFilters keyFilters;
+  private final InvalidationBus invalidations;
+  private final SingleFlight<Long, Member> inFlight;
 
   /**
    * Constructs a MemberService with the given MemberRepository.
    * @param members MemberRepository instance
-   * @throws IllegalArgumentException if members is null
+   * @param keyFilters filters used to reject unknown natural keys
+   * @param invalidations bus telling other instances about writes
+   * @param coalescingTimeout how long a lookup waits for a concurrent lookup of the same member
+   * @throws IllegalArgumentException if any dependency is null
    */
-  public MemberService(MemberRepository members) {
+  public MemberService(MemberRepository members, NaturalKeyFilters keyFilters,
+      InvalidationBus invalidations,
+      @Value("${library.coalescing.timeout:PT5S}") Duration coalescingTimeout) {
     if (members == null) {
       throw new IllegalArgumentException("MemberRepository cannot be null");
     }
+    if (keyFilters == null) {
+      throw new IllegalArgumentException("NaturalKeyFilters cannot be null");
+    }
+    if (invalidations == null) {
+      throw new IllegalArgumentException("InvalidationBus cannot be null");
+    }
     this.members = members;
+    this.keyFilters = keyFilters;
+    this.invalidations = invalidations;
+    this.inFlight = new SingleFlight<>(coalescingTimeout);
   }
 
   /**
@@ -33,15 +64,21 @@ public class MemberService {
    * @return persisted Member
    * @throws IllegalArgumentException if member is null
    */
+  @Transactional
   public Member create(@Valid Member m) {
     if (m == null) {
       throw new IllegalArgumentException("Member cannot be null");
     }
-    return members.save(m);
+    m.setActiveLoans(0);
+    keyFilters.addMemberId(m.getMemberId());
+    Member saved = members.save(m);
+    invalidations.publish(CacheInvalidation.member(saved.getId(), saved.getMemberId()));
+    return saved;
   }
 
   /**
    * Retrieves a member by its ID.
+   * Outside a transaction, concurrent lookups of the same member share one query.
    * @param id Member ID
    * @return Member entity
    * @throws IllegalArgumentException if id is null or not positive
@@ -51,9 +88,87 @@ public class MemberService {
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("Member ID must be positive");
     }
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return find(id);
+    }
+    return inFlight.load(id, () -> find(id));
+  }
+
+  private Member find(Long id) {
     return members.findById(id).orElseThrow(() -> new NotFoundException("Member not found: " + id));
   }
 
+  /**
+   * Retrieves a member by library card string.
+   * Unknown cards are usually rejected by the in-memory filter without a database query.
+   * @param memberId library card string
+   * @return Member entity
+   * @throws IllegalArgumentException if memberId is null or blank
+   * @throws NotFoundException if member not found
+   */
+  public Member getByCard(String memberId) {
+    if (memberId == null || memberId.isBlank()) {
+      throw new IllegalArgumentException("Library card cannot be null or empty");
+    }
+    if (!keyFilters.mightContainMemberId(memberId)) {
+      throw new NotFoundException("Member not found for card: " + memberId);
+    }
+    return members.findByMemberId(memberId)
+        .orElseThrow(() -> new NotFoundException("Member not found for card: " + memberId));
+  }
+
+  /**
+   * Resolves several library cards to member IDs in one query, without loading the members.
+   * Cards the in-memory filter rules out are not queried.
+   * @param memberIds library card strings
+   * @return member ID by card; unknown cards are missing
+   * @throws IllegalArgumentException if memberIds is null
+   */
+  public Map<String, Long> idsByCard(Collection<String> memberIds) {
+    if (memberIds == null) {
+      throw new IllegalArgumentException("Library cards cannot be null");
+    }
+    List<String> candidates = memberIds.stream().filter(keyFilters::mightContainMemberId).toList();
+    Map<String, Long> ids = new HashMap<>();
+    if (!candidates.isEmpty()) {
+      for (Object[] row : members.findIdsByMemberIdIn(candidates)) {
+        ids.put((String) row[1], (Long) row[0]);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Filters member IDs down to the members that exist, in one query.
+   * @param ids member IDs
+   * @return the IDs of existing members
+   * @throws IllegalArgumentException if ids is null
+   */
+  public Set<Long> existingIds(Collection<Long> ids) {
+    if (ids == null) {
+      throw new IllegalArgumentException("Member IDs cannot be null");
+    }
+    return ids.isEmpty() ? Set.of() : new HashSet<>(members.findExistingIds(ids));
+  }
+
+  /**
+   * Retrieves several members in one round trip.
+   * @param ids Member IDs; duplicates are ignored
+   * @return Members found, in the order of the requested IDs; unknown IDs are skipped
+   * @throws IllegalArgumentException if ids is null or contains a null or non-positive ID
+   */
+  public List<Member> getAll(Collection<Long> ids) {
+    if (ids == null) {
+      throw new IllegalArgumentException("Member IDs cannot be null");
+    }
+    for (Long id : ids) {
+      if (id == null || id <= 0) {
+        throw new IllegalArgumentException("Member ID must be positive");
+      }
+    }
+    return members.findAllByIdInBatches(ids);
+  }
+
   /**
    * Lists all members.
    * @return List of members
@@ -63,17 +178,27 @@ public class MemberService {
   }
 
   /**
-   * Updates an existing member.
+   * Updates an existing member. The active loan count is kept; the member row is locked so a
+   * concurrent checkout or return cannot be overwritten.
    * @param m Member entity
    * @return updated Member
    * @throws IllegalArgumentException if member is null or id is invalid
+   * @throws NotFoundException if member not found
    */
+  @Transactional
   public Member update(@Valid Member m) {
     if (m == null || m.getId() == null || m.getId() <= 0) {
       throw new IllegalArgumentException("Member or Member ID is invalid");
     }
-    get(m.getId());
-    return members.save(m);
+    List<Member> current = members.lockAllById(List.of(m.getId()));
+    if (current.isEmpty()) {
+      throw new NotFoundException("Member not found: " + m.getId());
+    }
+    m.setActiveLoans(current.getFirst().getActiveLoans());
+    keyFilters.addMemberId(m.getMemberId());
+    Member saved = members.save(m);
+    invalidations.publish(CacheInvalidation.member(saved.getId(), saved.getMemberId()));
+    return saved;
   }
 
   /**
@@ -81,10 +206,12 @@ public class MemberService {
    * @param id Member ID
    * @throws IllegalArgumentException if id is invalid
    */
+  @Transactional
   public void delete(Long id) {
     if (id == null || id <= 0) {
       throw new IllegalArgumentException("Member ID must be positive");
     }
     members.deleteById(id);
+    invalidations.publish(CacheInvalidation.member(id, null));
   }
 }
\ No newline at end of file
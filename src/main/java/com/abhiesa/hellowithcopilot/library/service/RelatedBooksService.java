@@ -0,0 +1,69 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.dto.RelatedBookDto;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.recommendation.CoOccurrenceIndex;
+import com.abhiesa.hellowithcopilot.library.recommendation.RelatedRanking;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service answering "members who borrowed this also borrowed" from the in-memory
+ * {@link CoOccurrenceIndex}; only the returned books themselves are read from the catalogue.
+ */
+@Service
+public class RelatedBooksService {
+  private final CoOccurrenceIndex index;
+  private final BookService bookService;
+
+  /**
+   * Constructs a RelatedBooksService with required dependencies.
+   * @param index co-occurrence index
+   * @param bookService BookService instance
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public RelatedBooksService(CoOccurrenceIndex index, BookService bookService) {
+    if (index == null || bookService == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.index = index;
+    this.bookService = bookService;
+  }
+
+  /**
+   * Lists the books most often borrowed by members who also borrowed the given book.
+   * @param bookId Book ID
+   * @param limit maximum number of books to return
+   * @return related books, strongest first; books deleted since are skipped
+   * @throws IllegalArgumentException if bookId or limit is not positive
+   * @throws NotFoundException if the book is not found
+   */
+  public List<RelatedBookDto> related(Long bookId, int limit) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    bookService.get(bookId);
+    RelatedRanking ranking = index.related(bookId);
+    int size = Math.min(limit, ranking.size());
+    List<Long> ids = new ArrayList<>(size);
+    Map<Long, Integer> counts = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      ids.add(ranking.bookIds()[i]);
+      counts.put(ranking.bookIds()[i], ranking.counts()[i]);
+    }
+    List<RelatedBookDto> related = new ArrayList<>(size);
+    if (!ids.isEmpty()) {
+      for (Book book : bookService.getAll(ids)) {
+        related.add(new RelatedBookDto(book, counts.get(book.getId())));
+      }
+    }
+    return related;
+  }
+}
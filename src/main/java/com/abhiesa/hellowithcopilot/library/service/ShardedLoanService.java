@@ -0,0 +1,171 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checkouts and returns against the books' global counters through {@link ShardedInventory}.
+ * The copy is taken or put back by the book's shard writer, which commits it with other changes
+ * of the same shard; the loan row is then written in its own short transaction that locks no
+ * book, only the member row whose active loan counter it moves. A checkout whose loan cannot be
+ * written, for instance because the member reached the loan limit meanwhile, gives its copy back.
+ * Members already at the limit are turned away before a copy is taken. Branch loans keep using
+ * {@link LoanService}.
+ */
+@Service
+public class ShardedLoanService {
+
+  private final ShardedInventory inventory;
+  private final LoanService loanService;
+  private final MemberService memberService;
+  private final ActiveLoanCounters loanCounters;
+  private final LoanRepository loans;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Constructs the service.
+   * @param inventory sharded inventory engine
+   * @param loanService LoanService used for branch loans
+   * @param memberService MemberService instance
+   * @param loanCounters members' active loan counters and limit
+   * @param loans LoanRepository instance
+   * @param events publisher for loan events
+   * @param transactionManager transaction manager of the loan writes
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public ShardedLoanService(ShardedInventory inventory, LoanService loanService,
+      MemberService memberService, ActiveLoanCounters loanCounters, LoanRepository loans,
+      ApplicationEventPublisher events, PlatformTransactionManager transactionManager) {
+    if (inventory == null || loanService == null || memberService == null
+        || loanCounters == null || loans == null || events == null
+        || transactionManager == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.inventory = inventory;
+    this.loanService = loanService;
+    this.memberService = memberService;
+    this.loanCounters = loanCounters;
+    this.loans = loans;
+    this.events = events;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Whether checkouts and returns should go through this service.
+   * @return true if the sharded inventory engine is enabled
+   */
+  public boolean enabled() {
+    return inventory.enabled();
+  }
+
+  /**
+   * Checks out a book for a member.
+   * @param bookId Book ID
+   * @param memberId Member ID
+   * @param days Number of days for the loan
+   * @return future completing with the persisted Loan, or failing with NotFoundException if the
+   * book does not exist or BusinessException if no copies are available or the member reached
+   * the loan limit
+   * @throws IllegalArgumentException if any parameter is invalid
+   * @throws NotFoundException if the member does not exist
+   * @throws BusinessException if the member has reached the loan limit
+   */
+  public CompletableFuture<Loan> checkout(Long bookId, Long memberId, int days) {
+    if (bookId == null || bookId <= 0) {
+      throw new IllegalArgumentException("Book ID must be positive");
+    }
+    if (memberId == null || memberId <= 0) {
+      throw new IllegalArgumentException("Member ID must be positive");
+    }
+    if (days <= 0) {
+      throw new IllegalArgumentException("Loan days must be positive");
+    }
+    memberService.get(memberId); // validate member exists
+    loanCounters.checkRoom(memberId);
+    return inventory.take(bookId).thenApplyAsync(granted -> {
+      if (!granted) {
+        throw new BusinessException("No copies available");
+      }
+      try {
+        return tx.execute(status -> {
+          loanCounters.take(memberId);
+          LocalDate today = LocalDate.now();
+          Loan saved = loans.save(new Loan(null, memberId, bookId, today, today.plusDays(days),
+              null, LoanStatus.ACTIVE, null, null));
+          events.publishEvent(
+              new LoanCheckedOutEvent(saved.getId(), memberId, bookId, saved.getDueDate()));
+          return saved;
+        });
+      } catch (RuntimeException e) {
+        // Failures of the compensation are retried and logged by the inventory.
+        inventory.giveBack(bookId, 1);
+        throw e;
+      }
+    }, writers);
+  }
+
+  /**
+   * Returns a loaned book.
+   * @param loanId Loan ID
+   * @return future completing with the updated Loan once its copy is back on the shelf
+   * @throws IllegalArgumentException if loanId is invalid
+   * @throws NotFoundException if the loan does not exist
+   * @throws BusinessException if the loan is not active
+   */
+  public CompletableFuture<Loan> returnLoan(Long loanId) {
+    if (loanId == null || loanId <= 0) {
+      throw new IllegalArgumentException("Loan ID must be positive");
+    }
+    Loan returned = tx.execute(status -> {
+      Loan loan = loans.lockById(loanId)
+          .orElseThrow(() -> new NotFoundException("Loan not found: " + loanId));
+      if (loan.getBranchId() != null) {
+        return null;
+      }
+      if (!loan.getStatus().isOpen()) {
+        throw new BusinessException("Loan is not active");
+      }
+      if (loan.getMemberId() != null) {
+        loanCounters.release(Map.of(loan.getMemberId(), 1));
+      }
+      loan.setReturnedDate(LocalDate.now());
+      loan.setStatus(LoanStatus.RETURNED);
+      Loan saved = loans.save(loan);
+      events.publishEvent(new LoanReturnedEvent(saved.getId(), saved.getMemberId(),
+          saved.getBookId(), saved.getReturnedDate()));
+      return saved;
+    });
+    if (returned == null) {
+      return CompletableFuture.completedFuture(loanService.returnLoan(loanId));
+    }
+    // The loan is already stored as returned, so the copy must not be dropped.
+    return inventory.giveBack(returned.getBookId(), 1).thenApply(given -> returned);
+  }
+
+  /**
+   * Stops the loan writers.
+   */
+  @PreDestroy
+  public void shutdown() {
+    writers.shutdown();
+  }
+}
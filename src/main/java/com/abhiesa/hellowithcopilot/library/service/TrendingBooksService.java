@@ -0,0 +1,70 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.dto.TrendingBookDto;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.recommendation.TrendingRanking;
+import com.abhiesa.hellowithcopilot.library.recommendation.TrendingTracker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for the "trending now" shelf, answered from the in-memory {@link TrendingTracker}
+ * instead of scanning loans by date.
+ */
+@Service
+public class TrendingBooksService {
+  private final TrendingTracker tracker;
+  private final BookService bookService;
+
+  /**
+   * Constructs a TrendingBooksService with required dependencies.
+   * @param tracker trending tracker
+   * @param bookService BookService instance
+   * @throws IllegalArgumentException if any dependency is null
+   */
+  public TrendingBooksService(TrendingTracker tracker, BookService bookService) {
+    if (tracker == null || bookService == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    this.tracker = tracker;
+    this.bookService = bookService;
+  }
+
+  /**
+   * Lists the books checked out most in a window.
+   * @param window window name
+   * @param category category to restrict to, or null for all books
+   * @param limit maximum number of books
+   * @return trending books, hottest first; books deleted since are skipped
+   * @throws IllegalArgumentException if the window is unknown or limit is not positive
+   */
+  public List<TrendingBookDto> trending(String window, Category category, int limit) {
+    TrendingRanking ranking = tracker.trending(window, category, limit);
+    List<Long> ids = new ArrayList<>(ranking.size());
+    Map<Long, Double> scores = new HashMap<>();
+    for (int i = 0; i < ranking.size(); i++) {
+      ids.add(ranking.bookIds()[i]);
+      scores.put(ranking.bookIds()[i], ranking.scores()[i]);
+    }
+    List<TrendingBookDto> trending = new ArrayList<>(ids.size());
+    if (!ids.isEmpty()) {
+      for (Book book : bookService.getAll(ids)) {
+        trending.add(new TrendingBookDto(book, scores.get(book.getId())));
+      }
+    }
+    return trending;
+  }
+
+  /**
+   * Names of the configured windows.
+   * @return window names
+   */
+  public Set<String> windows() {
+    return tracker.windows();
+  }
+}
@@ -0,0 +1,261 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.cache.BrowseIndex;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service exporting the catalogue, members and loans to a compact binary snapshot and restoring
+ * it, for re-seeding staging and performance environments without going through the API.
+ * Both directions work on plain JDBC: the export streams rows from a cursor into the
+ * {@link SnapshotWriter}, and the restore replaces the tables' contents with batched inserts that
+ * keep the snapshot's IDs, then moves the identity columns past them. A restore is meant for an
+ * otherwise idle instance; requests served while it runs see partly loaded tables. Entities are never loaded,
+ * so the second-level cache is evicted and the natural key filters and browse index rebuilt
+ * afterwards. Members' active loan counts are not in the snapshot; they are recounted from the
+ * restored loans.
+ * Fines and branch stock are not part of the snapshot. They refer to loans, members and books by
+ * ID, and those IDs name other rows after a restore, so the restore deletes the fine ledger,
+ * balances, accrual runs and branch copies; the next fine accrual then runs in full. Branches
+ * themselves are kept and have to be stocked again.
+ */
+@Service
+public class DatabaseSnapshotService {
+
+  private static final Logger logger = LoggerFactory.getLogger(DatabaseSnapshotService.class);
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate readOnlyTx;
+  private final EntityManagerFactory entityManagerFactory;
+  private final NaturalKeyFilters keyFilters;
+  private final BrowseIndex browseIndex;
+  private final ActiveLoanCounters loanCounters;
+  private final ShardedInventory sharded;
+  private final JournaledInventory journaled;
+  private final int blockRows;
+
+  /**
+   * Constructs a DatabaseSnapshotService with required dependencies.
+   * @param dataSource data source the tables are read from and written to
+   * @param transactionManager transaction manager of the export and the restore batches
+   * @param entityManagerFactory factory whose second-level cache is evicted after a restore
+   * @param keyFilters natural key filters rebuilt after a restore
+   * @param browseIndex browse index rebuilt after a restore
+   * @param loanCounters active loan counters recounted after a restore
+   * @param sharded sharded inventory engine, which must be disabled for a restore
+   * @param journaled journaled inventory engine, which must be disabled for a restore
+   * @param blockRows rows per snapshot block and per insert batch
+   * @throws IllegalArgumentException if any dependency is null or blockRows is not positive
+   */
+  public DatabaseSnapshotService(DataSource dataSource,
+      PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory,
+      NaturalKeyFilters keyFilters, BrowseIndex browseIndex, ActiveLoanCounters loanCounters,
+      ShardedInventory sharded, JournaledInventory journaled,
+      @Value("${library.snapshot.block-rows:4096}") int blockRows) {
+    if (dataSource == null || transactionManager == null || entityManagerFactory == null
+        || keyFilters == null || browseIndex == null || loanCounters == null || sharded == null
+        || journaled == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (blockRows <= 0) {
+      throw new IllegalArgumentException("Snapshot block rows must be positive");
+    }
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.jdbc.setFetchSize(blockRows);
+    this.tx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.entityManagerFactory = entityManagerFactory;
+    this.keyFilters = keyFilters;
+    this.browseIndex = browseIndex;
+    this.loanCounters = loanCounters;
+    this.sharded = sharded;
+    this.journaled = journaled;
+    this.blockRows = blockRows;
+  }
+
+  /**
+   * Writes every snapshot table in one read-only transaction.
+   * @param target stream to write to; flushed but not closed
+   * @return rows written per table, in file order
+   * @throws IllegalArgumentException if target is null
+   * @throws IOException if writing fails, for example because the client went away
+   */
+  public Map<String, Long> export(OutputStream target) throws IOException {
+    if (target == null) {
+      throw new IllegalArgumentException("Snapshot target cannot be null");
+    }
+    try {
+      return readOnlyTx.execute(status -> {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (SnapshotWriter writer =
+            new SnapshotWriter(target, SnapshotTable.ALL.size(), blockRows)) {
+          for (SnapshotTable table : SnapshotTable.ALL) {
+            writer.beginTable(table);
+            long[] rows = new long[1];
+            jdbc.query(table.selectSql(), rs -> {
+              try {
+                writer.write(read(table, rs));
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+              rows[0]++;
+            });
+            counts.put(table.name(), rows[0]);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return counts;
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Replaces the contents of the snapshot tables with a snapshot. The snapshot is first copied
+   * to a temporary file and read through once, so a malformed, truncated or outdated snapshot is
+   * rejected before any row is touched. The tables are then cleared and loaded one block per
+   * transaction: a single transaction over millions of rows makes the commit itself the slowest
+   * step. A database failure during the load therefore leaves the tables partly restored, and the
+   * restore has to be repeated.
+   * @param source stream to read from; not closed
+   * @return rows restored per table, in file order
+   * @throws IllegalArgumentException if source is null
+   * @throws BusinessException if an in-memory inventory engine owns the copy counts
+   * @throws IOException if the snapshot is malformed, does not match the schema or cannot be read
+   */
+  public Map<String, Long> restore(InputStream source) throws IOException {
+    if (source == null) {
+      throw new IllegalArgumentException("Snapshot source cannot be null");
+    }
+    if (sharded.enabled() || journaled.enabled()) {
+      throw new BusinessException(
+          "Snapshots can only be restored with the database inventory engine");
+    }
+    long started = System.nanoTime();
+    Path spooled = Files.createTempFile("library-", ".snapshot");
+    Map<String, Long> counts;
+    try {
+      Files.copy(source, spooled, StandardCopyOption.REPLACE_EXISTING);
+      verify(spooled);
+      clear();
+      counts = load(spooled);
+    } finally {
+      Files.deleteIfExists(spooled);
+    }
+    for (SnapshotTable table : SnapshotTable.ALL) {
+      if (table.hasIdentity()) {
+        Long next = jdbc.queryForObject(
+            "select coalesce(max(id), 0) + 1 from " + table.name(), Long.class);
+        jdbc.execute("alter table " + table.name() + " alter column id restart with " + next);
+      }
+    }
+    entityManagerFactory.getCache().evictAll();
+    keyFilters.rebuildIsbns();
+    keyFilters.rebuildMemberIds();
+    browseIndex.rebuild();
+    loanCounters.recountAll();
+    logger.info("Restored snapshot {} in {} ms", counts,
+        (System.nanoTime() - started) / 1_000_000);
+    return counts;
+  }
+
+  private static void verify(Path snapshot) throws IOException {
+    try (InputStream in = Files.newInputStream(snapshot);
+        SnapshotReader reader = new SnapshotReader(in)) {
+      int tables = 0;
+      for (SnapshotTable table = reader.nextTable(); table != null; table = reader.nextTable()) {
+        while (!reader.nextBlock().isEmpty()) {
+          // decoding every block is the check
+        }
+        tables++;
+      }
+      if (tables != SnapshotTable.ALL.size()) {
+        throw new IOException("Snapshot has " + tables + " of " + SnapshotTable.ALL.size()
+            + " tables");
+      }
+    }
+  }
+
+  private void clear() {
+    // Fines and branch stock only name loans, members and books by ID, and nothing references
+    // the loans, members or join table, so they can be truncated without undo logging; books
+    // and authors are still the target of the join table's foreign keys.
+    jdbc.execute("truncate table fine_ledger");
+    jdbc.execute("truncate table member_balances");
+    jdbc.execute("truncate table fine_accrual_runs");
+    jdbc.execute("truncate table branch_copies");
+    jdbc.execute("truncate table loans");
+    jdbc.execute("truncate table members");
+    jdbc.execute("truncate table book_author");
+    tx.executeWithoutResult(status -> {
+      jdbc.update("delete from books");
+      jdbc.update("delete from authors");
+    });
+  }
+
+  private Map<String, Long> load(Path snapshot) throws IOException {
+    Map<String, Long> restored = new LinkedHashMap<>();
+    try (InputStream in = Files.newInputStream(snapshot);
+        SnapshotReader reader = new SnapshotReader(in)) {
+      for (SnapshotTable table = reader.nextTable(); table != null; table = reader.nextTable()) {
+        String insert = table.insertSql();
+        long rows = 0;
+        for (List<Object[]> block = reader.nextBlock(); !block.isEmpty();
+            block = reader.nextBlock()) {
+          List<Object[]> batch = block;
+          tx.executeWithoutResult(status -> jdbc.batchUpdate(insert, batch));
+          rows += block.size();
+        }
+        restored.put(table.name(), rows);
+      }
+    }
+    return restored;
+  }
+
+  private static Object[] read(SnapshotTable table, ResultSet rs) throws SQLException {
+    List<SnapshotTable.Column> columns = table.columns();
+    Object[] values = new Object[columns.size()];
+    for (int c = 0; c < values.length; c++) {
+      int index = c + 1;
+      values[c] = switch (columns.get(c).type()) {
+        case LONG -> rs.getObject(index, Long.class);
+        case INT -> rs.getObject(index, Integer.class);
+        case STRING -> rs.getString(index);
+        case DATE -> rs.getObject(index, LocalDate.class);
+        case TIMESTAMP -> rs.getObject(index, OffsetDateTime.class);
+        case BOOLEAN -> rs.getObject(index, Boolean.class);
+      };
+    }
+    return values;
+  }
+}
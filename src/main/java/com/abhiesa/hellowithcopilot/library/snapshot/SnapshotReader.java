@@ -0,0 +1,188 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter}, one block at a time. Every table header is
+ * checked against {@link SnapshotTable#ALL}, so a snapshot taken before a column was added or
+ * removed is rejected instead of being restored into the wrong columns.
+ */
+final class SnapshotReader implements Closeable {
+
+  private static final int MAX_BLOCK_BYTES = 1 << 28;
+
+  private final Inflater inflater = new Inflater();
+  private final DataInputStream in;
+  private int tablesLeft;
+  private boolean finished;
+  private SnapshotTable table;
+  private byte[] block = new byte[1 << 16];
+  private int pos;
+
+  /**
+   * Opens a snapshot and checks its header.
+   * @param source stream to read from; not closed by this reader
+   * @throws IOException if the stream is not a snapshot or cannot be read
+   * @throws IllegalArgumentException if source is null
+   */
+  SnapshotReader(InputStream source) throws IOException {
+    if (source == null) {
+      throw new IllegalArgumentException("Snapshot source cannot be null");
+    }
+    byte[] magic = source.readNBytes(SnapshotWriter.MAGIC.length);
+    if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+      inflater.end();
+      throw new IOException("Not a library snapshot");
+    }
+    this.in = new DataInputStream(new BufferedInputStream(
+        new InflaterInputStream(source, inflater, 1 << 16), 1 << 16));
+    this.tablesLeft = in.readUnsignedByte();
+  }
+
+  /**
+   * Moves to the next table. The previous table must have been read to its end.
+   * @return the next table, or null once every table was read and the checksum verified
+   * @throws IOException if the header does not match a known table or cannot be read
+   * @throws IllegalStateException if the previous table was not read to its end
+   */
+  SnapshotTable nextTable() throws IOException {
+    if (table != null) {
+      throw new IllegalStateException("Table " + table.name() + " was not read to its end");
+    }
+    if (tablesLeft == 0) {
+      if (!finished) {
+        // Reading to the end makes the inflater verify the stream's checksum.
+        if (in.read() != -1) {
+          throw new IOException("Unexpected data after the last snapshot table");
+        }
+        finished = true;
+      }
+      return null;
+    }
+    tablesLeft--;
+    String name = in.readUTF();
+    SnapshotTable expected = SnapshotTable.named(name);
+    int count = in.readUnsignedByte();
+    if (expected == null || count != expected.columns().size()) {
+      throw new IOException("Snapshot table " + name + " does not match the schema");
+    }
+    for (SnapshotTable.Column column : expected.columns()) {
+      String columnName = in.readUTF();
+      int type = in.readUnsignedByte();
+      boolean nullable = in.readBoolean();
+      if (!column.name().equals(columnName) || column.type().ordinal() != type
+          || column.nullable() != nullable) {
+        throw new IOException("Snapshot column " + name + "." + columnName
+            + " does not match the schema");
+      }
+    }
+    table = expected;
+    return expected;
+  }
+
+  /**
+   * Reads the next block of rows of the current table.
+   * @return the rows, one value per column; empty at the end of the table
+   * @throws IOException if the block is malformed or cannot be read
+   * @throws IllegalStateException if no table was started
+   */
+  List<Object[]> nextBlock() throws IOException {
+    if (table == null) {
+      throw new IllegalStateException("No table started");
+    }
+    int rows = in.readInt();
+    if (rows == 0) {
+      table = null;
+      return List.of();
+    }
+    int length = in.readInt();
+    if (rows < 0 || length < 0 || length > MAX_BLOCK_BYTES) {
+      throw new IOException("Corrupt snapshot block in " + table.name());
+    }
+    if (block.length < length) {
+      block = new byte[Math.max(length, block.length * 2)];
+    }
+    in.readFully(block, 0, length);
+    pos = 0;
+    List<Object[]> result = new ArrayList<>(rows);
+    List<SnapshotTable.Column> columns = table.columns();
+    try {
+      for (int r = 0; r < rows; r++) {
+        Object[] values = new Object[columns.size()];
+        for (int c = 0; c < values.length; c++) {
+          SnapshotTable.Column column = columns.get(c);
+          if (column.nullable() && next(length) == 0) {
+            continue;
+          }
+          values[c] = switch (column.type()) {
+            case LONG -> readVarLong(length);
+            case INT -> (int) readVarLong(length);
+            case STRING -> {
+              int size = (int) readVarLong(length);
+              if (size < 0 || pos + size > length) {
+                throw new EOFException();
+              }
+              String s = new String(block, pos, size, StandardCharsets.UTF_8);
+              pos += size;
+              yield s;
+            }
+            case DATE -> LocalDate.ofEpochDay(readVarLong(length));
+            case TIMESTAMP -> OffsetDateTime.ofInstant(Instant.ofEpochSecond(
+                readVarLong(length), readVarLong(length)), ZoneOffset.UTC);
+            case BOOLEAN -> next(length) != 0;
+          };
+        }
+        result.add(values);
+      }
+    } catch (EOFException | DateTimeException e) {
+      throw new IOException("Corrupt snapshot block in " + table.name(), e);
+    }
+    if (pos != length) {
+      throw new IOException("Corrupt snapshot block in " + table.name());
+    }
+    return result;
+  }
+
+  /**
+   * Releases the inflater. Does not close the source stream.
+   */
+  @Override
+  public void close() {
+    inflater.end();
+  }
+
+  private int next(int length) throws EOFException {
+    if (pos >= length) {
+      throw new EOFException();
+    }
+    return block[pos++] & 0xFF;
+  }
+
+  private long readVarLong(int length) throws EOFException {
+    long zigZag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = next(length);
+      zigZag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new EOFException();
+  }
+}
@@ -0,0 +1,117 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A table captured by a database snapshot, with its columns in the order they are stored.
+ * @param name table name
+ * @param key columns the rows are exported in order of
+ * @param columns stored columns
+ */
+record SnapshotTable(String name, String key, List<Column> columns) {
+
+  /**
+   * Tables in the order they are written and restored, parents before the join table.
+   */
+  static final List<SnapshotTable> ALL = List.of(
+      new SnapshotTable("authors", "id", List.of(
+          new Column("id", Type.LONG, false),
+          new Column("first_name", Type.STRING, true),
+          new Column("last_name", Type.STRING, true))),
+      new SnapshotTable("books", "id", List.of(
+          new Column("id", Type.LONG, false),
+          new Column("title", Type.STRING, true),
+          new Column("category", Type.INT, true),
+          new Column("isbn", Type.STRING, true),
+          new Column("total_copies", Type.INT, false),
+          new Column("available_copies", Type.INT, false),
+          new Column("published_date", Type.DATE, true))),
+      new SnapshotTable("book_author", "book_id, author_id", List.of(
+          new Column("book_id", Type.LONG, false),
+          new Column("author_id", Type.LONG, false))),
+      // active_loans is derived from the loans and recounted after a restore.
+      new SnapshotTable("members", "id", List.of(
+          new Column("id", Type.LONG, false),
+          new Column("member_id", Type.STRING, true),
+          new Column("name", Type.STRING, true),
+          new Column("email", Type.STRING, true),
+          new Column("joined", Type.DATE, true),
+          new Column("active", Type.BOOLEAN, false))),
+      new SnapshotTable("loans", "id", List.of(
+          new Column("id", Type.LONG, false),
+          new Column("member_id", Type.LONG, true),
+          new Column("book_id", Type.LONG, true),
+          new Column("loan_date", Type.DATE, true),
+          new Column("due_date", Type.DATE, true),
+          new Column("returned_date", Type.DATE, true),
+          new Column("status", Type.INT, true),
+          new Column("branch_id", Type.LONG, true),
+          new Column("updated_at", Type.TIMESTAMP, true))));
+
+  /**
+   * Encoding of a column's values. The ordinal is stored in the file, so only append.
+   */
+  enum Type {
+    /** Zig-zag varint. */
+    LONG,
+    /** Zig-zag varint. */
+    INT,
+    /** Varint byte length followed by UTF-8. */
+    STRING,
+    /** Zig-zag varint of the epoch day. */
+    DATE,
+    /** Zig-zag varint of the epoch second, then varint nanoseconds; read back in UTC. */
+    TIMESTAMP,
+    /** One byte. */
+    BOOLEAN
+  }
+
+  /**
+   * A stored column. Values of nullable columns are preceded by a presence byte.
+   * @param name column name
+   * @param type value encoding
+   * @param nullable whether the column may hold nulls
+   */
+  record Column(String name, Type type, boolean nullable) {
+  }
+
+  /**
+   * Looks up a table by name.
+   * @param name table name
+   * @return the table, or null if snapshots do not include it
+   */
+  static SnapshotTable named(String name) {
+    return ALL.stream().filter(t -> t.name().equals(name)).findFirst().orElse(null);
+  }
+
+  /**
+   * Reads every row in key order.
+   * @return select statement
+   */
+  String selectSql() {
+    return "select " + columnList() + " from " + name + " order by " + key;
+  }
+
+  /**
+   * Inserts one row with explicit values, including the ID.
+   * @return insert statement with one placeholder per column
+   */
+  String insertSql() {
+    String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
+    return "insert into " + name + " (" + columnList() + ") values (" + placeholders + ")";
+  }
+
+  /**
+   * Whether the table has an identity {@code id} column that must be moved past the restored
+   * rows.
+   * @return true unless this is the join table
+   */
+  boolean hasIdentity() {
+    return "id".equals(key);
+  }
+
+  private String columnList() {
+    return columns.stream().map(Column::name).collect(Collectors.joining(", "));
+  }
+}
@@ -0,0 +1,167 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a database snapshot in one pass:
+ * <pre>
+ * magic "LIBSNAP1", then a zlib stream of
+ *   table count (byte)
+ *   per table: name (UTF), column count (byte), per column: name (UTF), type (byte), nullable (byte)
+ *     blocks: row count (int), byte length (int), rows; ended by row count 0
+ * </pre>
+ * Rows are buffered one block at a time, so memory is fixed by the block size, and each block is
+ * length-prefixed so the reader can load it with one read. The zlib trailer checksums the whole
+ * stream; a truncated file fails on the missing end markers.
+ */
+final class SnapshotWriter implements Closeable {
+
+  static final byte[] MAGIC = "LIBSNAP1".getBytes(StandardCharsets.US_ASCII);
+
+  private final OutputStream target;
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  private final DeflaterOutputStream compressed;
+  private final DataOutputStream out;
+  private final int blockRows;
+  private final ByteArrayOutputStream block = new ByteArrayOutputStream(1 << 16);
+  private SnapshotTable table;
+  private int rows;
+
+  /**
+   * Starts a snapshot of the given tables.
+   * @param target stream to write to; flushed but not closed by this writer
+   * @param tableCount number of tables that will follow
+   * @param blockRows rows per block
+   * @throws IOException if the header cannot be written
+   * @throws IllegalArgumentException if target is null or a count is out of range
+   */
+  SnapshotWriter(OutputStream target, int tableCount, int blockRows) throws IOException {
+    if (target == null || tableCount < 0 || tableCount > 127 || blockRows <= 0) {
+      throw new IllegalArgumentException("Invalid snapshot writer arguments");
+    }
+    this.target = target;
+    this.blockRows = blockRows;
+    target.write(MAGIC);
+    this.compressed = new DeflaterOutputStream(target, deflater, 1 << 16);
+    this.out = new DataOutputStream(compressed);
+    out.writeByte(tableCount);
+  }
+
+  /**
+   * Starts the rows of a table, ending the previous one.
+   * @param next table whose rows follow
+   * @throws IOException if writing fails
+   */
+  void beginTable(SnapshotTable next) throws IOException {
+    endTable();
+    out.writeUTF(next.name());
+    out.writeByte(next.columns().size());
+    for (SnapshotTable.Column column : next.columns()) {
+      out.writeUTF(column.name());
+      out.writeByte(column.type().ordinal());
+      out.writeBoolean(column.nullable());
+    }
+    table = next;
+  }
+
+  /**
+   * Appends a row of the current table.
+   * @param values one value per column, of the Java type matching the column type
+   * @throws IOException if writing fails
+   * @throws IllegalStateException if no table was started
+   * @throws IllegalArgumentException if the row does not fit the table
+   */
+  void write(Object[] values) throws IOException {
+    if (table == null) {
+      throw new IllegalStateException("No table started");
+    }
+    if (values == null || values.length != table.columns().size()) {
+      throw new IllegalArgumentException("Row does not match table " + table.name());
+    }
+    for (int c = 0; c < values.length; c++) {
+      SnapshotTable.Column column = table.columns().get(c);
+      Object value = values[c];
+      if (column.nullable()) {
+        block.write(value == null ? 0 : 1);
+        if (value == null) {
+          continue;
+        }
+      } else if (value == null) {
+        throw new IllegalArgumentException("Null in non-null column " + column.name());
+      }
+      switch (column.type()) {
+        case LONG -> writeVarLong(((Number) value).longValue());
+        case INT -> writeVarLong(((Number) value).intValue());
+        case STRING -> {
+          byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+          writeVarLong(bytes.length);
+          block.writeBytes(bytes);
+        }
+        case DATE -> writeVarLong(((LocalDate) value).toEpochDay());
+        case TIMESTAMP -> {
+          OffsetDateTime time = (OffsetDateTime) value;
+          writeVarLong(time.toEpochSecond());
+          writeVarLong(time.getNano());
+        }
+        case BOOLEAN -> block.write((Boolean) value ? 1 : 0);
+      }
+    }
+    if (++rows == blockRows) {
+      flushBlock();
+    }
+  }
+
+  /**
+   * Ends the last table and finishes the compressed stream.
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      endTable();
+      out.flush();
+      compressed.finish();
+      target.flush();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void endTable() throws IOException {
+    if (table == null) {
+      return;
+    }
+    flushBlock();
+    out.writeInt(0);
+    table = null;
+  }
+
+  private void flushBlock() throws IOException {
+    if (rows == 0) {
+      return;
+    }
+    out.writeInt(rows);
+    out.writeInt(block.size());
+    block.writeTo(out);
+    block.reset();
+    rows = 0;
+  }
+
+  private void writeVarLong(long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      block.write((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    block.write((int) zigZag);
+  }
+}
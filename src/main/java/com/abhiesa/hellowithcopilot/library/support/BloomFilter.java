@@ -0,0 +1,128 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings.
+ * Answers "definitely absent" or "possibly present"; it never reports a key that was added as
+ * absent. Bits are set with compare-and-set, so concurrent {@link #add} and
+ * {@link #mightContain} calls need no locking.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashFunctions;
+  private final long expectedInsertions;
+  private final AtomicLong insertions = new AtomicLong();
+
+  /**
+   * Creates a filter sized for the given load and false-positive probability.
+   * @param expectedInsertions number of keys the filter is sized for
+   * @param falsePositiveRate desired false-positive probability at that load, in (0, 1)
+   * @throws IllegalArgumentException if expectedInsertions is not positive or the rate is invalid
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+    }
+    double ln2 = Math.log(2);
+    long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+    bits = Math.max(64, bits);
+    int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+    this.words = new AtomicLongArray(wordCount);
+    this.bitCount = (long) wordCount << 6;
+    this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /**
+   * Adds a key.
+   * @param key key to add; null is ignored
+   */
+  public void add(String key) {
+    if (key == null) {
+      return;
+    }
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      long bit = index(h1 + (long) i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!words.compareAndSet(word, current, current | mask));
+    }
+    insertions.incrementAndGet();
+  }
+
+  /**
+   * Tests whether a key may have been added.
+   * @param key key to test
+   * @return false if the key was definitely never added, true otherwise
+   */
+  public boolean mightContain(String key) {
+    if (key == null) {
+      return false;
+    }
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      long bit = index(h1 + (long) i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true once more keys were added than the filter was sized for, meaning the
+   * false-positive rate is above the configured target.
+   * @return whether the filter should be rebuilt with a larger size
+   */
+  public boolean isSaturated() {
+    return insertions.get() > expectedInsertions;
+  }
+
+  /**
+   * Number of {@link #add} calls so far (duplicates included).
+   * @return insertion count
+   */
+  public long insertions() {
+    return insertions.get();
+  }
+
+  private long index(long combined) {
+    return (combined & Long.MAX_VALUE) % bitCount;
+  }
+
+  /**
+   * 64-bit FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer for better bit spread.
+   */
+  private static long hash64(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
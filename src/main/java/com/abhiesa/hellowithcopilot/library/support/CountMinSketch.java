@@ -0,0 +1,108 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+/**
+ * Count-Min sketch over {@code long} keys with real-valued weights and a fixed memory footprint
+ * of {@code depth * width} doubles, however many distinct keys are added.
+ * Estimates never fall below the true total and exceed it by at most {@code e / width} of the
+ * total weight with probability {@code 1 - exp(-depth)}. Updates are conservative: only the
+ * counters that would otherwise under-report are raised, which tightens estimates for skewed
+ * streams. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+  private final int depth;
+  private final int width;
+  private final int mask;
+  private final double[] counters;
+  private final long[] seeds;
+
+  /**
+   * Creates an empty sketch.
+   * @param depth number of hash rows
+   * @param width counters per row, rounded up to a power of two
+   * @throws IllegalArgumentException if depth or width is not positive or the sketch is too large
+   */
+  public CountMinSketch(int depth, int width) {
+    if (depth <= 0 || width <= 0 || width > 1 << 24 || (long) depth * width > 1 << 26) {
+      throw new IllegalArgumentException("Invalid sketch dimensions");
+    }
+    this.depth = depth;
+    this.width = Integer.bitCount(width) == 1 ? width : Integer.highestOneBit(width) << 1;
+    this.mask = this.width - 1;
+    this.counters = new double[depth * this.width];
+    this.seeds = new long[depth];
+    long seed = 0x9E3779B97F4A7C15L;
+    for (int row = 0; row < depth; row++) {
+      seed += 0x9E3779B97F4A7C15L;
+      seeds[row] = seed;
+    }
+  }
+
+  /**
+   * Adds weight to a key.
+   * @param key key
+   * @param weight non-negative weight
+   * @return the key's estimate after the update
+   * @throws IllegalArgumentException if weight is negative or not finite
+   */
+  public double add(long key, double weight) {
+    if (!(weight >= 0) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("Weight must be a non-negative number");
+    }
+    double target = estimate(key) + weight;
+    for (int row = 0; row < depth; row++) {
+      int cell = cell(row, key);
+      if (counters[cell] < target) {
+        counters[cell] = target;
+      }
+    }
+    return target;
+  }
+
+  /**
+   * Returns an upper-bound estimate of the total weight added to a key.
+   * @param key key
+   * @return estimated weight
+   */
+  public double estimate(long key) {
+    double min = Double.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      min = Math.min(min, counters[cell(row, key)]);
+    }
+    return min;
+  }
+
+  /**
+   * Multiplies every counter by a factor, used to age all keys at once.
+   * @param factor factor in (0, 1]
+   * @throws IllegalArgumentException if the factor is out of range
+   */
+  public void scale(double factor) {
+    if (!(factor > 0 && factor <= 1)) {
+      throw new IllegalArgumentException("Scale factor must be in (0, 1]");
+    }
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] *= factor;
+    }
+  }
+
+  /**
+   * Number of counters per row.
+   * @return width
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * Number of hash rows.
+   * @return depth
+   */
+  public int depth() {
+    return depth;
+  }
+
+  private int cell(int row, long key) {
+    return row * width + (PrimitiveHashing.mix(key ^ seeds[row]) & mask);
+  }
+}
@@ -0,0 +1,47 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helpers for callers that block on the futures of the asynchronous inventory engines.
+ */
+public final class Futures {
+
+  private Futures() {
+  }
+
+  /**
+   * Waits for a future and rethrows its failure unwrapped. A wait that times out leaves the
+   * operation queued, so it may still be applied afterwards.
+   * @param future the future
+   * @param timeout longest wait
+   * @param <T> result type
+   * @return the result
+   * @throws IllegalStateException if the wait is interrupted or times out
+   */
+  public static <T> T await(CompletableFuture<T> future, Duration timeout) {
+    try {
+      return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("Timed out waiting for the inventory", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause()
+          : e.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the inventory", e);
+    }
+  }
+}
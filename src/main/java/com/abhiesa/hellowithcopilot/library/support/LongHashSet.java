@@ -0,0 +1,99 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of {@code long} values, with no boxing.
+ * Value 0 marks an empty slot and cannot be stored; entity IDs are always positive.
+ * Not thread-safe.
+ */
+public final class LongHashSet {
+
+  private long[] keys;
+  private int size;
+  private int resizeAt;
+
+  /**
+   * Creates an empty set.
+   * @param expectedSize number of values to hold before the first resize
+   */
+  public LongHashSet(int expectedSize) {
+    allocate(PrimitiveHashing.capacityFor(expectedSize));
+  }
+
+  /**
+   * Adds a value.
+   * @param value non-zero value
+   * @return true if the value was not yet present
+   * @throws IllegalArgumentException if value is 0
+   */
+  public boolean add(long value) {
+    int slot = slot(PrimitiveHashing.checkKey(value));
+    if (keys[slot] == value) {
+      return false;
+    }
+    keys[slot] = value;
+    if (++size > resizeAt) {
+      grow();
+    }
+    return true;
+  }
+
+  /**
+   * Tests membership.
+   * @param value value
+   * @return true if present
+   */
+  public boolean contains(long value) {
+    return value != 0 && keys[slot(value)] == value;
+  }
+
+  /**
+   * Number of values in the set.
+   * @return size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Visits every value in no particular order.
+   * @param action receives each value
+   */
+  public void forEach(LongConsumer action) {
+    for (long key : keys) {
+      if (key != 0) {
+        action.accept(key);
+      }
+    }
+  }
+
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = PrimitiveHashing.mix(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    resizeAt = PrimitiveHashing.resizeThreshold(capacity);
+  }
+
+  private void grow() {
+    long[] old = keys;
+    allocate(old.length << 1);
+    for (long key : old) {
+      if (key != 0) {
+        keys[slot(key)] = key;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LongHashSet[size=" + size + ", capacity=" + keys.length + "]";
+  }
+}
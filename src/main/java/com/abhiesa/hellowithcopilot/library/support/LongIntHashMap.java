@@ -0,0 +1,139 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+/**
+ * Open-addressing hash map from {@code long} keys to {@code int} values, with no boxing.
+ * Key 0 marks an empty slot and cannot be stored; entity IDs are always positive. Missing keys
+ * read as 0. Not thread-safe.
+ */
+public final class LongIntHashMap {
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+  private int resizeAt;
+
+  /**
+   * Creates an empty map.
+   * @param expectedSize number of entries to hold before the first resize
+   */
+  public LongIntHashMap(int expectedSize) {
+    allocate(PrimitiveHashing.capacityFor(expectedSize));
+  }
+
+  /**
+   * Adds a delta to the value of a key, inserting the key with the delta if absent.
+   * @param key non-zero key
+   * @param delta amount to add
+   * @return the new value
+   * @throws IllegalArgumentException if key is 0
+   */
+  public int addTo(long key, int delta) {
+    int slot = slot(PrimitiveHashing.checkKey(key));
+    if (keys[slot] == key) {
+      return values[slot] += delta;
+    }
+    keys[slot] = key;
+    values[slot] = delta;
+    if (++size > resizeAt) {
+      grow();
+    }
+    return delta;
+  }
+
+  /**
+   * Sets the value of a key, inserting the key if absent.
+   * @param key non-zero key
+   * @param value new value
+   * @throws IllegalArgumentException if key is 0
+   */
+  public void put(long key, int value) {
+    int slot = slot(PrimitiveHashing.checkKey(key));
+    if (keys[slot] == key) {
+      values[slot] = value;
+      return;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeAt) {
+      grow();
+    }
+  }
+
+  /**
+   * Returns the value of a key.
+   * @param key key
+   * @return the value, or 0 if absent
+   */
+  public int get(long key) {
+    if (key == 0) {
+      return 0;
+    }
+    int slot = slot(key);
+    return keys[slot] == key ? values[slot] : 0;
+  }
+
+  /**
+   * Number of keys in the map.
+   * @return size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Visits every entry in no particular order.
+   * @param action receives each key and value
+   */
+  public void forEach(Entry action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        action.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Receives one map entry.
+   */
+  @FunctionalInterface
+  public interface Entry {
+    /**
+     * @param key entry key
+     * @param value entry value
+     */
+    void accept(long key, int value);
+  }
+
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = PrimitiveHashing.mix(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    resizeAt = PrimitiveHashing.resizeThreshold(capacity);
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length << 1);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LongIntHashMap[size=" + size + ", capacity=" + keys.length + "]";
+  }
+}
@@ -0,0 +1,103 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash map from {@code long} keys to objects, with no boxed keys.
+ * Key 0 marks an empty slot and cannot be stored; entity IDs are always positive.
+ * Not thread-safe.
+ *
+ * @param <V> value type
+ */
+public final class LongObjectHashMap<V> {
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+  private int resizeAt;
+
+  /**
+   * Creates an empty map.
+   * @param expectedSize number of entries to hold before the first resize
+   */
+  public LongObjectHashMap(int expectedSize) {
+    allocate(PrimitiveHashing.capacityFor(expectedSize));
+  }
+
+  /**
+   * Returns the value of a key.
+   * @param key key
+   * @return the value, or null if absent
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    if (key == 0) {
+      return null;
+    }
+    int slot = slot(key);
+    return keys[slot] == key ? (V) values[slot] : null;
+  }
+
+  /**
+   * Returns the value of a key, creating and storing it first if absent.
+   * @param key non-zero key
+   * @param factory creates the value for a missing key; must not return null
+   * @return the existing or new value
+   * @throws IllegalArgumentException if key is 0
+   */
+  @SuppressWarnings("unchecked")
+  public V computeIfAbsent(long key, LongFunction<V> factory) {
+    int slot = slot(PrimitiveHashing.checkKey(key));
+    if (keys[slot] == key) {
+      return (V) values[slot];
+    }
+    V value = factory.apply(key);
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeAt) {
+      grow();
+    }
+    return value;
+  }
+
+  /**
+   * Number of keys in the map.
+   * @return size
+   */
+  public int size() {
+    return size;
+  }
+
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = PrimitiveHashing.mix(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    resizeAt = PrimitiveHashing.resizeThreshold(capacity);
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldKeys.length << 1);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LongObjectHashMap[size=" + size + ", capacity=" + keys.length + "]";
+  }
+}
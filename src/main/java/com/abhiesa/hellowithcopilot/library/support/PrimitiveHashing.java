@@ -0,0 +1,54 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+/**
+ * Sizing and hashing shared by the primitive-keyed collections.
+ */
+final class PrimitiveHashing {
+
+  /**
+   * Tables are resized once they are this full; linear probing degrades quickly beyond it.
+   */
+  private static final float LOAD_FACTOR = 0.6f;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private PrimitiveHashing() {
+    // static helpers
+  }
+
+  /**
+   * Spreads sequential IDs across the table (the 64-bit finalizer of MurmurHash3).
+   */
+  static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  static long checkKey(long key) {
+    if (key == 0) {
+      throw new IllegalArgumentException("Key 0 is reserved");
+    }
+    return key;
+  }
+
+  static int capacityFor(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Expected size cannot be negative");
+    }
+    long needed = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR) + 1;
+    if (needed > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+    }
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+
+  static int resizeThreshold(int capacity) {
+    if (capacity >= MAX_CAPACITY) {
+      throw new IllegalStateException("Table cannot grow beyond " + MAX_CAPACITY + " slots");
+    }
+    return (int) (capacity * LOAD_FACTOR);
+  }
+}
@@ -0,0 +1,104 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ * Every slot carries a sequence number telling whose turn it is: a producer claims the next
+ * position with one compare-and-set on the tail, writes the item and then publishes it by
+ * advancing the slot's sequence; the consumer takes items in position order and hands each slot
+ * back by advancing its sequence one lap. Producers never block each other for longer than a
+ * failed compare-and-set, and a full buffer is reported instead of waited on.
+ * {@link #drain} and {@link #isEmpty} must only be called from the consumer thread.
+ *
+ * @param <T> item type
+ */
+public final class RingBuffer<T> {
+
+  private final int mask;
+  private final AtomicReferenceArray<T> items;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private long head;
+
+  /**
+   * Creates an empty buffer.
+   * @param capacity number of slots, a power of two
+   * @throws IllegalArgumentException if capacity is not a positive power of two
+   */
+  public RingBuffer(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a positive power of two");
+    }
+    this.mask = capacity - 1;
+    this.items = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Appends an item; safe to call from any thread.
+   * @param item item to append
+   * @return false if the buffer is full
+   * @throws IllegalArgumentException if item is null
+   */
+  public boolean offer(T item) {
+    if (item == null) {
+      throw new IllegalArgumentException("Item cannot be null");
+    }
+    long position = tail.get();
+    while (true) {
+      int slot = (int) position & mask;
+      long lag = sequences.get(slot) - position;
+      if (lag == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          items.set(slot, item);
+          sequences.set(slot, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (lag < 0) {
+        // The slot still holds the item from one lap ago.
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Hands up to {@code max} items to a consumer in the order they were appended.
+   * @param sink receives the items
+   * @param max most items to take
+   * @return number of items taken
+   */
+  public int drain(Consumer<? super T> sink, int max) {
+    int taken = 0;
+    while (taken < max) {
+      int slot = (int) head & mask;
+      if (sequences.get(slot) != head + 1) {
+        break;
+      }
+      T item = items.get(slot);
+      items.set(slot, null);
+      sequences.set(slot, head + mask + 1);
+      head++;
+      taken++;
+      sink.accept(item);
+    }
+    return taken;
+  }
+
+  /**
+   * Whether no published item is waiting.
+   * @return true if the next {@link #drain} would take nothing
+   */
+  public boolean isEmpty() {
+    return sequences.get((int) head & mask) != head + 1;
+  }
+}
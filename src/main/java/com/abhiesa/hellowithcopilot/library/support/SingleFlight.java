@@ -0,0 +1,106 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into one. The first caller for a key runs the
+ * loader on its own thread; callers arriving while that load is in flight wait for it and get the
+ * same value, or the same exception. Nothing is kept once the load finishes, so this is not a
+ * cache: a caller arriving afterwards starts a new load.
+ * A caller that waits longer than the timeout stops waiting and runs the loader itself, so a
+ * stuck load delays its followers by at most the timeout.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+  private final long timeoutNanos;
+
+  private record Call<V>(CompletableFuture<V> result, AtomicInteger followers) {
+  }
+
+  /**
+   * Creates a coalescer.
+   * @param timeout how long a caller waits for another caller's load
+   * @throws IllegalArgumentException if timeout is null or negative
+   */
+  public SingleFlight(Duration timeout) {
+    if (timeout == null || timeout.isNegative()) {
+      throw new IllegalArgumentException("Timeout must be zero or positive");
+    }
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * Returns the value for a key, sharing the load with concurrent callers for the same key.
+   * @param key key to load
+   * @param loader loads the value; runs at most once per burst unless a waiter times out
+   * @return the loaded value
+   * @throws IllegalArgumentException if key or loader is null
+   * @throws IllegalStateException if interrupted while waiting
+   */
+  public V load(K key, Supplier<V> loader) {
+    if (key == null || loader == null) {
+      throw new IllegalArgumentException("Key and loader must be non-null");
+    }
+    Call<V> mine = new Call<>(new CompletableFuture<>(), new AtomicInteger());
+    Call<V> existing = calls.putIfAbsent(key, mine);
+    if (existing == null) {
+      return lead(key, mine, loader);
+    }
+    existing.followers().incrementAndGet();
+    try {
+      return existing.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      return loader.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Load failed for " + key, cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + key, e);
+    } finally {
+      existing.followers().decrementAndGet();
+    }
+  }
+
+  /**
+   * Number of callers currently waiting for another caller's load of a key.
+   * @param key the key
+   * @return waiting callers, 0 if no load is in flight
+   */
+  public int waiting(K key) {
+    Call<V> call = calls.get(key);
+    return call == null ? 0 : call.followers().get();
+  }
+
+  private V lead(K key, Call<V> call, Supplier<V> loader) {
+    V value;
+    try {
+      value = loader.get();
+    } catch (Throwable t) {
+      // Unregister before completing, so later callers start a fresh load.
+      calls.remove(key, call);
+      call.result().completeExceptionally(t);
+      throw t;
+    }
+    calls.remove(key, call);
+    call.result().complete(value);
+    return value;
+  }
+}
@@ -0,0 +1,235 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding payloads until their deadline.
+ * Scheduling and cancelling are O(1): an entry is linked into the bucket covering its deadline,
+ * on the finest wheel whose span reaches it. Coarser wheels are created lazily and cascade their
+ * entries down as time advances. Only non-empty buckets are tracked in a priority queue, so
+ * advancing the clock costs work per due bucket, not per elapsed tick.
+ * All methods are synchronized; the wheel is meant to be advanced by a single periodic task.
+ *
+ * @param <T> payload type
+ */
+public final class TimingWheel<T> {
+
+  private final Level root;
+  private final PriorityQueue<Bucket<T>> dueBuckets =
+      new PriorityQueue<>((a, b) -> Long.compare(a.expiration, b.expiration));
+  private long size;
+
+  /**
+   * Creates a wheel.
+   * @param tickMillis resolution of the finest wheel
+   * @param wheelSize number of buckets per wheel
+   * @param startMillis current time in epoch milliseconds
+   * @throws IllegalArgumentException if tickMillis or wheelSize is not positive
+   */
+  public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+    if (tickMillis <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("Tick and wheel size must be positive");
+    }
+    this.root = new Level(tickMillis, wheelSize, startMillis);
+  }
+
+  /**
+   * Schedules a payload.
+   * @param payload payload handed back when the deadline passes
+   * @param deadlineMillis deadline in epoch milliseconds
+   * @return handle to cancel the entry, or null if the deadline has already passed
+   * @throws IllegalArgumentException if payload is null
+   */
+  public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+    if (payload == null) {
+      throw new IllegalArgumentException("Payload cannot be null");
+    }
+    Timeout<T> timeout = new Timeout<>(this, payload, deadlineMillis);
+    if (!root.add(timeout)) {
+      return null;
+    }
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Advances the clock and hands every payload whose deadline has passed to the consumer.
+   * @param nowMillis current time in epoch milliseconds
+   * @param expired receives due payloads in deadline order, bucket by bucket
+   * @return number of payloads handed out
+   */
+  public synchronized int advance(long nowMillis, Consumer<? super T> expired) {
+    int fired = 0;
+    Bucket<T> bucket;
+    while ((bucket = dueBuckets.peek()) != null && bucket.expiration <= nowMillis) {
+      dueBuckets.poll();
+      root.advanceClock(bucket.expiration);
+      Timeout<T> timeout;
+      bucket.expiration = -1;
+      while ((timeout = bucket.pollFirst()) != null) {
+        if (!root.add(timeout)) {
+          size--;
+          fired++;
+          expired.accept(timeout.payload);
+        }
+      }
+    }
+    root.advanceClock(nowMillis);
+    return fired;
+  }
+
+  /**
+   * Number of scheduled, not yet expired or cancelled, entries.
+   * @return pending entry count
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  private synchronized boolean cancel(Timeout<T> timeout) {
+    if (timeout.bucket == null) {
+      return false;
+    }
+    timeout.bucket.remove(timeout);
+    size--;
+    return true;
+  }
+
+  private final class Level {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final Bucket<T>[] buckets;
+    private long currentTime;
+    private Level overflow;
+
+    @SuppressWarnings("unchecked")
+    private Level(long tickMillis, int wheelSize, long startMillis) {
+      this.tickMillis = tickMillis;
+      this.wheelSize = wheelSize;
+      this.interval = tickMillis * wheelSize;
+      this.buckets = new Bucket[wheelSize];
+      for (int i = 0; i < wheelSize; i++) {
+        buckets[i] = new Bucket<>();
+      }
+      this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * @return false if the timeout is already due
+     */
+    private boolean add(Timeout<T> timeout) {
+      long deadline = timeout.deadline;
+      if (deadline < currentTime + tickMillis) {
+        return false;
+      }
+      if (deadline < currentTime + interval) {
+        long virtualId = Math.floorDiv(deadline, tickMillis);
+        Bucket<T> bucket = buckets[(int) Math.floorMod(virtualId, (long) wheelSize)];
+        bucket.addLast(timeout);
+        long expiration = virtualId * tickMillis;
+        if (bucket.expiration != expiration) {
+          bucket.expiration = expiration;
+          dueBuckets.offer(bucket);
+        }
+        return true;
+      }
+      if (overflow == null) {
+        overflow = new Level(interval, wheelSize, currentTime);
+      }
+      return overflow.add(timeout);
+    }
+
+    private void advanceClock(long timeMillis) {
+      if (timeMillis >= currentTime + tickMillis) {
+        currentTime = timeMillis - Math.floorMod(timeMillis, tickMillis);
+        if (overflow != null) {
+          overflow.advanceClock(currentTime);
+        }
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of entries sharing one expiration slot.
+   */
+  private static final class Bucket<T> {
+    private final Timeout<T> head = new Timeout<>(null, null, 0);
+    private long expiration = -1;
+
+    private Bucket() {
+      head.next = head;
+      head.prev = head;
+    }
+
+    private void addLast(Timeout<T> timeout) {
+      timeout.bucket = this;
+      timeout.prev = head.prev;
+      timeout.next = head;
+      head.prev.next = timeout;
+      head.prev = timeout;
+    }
+
+    private void remove(Timeout<T> timeout) {
+      timeout.prev.next = timeout.next;
+      timeout.next.prev = timeout.prev;
+      timeout.next = null;
+      timeout.prev = null;
+      timeout.bucket = null;
+    }
+
+    private Timeout<T> pollFirst() {
+      Timeout<T> first = head.next;
+      if (first == head) {
+        return null;
+      }
+      remove(first);
+      return first;
+    }
+  }
+
+  /**
+   * Handle to a scheduled payload.
+   *
+   * @param <T> payload type
+   */
+  public static final class Timeout<T> {
+    private final TimingWheel<T> wheel;
+    private final T payload;
+    private final long deadline;
+    private Bucket<T> bucket;
+    private Timeout<T> prev;
+    private Timeout<T> next;
+
+    private Timeout(TimingWheel<T> wheel, T payload, long deadline) {
+      this.wheel = wheel;
+      this.payload = payload;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Payload handed back on expiry.
+     * @return payload
+     */
+    public T payload() {
+      return payload;
+    }
+
+    /**
+     * Deadline in epoch milliseconds.
+     * @return deadline
+     */
+    public long deadline() {
+      return deadline;
+    }
+
+    /**
+     * Cancels the entry.
+     * @return true if it was still pending
+     */
+    public boolean cancel() {
+      return wheel.cancel(this);
+    }
+  }
+}
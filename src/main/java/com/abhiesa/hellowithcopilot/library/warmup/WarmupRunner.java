@@ -0,0 +1,190 @@
+package com.abhiesa.hellowithcopilot.library.warmup;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Replays a synthetic workload through the book, member and loan services and the JSON mapper
+ * before the application reports itself ready, so the first real requests do not run in the
+ * interpreter or miss Hibernate's query plan cache.
+ * Spring Boot only switches readiness to accepting traffic after all application runners have
+ * returned, so this runner holds readiness back until the workload finishes or the time budget
+ * runs out, whichever comes first. Every iteration creates its own author, book, member and loan
+ * in a transaction that is rolled back, so no data is left behind and no commit-time listener
+ * runs; the only trace is one warm-up ISBN and card string in the natural key filters.
+ */
+@Component
+@ConditionalOnProperty(name = "library.warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+  static final String ISBN = "WARMUP0000000";
+  static final String CARD = "WARMUP-0000";
+
+  private final BookService books;
+  private final MemberService members;
+  private final LoanService loans;
+  private final EntityManager entityManager;
+  private final TransactionTemplate tx;
+  private final ObjectMapper json;
+  private final Clock clock;
+  private final int iterations;
+  private final Duration budget;
+  private final AtomicInteger completed = new AtomicInteger();
+  private volatile boolean stopped;
+
+  /**
+   * Constructs the runner.
+   * @param books BookService instance
+   * @param members MemberService instance
+   * @param loans LoanService instance
+   * @param entityManager entity manager used to create the synthetic author
+   * @param transactionManager transaction manager of the scratch transactions
+   * @param json mapper used to serialize responses
+   * @param clock clock giving the synthetic dates
+   * @param iterations number of workload iterations
+   * @param budget time after which readiness is released even if the workload is not done
+   * @throws IllegalArgumentException if any dependency is null or a setting is invalid
+   */
+  public WarmupRunner(BookService books, MemberService members, LoanService loans,
+      EntityManager entityManager, PlatformTransactionManager transactionManager,
+      ObjectMapper json, Clock clock,
+      @Value("${library.warmup.iterations:1000}") int iterations,
+      @Value("${library.warmup.time-budget:PT30S}") Duration budget) {
+    if (books == null || members == null || loans == null || entityManager == null
+        || transactionManager == null || json == null || clock == null) {
+      throw new IllegalArgumentException("All dependencies must be non-null");
+    }
+    if (iterations < 0 || budget == null || budget.isNegative()) {
+      throw new IllegalArgumentException("Invalid warm-up settings");
+    }
+    this.books = books;
+    this.members = members;
+    this.loans = loans;
+    this.entityManager = entityManager;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.json = json;
+    this.clock = clock;
+    this.iterations = iterations;
+    this.budget = budget;
+  }
+
+  /**
+   * Runs the workload on a separate thread and waits for it at most the time budget. A workload
+   * still running after that stops at the end of its current iteration.
+   * @param args application arguments, unused
+   */
+  @Override
+  public void run(ApplicationArguments args) throws InterruptedException {
+    long started = System.nanoTime();
+    FutureTask<Void> workload = new FutureTask<>(this::workload, null);
+    Thread.ofPlatform().name("warmup").daemon().start(workload);
+    try {
+      workload.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+      logger.info("Warm-up finished {} iterations in {} ms", completed.get(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    } catch (TimeoutException e) {
+      stopped = true;
+      logger.info("Warm-up budget of {} spent after {} iterations", budget, completed.get());
+    } catch (ExecutionException e) {
+      logger.warn("Warm-up failed after {} iterations", completed.get(), e.getCause());
+    }
+  }
+
+  /**
+   * Number of workload iterations finished so far.
+   * @return completed iterations
+   */
+  public int completedIterations() {
+    return completed.get();
+  }
+
+  private void workload() {
+    Category[] categories = Category.values();
+    for (int i = 0; i < iterations && !stopped; i++) {
+      Category category = categories[i % categories.length];
+      tx.executeWithoutResult(status -> {
+        try {
+          iteration(category);
+        } finally {
+          status.setRollbackOnly();
+        }
+      });
+      completed.incrementAndGet();
+    }
+  }
+
+  private void iteration(Category category) {
+    LocalDate today = LocalDate.now(clock);
+    Author author = new Author(null, "Warm", "Up");
+    entityManager.persist(author);
+
+    Book book = new Book();
+    book.setTitle("Warm-up volume");
+    book.setAuthors(List.of(author));
+    book.setCategory(category);
+    book.setIsbn(ISBN);
+    book.setTotalCopies(2);
+    book.setPublishedDate(today);
+    book = books.create(book);
+
+    Member member = new Member();
+    member.setMemberId(CARD);
+    member.setName("Warm-up member");
+    member.setEmail("warmup@example.org");
+    member.setJoined(today);
+    member = members.create(member);
+    // Start from an empty persistence context, as a request does, so reads hit the database
+    // and the second-level cache instead of the entities just created.
+    entityManager.flush();
+    entityManager.clear();
+
+    Loan loan = loans.checkout(book.getId(), member.getId(), 14);
+    serialize(loan);
+    serialize(books.get(book.getId()));
+    serialize(books.getByIsbn(ISBN));
+    serialize(books.getAll(List.of(book.getId())));
+    serialize(members.getByCard(CARD));
+    serialize(loans.memberLoans(member.getId()));
+    serialize(loans.memberLoans(member.getId(), today.minusMonths(1), today));
+    serialize(loans.memberLoansExpanded(member.getId()));
+    serialize(loans.overdueLoans(today.minusYears(1), 10));
+    serialize(loans.returnLoan(loan.getId()));
+  }
+
+  private void serialize(Object response) {
+    try {
+      json.writeValueAsBytes(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize warm-up response", e);
+    }
+  }
+}
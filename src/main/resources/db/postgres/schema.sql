@@ -0,0 +1,41 @@
+-- Loans are range-partitioned by loan month. The partition key must be part of the primary key,
+-- so the key is (id, loan_date); ids stay unique because they all come from one identity
+-- sequence. Monthly partitions are created ahead of time by LoanPartitionManager; rows outside
+-- every monthly partition land in the default partition.
+CREATE TABLE IF NOT EXISTS loans (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    member_id bigint NOT NULL,
+    book_id bigint NOT NULL,
+    loan_date date NOT NULL,
+    due_date date NOT NULL,
+    returned_date date,
+    status smallint NOT NULL CHECK (status BETWEEN 0 AND 3),
+    branch_id bigint,
+    updated_at timestamp(6) with time zone,
+    PRIMARY KEY (id, loan_date)
+) PARTITION BY RANGE (loan_date);
+
+CREATE TABLE IF NOT EXISTS loans_default PARTITION OF loans DEFAULT;
+
+-- Indexes on the parent are created on every current and future partition.
+CREATE INDEX IF NOT EXISTS idx_loans_branch ON loans (branch_id);
+CREATE INDEX IF NOT EXISTS idx_loans_loan_date ON loans (loan_date);
+CREATE INDEX IF NOT EXISTS idx_loans_member ON loans (member_id, loan_date);
+CREATE INDEX IF NOT EXISTS idx_loans_status_due ON loans (status, due_date);
+CREATE INDEX IF NOT EXISTS idx_loans_updated_at ON loans (updated_at);
+
+-- members.active_loans mirrors each member's open loans (ACTIVE = 0, OVERDUE = 2) for the loan
+-- limit. Hibernate would add it to an existing members table with every counter at 0, so when
+-- the column is missing it is added and filled from the loans here instead. The block is
+-- quoted with single quotes because the script runner does not understand dollar quoting.
+DO '
+BEGIN
+  IF to_regclass(''members'') IS NOT NULL AND NOT EXISTS (
+      SELECT 1 FROM information_schema.columns
+      WHERE table_schema = current_schema() AND table_name = ''members''
+        AND column_name = ''active_loans'') THEN
+    ALTER TABLE members ADD COLUMN active_loans integer DEFAULT 0 NOT NULL;
+    UPDATE members m SET active_loans = (
+        SELECT count(*) FROM loans l WHERE l.member_id = m.id AND l.status IN (0, 2));
+  END IF;
+END';
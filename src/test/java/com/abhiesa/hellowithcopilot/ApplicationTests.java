@@ -1,13 +1,25 @@
 package com.abhiesa.hellowithcopilot;
 
+import com.abhiesa.hellowithcopilot.library.controller.SnapshotController;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 class ApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void snapshotEndpointsAreOffByDefault() {
+        assertTrue(context.getBeansOfType(SnapshotController.class).isEmpty());
+    }
+
 }
\ No newline at end of file
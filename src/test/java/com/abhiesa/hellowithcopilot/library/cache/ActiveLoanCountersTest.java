@@ -0,0 +1,49 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActiveLoanCountersTest {
+
+  private final ActiveLoanCounters counters = new ActiveLoanCounters(
+      mock(MemberRepository.class), mock(PlatformTransactionManager.class), 3);
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void commitsReachingTheMirrorOutOfOrderKeepTheLatestCount() {
+    Member member = new Member();
+    member.setId(7L);
+    TransactionSynchronizationManager.initSynchronization();
+    counters.adjust(member, 1);
+    counters.adjust(member, 1);
+    List<TransactionSynchronization> commits =
+        TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(2, commits.size());
+
+    commits.get(1).afterCommit();
+    commits.get(0).afterCommit();
+    assertEquals(2, counters.activeLoans(7L));
+  }
+
+  @Test
+  void adjustRefusesToGoNegative() {
+    Member member = new Member();
+    member.setId(8L);
+    assertThrows(IllegalStateException.class, () -> counters.adjust(member, -1));
+    assertEquals(0, member.getActiveLoans());
+  }
+}
@@ -0,0 +1,151 @@
+package com.abhiesa.hellowithcopilot.library.cache;
+
+import com.abhiesa.hellowithcopilot.Application;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two application instances in one JVM against one shared in-memory database, each with its
+ * own second-level cache, and checks that writes on one reach the caches of the other through the
+ * outbox transport. Polling and flushing are driven by the test rather than the scheduler.
+ */
+class MultiInstanceInvalidationTest {
+
+  private static ConfigurableApplicationContext first;
+  private static ConfigurableApplicationContext second;
+  private static Author author;
+
+  @BeforeAll
+  static void startInstances() {
+    String url = "jdbc:h2:mem:invalidation-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    first = start(url);
+    second = start(url);
+    EntityManager entityManager = first.getBean(EntityManager.class);
+    author = first.getBean(TransactionTemplate.class).execute(status -> {
+      Author created = new Author(null, "Shared", "Database");
+      entityManager.persist(created);
+      return created;
+    });
+  }
+
+  @AfterAll
+  static void stopInstances() {
+    if (second != null) {
+      second.close();
+    }
+    if (first != null) {
+      first.close();
+    }
+  }
+
+  @Test
+  void bookWritesReachTheOtherInstance() {
+    BookService writer = first.getBean(BookService.class);
+    BookService reader = second.getBean(BookService.class);
+    Book book = writer.create(newBook("9780005000001"));
+
+    assertEquals("Original", reader.get(book.getId()).getTitle());
+    assertTrue(cache(second).contains(Book.class, book.getId()));
+    assertThrows(NotFoundException.class, () -> reader.getByIsbn("9780005000001"));
+
+    book.setTitle("Revised");
+    writer.update(book);
+    assertEquals("Original", reader.get(book.getId()).getTitle(), "not delivered yet");
+
+    deliver(second);
+    assertFalse(cache(second).contains(Book.class, book.getId()));
+    assertEquals("Revised", reader.get(book.getId()).getTitle());
+    assertEquals(book.getId(), reader.getByIsbn("9780005000001").getId());
+  }
+
+  @Test
+  void repeatedWritesCoalesceIntoOneEviction() {
+    BookService writer = first.getBean(BookService.class);
+    CoalescingInvalidationSubscriber subscriber =
+        second.getBean(CoalescingInvalidationSubscriber.class);
+    Book book = writer.create(newBook("9780005000002"));
+    deliver(second);
+    long received = subscriber.received();
+    long applied = subscriber.applied();
+
+    for (int i = 0; i < 10; i++) {
+      book.setAvailableCopies(i % 3);
+      writer.update(book);
+    }
+    deliver(second);
+
+    assertEquals(10, subscriber.received() - received);
+    assertEquals(1, subscriber.applied() - applied);
+  }
+
+  @Test
+  void membersCreatedElsewhereAreFoundByCard() {
+    Member member = new Member();
+    member.setMemberId("REPLICA-0001");
+    member.setName("Replica Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    first.getBean(MemberService.class).create(member);
+    MemberService reader = second.getBean(MemberService.class);
+    assertThrows(NotFoundException.class, () -> reader.getByCard("REPLICA-0001"));
+
+    deliver(second);
+    assertEquals("Replica Member", reader.getByCard("REPLICA-0001").getName());
+  }
+
+  @Test
+  void instancesSkipTheirOwnMessages() {
+    first.getBean(BookService.class).create(newBook("9780005000003"));
+    assertEquals(0, first.getBean(OutboxInvalidationBus.class).poll());
+  }
+
+  private static ConfigurableApplicationContext start(String url) {
+    return new SpringApplicationBuilder(Application.class)
+        .properties(
+            "spring.main.web-application-type=none",
+            "spring.datasource.url=" + url,
+            "spring.jpa.hibernate.ddl-auto=update",
+            "spring.jpa.show-sql=false",
+            "library.cache.invalidation.transport=outbox",
+            "library.cache.invalidation.poll-interval=PT1H",
+            "library.cache.invalidation.flush-interval=PT1H")
+        .run();
+  }
+
+  private static void deliver(ConfigurableApplicationContext instance) {
+    instance.getBean(OutboxInvalidationBus.class).poll();
+    instance.getBean(CoalescingInvalidationSubscriber.class).flush();
+  }
+
+  private static jakarta.persistence.Cache cache(ConfigurableApplicationContext instance) {
+    return instance.getBean(EntityManagerFactory.class).getCache();
+  }
+
+  private static Book newBook(String isbn) {
+    Book book = new Book();
+    book.setTitle("Original");
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.HISTORY);
+    book.setIsbn(isbn);
+    book.setTotalCopies(3);
+    book.setAvailableCopies(3);
+    book.setPublishedDate(LocalDate.of(1999, 5, 1));
+    return book;
+  }
+}
@@ -0,0 +1,114 @@
+package com.abhiesa.hellowithcopilot.library.config;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes on the wire and serialization CPU per 10k books for JSON, CBOR and Smile.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class BinaryContentNegotiationBenchmarkTest {
+
+  private static final int BOOKS = 10_000;
+  private static final int WARMUP = 10;
+  private static final int ITERATIONS = 20;
+
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  @Test
+  void bytesAndCpuPerTenThousandBooks() throws Exception {
+    List<Book> books = catalogue();
+    Result json = measure("json", builder().build(), books);
+    Result cbor = measure("cbor", builder().cbor().build(), books);
+    Result smile = measure("smile", builder().smile().build(), books);
+
+    System.out.printf("%-6s %10s %10s %12s %12s%n", "format", "bytes", "gzip", "ser cpu ms",
+        "deser cpu ms");
+    for (Result r : List.of(json, cbor, smile)) {
+      System.out.printf("%-6s %10d %10d %12.2f %12.2f%n", r.name, r.bytes, r.gzipBytes,
+          r.serializeCpuMs, r.deserializeCpuMs);
+    }
+
+    assertTrue(cbor.bytes < json.bytes, "CBOR should be smaller than JSON");
+    assertTrue(smile.bytes < json.bytes, "Smile should be smaller than JSON");
+  }
+
+  private Result measure(String name, ObjectMapper mapper, List<Book> books) throws Exception {
+    JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, Book.class);
+    byte[] encoded = mapper.writeValueAsBytes(books);
+    for (int i = 0; i < WARMUP; i++) {
+      mapper.readValue(mapper.writeValueAsBytes(books), type);
+    }
+    long[] ser = new long[ITERATIONS];
+    long[] deser = new long[ITERATIONS];
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = threads.getCurrentThreadCpuTime();
+      encoded = mapper.writeValueAsBytes(books);
+      long mid = threads.getCurrentThreadCpuTime();
+      List<Book> decoded = mapper.readValue(encoded, type);
+      long end = threads.getCurrentThreadCpuTime();
+      assertEquals(BOOKS, decoded.size());
+      ser[i] = mid - start;
+      deser[i] = end - mid;
+    }
+    return new Result(name, encoded.length, gzip(encoded), median(ser) / 1e6, median(deser) / 1e6);
+  }
+
+  private static Jackson2ObjectMapperBuilder builder() {
+    return new Jackson2ObjectMapperBuilder()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+  }
+
+  private static int gzip(byte[] data) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(data);
+    }
+    return out.size();
+  }
+
+  private static long median(long[] values) {
+    long[] copy = values.clone();
+    Arrays.sort(copy);
+    return copy[copy.length / 2];
+  }
+
+  private static List<Book> catalogue() {
+    Category[] categories = Category.values();
+    List<Book> books = new ArrayList<>(BOOKS);
+    for (int i = 1; i <= BOOKS; i++) {
+      Book book = new Book();
+      book.setId((long) i);
+      book.setTitle("The Collected Works, Volume " + i);
+      book.setAuthors(List.of(new Author((long) (i % 500) + 1, "Author", "Number" + (i % 500))));
+      book.setCategory(categories[i % categories.length]);
+      book.setIsbn(String.format("978%010d", i));
+      book.setTotalCopies(5);
+      book.setAvailableCopies(i % 6 == 0 ? 0 : 5);
+      book.setPublishedDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+      books.add(book);
+    }
+    return books;
+  }
+
+  private record Result(String name, int bytes, int gzipBytes, double serializeCpuMs,
+                        double deserializeCpuMs) {
+  }
+}
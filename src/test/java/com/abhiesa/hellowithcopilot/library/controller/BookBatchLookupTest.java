@@ -0,0 +1,104 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "library.batch.chunk-size=2")
+@AutoConfigureMockMvc
+class BookBatchLookupTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  private static final AtomicInteger ISBNS = new AtomicInteger();
+
+  private Statistics stats;
+
+  private List<Long> ids;
+
+  @BeforeEach
+  void seed() {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictAllRegions();
+    stats = sessionFactory.getStatistics();
+    ids = tx.execute(status -> {
+      Author author = new Author(null, "Batch", "Author");
+      entityManager.persist(author);
+      List<Long> created = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        Book book = new Book();
+        book.setTitle("Batch " + i);
+        book.setAuthors(List.of(author));
+        book.setCategory(Category.HISTORY);
+        book.setIsbn(String.format("9780002%06d", ISBNS.incrementAndGet()));
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        book.setPublishedDate(LocalDate.of(1999, 1, 1));
+        entityManager.persist(book);
+        created.add(book.getId());
+      }
+      return created;
+    });
+    sessionFactory.getCache().evictAllRegions();
+  }
+
+  @Test
+  void uncachedIdsAreLoadedWithChunkedInQueries() throws Exception {
+    stats.clear();
+    mockMvc.perform(post("/api/books/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(ids.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(4))
+        .andExpect(jsonPath("$[0].id").value(ids.get(0)))
+        .andExpect(jsonPath("$[3].authors[0].lastName").value("Author"));
+
+    assertEquals(2, stats.getPrepareStatementCount(), "four ids in chunks of two");
+  }
+
+  @Test
+  void cachedIdsAreNotRequeried() throws Exception {
+    mockMvc.perform(get("/api/books/" + ids.get(0))).andExpect(status().isOk());
+    mockMvc.perform(get("/api/books/" + ids.get(1))).andExpect(status().isOk());
+
+    stats.clear();
+    mockMvc.perform(post("/api/books/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(List.of(ids.get(2), ids.get(0), ids.get(1), 999_999L).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3))
+        .andExpect(jsonPath("$[0].id").value(ids.get(2)))
+        .andExpect(jsonPath("$[1].id").value(ids.get(0)));
+
+    assertEquals(1, stats.getPrepareStatementCount(), "only the uncached ids hit the database");
+  }
+}
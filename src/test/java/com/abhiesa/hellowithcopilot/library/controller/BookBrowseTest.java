@@ -0,0 +1,215 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.cache.BrowseIndex;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookBrowseTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private BrowseIndex browseIndex;
+
+  @Test
+  void filtersFollowCheckoutsReturnsAndEdits() throws Exception {
+    // Six books: science with one copy each, history with two, the last one all out.
+    List<Long> ids = seed(Category.SCIENCE, Category.HISTORY, Category.SCIENCE, Category.HISTORY,
+        Category.SCIENCE, Category.HISTORY);
+    Member member = member();
+    loanService.checkout(ids.get(5), member.getId(), 14);
+    loanService.checkout(ids.get(5), member.getId(), 14);
+    assertNotNull(browseIndex.ids(Category.SCIENCE, true, 0, 10), "index should be built");
+
+    assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4)),
+        browse(ids, "category=SCIENCE"));
+    assertEquals(List.of(ids.get(1), ids.get(3)), browse(ids, "category=HISTORY&available=true"));
+    assertEquals(List.of(ids.get(0), ids.get(1), ids.get(2), ids.get(3), ids.get(4)),
+        browse(ids, "available=true"));
+
+    // Taking the only copy of a science book hides it; history keeps a copy on the shelf.
+    Long scienceLoan = loanService.checkout(ids.get(2), member.getId(), 14).getId();
+    Long historyLoan = loanService.checkout(ids.get(3), member.getId(), 14).getId();
+    assertEquals(List.of(ids.get(0), ids.get(4)), browse(ids, "category=SCIENCE&available=true"));
+    assertEquals(List.of(ids.get(1), ids.get(3)), browse(ids, "category=HISTORY&available=true"));
+    assertSameAsDatabase(ids);
+
+    loanService.returnLoan(scienceLoan);
+    assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4)),
+        browse(ids, "category=SCIENCE&available=true"));
+
+    // Bulk returns update the counts with one statement per book, bypassing the entities.
+    Long second = loanService.checkout(ids.get(4), member.getId(), 14).getId();
+    assertEquals(List.of(ids.get(0), ids.get(2)), browse(ids, "category=SCIENCE&available=true"));
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"loanId\":" + second + "},{\"loanId\":" + historyLoan + "}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(2));
+    assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4)),
+        browse(ids, "category=SCIENCE&available=true"));
+
+    // Moving a book to another category and deleting one.
+    Book moved = bookService.get(ids.get(0));
+    moved.setCategory(Category.HISTORY);
+    bookService.update(moved);
+    mockMvc.perform(delete("/api/books/" + ids.get(1))).andExpect(status().isNoContent());
+    assertEquals(List.of(ids.get(2), ids.get(4)), browse(ids, "category=SCIENCE"));
+    assertEquals(List.of(ids.get(0), ids.get(3), ids.get(5)), browse(ids, "category=HISTORY"));
+    assertSameAsDatabase(ids);
+
+    // A rebuild from the table agrees with the incrementally maintained bitsets.
+    browseIndex.rebuild();
+    assertEquals(List.of(ids.get(0), ids.get(3)), browse(ids, "category=HISTORY&available=true"));
+    assertSameAsDatabase(ids);
+  }
+
+  @Test
+  void pagesFollowTheKeysetCursor() throws Exception {
+    List<Long> ids = seed(Category.REFERENCE, Category.REFERENCE, Category.CHILDREN,
+        Category.REFERENCE, Category.REFERENCE, Category.REFERENCE);
+    List<Long> seen = new ArrayList<>();
+    long after = ids.get(0) - 1;
+    while (true) {
+      JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/books")
+              .param("category", "REFERENCE")
+              .param("after", String.valueOf(after))
+              .param("limit", "2"))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString());
+      assertTrue(page.size() <= 2);
+      if (page.isEmpty() || page.get(0).get("id").asLong() > ids.get(ids.size() - 1)) {
+        break;
+      }
+      for (JsonNode book : page) {
+        if (ids.contains(book.get("id").asLong())) {
+          seen.add(book.get("id").asLong());
+        }
+      }
+      after = page.get(page.size() - 1).get("id").asLong();
+    }
+    assertEquals(List.of(ids.get(0), ids.get(1), ids.get(3), ids.get(4), ids.get(5)), seen);
+  }
+
+  @Test
+  void rejectsInvalidPages() throws Exception {
+    mockMvc.perform(get("/api/books").param("limit", "0")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/books").param("limit", "1001")).andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/books").param("after", "-1")).andExpect(status().isBadRequest());
+  }
+
+  /** Seeded IDs returned by GET /api/books with the given filters, in response order. */
+  private List<Long> browse(List<Long> seeded, String query) throws Exception {
+    String json = mockMvc.perform(get("/api/books?" + query + "&after=" + (seeded.get(0) - 1)
+            + "&limit=1000"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    List<Long> ids = new ArrayList<>();
+    for (JsonNode book : objectMapper.readTree(json)) {
+      if (seeded.contains(book.get("id").asLong())) {
+        ids.add(book.get("id").asLong());
+      }
+    }
+    return ids;
+  }
+
+  /** The index answers every filter the way the database query does. */
+  private void assertSameAsDatabase(List<Long> seeded) {
+    long after = seeded.get(0) - 1;
+    List<Category> categories = new ArrayList<>(List.of(Category.values()));
+    categories.add(null);
+    for (Category category : categories) {
+      for (boolean availableOnly : new boolean[] {false, true}) {
+        List<Long> indexed = tx.execute(status -> ids(seeded,
+            bookService.browse(category, availableOnly, after, 1000)));
+        List<Long> queried = tx.execute(status -> ids(seeded,
+            bookRepository.browse(category, availableOnly, after, Limit.of(1000))));
+        assertEquals(queried, indexed, category + ", available only: " + availableOnly);
+      }
+    }
+  }
+
+  private static List<Long> ids(List<Long> seeded, List<Book> books) {
+    return books.stream().map(Book::getId).filter(seeded::contains).toList();
+  }
+
+  private List<Long> seed(Category... categories) {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Browse", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < categories.length; i++) {
+      Book book = new Book();
+      book.setTitle("Browse Volume " + i);
+      book.setAuthors(new ArrayList<>(List.of(author)));
+      book.setCategory(categories[i]);
+      book.setIsbn(String.format("9780016%06d", KEYS.incrementAndGet()));
+      int copies = categories[i] == Category.HISTORY ? 2 : 1;
+      book.setTotalCopies(copies);
+      book.setAvailableCopies(copies);
+      book.setPublishedDate(LocalDate.of(2010, 1, 1));
+      ids.add(bookService.create(book).getId());
+    }
+    return ids;
+  }
+
+  private Member member() {
+    Member member = new Member();
+    member.setMemberId("BROWSE-" + KEYS.incrementAndGet());
+    member.setName("Browse Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    return memberService.create(member);
+  }
+}
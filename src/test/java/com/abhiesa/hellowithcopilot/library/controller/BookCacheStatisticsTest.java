@@ -0,0 +1,116 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookCacheStatisticsTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  private static final AtomicInteger ISBNS = new AtomicInteger();
+
+  private Statistics stats;
+
+  private Long bookId;
+
+  @BeforeEach
+  void seed() {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictAllRegions();
+    stats = sessionFactory.getStatistics();
+    bookId = tx.execute(status -> {
+      Author first = new Author(null, "Ursula", "Le Guin");
+      Author second = new Author(null, "Terry", "Pratchett");
+      entityManager.persist(first);
+      entityManager.persist(second);
+      Book book = new Book();
+      book.setTitle("Cached Book");
+      book.setAuthors(List.of(first, second));
+      book.setCategory(Category.FICTION);
+      book.setIsbn(String.format("9780001%06d", ISBNS.incrementAndGet()));
+      book.setTotalCopies(3);
+      book.setAvailableCopies(3);
+      book.setPublishedDate(LocalDate.of(2001, 1, 1));
+      entityManager.persist(book);
+      return book.getId();
+    });
+  }
+
+  @Test
+  void repeatedGetIsServedWithoutSql() throws Exception {
+    stats.clear();
+    mockMvc.perform(get("/api/books/" + bookId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.authors.length()").value(2));
+    long coldStatements = stats.getPrepareStatementCount();
+
+    stats.clear();
+    mockMvc.perform(get("/api/books/" + bookId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.authors.length()").value(2));
+    long warmStatements = stats.getPrepareStatementCount();
+
+    assertTrue(coldStatements >= 2, "cold read should load book and authors, was " + coldStatements);
+    assertEquals(0, warmStatements, "warm read should be served from the second-level cache");
+    assertTrue(stats.getSecondLevelCacheHitCount() >= 3);
+  }
+
+  @Test
+  void updateInvalidatesCachedBook() throws Exception {
+    mockMvc.perform(get("/api/books/" + bookId)).andExpect(status().isOk());
+
+    String body = mockMvc.perform(get("/api/books/" + bookId))
+        .andReturn().getResponse().getContentAsString()
+        .replace("Cached Book", "Renamed Book");
+    mockMvc.perform(put("/api/books/" + bookId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/books/" + bookId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.title").value("Renamed Book"));
+  }
+
+  @Test
+  void statisticsEndpointReportsRegions() throws Exception {
+    mockMvc.perform(get("/api/books/" + bookId)).andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/admin/cache/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.statisticsEnabled").value(true))
+        .andExpect(jsonPath("$.regions[?(@.region == 'library.book')]").exists())
+        .andExpect(jsonPath("$.summary.preparedStatements").isNumber());
+  }
+}
@@ -1,9 +1,17 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
+import com.abhiesa.hellowithcopilot.library.dto.BookAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.dto.BranchAvailabilityDto;
+import com.abhiesa.hellowithcopilot.library.dto.RelatedBookDto;
+import com.abhiesa.hellowithcopilot.library.dto.TrendingBookDto;
 import com.abhiesa.hellowithcopilot.library.model.Book;
 import com.abhiesa.hellowithcopilot.library.model.Author;
 import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
 import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import com.abhiesa.hellowithcopilot.library.service.RelatedBooksService;
+import com.abhiesa.hellowithcopilot.library.service.TrendingBooksService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +21,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -26,6 +35,15 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BranchService branchService;
+
+    @MockitoBean
+    private RelatedBooksService relatedBooksService;
+
+    @MockitoBean
+    private TrendingBooksService trendingBooksService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -64,6 +82,26 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Book"));
     }
 
+    @Test
+    void testGetBookByIsbn() throws Exception {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Test Book");
+        Mockito.when(bookService.getByIsbn("978-0-13-468599-1")).thenReturn(book);
+        Mockito.when(bookService.getByIsbn("9780000000000"))
+                .thenThrow(new NotFoundException("Book not found for ISBN: 9780000000000"));
+
+        mockMvc.perform(get("/api/books/isbn/978-0-13-468599-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Test Book"));
+        mockMvc.perform(get("/api/books/isbn/9780000000000"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.title").value("Not Found"))
+                .andExpect(jsonPath("$.detail").value("Book not found for ISBN: 9780000000000"));
+    }
+
     @Test
     void testListBooks() throws Exception {
         Book book = new Book();
@@ -94,10 +132,82 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Updated Book"));
     }
 
+    @Test
+    void testBatchBooks() throws Exception {
+        Book book = new Book();
+        book.setId(2L);
+        book.setTitle("Batch Book");
+        Mockito.when(bookService.getAll(List.of(2L, 3L))).thenReturn(List.of(book));
+
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Batch Book"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testBatchBooksRejectsInvalidIds() throws Exception {
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, -4]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testDeleteBook() throws Exception {
         mockMvc.perform(delete("/api/books/1"))
                 .andExpect(status().isNoContent());
     }
-}
 
+    @Test
+    void testAvailability() throws Exception {
+        BookAvailabilityDto availability = new BookAvailabilityDto(1L, 5, 3, List.of(
+            new BranchAvailabilityDto(10L, "NORTH", 2, 1),
+            new BranchAvailabilityDto(11L, "SOUTH", 3, 2)));
+        Mockito.when(branchService.availability(1L)).thenReturn(availability);
+
+        mockMvc.perform(get("/api/books/1/availability"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableCopies").value(3))
+                .andExpect(jsonPath("$.branches[1].branchCode").value("SOUTH"));
+    }
+
+    @Test
+    void testRelated() throws Exception {
+        Book related = new Book();
+        related.setId(2L);
+        related.setTitle("Also Borrowed");
+        Mockito.when(relatedBooksService.related(1L, 5)).thenReturn(List.of(new RelatedBookDto(related, 4)));
+
+        mockMvc.perform(get("/api/books/1/related").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.title").value("Also Borrowed"))
+                .andExpect(jsonPath("$[0].borrowedTogether").value(4));
+        mockMvc.perform(get("/api/books/1/related").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testTrending() throws Exception {
+        Book hot = new Book();
+        hot.setId(3L);
+        hot.setTitle("Hot Right Now");
+        Mockito.when(trendingBooksService.windows()).thenReturn(Set.of("hour", "day"));
+        Mockito.when(trendingBooksService.trending("hour", Category.FICTION, 5))
+                .thenReturn(List.of(new TrendingBookDto(hot, 7.5)));
+
+        mockMvc.perform(get("/api/books/trending").param("window", "hour")
+                        .param("category", "FICTION").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.title").value("Hot Right Now"))
+                .andExpect(jsonPath("$[0].score").value(7.5));
+        mockMvc.perform(get("/api/books/trending").param("window", "month"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,189 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BranchInventoryTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private LoanService loanService;
+
+  private Long bookId;
+  private Long memberId;
+  private Long north;
+  private Long south;
+
+  @BeforeEach
+  void seed() {
+    int key = KEYS.incrementAndGet();
+    tx.executeWithoutResult(status -> {
+      Author author = new Author(null, "Branch", "Author");
+      entityManager.persist(author);
+      Book book = new Book();
+      book.setTitle("Branch Stock " + key);
+      book.setAuthors(List.of(author));
+      book.setCategory(Category.FICTION);
+      book.setIsbn(String.format("9780004%06d", key));
+      book.setTotalCopies(5);
+      book.setAvailableCopies(5);
+      book.setPublishedDate(LocalDate.of(2001, 1, 1));
+      entityManager.persist(book);
+      Member member = new Member();
+      member.setMemberId("BRANCH-" + key);
+      member.setName("Branch Member");
+      member.setJoined(LocalDate.of(2020, 1, 1));
+      entityManager.persist(member);
+      Branch first = new Branch(null, "NORTH-" + key, "North");
+      Branch second = new Branch(null, "SOUTH-" + key, "South");
+      entityManager.persist(first);
+      entityManager.persist(second);
+      bookId = book.getId();
+      memberId = member.getId();
+      north = first.getId();
+      south = second.getId();
+    });
+  }
+
+  @Test
+  void checkoutsTakeCopiesFromTheirOwnBranch() throws Exception {
+    stock(north, 1);
+    stock(south, 2);
+
+    mockMvc.perform(get("/api/books/" + bookId + "/availability"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalCopies").value(3))
+        .andExpect(jsonPath("$.availableCopies").value(3))
+        .andExpect(jsonPath("$.branches.length()").value(2));
+
+    String loan = checkout(north).andExpect(status().isOk())
+        .andExpect(jsonPath("$.branchId").value(north))
+        .andReturn().getResponse().getContentAsString();
+    long loanId = objectMapper.readTree(loan).get("id").asLong();
+    checkout(north).andExpect(status().isBadRequest());
+    checkout(south).andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/books/" + bookId + "/availability"))
+        .andExpect(jsonPath("$.availableCopies").value(1))
+        .andExpect(jsonPath("$.branches[?(@.branchId == " + north + ")].availableCopies").value(0))
+        .andExpect(jsonPath("$.branches[?(@.branchId == " + south + ")].availableCopies").value(1));
+    // Branch checkouts leave the book's own counter alone.
+    Integer onBook = tx.execute(status -> entityManager.find(Book.class, bookId).getAvailableCopies());
+    assertEquals(5, onBook);
+
+    mockMvc.perform(post("/api/loans/" + loanId + "/return")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/books/" + bookId + "/availability"))
+        .andExpect(jsonPath("$.availableCopies").value(2));
+  }
+
+  @Test
+  void booksWithoutBranchStockReportTheirOwnCounters() throws Exception {
+    mockMvc.perform(get("/api/books/" + bookId + "/availability"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalCopies").value(5))
+        .andExpect(jsonPath("$.availableCopies").value(5))
+        .andExpect(jsonPath("$.branches.length()").value(0));
+    checkout(north).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void stockCannotDropBelowCopiesOnLoan() throws Exception {
+    stock(north, 2);
+    checkout(north).andExpect(status().isOk());
+    mockMvc.perform(put("/api/branches/" + north + "/copies/" + bookId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"totalCopies\":0}"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(put("/api/branches/" + north + "/copies/" + bookId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"totalCopies\":4}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalCopies").value(4))
+        .andExpect(jsonPath("$.availableCopies").value(3));
+    mockMvc.perform(get("/api/branches/" + north + "/copies"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].bookId").value(bookId));
+  }
+
+  @Test
+  void concurrentCheckoutsNeverOversellABranch() throws Exception {
+    stock(north, 3);
+    stock(south, 3);
+    List<Future<Boolean>> results = new ArrayList<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 16; i++) {
+        Long branch = i % 2 == 0 ? north : south;
+        results.add(pool.submit(() -> {
+          try {
+            loanService.checkout(bookId, memberId, 14, branch);
+            return true;
+          } catch (RuntimeException e) {
+            return false;
+          }
+        }));
+      }
+    }
+    int succeeded = 0;
+    for (Future<Boolean> result : results) {
+      succeeded += result.get() ? 1 : 0;
+    }
+    assertEquals(6, succeeded);
+    mockMvc.perform(get("/api/books/" + bookId + "/availability"))
+        .andExpect(jsonPath("$.availableCopies").value(0));
+  }
+
+  private void stock(Long branchId, int copies) throws Exception {
+    mockMvc.perform(put("/api/branches/" + branchId + "/copies/" + bookId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("totalCopies", copies))))
+        .andExpect(status().isOk());
+  }
+
+  private ResultActions checkout(Long branchId) throws Exception {
+    return mockMvc.perform(post("/api/loans/checkout")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(
+            Map.of("bookId", bookId, "memberId", memberId, "branchId", branchId))));
+  }
+}
@@ -0,0 +1,204 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkReturnTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Test
+  void dropBoxReturnsAreAggregatedPerBook() throws Exception {
+    List<Book> books = new ArrayList<>();
+    List<Member> members = new ArrayList<>();
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Bulk", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    for (int i = 0; i < 2; i++) {
+      Book book = new Book();
+      book.setTitle("Drop Box " + i);
+      book.setAuthors(List.of(author));
+      book.setCategory(Category.FICTION);
+      book.setIsbn(String.format("9780007%06d", KEYS.incrementAndGet()));
+      book.setTotalCopies(50);
+      book.setAvailableCopies(50);
+      book.setPublishedDate(LocalDate.of(2015, 1, 1));
+      books.add(bookService.create(book));
+    }
+    for (int i = 0; i < 3; i++) {
+      Member member = new Member();
+      member.setMemberId("BULK-" + KEYS.incrementAndGet());
+      member.setName("Bulk Member " + i);
+      member.setJoined(LocalDate.of(2020, 1, 1));
+      members.add(memberService.create(member));
+    }
+    List<Long> loans = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      loans.add(loanService.checkout(books.get(i % 2).getId(), members.get(i % 3).getId(), 14)
+          .getId());
+    }
+
+    Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    stats.clear();
+    for (Long loan : loans.subList(0, 30)) {
+      mockMvc.perform(post("/api/loans/" + loan + "/return")).andExpect(status().isOk());
+    }
+    long oneByOne = stats.getPrepareStatementCount();
+
+    StringBuilder body = new StringBuilder("[");
+    for (Long loan : loans.subList(30, 58)) {
+      body.append("{\"loanId\":").append(loan).append("},");
+    }
+    // loans 58 and 59: book 0 for member 1, book 1 for member 2, named by ISBN and card.
+    body.append("{\"isbn\":\"").append(books.get(0).getIsbn()).append("\",\"memberId\":\"")
+        .append(members.get(1).getMemberId()).append("\"},");
+    body.append("{\"isbn\":\"").append(books.get(1).getIsbn()).append("\",\"memberId\":\"")
+        .append(members.get(2).getMemberId()).append("\"},");
+    body.append("{\"loanId\":").append(loans.get(31)).append("},");
+    body.append("{\"loanId\":").append(loans.get(0)).append("},");
+    body.append("{\"loanId\":999999999},");
+    body.append("{\"isbn\":\"").append(books.get(0).getIsbn()).append("\",\"memberId\":\"")
+        .append(members.get(1).getMemberId()).append("\"},");
+    body.append("{}]");
+
+    stats.clear();
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(30))
+        .andExpect(jsonPath("$.items.length()").value(35))
+        .andExpect(jsonPath("$.items[0].outcome").value("RETURNED"))
+        .andExpect(jsonPath("$.items[28].loanId").value(loans.get(58)))
+        .andExpect(jsonPath("$.items[29].loanId").value(loans.get(59)))
+        .andExpect(jsonPath("$.items[30].outcome").value("DUPLICATE"))
+        .andExpect(jsonPath("$.items[31].outcome").value("NOT_ACTIVE"))
+        .andExpect(jsonPath("$.items[32].outcome").value("NOT_FOUND"))
+        .andExpect(jsonPath("$.items[33].outcome").value("NOT_FOUND"))
+        .andExpect(jsonPath("$.items[34].outcome").value("INVALID"));
+    long bulk = stats.getPrepareStatementCount();
+
+    assertTrue(bulk * 10 <= oneByOne,
+        "bulk return used " + bulk + " statements, one by one used " + oneByOne);
+    for (Book book : books) {
+      assertEquals(50, bookService.get(book.getId()).getAvailableCopies());
+    }
+    tx.executeWithoutResult(status -> {
+      for (Long id : loans) {
+        Loan loan = entityManager.find(Loan.class, id);
+        assertEquals(LoanStatus.RETURNED, loan.getStatus());
+        assertNotNull(loan.getReturnedDate());
+      }
+    });
+  }
+
+  @Test
+  void singleCheckoutsAndReturnsDoNotWriteOverBulkReturns() throws Exception {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Mixed", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = new Book();
+    book.setTitle("Mixed Returns");
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.FICTION);
+    book.setIsbn(String.format("9780007%06d", KEYS.incrementAndGet()));
+    book.setTotalCopies(40);
+    book.setAvailableCopies(40);
+    book.setPublishedDate(LocalDate.of(2015, 1, 1));
+    long bookId = bookService.create(book).getId();
+    Member member = new Member();
+    member.setMemberId("MIXED-" + KEYS.incrementAndGet());
+    member.setName("Mixed Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    long memberId = memberService.create(member).getId();
+    List<Long> loans = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      loans.add(loanService.checkout(bookId, memberId, 14).getId());
+    }
+
+    List<Callable<Object>> work = new ArrayList<>();
+    for (Long loan : loans.subList(0, 15)) {
+      work.add(() -> loanService.returnLoan(loan));
+    }
+    for (Long loan : loans.subList(15, 30)) {
+      work.add(() -> mockMvc.perform(post("/api/loans/returns")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content("[{\"loanId\":" + loan + "}]"))
+          .andExpect(jsonPath("$.returned").value(1)));
+    }
+    for (int i = 0; i < 10; i++) {
+      work.add(() -> loanService.checkout(bookId, memberId, 14));
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      for (Future<Object> done : pool.invokeAll(work)) {
+        done.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(30, bookService.get(bookId).getAvailableCopies());
+  }
+
+  @Test
+  void rejectsMissingBody() throws Exception {
+    mockMvc.perform(post("/api/loans/returns").contentType(MediaType.APPLICATION_JSON).content("null"))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,27 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** Statistics are off outside dev and test, as the main configuration ships. */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@AutoConfigureMockMvc
+class CacheStatisticsDisabledTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void statisticsEndpointReportsThatStatisticsAreOff() throws Exception {
+    mockMvc.perform(get("/api/admin/cache/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.statisticsEnabled").value(false))
+        .andExpect(jsonPath("$.summary").doesNotExist())
+        .andExpect(jsonPath("$.regions").doesNotExist());
+  }
+}
@@ -0,0 +1,155 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.config.BinaryContentNegotiationConfig;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import com.abhiesa.hellowithcopilot.library.service.RelatedBooksService;
+import com.abhiesa.hellowithcopilot.library.service.TrendingBooksService;
+import com.abhiesa.hellowithcopilot.library.service.BulkReturnService;
+import com.abhiesa.hellowithcopilot.library.service.CheckoutBatcher;
+import com.abhiesa.hellowithcopilot.library.service.JournaledLoanService;
+import com.abhiesa.hellowithcopilot.library.service.LoanExportService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.abhiesa.hellowithcopilot.library.service.ShardedLoanService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest({BookController.class, LoanController.class})
+@Import(BinaryContentNegotiationConfig.class)
+class ContentNegotiationTest {
+
+  private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+  private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private BookService bookService;
+
+  @MockitoBean
+  private BranchService branchService;
+
+  @MockitoBean
+  private RelatedBooksService relatedBooksService;
+
+  @MockitoBean
+  private TrendingBooksService trendingBooksService;
+
+  @MockitoBean
+  private LoanService loanService;
+
+  @MockitoBean
+  private LoanExportService loanExportService;
+
+  @MockitoBean
+  private BulkReturnService bulkReturnService;
+
+  @MockitoBean
+  private CheckoutBatcher checkoutBatcher;
+
+  @MockitoBean
+  private ShardedLoanService shardedLoanService;
+
+  @MockitoBean
+  private JournaledLoanService journaledLoanService;
+
+  @MockitoBean
+  private MemberService memberService;
+
+  private final ObjectMapper cbor = CBORMapper.builder().addModule(new JavaTimeModule()).build();
+  private final ObjectMapper smile = SmileMapper.builder().addModule(new JavaTimeModule()).build();
+
+  @Test
+  void listBooksAsCbor() throws Exception {
+    Mockito.when(bookService.list()).thenReturn(List.of(book()));
+
+    byte[] body = mockMvc.perform(get("/api/books").accept(CBOR))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    JsonNode books = cbor.readTree(body);
+    assertEquals("Binary Book", books.get(0).get("title").asText());
+    assertEquals("2001-01-01", books.get(0).get("publishedDate").asText());
+  }
+
+  @Test
+  void createBookFromSmile() throws Exception {
+    Book book = book();
+    Mockito.when(bookService.create(Mockito.any(Book.class))).thenReturn(book);
+
+    byte[] body = mockMvc.perform(post("/api/books")
+            .contentType(SMILE)
+            .accept(SMILE)
+            .content(smile.writeValueAsBytes(book)))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(SMILE))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    assertEquals("Binary Book", smile.readTree(body).get("title").asText());
+  }
+
+  @Test
+  void checkoutAcceptsCborRequest() throws Exception {
+    Loan loan = new Loan(7L, 1L, 2L, LocalDate.now(), LocalDate.now().plusDays(14), null,
+        LoanStatus.ACTIVE, null, null);
+    Mockito.when(loanService.checkout(2L, 1L, 14)).thenReturn(loan);
+
+    byte[] body = mockMvc.perform(post("/api/loans/checkout")
+            .contentType(CBOR)
+            .accept(CBOR)
+            .content(cbor.writeValueAsBytes(Map.of("bookId", 2, "memberId", 1))))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    Map<String, Object> decoded = cbor.readValue(body, new TypeReference<>() { });
+    assertEquals(7, decoded.get("id"));
+  }
+
+  @Test
+  void jsonRemainsTheDefault() throws Exception {
+    Mockito.when(bookService.list()).thenReturn(List.of(book()));
+
+    mockMvc.perform(get("/api/books").accept(MediaType.ALL))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+  }
+
+  private static Book book() {
+    Book book = new Book();
+    book.setId(1L);
+    book.setTitle("Binary Book");
+    book.setAuthors(List.of(new Author(1L, "First", "Last")));
+    book.setCategory(Category.SCIENCE);
+    book.setIsbn("9780000000002");
+    book.setTotalCopies(2);
+    book.setAvailableCopies(2);
+    book.setPublishedDate(LocalDate.of(2001, 1, 1));
+    return book;
+  }
+}
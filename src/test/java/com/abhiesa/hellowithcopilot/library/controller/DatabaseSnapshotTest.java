@@ -0,0 +1,228 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Restoring replaces every row of the snapshot tables, so this test runs in its own context and
+ * database: the small block size is there to give it a configuration of its own.
+ */
+@SpringBootTest(properties = {
+    "library.snapshot.enabled=true",
+    "library.snapshot.block-rows=3"
+})
+@AutoConfigureMockMvc
+class DatabaseSnapshotTest {
+
+  private static final AtomicInteger ISBNS = new AtomicInteger();
+
+  private static final List<String> TABLES =
+      List.of("authors", "books", "book_author", "members", "loans");
+
+  private static final List<String> FINE_AND_BRANCH_TABLES =
+      List.of("fine_ledger", "member_balances", "fine_accrual_runs", "branch_copies");
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private BranchService branchService;
+
+  @Test
+  void restoreBringsBackTheExportedRows() throws Exception {
+    List<Long> bookIds = new ArrayList<>();
+    List<Long> memberIds = new ArrayList<>();
+    seed(bookIds, memberIds);
+    Long returned = loanService.checkout(bookIds.get(0), memberIds.get(0), 14).getId();
+    loanService.checkout(bookIds.get(0), memberIds.get(1), 14);
+    loanService.checkout(bookIds.get(3), memberIds.get(2), 7);
+    loanService.returnLoan(returned);
+    Map<String, List<Map<String, Object>>> exported = contents();
+
+    byte[] snapshot = export();
+    assertArrayEquals("LIBSNAP1".getBytes(), Arrays.copyOf(snapshot, 8));
+
+    // Diverge: the first book is cached with one copy fewer, and a book and a loan are added.
+    loanService.checkout(bookIds.get(0), memberIds.get(0), 14);
+    assertEquals(1, bookService.get(bookIds.get(0)).getAvailableCopies());
+    Long extraBook = bookService.create(book(author())).getId();
+    assertNotEquals(exported, contents());
+    // Fines and branch stock name rows by ID, so they would point at other rows once restored.
+    Branch branch = branchService.create(new Branch(null, "SNAP", "Snapshot Branch"));
+    branchService.setCopies(branch.getId(), bookIds.get(1), 2);
+    tx.executeWithoutResult(status -> entityManager.persist(new Loan(null, memberIds.get(2),
+        bookIds.get(2), LocalDate.now().minusDays(20), LocalDate.now().minusDays(6), null,
+        LoanStatus.ACTIVE, null, null)));
+    mockMvc.perform(post("/api/admin/fines/accruals").param("mode", "full"))
+        .andExpect(status().isOk());
+    for (String table : FINE_AND_BRANCH_TABLES) {
+      assertNotEquals(0, jdbc.queryForObject("select count(*) from " + table, Integer.class),
+          table);
+    }
+
+    mockMvc.perform(post("/api/admin/snapshot")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(snapshot))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.books").value(exported.get("books").size()))
+        .andExpect(jsonPath("$.loans").value(exported.get("loans").size()));
+
+    assertEquals(exported, contents());
+    for (String table : FINE_AND_BRANCH_TABLES) {
+      assertEquals(0, jdbc.queryForObject("select count(*) from " + table, Integer.class), table);
+    }
+    mockMvc.perform(post("/api/admin/fines/accruals"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.mode").value("FULL"));
+    mockMvc.perform(get("/api/books/" + bookIds.get(0)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.availableCopies").value(2));
+    mockMvc.perform(get("/api/books/" + extraBook))
+        .andExpect(status().isNotFound());
+    String isbn = jdbc.queryForObject("select isbn from books where id = ?", String.class,
+        bookIds.get(2));
+    mockMvc.perform(get("/api/books/isbn/" + isbn))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(bookIds.get(2)));
+
+    // Identities continue after the restored rows.
+    Long maxBook = jdbc.queryForObject("select max(id) from books", Long.class);
+    Long maxLoan = jdbc.queryForObject("select max(id) from loans", Long.class);
+    assertTrue(bookService.create(book(author())).getId() > maxBook);
+    Loan loan = loanService.checkout(bookIds.get(4), memberIds.get(1), 14);
+    assertTrue(loan.getId() > maxLoan);
+  }
+
+  @Test
+  void malformedSnapshotsLeaveTheTablesUntouched() throws Exception {
+    seed(new ArrayList<>(), new ArrayList<>());
+    byte[] snapshot = export();
+    Map<String, List<Map<String, Object>>> before = contents();
+
+    mockMvc.perform(post("/api/admin/snapshot")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(Arrays.copyOf(snapshot, snapshot.length - 10)))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/api/admin/snapshot")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("not a snapshot".getBytes()))
+        .andExpect(status().isBadRequest());
+
+    assertEquals(before, contents());
+  }
+
+  private byte[] export() throws Exception {
+    MvcResult started = mockMvc.perform(get("/api/admin/snapshot"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    assertEquals(Duration.ofHours(1).toMillis(),
+        started.getRequest().getAsyncContext().getTimeout());
+    return mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", "application/octet-stream"))
+        .andReturn().getResponse().getContentAsByteArray();
+  }
+
+  private Map<String, List<Map<String, Object>>> contents() {
+    Map<String, List<Map<String, Object>>> contents = new LinkedHashMap<>();
+    for (String table : TABLES) {
+      String order = table.equals("book_author") ? "book_id, author_id" : "id";
+      contents.put(table, jdbc.queryForList("select * from " + table + " order by " + order));
+    }
+    return contents;
+  }
+
+  private void seed(List<Long> bookIds, List<Long> memberIds) {
+    tx.executeWithoutResult(status -> {
+      String suffix = String.valueOf(System.nanoTime());
+      Author first = new Author(null, "Snapshot", "Author");
+      Author second = new Author(null, "Anne", "Onymous");
+      entityManager.persist(first);
+      entityManager.persist(second);
+      for (int i = 0; i < 5; i++) {
+        Book book = book(i % 2 == 0 ? first : second);
+        if (i == 1) {
+          book.setAuthors(List.of(first, second));
+          book.setPublishedDate(null);
+        }
+        entityManager.persist(book);
+        bookIds.add(book.getId());
+      }
+      for (int i = 0; i < 4; i++) {
+        Member member = new Member();
+        member.setMemberId("SNAP-" + suffix + "-" + i);
+        member.setName("Snapshot Member " + i);
+        member.setEmail(i == 2 ? null : "snapshot" + i + "@example.org");
+        member.setJoined(LocalDate.of(2021, 1, 1 + i));
+        member.setActive(i != 3);
+        entityManager.persist(member);
+        memberIds.add(member.getId());
+      }
+    });
+  }
+
+  private Author author() {
+    return tx.execute(status -> {
+      Author author = new Author(null, "Later", "Author");
+      entityManager.persist(author);
+      return author;
+    });
+  }
+
+  private static Book book(Author author) {
+    String isbn = String.format("9780014%06d", ISBNS.incrementAndGet());
+    Book book = new Book();
+    book.setTitle("Snapshot Volume " + isbn);
+    book.setAuthors(new ArrayList<>(List.of(author)));
+    book.setCategory(Category.HISTORY);
+    book.setIsbn(isbn);
+    book.setTotalCopies(3);
+    book.setAvailableCopies(3);
+    book.setPublishedDate(LocalDate.of(1999, 12, 31));
+    return book;
+  }
+}
@@ -0,0 +1,208 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.fines.FineAccrualJob;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.FineAccrualRun;
+import com.abhiesa.hellowithcopilot.library.model.JobLock;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.FineLedgerRepository;
+import com.abhiesa.hellowithcopilot.library.repository.JobLockRepository;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FineAccrualTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  private Long bookId;
+
+  @Autowired
+  private FineLedgerRepository ledger;
+
+  @Autowired
+  private FineAccrualJob accrualJob;
+
+  @Autowired
+  private JobLockRepository locks;
+
+  @Autowired
+  private ActiveLoanCounters counters;
+
+  @Test
+  void accrualMaintainsLedgerAndBalances() throws Exception {
+    LocalDate today = LocalDate.now();
+    bookId = book();
+    Long alice = member();
+    Long bob = member();
+    Long carol = member();
+    Long overdue = loan(alice, today.minusDays(4), null);
+    Long returnedLate = loan(alice, today.minusDays(10), today.minusDays(7));
+    loan(bob, today.minusDays(100), null);
+    loan(bob, today.plusDays(5), null);
+
+    mockMvc.perform(post("/api/admin/fines/accruals").param("mode", "full"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.mode").value("FULL"))
+        .andExpect(jsonPath("$.finishedAt").exists());
+    balance(alice, 4 * 25 + 3 * 25);
+    balance(bob, 1000);
+    balance(carol, 0);
+    assertEquals(LoanStatus.OVERDUE,
+        tx.execute(status -> entityManager.find(Loan.class, overdue).getStatus()));
+
+    // Nothing changed: an incremental run writes nothing for these members.
+    mockMvc.perform(post("/api/admin/fines/accruals"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.mode").value("INCREMENTAL"));
+    balance(alice, 175);
+
+    // A corrected return date changes the loan, so the next incremental run picks it up.
+    tx.executeWithoutResult(status ->
+        entityManager.find(Loan.class, returnedLate).setReturnedDate(today.minusDays(5)));
+    mockMvc.perform(post("/api/admin/fines/accruals")).andExpect(status().isOk());
+    balance(alice, 100 + 125);
+    assertEquals(225, ledger.sumByMemberId(alice));
+    mockMvc.perform(get("/api/members/" + alice + "/fines"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3))
+        .andExpect(jsonPath("$[0].loanId").value(returnedLate))
+        .andExpect(jsonPath("$[0].amountCents").value(50));
+
+    // Overdue loans can still be returned.
+    mockMvc.perform(post("/api/loans/" + overdue + "/return"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("RETURNED"));
+  }
+
+  @Test
+  void oneRunAtATimeAcrossInstances() throws Exception {
+    bookId = book();
+    Long member = member();
+    loan(member, LocalDate.now().minusDays(2), null);
+
+    // Another instance holds the lease: manual runs are refused and the nightly one skips.
+    Instant now = Instant.now();
+    locks.save(new JobLock("fine-accrual", "other-instance", now.plus(5, ChronoUnit.MINUTES)));
+    mockMvc.perform(post("/api/admin/fines/accruals").param("mode", "full"))
+        .andExpect(status().isBadRequest());
+    accrualJob.nightly();
+    balance(member, 0);
+
+    // Its lease ran out without being renewed, so it died: the next run takes over.
+    locks.save(new JobLock("fine-accrual", "other-instance", now.minus(1, ChronoUnit.MINUTES)));
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<FineAccrualRun>> runs = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        runs.add(() -> accrualJob.run(FineAccrualRun.Mode.FULL));
+      }
+      int finished = 0;
+      for (Future<FineAccrualRun> run : pool.invokeAll(runs)) {
+        try {
+          assertNotNull(run.get().getFinishedAt());
+          finished++;
+        } catch (ExecutionException e) {
+          assertInstanceOf(BusinessException.class, e.getCause());
+        }
+      }
+      assertTrue(finished >= 1);
+    } finally {
+      pool.shutdown();
+    }
+    balance(member, 2 * 25);
+    assertNull(locks.findById("fine-accrual").orElseThrow().getLockedUntil());
+  }
+
+  @Test
+  void rejectsUnknownMembersAndModes() throws Exception {
+    mockMvc.perform(get("/api/members/999999999/balance")).andExpect(status().isNotFound());
+    mockMvc.perform(post("/api/admin/fines/accruals").param("mode", "weekly"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private void balance(Long memberId, long cents) throws Exception {
+    mockMvc.perform(get("/api/members/" + memberId + "/balance"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.balanceCents").value(cents));
+  }
+
+  private Long book() {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Fines", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = new Book();
+    book.setTitle("Overdue Book");
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.FICTION);
+    book.setIsbn(String.format("9780008%06d", KEYS.incrementAndGet()));
+    book.setTotalCopies(5);
+    book.setAvailableCopies(1);
+    book.setPublishedDate(LocalDate.of(2015, 1, 1));
+    return bookService.create(book).getId();
+  }
+
+  private Long member() {
+    Member member = new Member();
+    member.setMemberId("FINES-" + KEYS.incrementAndGet());
+    member.setName("Fined Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    return memberService.create(member).getId();
+  }
+
+  private Long loan(Long memberId, LocalDate due, LocalDate returned) {
+    return tx.execute(status -> {
+      Loan loan = new Loan(null, memberId, bookId, due.minusDays(14), due, returned,
+          returned == null ? LoanStatus.ACTIVE : LoanStatus.RETURNED, null, null);
+      entityManager.persist(loan);
+      // Written past the service, so the member's counter is brought in step here.
+      counters.recount(List.of(memberId));
+      return loan.getId();
+    });
+  }
+}
@@ -0,0 +1,83 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FlightRecorderTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  void recordingCapturesServiceAndRepositoryCalls() throws Exception {
+    Long bookId = tx.execute(status -> {
+      Author author = new Author(null, "Flight", "Recorder");
+      entityManager.persist(author);
+      Book book = new Book();
+      book.setTitle("Recorded Book");
+      book.setAuthors(List.of(author));
+      book.setCategory(Category.TECHNOLOGY);
+      book.setIsbn("9780003000001");
+      book.setTotalCopies(1);
+      book.setAvailableCopies(1);
+      book.setPublishedDate(LocalDate.of(2010, 1, 1));
+      entityManager.persist(book);
+      return book.getId();
+    });
+
+    mockMvc.perform(post("/api/admin/jfr/start"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state").value("RUNNING"));
+    mockMvc.perform(post("/api/admin/jfr/start"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/books/" + bookId))
+        .andExpect(status().isOk());
+    String body = mockMvc.perform(post("/api/admin/jfr/stop"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state").value("STOPPED"))
+        .andReturn().getResponse().getContentAsString();
+    mockMvc.perform(post("/api/admin/jfr/stop"))
+        .andExpect(status().isBadRequest());
+
+    JsonNode recording = objectMapper.readTree(body);
+    Path file = Path.of(recording.get("file").asText());
+    assertTrue(Files.exists(file));
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("library.ServiceCall")
+        && "BookService".equals(e.getString("service")) && "get".equals(e.getString("method"))
+        && e.getLong("entityId") == bookId));
+    assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("library.RepositoryCall")
+        && "BookRepository".equals(e.getString("repository"))
+        && "findById".equals(e.getString("method")) && e.getInt("resultSize") == 1));
+  }
+}
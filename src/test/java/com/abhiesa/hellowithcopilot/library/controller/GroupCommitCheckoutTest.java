@@ -0,0 +1,154 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.CheckoutBatcher;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "library.checkout.group-commit.enabled=true",
+    "library.checkout.group-commit.window=PT0.05S",
+    "library.checkout.group-commit.max-batch=16"
+})
+@AutoConfigureMockMvc
+class GroupCommitCheckoutTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private CheckoutBatcher batcher;
+
+  @Test
+  void concurrentCheckoutsGetIndividualResults() throws Exception {
+    Book scarce = book(5);
+    Book plenty = book(100);
+    Member member = member();
+
+    List<Future<Loan>> results = new ArrayList<>();
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 40; i++) {
+        Long bookId = i % 2 == 0 ? scarce.getId() : plenty.getId();
+        results.add(pool.submit(() -> batcher.checkout(bookId, member.getId(), 14)));
+      }
+      Future<Loan> unknownMember = pool.submit(() -> batcher.checkout(plenty.getId(), 999_999_999L, 14));
+      Future<Loan> unknownBook = pool.submit(() -> batcher.checkout(999_999_999L, member.getId(), 14));
+      assertInstanceOf(NotFoundException.class, cause(unknownMember));
+      assertInstanceOf(NotFoundException.class, cause(unknownBook));
+    }
+
+    int scarceLoans = 0;
+    int rejected = 0;
+    Set<Long> loanIds = new HashSet<>();
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        Loan loan = results.get(i).get();
+        assertNotNull(loan.getId());
+        assertTrue(loanIds.add(loan.getId()));
+        assertEquals(LocalDate.now().plusDays(14), loan.getDueDate());
+        if (i % 2 == 0) {
+          scarceLoans++;
+        }
+      } catch (ExecutionException e) {
+        assertInstanceOf(BusinessException.class, e.getCause());
+        assertEquals(0, i % 2, "Only the scarce book may run out");
+        rejected++;
+      }
+    }
+    assertEquals(5, scarceLoans);
+    assertEquals(15, rejected);
+    assertEquals(0, bookService.get(scarce.getId()).getAvailableCopies());
+    assertEquals(80, bookService.get(plenty.getId()).getAvailableCopies());
+    assertEquals(25, loanRepository.findByMemberId(member.getId()).size());
+    assertEquals(25, loanRepository.findAllById(loanIds).size());
+  }
+
+  @Test
+  void checkoutEndpointUsesTheBatcher() throws Exception {
+    Book book = book(1);
+    Member member = member();
+    String body = "{\"bookId\":" + book.getId() + ",\"memberId\":" + member.getId() + "}";
+
+    mockMvc.perform(post("/api/loans/checkout").contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").isNumber())
+        .andExpect(jsonPath("$.bookId").value(book.getId()));
+    mockMvc.perform(post("/api/loans/checkout").contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isBadRequest());
+    assertEquals(0, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  private static Throwable cause(Future<Loan> future) {
+    return assertThrows(ExecutionException.class, future::get).getCause();
+  }
+
+  private Book book(int copies) {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Group", "Commit");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = new Book();
+    book.setTitle("Group Commit " + copies);
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.SCIENCE);
+    book.setIsbn(String.format("9780009%06d", KEYS.incrementAndGet()));
+    book.setTotalCopies(copies);
+    book.setAvailableCopies(copies);
+    book.setPublishedDate(LocalDate.of(2018, 1, 1));
+    return bookService.create(book);
+  }
+
+  private Member member() {
+    Member member = new Member();
+    member.setMemberId("GROUP-" + KEYS.incrementAndGet());
+    member.setName("Group Member");
+    member.setJoined(LocalDate.of(2021, 1, 1));
+    return memberService.create(member);
+  }
+}
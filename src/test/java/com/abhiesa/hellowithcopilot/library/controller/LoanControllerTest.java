@@ -1,7 +1,16 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
+import com.abhiesa.hellowithcopilot.library.dto.LoanDetailsDto;
+import com.abhiesa.hellowithcopilot.library.dto.MemberLoansDto;
+import com.abhiesa.hellowithcopilot.library.model.Book;
 import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BulkReturnService;
+import com.abhiesa.hellowithcopilot.library.service.CheckoutBatcher;
+import com.abhiesa.hellowithcopilot.library.service.JournaledLoanService;
+import com.abhiesa.hellowithcopilot.library.service.LoanExportService;
 import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.ShardedLoanService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +18,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -24,6 +34,21 @@ class LoanControllerTest {
     @MockitoBean
     private LoanService loanService;
 
+    @MockitoBean
+    private LoanExportService loanExportService;
+
+    @MockitoBean
+    private BulkReturnService bulkReturnService;
+
+    @MockitoBean
+    private CheckoutBatcher checkoutBatcher;
+
+    @MockitoBean
+    private ShardedLoanService shardedLoanService;
+
+    @MockitoBean
+    private JournaledLoanService journaledLoanService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -67,6 +92,57 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void testByMemberInDateRange() throws Exception {
+        Loan loan = new Loan();
+        loan.setId(2L);
+
+        Mockito.when(loanService.memberLoans(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31)))
+                .thenReturn(List.of(loan));
+
+        mockMvc.perform(get("/api/loans/member/1?from=2024-01-01&to=2024-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2L));
+        mockMvc.perform(get("/api/loans/member/1?from=2024-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/loans/member/1?from=2024-04-01&to=2024-03-31"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testOverdue() throws Exception {
+        Loan loan = new Loan();
+        loan.setId(3L);
+
+        Mockito.when(loanService.overdueLoans(LocalDate.of(2024, 1, 1), 20)).thenReturn(List.of(loan));
+
+        mockMvc.perform(get("/api/loans/overdue?loanedSince=2024-01-01&limit=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3L));
+        mockMvc.perform(get("/api/loans/overdue?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testByMemberExpanded() throws Exception {
+        Loan loan = new Loan();
+        loan.setId(1L);
+        loan.setBookId(5L);
+        Book book = new Book();
+        book.setId(5L);
+        book.setTitle("Expanded Book");
+        Member member = new Member();
+        member.setId(1L);
+
+        Mockito.when(loanService.memberLoansExpanded(1L))
+                .thenReturn(new MemberLoansDto(member, List.of(new LoanDetailsDto(loan, book))));
+
+        mockMvc.perform(get("/api/loans/member/1/expanded"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.member.id").value(1L))
+                .andExpect(jsonPath("$.loans[0].book.title").value("Expanded Book"));
+    }
+
     @Test
     void testAllLoans() throws Exception {
         Loan loan = new Loan();
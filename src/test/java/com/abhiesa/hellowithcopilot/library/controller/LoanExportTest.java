@@ -0,0 +1,133 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoanExportTest {
+
+  /** Loans of this test are dated in 1990, before any loan other tests create. */
+  private static final LocalDate JANUARY = LocalDate.of(1990, 1, 1);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Test
+  void exportsTheDateRangeAsCsvAndGzip() throws Exception {
+    List<Long> ids = seed();
+
+    String csv = new String(export("csv", null), StandardCharsets.UTF_8);
+    String[] lines = csv.split("\r\n");
+    assertEquals("id,memberId,bookId,loanDate,dueDate,returnedDate,status,branchId", lines[0]);
+    assertEquals(11, lines.length);
+    assertEquals(ids.get(0) + ",1,100,1990-01-01,1990-01-15,1990-01-10,RETURNED,",
+        lines[1]);
+    assertEquals(ids.get(9) + ",10,109,1990-01-10,1990-01-24,,ACTIVE,3", lines[10]);
+
+    MvcResult zipped = mockMvc.perform(asyncDispatch(start("csv", "gzip, deflate")))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andReturn();
+    byte[] unzipped;
+    try (GZIPInputStream in = new GZIPInputStream(
+        new ByteArrayInputStream(zipped.getResponse().getContentAsByteArray()))) {
+      unzipped = in.readAllBytes();
+    }
+    assertEquals(csv, new String(unzipped, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void exportsTheColumnarFormat() throws Exception {
+    seed();
+    byte[] columnar = export("columnar", null);
+    assertArrayEquals("LOANCOL1".getBytes(StandardCharsets.US_ASCII),
+        Arrays.copyOf(columnar, 8));
+  }
+
+  @Test
+  void exportsCarryTheirOwnAsyncTimeout() throws Exception {
+    seed();
+    MvcResult started = start("csv", null);
+    assertEquals(Duration.ofHours(1).toMillis(),
+        started.getRequest().getAsyncContext().getTimeout());
+    mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+  }
+
+  @Test
+  void rejectsInvalidRequests() throws Exception {
+    mockMvc.perform(get("/api/loans/export").param("from", "1990-02-01").param("to", "1990-01-01"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/loans/export").param("from", "yesterday").param("to", "1990-01-01"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/loans/export").param("from", "1990-01-01").param("to", "1990-01-01")
+            .param("format", "xlsx"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private List<Long> seed() {
+    List<Long> ids = new ArrayList<>();
+    tx.executeWithoutResult(status -> {
+      entityManager.createQuery("delete from Loan l where l.loanDate < :cutoff")
+          .setParameter("cutoff", JANUARY.plusYears(1))
+          .executeUpdate();
+      for (int i = 0; i < 10; i++) {
+        LocalDate day = JANUARY.plusDays(i);
+        boolean returned = i % 2 == 0;
+        Loan loan = new Loan(null, (long) i + 1, 100L + i, day, day.plusDays(14),
+            returned ? day.plusDays(9) : null, returned ? LoanStatus.RETURNED : LoanStatus.ACTIVE,
+            i == 9 ? 3L : null, null);
+        entityManager.persist(loan);
+        ids.add(loan.getId());
+      }
+      // Outside the exported range.
+      entityManager.persist(new Loan(null, 1L, 1L, JANUARY.plusMonths(2),
+          JANUARY.plusMonths(3), null, LoanStatus.ACTIVE, null, null));
+    });
+    return ids;
+  }
+
+  private byte[] export(String format, String acceptEncoding) throws Exception {
+    return mockMvc.perform(asyncDispatch(start(format, acceptEncoding)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+  }
+
+  private MvcResult start(String format, String acceptEncoding) throws Exception {
+    var request = get("/api/loans/export")
+        .param("from", "1990-01-01")
+        .param("to", "1990-01-31")
+        .param("format", format);
+    if (acceptEncoding != null) {
+      request.header("Accept-Encoding", acceptEncoding);
+    }
+    return mockMvc.perform(request)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+  }
+}
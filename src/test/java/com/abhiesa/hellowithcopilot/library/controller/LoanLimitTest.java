@@ -0,0 +1,234 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.CheckoutBatcher;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "library.loans.max-active=3")
+@AutoConfigureMockMvc
+class LoanLimitTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private CheckoutBatcher checkoutBatcher;
+
+  @Autowired
+  private ActiveLoanCounters counters;
+
+  @Test
+  void checkoutsStopAtTheLimitAndReturnsMakeRoom() throws Exception {
+    List<Long> books = books(5);
+    Member member = member();
+    List<Long> loans = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      loans.add(loanService.checkout(books.get(i), member.getId(), 14).getId());
+    }
+    mockMvc.perform(post("/api/loans/checkout")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"bookId\":" + books.get(3) + ",\"memberId\":" + member.getId()
+                + ",\"days\":14}"))
+        .andExpect(status().isBadRequest());
+    assertEquals(1, bookService.get(books.get(3)).getAvailableCopies());
+    assertCounted(member.getId(), 3);
+
+    loanService.returnLoan(loans.get(0));
+    assertCounted(member.getId(), 2);
+    loans.add(loanService.checkout(books.get(3), member.getId(), 14).getId());
+    assertThrows(BusinessException.class,
+        () -> loanService.checkout(books.get(4), member.getId(), 14));
+
+    // Editing the member keeps the count, whatever the request body says.
+    member.setName("Renamed Limit Member");
+    member.setActiveLoans(0);
+    memberService.update(member);
+    assertCounted(member.getId(), 3);
+
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"loanId\":" + loans.get(1) + "},{\"loanId\":" + loans.get(2) + "}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(2));
+    assertCounted(member.getId(), 1);
+    loanService.checkout(books.get(4), member.getId(), 14);
+    assertCounted(member.getId(), 2);
+  }
+
+  @Test
+  void concurrentCheckoutsOfOneMemberCannotOvershoot() throws Exception {
+    List<Long> books = books(12);
+    Member member = member();
+    Member other = member();
+    ExecutorService pool = Executors.newFixedThreadPool(6);
+    try {
+      List<Callable<Long>> attempts = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        long book = books.get(i);
+        attempts.add(() -> loanService.checkout(book, member.getId(), 14).getId());
+      }
+      for (int i = 6; i < 12; i++) {
+        long book = books.get(i);
+        attempts.add(() -> checkoutBatcher.checkout(book, other.getId(), 14).getId());
+      }
+      int granted = 0;
+      int refused = 0;
+      for (Future<Long> attempt : pool.invokeAll(attempts)) {
+        try {
+          assertNotNull(attempt.get());
+          granted++;
+        } catch (ExecutionException e) {
+          assertInstanceOf(BusinessException.class, e.getCause());
+          refused++;
+        }
+      }
+      assertEquals(6, granted);
+      assertEquals(6, refused);
+    } finally {
+      pool.shutdown();
+    }
+    assertCounted(member.getId(), 3);
+    assertCounted(other.getId(), 3);
+    int onShelf = 0;
+    for (Long book : books) {
+      onShelf += bookService.get(book).getAvailableCopies();
+    }
+    assertEquals(6, onShelf);
+  }
+
+  @Test
+  void concurrentReturnsOfOneLoanCountOnce() throws Exception {
+    List<Long> books = books(3);
+    Member member = member();
+    List<Long> loans = new ArrayList<>();
+    for (Long book : books) {
+      loans.add(loanService.checkout(book, member.getId(), 14).getId());
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(6);
+    try {
+      List<Callable<Boolean>> attempts = new ArrayList<>();
+      for (Long loan : loans) {
+        for (int i = 0; i < 2; i++) {
+          attempts.add(() -> {
+            try {
+              loanService.returnLoan(loan);
+              return true;
+            } catch (BusinessException e) {
+              return false;
+            }
+          });
+        }
+      }
+      int returned = 0;
+      for (Future<Boolean> attempt : pool.invokeAll(attempts)) {
+        returned += attempt.get() ? 1 : 0;
+      }
+      assertEquals(3, returned);
+    } finally {
+      pool.shutdown();
+    }
+    assertCounted(member.getId(), 0);
+    for (Long book : books) {
+      assertEquals(1, bookService.get(book).getAvailableCopies());
+    }
+  }
+
+  @Test
+  void recountRepairsCountersFromTheLoans() {
+    List<Long> books = books(2);
+    Member member = member();
+    loanService.checkout(books.get(0), member.getId(), 14);
+    loanService.checkout(books.get(1), member.getId(), 14);
+    jdbc.update("update members set active_loans = 0 where id = ?", member.getId());
+
+    counters.recountAll();
+    assertCounted(member.getId(), 2);
+  }
+
+  /** The counter column, its in-memory copy and the open loans all agree. */
+  private void assertCounted(long memberId, int expected) {
+    assertEquals(expected, jdbc.queryForObject(
+        "select active_loans from members where id = ?", Integer.class, memberId));
+    assertEquals(expected, jdbc.queryForObject(
+        "select count(*) from loans where member_id = ? and status in (0, 2)", Integer.class,
+        memberId));
+    assertEquals(expected, counters.activeLoans(memberId));
+  }
+
+  private List<Long> books(int count) {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Limit", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Book book = new Book();
+      book.setTitle("Limit Volume " + i);
+      book.setAuthors(new ArrayList<>(List.of(author)));
+      book.setCategory(Category.FICTION);
+      book.setIsbn(String.format("9780017%06d", KEYS.incrementAndGet()));
+      book.setTotalCopies(1);
+      book.setAvailableCopies(1);
+      book.setPublishedDate(LocalDate.of(2012, 1, 1));
+      ids.add(bookService.create(book).getId());
+    }
+    return ids;
+  }
+
+  private Member member() {
+    Member member = new Member();
+    member.setMemberId("LIMIT-" + KEYS.incrementAndGet());
+    member.setName("Limit Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    return memberService.create(member);
+  }
+}
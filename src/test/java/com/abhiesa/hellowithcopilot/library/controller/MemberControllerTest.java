@@ -1,6 +1,7 @@
 package com.abhiesa.hellowithcopilot.library.controller;
 
 import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.FineService;
 import com.abhiesa.hellowithcopilot.library.service.MemberService;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -24,6 +25,9 @@ class MemberControllerTest {
   @MockitoBean
   private MemberService memberService;
 
+  @MockitoBean
+  private FineService fineService;
+
   @Autowired
   private ObjectMapper objectMapper;
 
@@ -55,6 +59,18 @@ class MemberControllerTest {
         .andExpect(jsonPath("$.name").value("John Doe"));
   }
 
+  @Test
+  void testGetMemberByCard() throws Exception {
+    Member member = new Member();
+    member.setId(1L);
+    member.setName("John Doe");
+    Mockito.when(memberService.getByCard("LIB-0001")).thenReturn(member);
+
+    mockMvc.perform(get("/api/members/card/LIB-0001"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("John Doe"));
+  }
+
   @Test
   void testListMembers() throws Exception {
     Member member = new Member();
@@ -82,6 +98,20 @@ class MemberControllerTest {
         .andExpect(jsonPath("$.name").value("Jane Doe"));
   }
 
+  @Test
+  void testBatchMembers() throws Exception {
+    Member member = new Member();
+    member.setId(4L);
+    member.setName("Batch Member");
+    Mockito.when(memberService.getAll(List.of(4L))).thenReturn(List.of(member));
+
+    mockMvc.perform(post("/api/members/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[4]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].name").value("Batch Member"));
+  }
+
   @Test
   void testDeleteMember() throws Exception {
     mockMvc.perform(delete("/api/members/1"))
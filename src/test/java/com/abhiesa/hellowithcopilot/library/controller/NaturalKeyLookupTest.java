@@ -0,0 +1,100 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NaturalKeyLookupTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private NaturalKeyFilters keyFilters;
+
+  private Statistics stats;
+
+  @BeforeEach
+  void seed() {
+    stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    tx.executeWithoutResult(status -> {
+      if (!entityManager.createQuery("select b from Book b where b.isbn = '9780201633610'")
+          .getResultList().isEmpty()) {
+        return;
+      }
+      Author author = new Author(null, "Natural", "Key");
+      entityManager.persist(author);
+      Book book = new Book();
+      book.setTitle("Design Patterns");
+      book.setAuthors(List.of(author));
+      book.setCategory(Category.SCIENCE);
+      book.setIsbn("978-0-201-63361-0");
+      book.setTotalCopies(1);
+      book.setAvailableCopies(1);
+      book.setPublishedDate(LocalDate.of(1994, 10, 31));
+      entityManager.persist(book);
+      Member member = new Member();
+      member.setMemberId("CARD-0001");
+      member.setName("Scanner Member");
+      member.setJoined(LocalDate.of(2020, 1, 1));
+      entityManager.persist(member);
+    });
+    keyFilters.rebuildIsbns();
+    keyFilters.rebuildMemberIds();
+  }
+
+  @Test
+  void booksAreFoundByNormalizedIsbn() throws Exception {
+    mockMvc.perform(get("/api/books/isbn/978 0 201 63361 0"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.isbn").value("9780201633610"))
+        .andExpect(jsonPath("$.title").value("Design Patterns"));
+  }
+
+  @Test
+  void membersAreFoundByCard() throws Exception {
+    mockMvc.perform(get("/api/members/card/CARD-0001"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Scanner Member"));
+  }
+
+  @Test
+  void unknownKeysAreRejectedWithoutQueries() throws Exception {
+    assertFalse(keyFilters.mightContainIsbn("9999999999999"));
+    stats.clear();
+    mockMvc.perform(get("/api/books/isbn/9999999999999"))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(get("/api/members/card/CARD-UNKNOWN"))
+        .andExpect(status().isNotFound());
+    assertEquals(0, stats.getPrepareStatementCount());
+  }
+}
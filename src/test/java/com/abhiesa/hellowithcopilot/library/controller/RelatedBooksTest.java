@@ -0,0 +1,91 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RelatedBooksTest {
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Test
+  void checkoutsFeedTheAlsoBorrowedList() throws Exception {
+    List<Long> books = new ArrayList<>();
+    List<Long> members = new ArrayList<>();
+    tx.executeWithoutResult(status -> {
+      Author author = new Author(null, "Related", "Author");
+      entityManager.persist(author);
+      for (int i = 0; i < 3; i++) {
+        Book book = new Book();
+        book.setTitle("Related " + i);
+        book.setAuthors(List.of(author));
+        book.setCategory(Category.REFERENCE);
+        book.setIsbn(String.format("9780006%06d", KEYS.incrementAndGet()));
+        book.setTotalCopies(5);
+        book.setAvailableCopies(5);
+        book.setPublishedDate(LocalDate.of(2010, 1, 1));
+        entityManager.persist(book);
+        books.add(book.getId());
+      }
+      for (int i = 0; i < 2; i++) {
+        Member member = new Member();
+        member.setMemberId("RELATED-" + KEYS.incrementAndGet());
+        member.setName("Related Member " + i);
+        member.setJoined(LocalDate.of(2020, 1, 1));
+        entityManager.persist(member);
+        members.add(member.getId());
+      }
+    });
+
+    checkout(books.get(0), members.get(0));
+    checkout(books.get(1), members.get(0));
+    checkout(books.get(2), members.get(0));
+    checkout(books.get(0), members.get(1));
+    checkout(books.get(2), members.get(1));
+
+    mockMvc.perform(get("/api/books/" + books.get(0) + "/related"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].book.id").value(books.get(2)))
+        .andExpect(jsonPath("$[0].borrowedTogether").value(2))
+        .andExpect(jsonPath("$[1].book.id").value(books.get(1)))
+        .andExpect(jsonPath("$[1].borrowedTogether").value(1));
+    mockMvc.perform(get("/api/books/" + books.get(0) + "/related").param("limit", "1"))
+        .andExpect(jsonPath("$.length()").value(1));
+    mockMvc.perform(get("/api/books/999999/related"))
+        .andExpect(status().isNotFound());
+  }
+
+  private void checkout(Long bookId, Long memberId) throws Exception {
+    mockMvc.perform(post("/api/loans/checkout")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"bookId\":" + bookId + ",\"memberId\":" + memberId + "}"))
+        .andExpect(status().isOk());
+  }
+}
@@ -0,0 +1,406 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import com.abhiesa.hellowithcopilot.library.controller.RequestCostMeter.RequestCost;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Branch;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.BranchService;
+import com.abhiesa.hellowithcopilot.library.service.LoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.abhiesa.hellowithcopilot.library.snapshot.DatabaseSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Runs every controller endpoint once and holds it to a budget of SQL statements, result set rows
+ * and allocated bytes, so new N+1 queries or redundant lookups fail a build instead of slipping
+ * in. Every endpoint is run once to warm up the JVM, then measured on fresh rows with the
+ * second-level cache evicted, which makes the statement counts the cold-cache worst case.
+ */
+@SpringBootTest(properties = "library.snapshot.enabled=true")
+@AutoConfigureMockMvc
+class RequestBudgetTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestBudgetTest.class);
+  private static final long KB = 1024;
+  private static final long MB = 1024 * KB;
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  /**
+   * Per-endpoint bounds, in the order the endpoints run. Raise one only together with the change
+   * that needs it.
+   */
+  private final List<Budget> budgets = List.of(
+      budget("POST /api/books", 2, 0, 512 * KB,
+          f -> post("/api/books").contentType(MediaType.APPLICATION_JSON)
+              .content(json(f.newBook()))),
+      budget("GET /api/books/{id}", 2, 2, 384 * KB,
+          f -> get("/api/books/" + f.book)),
+      budget("GET /api/books/{id}/availability", 3, 2, 512 * KB,
+          f -> get("/api/books/" + f.book + "/availability")),
+      budget("GET /api/books/{id}/related", 2, 2, 384 * KB,
+          f -> get("/api/books/" + f.book + "/related")),
+      budget("GET /api/books/trending", 1, 2, 512 * KB,
+          f -> get("/api/books/trending")),
+      budget("GET /api/books/isbn/{isbn}", 2, 2, 512 * KB,
+          f -> get("/api/books/isbn/" + f.isbn)),
+      budget("POST /api/books/batch", 1, 3, 512 * KB,
+          f -> post("/api/books/batch").contentType(MediaType.APPLICATION_JSON)
+              .content(json(List.of(f.book, f.loanedBook, f.doomedBook)))),
+      budget("GET /api/books", 1, 7, 640 * KB,
+          f -> get("/api/books").param("category", "SCIENCE").param("available", "true")),
+      budget("PUT /api/books/{id}", 5, 2, 640 * KB,
+          f -> put("/api/books/" + f.book).contentType(MediaType.APPLICATION_JSON)
+              .content(json(f.revisedBook()))),
+      budget("DELETE /api/books/{id}", 3, 1, 384 * KB,
+          f -> delete("/api/books/" + f.doomedBook)),
+
+      budget("POST /api/members", 1, 0, 512 * KB,
+          f -> post("/api/members").contentType(MediaType.APPLICATION_JSON)
+              .content(json(newMember()))),
+      budget("GET /api/members/{id}", 1, 1, 384 * KB,
+          f -> get("/api/members/" + f.member)),
+      budget("GET /api/members/{id}/balance", 2, 1, 384 * KB,
+          f -> get("/api/members/" + f.member + "/balance")),
+      budget("GET /api/members/{id}/fines", 2, 1, 512 * KB,
+          f -> get("/api/members/" + f.member + "/fines")),
+      budget("GET /api/members/card/{memberId}", 1, 1, 384 * KB,
+          f -> get("/api/members/card/" + f.card)),
+      budget("POST /api/members/batch", 1, 2, 384 * KB,
+          f -> post("/api/members/batch").contentType(MediaType.APPLICATION_JSON)
+              .content(json(List.of(f.member, f.doomedMember)))),
+      budget("GET /api/members", 1, 5, 384 * KB,
+          f -> get("/api/members")),
+      budget("PUT /api/members/{id}", 2, 1, 512 * KB,
+          f -> put("/api/members/" + f.member).contentType(MediaType.APPLICATION_JSON)
+              .content(json(renamed(this.memberService.get(f.member))))),
+      budget("DELETE /api/members/{id}", 2, 1, 384 * KB,
+          f -> delete("/api/members/" + f.doomedMember)),
+
+      budget("POST /api/branches", 1, 0, 384 * KB,
+          f -> post("/api/branches").contentType(MediaType.APPLICATION_JSON)
+              .content(json(newBranch()))),
+      budget("GET /api/branches/{id}", 1, 1, 384 * KB,
+          f -> get("/api/branches/" + f.branch)),
+      budget("GET /api/branches", 1, 4, 384 * KB,
+          f -> get("/api/branches")),
+      budget("PUT /api/branches/{id}/copies/{bookId}", 4, 2, 640 * KB,
+          f -> put("/api/branches/" + f.branch + "/copies/" + f.book)
+              .contentType(MediaType.APPLICATION_JSON).content("{\"totalCopies\":2}")),
+      budget("GET /api/branches/{id}/copies", 2, 2, 384 * KB,
+          f -> get("/api/branches/" + f.branch + "/copies")),
+
+      budget("POST /api/loans/checkout", 6, 3, 896 * KB,
+          f -> post("/api/loans/checkout").contentType(MediaType.APPLICATION_JSON)
+              .content("{\"bookId\":" + f.loanedBook + ",\"memberId\":" + f.member + "}")),
+      budget("POST /api/loans/{id}/return", 7, 4, 768 * KB,
+          f -> post("/api/loans/" + f.loans.get(0) + "/return")),
+      budget("POST /api/loans/returns", 5, 3, 896 * KB,
+          f -> post("/api/loans/returns").contentType(MediaType.APPLICATION_JSON)
+              .content("[{\"loanId\":" + f.loans.get(1) + "},{\"loanId\":" + f.loans.get(2)
+                  + "}]")),
+      budget("GET /api/loans/member/{memberId}", 1, 4, 512 * KB,
+          f -> get("/api/loans/member/" + f.member)),
+      budget("GET /api/loans/member/{memberId}/expanded", 3, 6, 640 * KB,
+          f -> get("/api/loans/member/" + f.member + "/expanded")),
+      budget("GET /api/loans/overdue", 1, 0, 384 * KB,
+          f -> get("/api/loans/overdue")),
+      budget("GET /api/loans", 1, 8, 512 * KB,
+          f -> get("/api/loans")),
+      budget("GET /api/loans/export", 1, 8, 896 * KB,
+          f -> get("/api/loans/export").param("from", LocalDate.now().minusDays(1).toString())
+              .param("to", LocalDate.now().toString())),
+
+      // A full run: the warm-up pass ends with a snapshot restore, which clears the accrual runs.
+      budget("POST /api/admin/fines/accruals", 11, 9, 2 * MB,
+          f -> post("/api/admin/fines/accruals")),
+      budget("GET /api/admin/cache/stats", 0, 0, 256 * KB,
+          f -> get("/api/admin/cache/stats")),
+      budget("DELETE /api/admin/cache", 0, 0, 256 * KB,
+          f -> delete("/api/admin/cache")),
+      budget("POST /api/admin/jfr/start", 0, 0, 384 * KB,
+          f -> post("/api/admin/jfr/start")),
+      budget("GET /api/admin/jfr", 0, 0, 256 * KB,
+          f -> get("/api/admin/jfr")),
+      budget("POST /api/admin/jfr/dump", 0, 0, 512 * KB,
+          f -> post("/api/admin/jfr/dump")),
+      budget("POST /api/admin/jfr/stop", 0, 0, 384 * KB,
+          f -> post("/api/admin/jfr/stop")),
+      budget("GET /api/admin/snapshot", 5, 26, 1 * MB,
+          f -> get("/api/admin/snapshot")),
+      budget("POST /api/admin/snapshot", 29, 24, 4 * MB,
+          f -> post("/api/admin/snapshot").contentType(MediaType.APPLICATION_OCTET_STREAM)
+              .content(snapshot())));
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private BranchService branchService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private DatabaseSnapshotService snapshots;
+
+  @Autowired
+  private RequestCostMeter meter;
+
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  private RequestMappingHandlerMapping handlerMapping;
+
+  @Test
+  void everyEndpointStaysWithinItsBudget() throws Exception {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    Fixture warmUp = seed();
+    for (Budget budget : budgets) {
+      perform(budget.endpoint(), budget.request().apply(warmUp));
+    }
+
+    Fixture fixture = seed();
+    List<Measured> results = new ArrayList<>();
+    for (Budget budget : budgets) {
+      RequestBuilder request = budget.request().apply(fixture);
+      sessionFactory.getCache().evictAllRegions();
+      meter.start(sessionFactory.getStatistics());
+      perform(budget.endpoint(), request);
+      results.add(new Measured(budget, meter.stop()));
+    }
+
+    String report = report(results);
+    logger.info("Request costs against their budgets:\n{}", report);
+    assertTrue(results.stream().allMatch(Measured::withinBudget),
+        "Request budgets exceeded, marked with '!':\n" + report);
+  }
+
+  @Test
+  void everyEndpointHasABudget() {
+    Set<String> mapped = handlerMapping.getHandlerMethods().entrySet().stream()
+        .filter(e -> e.getValue().getBeanType().getPackageName()
+            .equals(BookController.class.getPackageName()))
+        .flatMap(e -> e.getKey().getMethodsCondition().getMethods().stream()
+            .flatMap(method -> e.getKey().getPatternValues().stream()
+                .map(pattern -> method + " " + pattern)))
+        .collect(Collectors.toCollection(TreeSet::new));
+    Set<String> budgeted = budgets.stream().map(Budget::endpoint)
+        .collect(Collectors.toCollection(TreeSet::new));
+    assertEquals(budgets.size(), budgeted.size(), "Endpoints budgeted twice");
+    assertEquals(mapped, budgeted, "Every endpoint needs exactly one budget");
+  }
+
+  private void perform(String endpoint, RequestBuilder request) throws Exception {
+    MvcResult result = mockMvc.perform(request).andReturn();
+    if (result.getRequest().isAsyncStarted()) {
+      result = mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+    int status = result.getResponse().getStatus();
+    assertTrue(status < 300, endpoint + " answered " + status);
+  }
+
+  private static String report(List<Measured> results) {
+    StringBuilder report = new StringBuilder(String.format("  %-42s %11s %11s %17s %7s %7s %7s%n",
+        "endpoint", "statements", "rows", "allocated", "loads", "fetches", "l2 hits"));
+    for (Measured result : results) {
+      Budget budget = result.budget();
+      RequestCost cost = result.cost();
+      report.append(String.format("%s %-42s %5d/%-5d %5d/%-5d %7dK/%-7dK %7d %7d %7d%n",
+          result.withinBudget() ? " " : "!", budget.endpoint(),
+          cost.statements(), budget.statements(), cost.rows(), budget.rows(),
+          cost.bytes() / KB, budget.bytes() / KB,
+          cost.entityLoads(), cost.collectionFetches(), cost.cacheHits()));
+    }
+    return report.toString();
+  }
+
+  private static Budget budget(String endpoint, int statements, int rows, long bytes,
+      Function<Fixture, RequestBuilder> request) {
+    return new Budget(endpoint, statements, rows, bytes, request);
+  }
+
+  private String json(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private byte[] snapshot() {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      snapshots.export(out);
+      return out.toByteArray();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Member renamed(Member member) {
+    member.setName(member.getName() + " Jr.");
+    return member;
+  }
+
+  /** Rows every pass works on; the endpoints that delete or return use their own. */
+  private Fixture seed() {
+    Fixture f = new Fixture();
+    f.author = tx.execute(status -> {
+      Author a = new Author(null, "Budget", "Author");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = bookService.create(f.newBook());
+    f.book = book.getId();
+    f.isbn = book.getIsbn();
+    f.loanedBook = bookService.create(f.newBook()).getId();
+    f.doomedBook = bookService.create(f.newBook()).getId();
+    Member member = memberService.create(newMember());
+    f.member = member.getId();
+    f.card = member.getMemberId();
+    f.doomedMember = memberService.create(newMember()).getId();
+    f.branch = branchService.create(newBranch()).getId();
+    for (int i = 0; i < 3; i++) {
+      f.loans.add(loanService.checkout(f.loanedBook, f.member, 14).getId());
+    }
+    return f;
+  }
+
+  private static Member newMember() {
+    Member member = new Member();
+    member.setMemberId("BUDGET-" + KEYS.incrementAndGet());
+    member.setName("Budget Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    return member;
+  }
+
+  private static Branch newBranch() {
+    Branch branch = new Branch();
+    int key = KEYS.incrementAndGet();
+    branch.setCode("B" + key);
+    branch.setName("Budget Branch " + key);
+    return branch;
+  }
+
+  private static final class Fixture {
+    private Author author;
+    private Long book;
+    private String isbn;
+    private Long loanedBook;
+    private Long doomedBook;
+    private Long member;
+    private String card;
+    private Long doomedMember;
+    private Long branch;
+    private final List<Long> loans = new ArrayList<>();
+
+    Book newBook() {
+      Book book = new Book();
+      book.setTitle("Budget Volume");
+      book.setAuthors(new ArrayList<>(List.of(author)));
+      book.setCategory(Category.SCIENCE);
+      book.setIsbn(String.format("9780018%06d", KEYS.incrementAndGet()));
+      book.setTotalCopies(5);
+      book.setAvailableCopies(5);
+      book.setPublishedDate(LocalDate.of(2015, 1, 1));
+      return book;
+    }
+
+    Book revisedBook() {
+      Book book = newBook();
+      book.setTitle("Budget Volume (revised)");
+      book.setIsbn(isbn);
+      return book;
+    }
+  }
+
+  /**
+   * Most an endpoint may cost per request.
+   * @param endpoint HTTP method and path pattern
+   * @param statements most JDBC statements
+   * @param rows most result set rows read
+   * @param bytes most bytes allocated
+   * @param request builds the request from the pass's rows
+   */
+  private record Budget(String endpoint, int statements, int rows, long bytes,
+      Function<Fixture, RequestBuilder> request) {
+  }
+
+  private record Measured(Budget budget, RequestCost cost) {
+    boolean withinBudget() {
+      return cost.statements() <= budget.statements() && cost.rows() <= budget.rows()
+          && cost.bytes() <= budget.bytes();
+    }
+  }
+
+  /** Counts every statement the application sends through its data source. */
+  @TestConfiguration
+  static class MeteredDataSource {
+
+    @Bean
+    static RequestCostMeter requestCostMeter() {
+      return new RequestCostMeter();
+    }
+
+    @Bean
+    static BeanPostProcessor meteredDataSourceWrapper(RequestCostMeter meter) {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource ? meter.wrap(dataSource) : bean;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.abhiesa.hellowithcopilot.library.controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Measures what one request costs: JDBC statements and result set rows seen through a
+ * datasource-proxy wrapper, Hibernate's entity and collection loads, and the bytes allocated by
+ * the threads that served it, including the embedded database's work. Scheduler threads are left
+ * out so background polling does not count against the request under test.
+ */
+final class RequestCostMeter implements QueryExecutionListener, MethodExecutionListener {
+
+  private static final String SCHEDULER_THREADS = "scheduling-";
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final AtomicLong statements = new AtomicLong();
+  private final AtomicLong rows = new AtomicLong();
+  private volatile boolean recording;
+  private Statistics statistics;
+  private Map<Long, Long> allocatedBefore;
+
+  /**
+   * Wraps a data source so its statements and rows are counted.
+   * @param dataSource data source to wrap
+   * @return the counting data source
+   */
+  DataSource wrap(DataSource dataSource) {
+    return ProxyDataSourceBuilder.create("metered", dataSource)
+        .listener(this)
+        .methodListener(this)
+        .proxyResultSet()
+        .build();
+  }
+
+  /**
+   * Starts measuring. Clears Hibernate's statistics.
+   * @param statistics statistics of the session factory serving the request
+   */
+  void start(Statistics statistics) {
+    this.statistics = statistics;
+    statistics.clear();
+    statements.set(0);
+    rows.set(0);
+    allocatedBefore = allocatedByThread();
+    recording = true;
+  }
+
+  /**
+   * Stops measuring.
+   * @return the cost since {@link #start}
+   */
+  RequestCost stop() {
+    recording = false;
+    long allocated = 0;
+    for (Map.Entry<Long, Long> thread : allocatedByThread().entrySet()) {
+      allocated += thread.getValue() - allocatedBefore.getOrDefault(thread.getKey(), 0L);
+    }
+    return new RequestCost(statements.get(), rows.get(), allocated,
+        statistics.getEntityLoadCount(), statistics.getCollectionFetchCount(),
+        statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+  }
+
+  @Override
+  public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+    if (counted()) {
+      statements.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void beforeMethod(MethodExecutionContext context) {
+  }
+
+  @Override
+  public void afterMethod(MethodExecutionContext context) {
+    if (context.getTarget() instanceof ResultSet && "next".equals(context.getMethod().getName())
+        && Boolean.TRUE.equals(context.getResult()) && counted()) {
+      rows.incrementAndGet();
+    }
+  }
+
+  private boolean counted() {
+    return recording && !Thread.currentThread().getName().startsWith(SCHEDULER_THREADS);
+  }
+
+  private Map<Long, Long> allocatedByThread() {
+    long[] ids = threads.getAllThreadIds();
+    long[] allocated = threads.getThreadAllocatedBytes(ids);
+    ThreadInfo[] infos = threads.getThreadInfo(ids);
+    Map<Long, Long> byThread = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      if (infos[i] != null && allocated[i] >= 0
+          && !infos[i].getThreadName().startsWith(SCHEDULER_THREADS)) {
+        byThread.put(ids[i], allocated[i]);
+      }
+    }
+    return byThread;
+  }
+
+  /**
+   * Cost of one request.
+   * @param statements JDBC statements executed, a batch counting once
+   * @param rows result set rows read
+   * @param bytes bytes allocated
+   * @param entityLoads entities Hibernate loaded from the database
+   * @param collectionFetches collections Hibernate fetched
+   * @param cacheHits second-level cache hits
+   */
+  record RequestCost(long statements, long rows, long bytes, long entityLoads,
+      long collectionFetches, long cacheHits) {
+  }
+}
@@ -0,0 +1,45 @@
+package com.abhiesa.hellowithcopilot.library.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void domainExceptionsAreStacklessUnlessTheirHandlerCapturesTraces() {
+    GlobalExceptionHandler debugging = new GlobalExceptionHandler(true);
+    GlobalExceptionHandler quiet = new GlobalExceptionHandler(false);
+    NotFoundException notFound = new NotFoundException("Book not found: 1");
+    BusinessException business = new BusinessException("No copies available");
+    assertEquals(0, notFound.getStackTrace().length);
+    assertEquals(0, business.getStackTrace().length);
+
+    quiet.notFound(notFound);
+    assertEquals(0, notFound.getStackTrace().length);
+    debugging.business(business);
+    assertTrue(business.getStackTrace().length > 0);
+    // The debugging handler's setting stays with it.
+    assertEquals(0, new NotFoundException("Book not found: 2").getStackTrace().length);
+  }
+
+  @Test
+  void problemBodyEscapesDetail() throws Exception {
+    GlobalExceptionHandler handler = new GlobalExceptionHandler(false);
+    ResponseEntity<byte[]> response =
+        handler.business(new BusinessException("Title \"Dune\"\nis \\ unavailable"));
+
+    assertEquals(400, response.getStatusCode().value());
+    assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+    JsonNode body = objectMapper.readTree(response.getBody());
+    assertEquals("https://httpstatuses.com/400", body.get("type").asText());
+    assertEquals("Business Error", body.get("title").asText());
+    assertEquals(400, body.get("status").asInt());
+    assertEquals("Title \"Dune\"\nis \\ unavailable", body.get("detail").asText());
+  }
+}
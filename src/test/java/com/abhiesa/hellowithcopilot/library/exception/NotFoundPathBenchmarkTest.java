@@ -0,0 +1,99 @@
+package com.abhiesa.hellowithcopilot.library.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of the 404 error path: throwing the exception from a realistic stack depth and
+ * rendering the problem body. Compares the previous path (stack trace captured, fresh map
+ * serialized per error) with stackless exceptions and pre-serialized templates.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class NotFoundPathBenchmarkTest {
+
+  /** Roughly the number of frames between Tomcat's worker loop and a service method. */
+  private static final int STACK_DEPTH = 120;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final long ROUND_NANOS = 1_000_000_000L;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GlobalExceptionHandler handler = new GlobalExceptionHandler(false);
+
+  @Test
+  void notFoundThroughput() throws Exception {
+    LongSupplier before = () -> {
+      try {
+        throwAt(STACK_DEPTH, true);
+        return 0;
+      } catch (LegacyNotFoundException e) {
+        try {
+          return objectMapper.writeValueAsBytes(Map.of(
+              "type", "https://httpstatuses.com/404",
+              "title", "Not Found",
+              "status", 404,
+              "detail", e.getMessage())).length;
+        } catch (Exception ex) {
+          throw new IllegalStateException(ex);
+        }
+      }
+    };
+    LongSupplier after = () -> {
+      try {
+        throwAt(STACK_DEPTH, false);
+        return 0;
+      } catch (NotFoundException e) {
+        return handler.notFound(e).getBody().length;
+      }
+    };
+
+    double beforeOps = measure(before);
+    double afterOps = measure(after);
+    System.out.printf("404 path: before %.0f ops/s, after %.0f ops/s (%.1fx)%n", beforeOps,
+        afterOps, afterOps / beforeOps);
+    assertTrue(afterOps > beforeOps, "Stackless templated path should be faster");
+  }
+
+  private static double measure(LongSupplier op) {
+    long sink = 0;
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      long end = System.nanoTime() + ROUND_NANOS;
+      while (System.nanoTime() < end) {
+        sink += op.getAsLong();
+      }
+    }
+    long count = 0;
+    long start = System.nanoTime();
+    long end = start + 2 * ROUND_NANOS;
+    long now;
+    while ((now = System.nanoTime()) < end) {
+      sink += op.getAsLong();
+      count++;
+    }
+    assertTrue(sink > 0);
+    return count / ((now - start) / 1e9);
+  }
+
+  private static void throwAt(int depth, boolean legacy) {
+    if (depth > 0) {
+      throwAt(depth - 1, legacy);
+      return;
+    }
+    long id = System.nanoTime() & 0xffff;
+    if (legacy) {
+      throw new LegacyNotFoundException("Book not found: " + id);
+    }
+    throw new NotFoundException("Book not found: " + id);
+  }
+
+  /** The exception as it was before: an ordinary RuntimeException with a stack trace. */
+  private static final class LegacyNotFoundException extends RuntimeException {
+    private LegacyNotFoundException(String msg) {
+      super(msg);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.abhiesa.hellowithcopilot.library.export;
+
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarLoanWriterTest {
+
+  @Test
+  void rowsSurviveARoundTripAcrossRowGroups() throws IOException {
+    List<LoanExportRow> rows = new ArrayList<>();
+    LocalDate start = LocalDate.of(2024, 3, 1);
+    for (int i = 0; i < 23; i++) {
+      LocalDate day = start.plusDays(i / 3);
+      boolean returned = i % 4 == 0;
+      rows.add(new LoanExportRow(1_000L + i * 7, 500L - i, (long) i * i, day, day.plusDays(21),
+          returned ? day.plusDays(2) : null, returned ? LoanStatus.RETURNED : LoanStatus.ACTIVE,
+          i % 5 == 0 ? null : (long) (i % 3)));
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ColumnarLoanWriter writer = new ColumnarLoanWriter(bytes, 10)) {
+      for (LoanExportRow row : rows) {
+        writer.write(row);
+      }
+    }
+
+    assertEquals(rows, read(bytes.toByteArray()));
+  }
+
+  @Test
+  void emptyExportsHaveOnlyTheHeaderAndEndMarker() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new ColumnarLoanWriter(bytes, 10).close();
+    assertEquals(List.of(), read(bytes.toByteArray()));
+  }
+
+  /**
+   * Reference decoder for the layout documented on {@link ColumnarLoanWriter}.
+   */
+  private static List<LoanExportRow> read(byte[] data) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+    byte[] magic = new byte[ColumnarLoanWriter.MAGIC.length];
+    in.readFully(magic);
+    assertArrayEquals(ColumnarLoanWriter.MAGIC, magic);
+    int columns = in.readByte();
+    byte[] types = new byte[columns];
+    for (int c = 0; c < columns; c++) {
+      assertEquals(ColumnarLoanWriter.COLUMNS[c], in.readUTF());
+      types[c] = in.readByte();
+    }
+    List<LoanExportRow> rows = new ArrayList<>();
+    for (int count = in.readInt(); count > 0; count = in.readInt()) {
+      Long[][] values = new Long[columns][count];
+      for (int c = 0; c < columns; c++) {
+        if (types[c] == ColumnarLoanWriter.TYPE_BYTE) {
+          for (int r = 0; r < count; r++) {
+            values[c][r] = (long) in.readByte();
+          }
+          continue;
+        }
+        boolean[] present = new boolean[count];
+        if (types[c] == ColumnarLoanWriter.TYPE_NULLABLE_DELTA_VARINT) {
+          for (int r = 0; r < count; r += 8) {
+            int bits = in.readUnsignedByte();
+            for (int b = 0; b < 8 && r + b < count; b++) {
+              present[r + b] = (bits & (1 << b)) != 0;
+            }
+          }
+        } else {
+          Arrays.fill(present, true);
+        }
+        long previous = 0;
+        for (int r = 0; r < count; r++) {
+          if (present[r]) {
+            previous += readVarLong(in);
+            values[c][r] = previous;
+          }
+        }
+      }
+      for (int r = 0; r < count; r++) {
+        rows.add(new LoanExportRow(values[0][r], values[1][r], values[2][r], day(values[3][r]),
+            day(values[4][r]), day(values[5][r]), LoanStatus.values()[values[6][r].intValue()],
+            values[7][r]));
+      }
+    }
+    assertEquals(-1, in.read());
+    return rows;
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long zigZag = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = in.readUnsignedByte();
+      zigZag |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return (zigZag >>> 1) ^ -(zigZag & 1);
+  }
+
+  private static LocalDate day(Long epochDay) {
+    return epochDay == null ? null : LocalDate.ofEpochDay(epochDay);
+  }
+}
@@ -0,0 +1,212 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryJournalTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+  private static final Supplier<InventoryState> NO_SEED = () -> {
+    throw new AssertionError("The journal should recover, not seed");
+  };
+
+  @TempDir
+  private Path dir;
+
+  @Test
+  void reopeningReplaysTheLog() throws Exception {
+    List<InventoryEvent> committed = new ArrayList<>();
+    long returned;
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 2, 2L, 1)),
+        committed::addAll)) {
+      InventoryEvent first = journal.checkout(1L, 10L, TODAY, 14).get();
+      journal.checkout(1L, 11L, TODAY, 7).get();
+      journal.checkout(2L, 10L, TODAY, 14).get();
+      ExecutionException none = assertThrows(ExecutionException.class,
+          () -> journal.checkout(1L, 12L, TODAY, 14).get());
+      assertInstanceOf(BusinessException.class, none.getCause());
+      returned = first.loanId();
+      assertEquals(1, journal.returnLoan(returned, TODAY.plusDays(3)).get().available());
+      assertNull(journal.returnLoan(returned, TODAY.plusDays(3)));
+      assertEquals(1_000L, first.loanId());
+    }
+    assertEquals(List.of(1L, 2L, 3L, 4L), committed.stream().map(InventoryEvent::seq).toList());
+
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, NO_SEED, events -> { })) {
+      assertEquals(4, journal.durableSequence());
+      assertEquals(1, journal.available(1L));
+      assertEquals(0, journal.available(2L));
+      assertNull(journal.openLoan(returned));
+      assertEquals(TODAY.plusDays(7).toEpochDay(), journal.openLoan(1_001L).dueDay());
+      assertEquals(4, journal.unprojected().size());
+      assertEquals(1_003L, journal.checkout(1L, 13L, TODAY, 14).get().loanId());
+    }
+  }
+
+  @Test
+  void checkoutsStopAtTheMembersRoomAcrossRestarts() throws Exception {
+    long first;
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 5)),
+        events -> { })) {
+      first = journal.checkout(1L, 10L, TODAY, 14, 2).get().loanId();
+      journal.checkout(1L, 10L, TODAY, 14, 2).get();
+      assertNull(journal.checkout(1L, 10L, TODAY, 14, 2));
+      assertNotNull(journal.checkout(1L, 11L, TODAY, 14, 2).get());
+      assertEquals(2, journal.available(1L));
+    }
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, NO_SEED, events -> { })) {
+      assertNull(journal.checkout(1L, 10L, TODAY, 14, 2));
+      journal.returnLoan(first, TODAY.plusDays(1)).get();
+      assertNotNull(journal.checkout(1L, 10L, TODAY, 14, 2).get());
+      assertNull(journal.checkout(1L, 10L, TODAY, 14, 2));
+    }
+  }
+
+  @Test
+  void aTornLastEntryIsCutOffWhereverTheCrashHit() throws Exception {
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 5)),
+        events -> { })) {
+      for (int i = 0; i < 3; i++) {
+        journal.checkout(1L, 10L + i, TODAY, 14).get();
+      }
+    }
+    Path segment = onlySegment(dir);
+    byte[] intact = Files.readAllBytes(segment);
+    int entry = intact.length / 3;
+    for (int cut = intact.length - entry; cut < intact.length; cut++) {
+      Path copy = Files.createDirectory(dir.resolve("cut-" + cut));
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path file : files.filter(Files::isRegularFile).toList()) {
+          Files.copy(file, copy.resolve(file.getFileName()));
+        }
+      }
+      try (FileChannel channel = FileChannel.open(copy.resolve(segment.getFileName()),
+          StandardOpenOption.WRITE)) {
+        channel.truncate(cut);
+      }
+      try (InventoryJournal journal = new InventoryJournal(copy, 1_000, NO_SEED, events -> { })) {
+        assertEquals(2, journal.durableSequence(), "cut at byte " + cut);
+        assertEquals(3, journal.available(1L), "cut at byte " + cut);
+        assertNull(journal.openLoan(1_002L));
+        // The log continues right after the last whole entry.
+        assertEquals(3, journal.checkout(1L, 20L, TODAY, 14).get().seq());
+      }
+      try (InventoryJournal journal = new InventoryJournal(copy, 1_000, NO_SEED, events -> { })) {
+        assertEquals(3, journal.durableSequence());
+        assertEquals(2, journal.available(1L));
+      }
+    }
+  }
+
+  @Test
+  void aCorruptedLastEntryIsDropped() throws Exception {
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 5)),
+        events -> { })) {
+      journal.checkout(1L, 10L, TODAY, 14).get();
+      journal.checkout(1L, 11L, TODAY, 14).get();
+    }
+    Path segment = onlySegment(dir);
+    byte[] bytes = Files.readAllBytes(segment);
+    bytes[bytes.length - 5] ^= 0x40;
+    Files.write(segment, bytes);
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, NO_SEED, events -> { })) {
+      assertEquals(1, journal.durableSequence());
+      assertEquals(4, journal.available(1L));
+    }
+  }
+
+  @Test
+  void snapshotsCompactTheProjectedLog() throws Exception {
+    try (InventoryJournal journal = new InventoryJournal(dir, 10, seed(Map.of(1L, 100)),
+        events -> { })) {
+      List<CompletableFuture<InventoryEvent>> loans = new ArrayList<>();
+      for (int i = 0; i < 45; i++) {
+        loans.add(journal.checkout(1L, 10L, TODAY, 14));
+        journal.projected(i);
+      }
+      for (int i = 0; i < 20; i++) {
+        journal.returnLoan(loans.get(i).get().loanId(), TODAY).get();
+        journal.projected(45 + i);
+      }
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+      assertEquals(1, names.stream().filter(n -> n.startsWith("snapshot-")).count(), names.toString());
+      assertTrue(names.stream().filter(n -> n.endsWith(".log")).count() <= 2, names.toString());
+    }
+    try (InventoryJournal journal = new InventoryJournal(dir, 10, NO_SEED, events -> { })) {
+      assertEquals(65, journal.durableSequence());
+      assertEquals(75, journal.available(1L));
+      assertNull(journal.openLoan(1_000L));
+      assertNotNull(journal.openLoan(1_044L));
+      assertTrue(journal.unprojected().size() < 20, "Projected entries are not replayed");
+    }
+  }
+
+  @Test
+  void anUnreadableSnapshotFallsBackToTheLog() throws Exception {
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 3)),
+        events -> { })) {
+      journal.checkout(1L, 10L, TODAY, 14).get();
+    }
+    Path snapshot;
+    try (Stream<Path> files = Files.list(dir)) {
+      snapshot = files.filter(p -> p.getFileName().toString().startsWith("snapshot-"))
+          .findFirst().orElseThrow();
+    }
+    Files.write(snapshot, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, NO_SEED, events -> { })) {
+      // The seed snapshot is gone, so only what the log says about the book is known.
+      assertEquals(1, journal.durableSequence());
+      assertEquals(2, journal.available(1L));
+    }
+  }
+
+  @Test
+  void anErrorStopsTheJournalInsteadOfStrandingCallers() throws Exception {
+    try (InventoryJournal journal = new InventoryJournal(dir, 1_000, seed(Map.of(1L, 3)),
+        events -> {
+          throw new StackOverflowError();
+        })) {
+      journal.checkout(1L, 10L, TODAY, 14).get(5, TimeUnit.SECONDS);
+      // Refused up front, or failed by the writer on its way out; never left waiting.
+      Exception refused = assertThrows(Exception.class,
+          () -> journal.checkout(1L, 11L, TODAY, 14).get(5, TimeUnit.SECONDS));
+      assertFalse(refused instanceof TimeoutException, "caller was left waiting");
+    }
+  }
+
+  static Supplier<InventoryState> seed(Map<Long, Integer> copies) {
+    return () -> {
+      InventoryState state = new InventoryState();
+      state.available.putAll(copies);
+      state.nextLoanId = 1_000;
+      return state;
+    };
+  }
+
+  private static Path onlySegment(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      List<Path> segments = files.filter(p -> p.getFileName().toString().endsWith(".log")).toList();
+      assertEquals(1, segments.size());
+      return segments.getFirst();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kills a process in the middle of writing the journal and checks that recovery keeps every
+ * acknowledged decision and that the recovered copy counts agree exactly with the recovered
+ * loans. The child process is {@link #main}; it prints the ID of each loan once its checkout
+ * is acknowledged, and of each return both before it starts and once it is acknowledged.
+ */
+class JournalCrashTest {
+
+  private static final int COPIES = 1_000_000;
+  private static final int BOOKS = 4;
+
+  @TempDir
+  private Path dir;
+
+  @Test
+  void recoveryAfterKillKeepsEveryAcknowledgedDecision() throws Exception {
+    for (int round = 0; round < 3; round++) {
+      Set<Long> checkedOut = new HashSet<>();
+      Set<Long> returning = new HashSet<>();
+      Set<Long> returned = new HashSet<>();
+      Process child = new ProcessBuilder(
+          Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+          "-cp", System.getProperty("java.class.path"),
+          JournalCrashTest.class.getName(), dir.toString())
+          .redirectError(ProcessBuilder.Redirect.DISCARD)
+          .start();
+      try (BufferedReader out = new BufferedReader(
+          new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        // Let the child run well into the log, then kill it without warning.
+        while (checkedOut.size() < 3_000 && (line = out.readLine()) != null) {
+          note(line, checkedOut, returning, returned);
+        }
+        // Signal through the handle: Process.destroyForcibly would also close our end of the pipe.
+        child.toHandle().destroyForcibly();
+        // The child kept going until the kill; what it printed meanwhile is still in the pipe.
+        while ((line = out.readLine()) != null) {
+          note(line, checkedOut, returning, returned);
+        }
+        child.waitFor();
+      }
+      assertTrue(checkedOut.size() >= 3_000, "The child stopped early in round " + round);
+
+      try (InventoryJournal journal = new InventoryJournal(dir, 500,
+          () -> { throw new AssertionError("Recovered journals are not seeded"); },
+          events -> { })) {
+        for (long loanId : checkedOut) {
+          // A return that was started may have reached the disk without being acknowledged.
+          if (!returning.contains(loanId)) {
+            assertNotNull(journal.openLoan(loanId), "Acknowledged loan " + loanId + " was lost");
+          }
+        }
+        for (long loanId : returned) {
+          assertNull(journal.openLoan(loanId), "Acknowledged return " + loanId + " was lost");
+        }
+        InventoryState state = journal.state();
+        for (long book = 1; book <= BOOKS; book++) {
+          long bookId = book;
+          long open = state.loans.values().stream().filter(l -> l.bookId() == bookId).count();
+          assertEquals(COPIES - open, (long) journal.available(bookId), "Book " + bookId);
+        }
+      }
+    }
+  }
+
+  private static void note(String line, Set<Long> checkedOut, Set<Long> returning,
+      Set<Long> returned) {
+    if (line.startsWith("out ")) {
+      checkedOut.add(Long.parseLong(line.substring(4)));
+    } else if (line.startsWith("returning ")) {
+      returning.add(Long.parseLong(line.substring(10)));
+    } else if (line.startsWith("back ")) {
+      returned.add(Long.parseLong(line.substring(5)));
+    }
+  }
+
+  /**
+   * Child process: opens the journal in the given directory and checks books out and in from
+   * several threads until it is killed.
+   */
+  public static void main(String[] args) throws Exception {
+    PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+    System.setOut(new PrintStream(PrintStream.nullOutputStream()));
+    Map<Long, Integer> copies = new HashMap<>();
+    for (long book = 1; book <= BOOKS; book++) {
+      copies.put(book, COPIES);
+    }
+    InventoryJournal journal = new InventoryJournal(Path.of(args[0]), 500,
+        InventoryJournalTest.seed(copies), events -> { });
+    try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+      for (int t = 0; t < 8; t++) {
+        pool.execute(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          LocalDate today = LocalDate.of(2024, 5, 1);
+          while (true) {
+            long bookId = 1 + random.nextInt(BOOKS);
+            InventoryEvent loan = journal.checkout(bookId, 7L, today, 14).join();
+            synchronized (out) {
+              out.println("out " + loan.loanId());
+            }
+            if (random.nextInt(3) == 0) {
+              synchronized (out) {
+                out.println("returning " + loan.loanId());
+              }
+              journal.returnLoan(loan.loanId(), today).join();
+              synchronized (out) {
+                out.println("back " + loan.loanId());
+              }
+            }
+          }
+        });
+      }
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.JournaledLoanService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.abhiesa.hellowithcopilot.library.support.Futures;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "library.inventory.engine=journal",
+    "library.inventory.journal.snapshot-every=16",
+    "library.inventory.journal.loan-id-base=5000000",
+    "library.loans.max-active=6"
+})
+@AutoConfigureMockMvc
+class JournaledInventoryTest {
+
+  private static final Duration WAIT = Duration.ofSeconds(10);
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @DynamicPropertySource
+  static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+    Path dir = Files.createTempDirectory("inventory-journal");
+    registry.add("library.inventory.journal.directory", dir::toString);
+  }
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private JournaledInventory inventory;
+
+  @Autowired
+  private JournaledLoanService journaledLoans;
+
+  @Autowired
+  private ActiveLoanCounters counters;
+
+  @Test
+  void decisionsComeFromTheJournalAndReachTheTables() throws Exception {
+    Book scarce = book(5);
+    Member member = member();
+
+    List<CompletableFuture<Loan>> attempts = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      attempts.add(journaledLoans.checkout(scarce.getId(), member.getId(), 14));
+    }
+    List<Loan> granted = new ArrayList<>();
+    for (CompletableFuture<Loan> attempt : attempts) {
+      try {
+        granted.add(attempt.get());
+      } catch (ExecutionException e) {
+        assertInstanceOf(BusinessException.class, e.getCause());
+      }
+    }
+    assertEquals(5, granted.size());
+    assertTrue(granted.stream().allMatch(l -> l.getId() >= 5_000_000L));
+
+    awaitProjection();
+    assertEquals(0, bookService.get(scarce.getId()).getAvailableCopies());
+    List<Loan> stored = loanRepository.findByMemberId(member.getId());
+    assertEquals(5, stored.size());
+    assertTrue(stored.stream().allMatch(l -> l.getStatus() == LoanStatus.ACTIVE
+        && l.getDueDate().equals(LocalDate.now().plusDays(14))));
+
+    Loan back = Futures.await(journaledLoans.returnLoan(granted.getFirst().getId()), WAIT);
+    assertEquals(LoanStatus.RETURNED, back.getStatus());
+    // Decided by the journal, so a second return fails even before the projection catches up.
+    assertThrows(BusinessException.class,
+        () -> journaledLoans.returnLoan(granted.getFirst().getId()));
+    awaitProjection();
+    assertEquals(1, bookService.get(scarce.getId()).getAvailableCopies());
+    assertEquals(LoanStatus.RETURNED,
+        loanRepository.findById(granted.getFirst().getId()).orElseThrow().getStatus());
+  }
+
+  @Test
+  void theJournalHoldsTheLoanLimitUnderConcurrentCheckouts() throws Exception {
+    Book book = book(20);
+    Member member = member();
+
+    List<CompletableFuture<Loan>> attempts = new ArrayList<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(15)) {
+      List<Future<CompletableFuture<Loan>>> submitted = new ArrayList<>();
+      for (int i = 0; i < 15; i++) {
+        submitted.add(pool.submit(() -> inventory.checkout(book.getId(), member.getId(), 14)));
+      }
+      for (Future<CompletableFuture<Loan>> s : submitted) {
+        attempts.add(s.get());
+      }
+    }
+    int granted = 0;
+    for (CompletableFuture<Loan> attempt : attempts) {
+      try {
+        attempt.get();
+        granted++;
+      } catch (ExecutionException e) {
+        assertInstanceOf(BusinessException.class, e.getCause());
+      }
+    }
+    assertEquals(6, granted);
+    awaitProjection();
+    assertEquals(6, counters.activeLoans(member.getId()));
+    assertEquals(14, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  @Test
+  void booksAddedLaterAndEditedCountsReachTheJournal() throws Exception {
+    Book book = book(1);
+    Member member = member();
+    assertNotNull(journaledLoans.checkout(book.getId(), member.getId(), 7).get());
+    awaitProjection();
+
+    Book edited = bookService.get(book.getId());
+    edited.setTotalCopies(4);
+    edited.setAvailableCopies(3);
+    bookService.update(edited);
+    awaitProjection();
+    assertEquals(3, bookService.get(book.getId()).getAvailableCopies());
+    for (int i = 0; i < 3; i++) {
+      journaledLoans.checkout(book.getId(), member.getId(), 7).get();
+    }
+    ExecutionException none = assertThrows(ExecutionException.class,
+        () -> journaledLoans.checkout(book.getId(), member.getId(), 7).get());
+    assertInstanceOf(BusinessException.class, none.getCause());
+    assertThrows(NotFoundException.class,
+        () -> journaledLoans.checkout(999_999_999L, member.getId(), 7));
+    assertThrows(NotFoundException.class, () -> journaledLoans.returnLoan(999_999_999L));
+  }
+
+  @Test
+  void bulkReturnsGoThroughTheJournal() throws Exception {
+    Book book = book(2);
+    Member member = member();
+    Loan first = journaledLoans.checkout(book.getId(), member.getId(), 14).get();
+    Loan second = journaledLoans.checkout(book.getId(), member.getId(), 14).get();
+    awaitProjection();
+
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"loanId\":" + first.getId() + "},{\"loanId\":" + second.getId()
+                + "},{\"loanId\":" + first.getId() + "}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(2))
+        .andExpect(jsonPath("$.items[2].outcome").value("DUPLICATE"));
+    // The journal saw the bulk return, so the loan cannot be returned a second time.
+    mockMvc.perform(post("/api/loans/" + first.getId() + "/return"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"loanId\":" + second.getId() + "}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(0))
+        .andExpect(jsonPath("$.items[0].outcome").value("NOT_ACTIVE"));
+
+    awaitProjection();
+    assertEquals(2, bookService.get(book.getId()).getAvailableCopies());
+    assertEquals(0, counters.activeLoans(member.getId()));
+    assertEquals(LoanStatus.RETURNED,
+        loanRepository.findById(first.getId()).orElseThrow().getStatus());
+    for (int i = 0; i < 2; i++) {
+      journaledLoans.checkout(book.getId(), member.getId(), 14).get();
+    }
+    ExecutionException none = assertThrows(ExecutionException.class,
+        () -> journaledLoans.checkout(book.getId(), member.getId(), 14).get());
+    assertInstanceOf(BusinessException.class, none.getCause());
+  }
+
+  @Test
+  void endpointsUseTheJournal() throws Exception {
+    Book book = book(1);
+    Member member = member();
+    String body = "{\"bookId\":" + book.getId() + ",\"memberId\":" + member.getId() + "}";
+
+    String created = mockMvc.perform(post("/api/loans/checkout")
+            .contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.bookId").value(book.getId()))
+        .andReturn().getResponse().getContentAsString();
+    mockMvc.perform(post("/api/loans/checkout").contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isBadRequest());
+    long loanId = Long.parseLong(created.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    mockMvc.perform(post("/api/loans/" + loanId + "/return"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("RETURNED"));
+    awaitProjection();
+    assertEquals(1, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  private void awaitProjection() throws InterruptedException {
+    long target = inventory.committedSequence();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (inventory.projectedSequence() < target) {
+      assertTrue(System.nanoTime() < deadline, "Projection did not catch up");
+      Thread.sleep(10);
+    }
+  }
+
+  private Book book(int copies) {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Journaled", "Inventory");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = new Book();
+    book.setTitle("Journaled Inventory " + copies);
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.SCIENCE);
+    book.setIsbn(String.format("9780013%06d", KEYS.incrementAndGet()));
+    book.setTotalCopies(copies);
+    book.setAvailableCopies(copies);
+    book.setPublishedDate(LocalDate.of(2020, 1, 1));
+    return bookService.create(book);
+  }
+
+  private Member member() {
+    Member member = new Member();
+    member.setMemberId("JOURNAL-" + KEYS.incrementAndGet());
+    member.setName("Journal Member");
+    member.setJoined(LocalDate.of(2021, 1, 1));
+    return memberService.create(member);
+  }
+}
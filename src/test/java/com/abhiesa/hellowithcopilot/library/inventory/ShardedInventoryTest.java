@@ -0,0 +1,258 @@
+package com.abhiesa.hellowithcopilot.library.inventory;
+
+import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import com.abhiesa.hellowithcopilot.library.service.MemberService;
+import com.abhiesa.hellowithcopilot.library.service.ShardedLoanService;
+import com.abhiesa.hellowithcopilot.library.support.Futures;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "library.inventory.engine=sharded",
+    "library.inventory.shards=2",
+    "library.inventory.ring-capacity=16"
+})
+@AutoConfigureMockMvc
+class ShardedInventoryTest {
+
+  private static final Duration WAIT = Duration.ofSeconds(10);
+
+  private static final AtomicInteger KEYS = new AtomicInteger();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private MemberService memberService;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private ShardedInventory inventory;
+
+  @Autowired
+  private ShardedLoanService shardedLoans;
+
+  @Test
+  void failedGiveBacksAreRetriedUntilStored() throws Exception {
+    BookRepository repository = Mockito.mock(BookRepository.class);
+    Book stored = new Book();
+    stored.setId(7L);
+    stored.setTotalCopies(2);
+    stored.setAvailableCopies(0);
+    Mockito.when(repository.findAvailableCopies(ArgumentMatchers.any()))
+        .thenReturn(List.<Object[]>of(new Object[] {7L, 0}));
+    Mockito.when(repository.findAllById(ArgumentMatchers.any()))
+        .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+        .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+        .thenReturn(List.of(stored));
+    ShardedInventory flaky = new ShardedInventory(repository,
+        Mockito.mock(PlatformTransactionManager.class), "sharded", 1, 16, 16);
+    try {
+      assertTrue(flaky.giveBack(7L, 2).get(10, TimeUnit.SECONDS));
+      assertEquals(2, stored.getAvailableCopies());
+      Mockito.verify(repository, Mockito.times(3)).findAllById(ArgumentMatchers.any());
+    } finally {
+      flaky.shutdown();
+    }
+  }
+
+  @Test
+  void errorsFailTheBatchAndTheWriterCarriesOn() throws Exception {
+    BookRepository repository = Mockito.mock(BookRepository.class);
+    Mockito.when(repository.findAvailableCopies(ArgumentMatchers.any()))
+        .thenThrow(new StackOverflowError())
+        .thenReturn(List.<Object[]>of(new Object[] {7L, 1}));
+    Book stored = new Book();
+    stored.setId(7L);
+    stored.setTotalCopies(1);
+    Mockito.when(repository.findAllById(ArgumentMatchers.any())).thenReturn(List.of(stored));
+    ShardedInventory failing = new ShardedInventory(repository,
+        Mockito.mock(PlatformTransactionManager.class), "sharded", 1, 16, 16);
+    try {
+      ExecutionException failed = assertThrows(ExecutionException.class,
+          () -> failing.take(7L).get(10, TimeUnit.SECONDS));
+      assertInstanceOf(StackOverflowError.class, failed.getCause());
+      assertTrue(failing.take(7L).get(10, TimeUnit.SECONDS));
+      assertEquals(0, stored.getAvailableCopies());
+    } finally {
+      failing.shutdown();
+    }
+  }
+
+  @Test
+  void waitsForTheInventoryAreBounded() {
+    IllegalStateException timedOut = assertThrows(IllegalStateException.class,
+        () -> Futures.await(new CompletableFuture<>(), Duration.ofMillis(50)));
+    assertInstanceOf(TimeoutException.class, timedOut.getCause());
+  }
+
+  @Test
+  void concurrentCheckoutsNeverOversellAndReturnsRestock() throws Exception {
+    Book scarce = book(5);
+    Book plenty = book(100);
+    Member member = member();
+
+    List<CompletableFuture<Loan>> scarceLoans = new ArrayList<>();
+    List<CompletableFuture<Loan>> plentyLoans = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      scarceLoans.add(shardedLoans.checkout(scarce.getId(), member.getId(), 14));
+      plentyLoans.add(shardedLoans.checkout(plenty.getId(), member.getId(), 14));
+    }
+    List<Loan> granted = new ArrayList<>();
+    int rejected = 0;
+    for (CompletableFuture<Loan> future : scarceLoans) {
+      try {
+        granted.add(future.get());
+      } catch (ExecutionException e) {
+        assertInstanceOf(BusinessException.class, e.getCause());
+        rejected++;
+      }
+    }
+    for (CompletableFuture<Loan> future : plentyLoans) {
+      assertEquals(LocalDate.now().plusDays(14), future.get().getDueDate());
+    }
+    assertEquals(5, granted.size());
+    assertEquals(35, rejected);
+    assertEquals(0, bookService.get(scarce.getId()).getAvailableCopies());
+    assertEquals(60, bookService.get(plenty.getId()).getAvailableCopies());
+    assertEquals(45, loanRepository.findByMemberId(member.getId()).size());
+
+    for (Loan loan : granted) {
+      Loan returned = Futures.await(shardedLoans.returnLoan(loan.getId()), WAIT);
+      assertEquals(LoanStatus.RETURNED, returned.getStatus());
+    }
+    assertEquals(5, bookService.get(scarce.getId()).getAvailableCopies());
+    assertThrows(BusinessException.class,
+        () -> shardedLoans.returnLoan(granted.get(0).getId()));
+  }
+
+  @Test
+  void unknownBooksFailAndRestockedCountsReplaceTheShards() throws Exception {
+    Book book = book(2);
+    ExecutionException unknown = assertThrows(ExecutionException.class,
+        () -> inventory.take(999_999_999L).get());
+    assertInstanceOf(NotFoundException.class, unknown.getCause());
+
+    assertTrue(inventory.take(book.getId()).get());
+    // A count decided outside the shard replaces the one it holds, and is stored.
+    inventory.restock(book.getId(), 0).get();
+    assertEquals(0, bookService.get(book.getId()).getAvailableCopies());
+    assertFalse(inventory.take(book.getId()).get());
+  }
+
+  @Test
+  void bulkReturnsAndEditsAreNotOverwrittenByTheShard() throws Exception {
+    Book book = book(2);
+    Member member = member();
+    Loan first = Futures.await(shardedLoans.checkout(book.getId(), member.getId(), 14), WAIT);
+    Loan second = Futures.await(shardedLoans.checkout(book.getId(), member.getId(), 14), WAIT);
+
+    mockMvc.perform(post("/api/loans/returns")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"loanId\":" + first.getId() + "},{\"loanId\":" + second.getId() + "}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.returned").value(2));
+    // The shard holds the count it had before the returns; it must have been given the copies.
+    Futures.await(shardedLoans.checkout(book.getId(), member.getId(), 14), WAIT);
+    assertEquals(1, bookService.get(book.getId()).getAvailableCopies());
+
+    Book edited = bookService.get(book.getId());
+    edited.setTotalCopies(5);
+    edited.setAvailableCopies(4);
+    bookService.update(edited);
+    for (int i = 0; i < 4; i++) {
+      Futures.await(shardedLoans.checkout(book.getId(), member.getId(), 14), WAIT);
+    }
+    assertThrows(BusinessException.class,
+        () -> Futures.await(shardedLoans.checkout(book.getId(), member.getId(), 14), WAIT));
+    assertEquals(0, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  @Test
+  void endpointsUseTheShardedInventory() throws Exception {
+    Book book = book(1);
+    Member member = member();
+    String body = "{\"bookId\":" + book.getId() + ",\"memberId\":" + member.getId() + "}";
+
+    String created = mockMvc.perform(post("/api/loans/checkout")
+            .contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.bookId").value(book.getId()))
+        .andReturn().getResponse().getContentAsString();
+    mockMvc.perform(post("/api/loans/checkout").contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isBadRequest());
+    long loanId = Long.parseLong(created.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    mockMvc.perform(post("/api/loans/" + loanId + "/return"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("RETURNED"));
+    assertEquals(1, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  private Book book(int copies) {
+    Author author = tx.execute(status -> {
+      Author a = new Author(null, "Sharded", "Inventory");
+      entityManager.persist(a);
+      return a;
+    });
+    Book book = new Book();
+    book.setTitle("Sharded Inventory " + copies);
+    book.setAuthors(List.of(author));
+    book.setCategory(Category.SCIENCE);
+    book.setIsbn(String.format("9780011%06d", KEYS.incrementAndGet()));
+    book.setTotalCopies(copies);
+    book.setAvailableCopies(copies);
+    book.setPublishedDate(LocalDate.of(2019, 1, 1));
+    return bookService.create(book);
+  }
+
+  private Member member() {
+    Member member = new Member();
+    member.setMemberId("SHARD-" + KEYS.incrementAndGet());
+    member.setName("Shard Member");
+    member.setJoined(LocalDate.of(2021, 1, 1));
+    return memberService.create(member);
+  }
+}
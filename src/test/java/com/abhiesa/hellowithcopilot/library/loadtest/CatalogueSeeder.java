@@ -0,0 +1,112 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Seeds a synthetic catalogue straight through JPA, in batches, before the load starts.
+ */
+final class CatalogueSeeder {
+
+  private static final int BATCH = 1_000;
+
+  private final EntityManager entityManager;
+  private final TransactionTemplate tx;
+  private final Random random = new Random(42);
+
+  CatalogueSeeder(EntityManager entityManager, TransactionTemplate tx) {
+    this.entityManager = entityManager;
+    this.tx = tx;
+  }
+
+  /**
+   * Keys of the seeded rows. Lists are shuffled so that popularity rank is unrelated to ID order.
+   */
+  record Catalogue(List<Long> bookIds, List<String> isbns, List<Long> memberIds) {
+  }
+
+  Catalogue seed(LoadSettings settings) {
+    List<Author> authors = new ArrayList<>(settings.authors());
+    tx.executeWithoutResult(status -> {
+      for (int i = 0; i < settings.authors(); i++) {
+        Author author = new Author(null, "Author", "Number" + i);
+        entityManager.persist(author);
+        authors.add(author);
+      }
+    });
+
+    Category[] categories = Category.values();
+    List<Long> bookIds = new ArrayList<>(settings.books());
+    List<String> isbns = new ArrayList<>(settings.books());
+    for (int start = 0; start < settings.books(); start += BATCH) {
+      int from = start;
+      int to = Math.min(settings.books(), start + BATCH);
+      tx.executeWithoutResult(status -> {
+        List<Book> batch = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+          Book book = new Book();
+          book.setTitle("Load Test Volume " + i);
+          Author first = entityManager.getReference(Author.class,
+              authors.get(random.nextInt(authors.size())).getId());
+          book.setAuthors(List.of(first));
+          book.setCategory(categories[i % categories.length]);
+          book.setIsbn(String.format("979%010d", i));
+          book.setTotalCopies(1 + random.nextInt(5));
+          book.setAvailableCopies(book.getTotalCopies());
+          book.setPublishedDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+          entityManager.persist(book);
+          batch.add(book);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        for (Book book : batch) {
+          bookIds.add(book.getId());
+          isbns.add(book.getIsbn());
+        }
+      });
+    }
+
+    List<Long> memberIds = new ArrayList<>(settings.members());
+    for (int start = 0; start < settings.members(); start += BATCH) {
+      int from = start;
+      int to = Math.min(settings.members(), start + BATCH);
+      tx.executeWithoutResult(status -> {
+        for (int i = from; i < to; i++) {
+          Member member = new Member();
+          member.setMemberId(String.format("LT-%07d", i));
+          member.setName("Load Member " + i);
+          member.setEmail("member" + i + "@example.org");
+          member.setJoined(LocalDate.of(2020, 1, 1));
+          entityManager.persist(member);
+          memberIds.add(member.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+      });
+    }
+
+    // Shuffle books and ISBNs with the same permutation so rank k maps to one book in both lists.
+    List<Integer> order = new ArrayList<>(bookIds.size());
+    for (int i = 0; i < bookIds.size(); i++) {
+      order.add(i);
+    }
+    Collections.shuffle(order, random);
+    List<Long> shuffledIds = new ArrayList<>(bookIds.size());
+    List<String> shuffledIsbns = new ArrayList<>(bookIds.size());
+    for (int i : order) {
+      shuffledIds.add(bookIds.get(i));
+      shuffledIsbns.add(isbns.get(i));
+    }
+    Collections.shuffle(memberIds, random);
+    return new Catalogue(shuffledIds, shuffledIsbns, memberIds);
+  }
+}
@@ -0,0 +1,60 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import jakarta.persistence.EntityManager;
+import java.net.URI;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the application on a random port with an in-memory database, seeds a catalogue and
+ * drives the traffic mix described by {@link LoadSettings}. Run with {@code mvn test -Ploadtest};
+ * the report is printed and written to {@code target/loadtest}.
+ * The startup warm-up is off in tests; to compare first-minute latency with and without it, run
+ * {@code -Dloadtest.warmup=PT0S -Dloadtest.duration=PT1M} once as is and once with
+ * {@code -Dlibrary.warmup.enabled=true}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.root=WARN",
+    "logging.level.com.abhiesa.hellowithcopilot=WARN"
+})
+class LibraryLoadTest {
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private NaturalKeyFilters keyFilters;
+
+  @Test
+  void libraryTrafficMix() throws Exception {
+    LoadSettings settings = LoadSettings.fromSystemProperties();
+    CatalogueSeeder.Catalogue catalogue = new CatalogueSeeder(entityManager, tx).seed(settings);
+    keyFilters.rebuildIsbns();
+    keyFilters.rebuildMemberIds();
+
+    LoadGenerator generator =
+        new LoadGenerator(URI.create("http://localhost:" + port), settings, catalogue);
+    LoadGenerator.Report report = generator.run();
+    report.print(System.out);
+    report.write(Path.of("target", "loadtest"));
+
+    assertTrue(report.completed() > 0, "No requests completed");
+    assertTrue(report.failed() <= report.completed() / 100,
+        "More than 1% of requests failed: " + report.failed());
+  }
+}
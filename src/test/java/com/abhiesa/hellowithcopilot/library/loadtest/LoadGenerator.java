@@ -0,0 +1,236 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Open-loop load generator. Requests are issued on a Poisson arrival schedule that does not wait
+ * for earlier responses, each on its own virtual thread. Latency is measured from the intended
+ * start time, so a stalled server shows up in the percentiles instead of silently lowering the
+ * request rate (coordinated omission).
+ */
+final class LoadGenerator {
+
+  private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final URI base;
+  private final LoadSettings settings;
+  private final CatalogueSeeder.Catalogue catalogue;
+  private final ZipfSampler books;
+  private final ZipfSampler members;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final HttpClient client;
+  private final ObjectMapper json = new ObjectMapper();
+  private final ConcurrentLinkedQueue<Long> activeLoans = new ConcurrentLinkedQueue<>();
+  private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> failed = new EnumMap<>(Operation.class);
+  private volatile long measureFrom;
+
+  LoadGenerator(URI base, LoadSettings settings, CatalogueSeeder.Catalogue catalogue) {
+    this.base = base;
+    this.settings = settings;
+    this.catalogue = catalogue;
+    this.books = new ZipfSampler(catalogue.bookIds().size(), settings.zipfExponent());
+    this.members = new ZipfSampler(catalogue.memberIds().size(), settings.zipfExponent());
+    this.operations = settings.mix().keySet().toArray(new Operation[0]);
+    this.cumulativeWeights = new int[operations.length];
+    int sum = 0;
+    for (int i = 0; i < operations.length; i++) {
+      sum += settings.mix().get(operations[i]);
+      cumulativeWeights[i] = sum;
+    }
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+    for (Operation op : Operation.values()) {
+      latencies.put(op, new Recorder(MAX_LATENCY_MICROS, 3));
+      rejected.put(op, new LongAdder());
+      failed.put(op, new LongAdder());
+    }
+  }
+
+  /**
+   * Latency histogram and outcome counts of one operation over the measured interval.
+   */
+  record Result(Operation operation, Histogram latencyMicros, long rejected, long failed) {
+  }
+
+  /**
+   * Summary of a run.
+   */
+  record Report(Map<Operation, Result> results, Duration measured, long issued) {
+
+    long completed() {
+      return results.values().stream().mapToLong(r -> r.latencyMicros().getTotalCount()).sum();
+    }
+
+    long failed() {
+      return results.values().stream().mapToLong(Result::failed).sum();
+    }
+
+    void print(PrintStream out) {
+      out.printf("%-13s %9s %9s %9s %9s %9s %9s %9s %8s %7s%n", "operation", "count", "mean ms",
+          "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "rejected", "failed");
+      for (Result r : results.values()) {
+        Histogram h = r.latencyMicros();
+        out.printf("%-13s %9d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %7d%n",
+            r.operation().label(), h.getTotalCount(), h.getMean() / 1000.0,
+            h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+            h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+            h.getMaxValue() / 1000.0, r.rejected(), r.failed());
+      }
+      out.printf("issued %d, completed %d in %s (%.1f ops/s)%n", issued, completed(), measured,
+          completed() / (measured.toMillis() / 1000.0));
+    }
+
+    /**
+     * Writes the summary and one HdrHistogram percentile distribution file per operation, which
+     * can be plotted with the HdrHistogram plotter.
+     */
+    void write(Path dir) throws IOException {
+      Files.createDirectories(dir);
+      try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("summary.txt")))) {
+        print(out);
+      }
+      for (Result r : results.values()) {
+        try (PrintStream out = new PrintStream(
+            Files.newOutputStream(dir.resolve(r.operation().label() + ".hgrm")))) {
+          r.latencyMicros().outputPercentileDistribution(out, 1000.0);
+        }
+      }
+    }
+  }
+
+  Report run() throws InterruptedException {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.ratePerSecond());
+    long start = System.nanoTime();
+    measureFrom = start + settings.warmup().toNanos();
+    long end = measureFrom + settings.duration().toNanos();
+    long issued = 0;
+    try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+      long intended = start;
+      while (intended < end) {
+        long wait = intended - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long scheduled = intended;
+        Operation op = pickOperation();
+        workers.execute(() -> execute(op, scheduled));
+        if (scheduled >= measureFrom) {
+          issued++;
+        }
+        // Exponential inter-arrival times give a Poisson process at the target rate.
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+        intended += (long) (-Math.log(u) * intervalNanos);
+      }
+      workers.shutdown();
+      workers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    Map<Operation, Result> results = new EnumMap<>(Operation.class);
+    for (Operation op : operations) {
+      results.put(op, new Result(op, latencies.get(op).getIntervalHistogram(),
+          rejected.get(op).sum(), failed.get(op).sum()));
+    }
+    return new Report(results, settings.duration(), issued);
+  }
+
+  private Operation pickOperation() {
+    int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (r < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  private void execute(Operation op, long intendedNanos) {
+    Long loanToReturn = null;
+    if (op == Operation.RETURN) {
+      loanToReturn = activeLoans.poll();
+      if (loanToReturn == null) {
+        op = Operation.CHECKOUT;
+      }
+    }
+    HttpRequest request = switch (op) {
+      case BROWSE -> get("/api/books");
+      case GET -> get("/api/books/" + catalogue.bookIds().get(books.next()));
+      case ISBN -> get("/api/books/isbn/" + catalogue.isbns().get(books.next()));
+      case CHECKOUT -> post("/api/loans/checkout", "{\"bookId\":"
+          + catalogue.bookIds().get(books.next()) + ",\"memberId\":"
+          + catalogue.memberIds().get(members.next()) + ",\"days\":14}");
+      case RETURN -> post("/api/loans/" + loanToReturn + "/return", "");
+      case MEMBER_LOANS ->
+          get("/api/loans/member/" + catalogue.memberIds().get(members.next()) + "/expanded");
+    };
+    // Requests issued during warm-up still run, so checkouts feed returns, but are not recorded.
+    boolean measured = intendedNanos >= measureFrom;
+    try {
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      long micros = (System.nanoTime() - intendedNanos) / 1_000;
+      int status = response.statusCode();
+      if (measured) {
+        latencies.get(op).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+        if (status >= 500) {
+          failed.get(op).increment();
+        } else if (status >= 400) {
+          rejected.get(op).increment();
+        }
+      }
+      if (status < 300 && op == Operation.CHECKOUT) {
+        JsonNode id = json.readTree(response.body()).get("id");
+        if (id != null) {
+          activeLoans.add(id.asLong());
+        }
+      }
+    } catch (IOException e) {
+      if (measured) {
+        failed.get(op).increment();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(base.resolve(path))
+        .header("Accept", "application/json")
+        .timeout(Duration.ofSeconds(30))
+        .GET()
+        .build();
+  }
+
+  private HttpRequest post(String path, String body) {
+    return HttpRequest.newBuilder(base.resolve(path))
+        .header("Accept", "application/json")
+        .header("Content-Type", "application/json")
+        .timeout(Duration.ofSeconds(30))
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
@@ -0,0 +1,58 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test knobs, read from system properties so they can be set on the Maven command line,
+ * for example {@code mvn test -Ploadtest -Dloadtest.rate=2000 -Dloadtest.duration=PT2M}.
+ *
+ * @param books number of seeded books
+ * @param authors number of seeded authors
+ * @param members number of seeded members
+ * @param ratePerSecond target arrival rate, independent of how fast the server answers
+ * @param warmup time to drive load before recording starts
+ * @param duration recorded measurement time
+ * @param zipfExponent popularity skew of books and members
+ * @param mix relative weight of each operation
+ */
+record LoadSettings(int books, int authors, int members, int ratePerSecond, Duration warmup,
+    Duration duration, double zipfExponent, Map<Operation, Integer> mix) {
+
+  static final String DEFAULT_MIX = "browse:2,get:45,isbn:10,checkout:15,return:13,member-loans:15";
+
+  static LoadSettings fromSystemProperties() {
+    return new LoadSettings(
+        Integer.getInteger("loadtest.books", 5_000),
+        Integer.getInteger("loadtest.authors", 500),
+        Integer.getInteger("loadtest.members", 2_000),
+        Integer.getInteger("loadtest.rate", 100),
+        Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+        Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+        Double.parseDouble(System.getProperty("loadtest.zipf", "1.0")),
+        parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)));
+  }
+
+  /**
+   * Parses {@code name:weight} pairs separated by commas.
+   */
+  static Map<Operation, Integer> parseMix(String spec) {
+    Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    for (String part : spec.split(",")) {
+      String[] pair = part.trim().split(":");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Invalid mix entry: " + part);
+      }
+      int weight = Integer.parseInt(pair[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight: " + part);
+      }
+      mix.put(Operation.fromName(pair[0].trim()), weight);
+    }
+    if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("Traffic mix has no weight");
+    }
+    return mix;
+  }
+}
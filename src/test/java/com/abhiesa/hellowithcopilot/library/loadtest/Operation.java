@@ -0,0 +1,38 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+/**
+ * Operations in the traffic mix.
+ */
+enum Operation {
+  /** GET /api/books */
+  BROWSE("browse"),
+  /** GET /api/books/{id} */
+  GET("get"),
+  /** GET /api/books/isbn/{isbn} */
+  ISBN("isbn"),
+  /** POST /api/loans/checkout */
+  CHECKOUT("checkout"),
+  /** POST /api/loans/{id}/return */
+  RETURN("return"),
+  /** GET /api/loans/member/{memberId}/expanded */
+  MEMBER_LOANS("member-loans");
+
+  private final String label;
+
+  Operation(String label) {
+    this.label = label;
+  }
+
+  String label() {
+    return label;
+  }
+
+  static Operation fromName(String name) {
+    for (Operation op : values()) {
+      if (op.label.equals(name)) {
+        return op;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation: " + name);
+  }
+}
@@ -0,0 +1,41 @@
+package com.abhiesa.hellowithcopilot.library.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples ranks 0..n-1 with Zipfian popularity: rank k is drawn with probability proportional to
+ * 1 / (k + 1)^s. A handful of books and members take most of the traffic, as in production.
+ */
+final class ZipfSampler {
+
+  private final double[] cdf;
+
+  /**
+   * @param n number of items
+   * @param exponent skew; 0 is uniform, around 1 is typical for catalogue popularity
+   */
+  ZipfSampler(int n, double exponent) {
+    if (n <= 0 || exponent < 0) {
+      throw new IllegalArgumentException("Invalid Zipf parameters");
+    }
+    cdf = new double[n];
+    double sum = 0;
+    for (int k = 0; k < n; k++) {
+      sum += 1.0 / Math.pow(k + 1, exponent);
+      cdf[k] = sum;
+    }
+    for (int k = 0; k < n; k++) {
+      cdf[k] /= sum;
+    }
+  }
+
+  /**
+   * @return a rank in [0, n), rank 0 being the most popular
+   */
+  int next() {
+    double u = ThreadLocalRandom.current().nextDouble();
+    int i = Arrays.binarySearch(cdf, u);
+    return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+  }
+}
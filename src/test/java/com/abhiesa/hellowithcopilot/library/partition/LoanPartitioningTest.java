@@ -0,0 +1,136 @@
+package com.abhiesa.hellowithcopilot.library.partition;
+
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the postgres profile against a real PostgreSQL server, checking that loans land in monthly
+ * partitions, that date-bounded queries only scan the partitions they need, and that old months
+ * can be detached, and that the schema script fills in the loan counters of existing members.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest
+@ActiveProfiles("postgres")
+class LoanPartitioningTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @DynamicPropertySource
+  static void datasource(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired
+  private LoanPartitionManager partitions;
+
+  @Autowired
+  private LoanRepository loans;
+
+  @Autowired
+  private MemberRepository members;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void createsPartitionsAhead() {
+    YearMonth now = YearMonth.now();
+    List<YearMonth> months = partitions.partitions();
+    for (int i = 0; i <= 3; i++) {
+      assertTrue(months.contains(now.plusMonths(i)), "Missing partition for " + now.plusMonths(i));
+    }
+  }
+
+  @Test
+  void dateBoundedQueriesPrunePartitions() {
+    YearMonth january = YearMonth.of(2021, 1);
+    YearMonth june = YearMonth.of(2021, 6);
+    assertTrue(partitions.ensurePartition(january));
+    assertTrue(partitions.ensurePartition(june));
+    loans.save(loan(9001L, january.atDay(10)));
+    loans.save(loan(9001L, june.atDay(10)));
+
+    List<Loan> inJanuary = loans.findByMemberIdAndLoanDateBetweenOrderByLoanDate(9001L,
+        january.atDay(1), january.atEndOfMonth());
+    assertEquals(1, inJanuary.size());
+    assertEquals(1, loans.findOverdueLoanedSince(june.atDay(1), LocalDate.now(), Limit.of(10))
+        .stream().filter(l -> l.getMemberId() == 9001L).count());
+
+    String plan = String.join("\n", jdbc.queryForList(
+        "EXPLAIN SELECT * FROM loans WHERE member_id = 9001 "
+            + "AND loan_date BETWEEN '2021-01-01' AND '2021-01-31'", String.class));
+    assertTrue(plan.contains(LoanPartitionManager.partitionName(january)), plan);
+    assertFalse(plan.contains(LoanPartitionManager.partitionName(june)), plan);
+    assertFalse(plan.contains("loans_default"), plan);
+  }
+
+  @Test
+  void detachesOldPartitions() {
+    YearMonth old = YearMonth.of(2015, 3);
+    assertTrue(partitions.ensurePartition(old));
+    loans.save(loan(9002L, old.atDay(5)));
+
+    List<String> detached = partitions.detachBefore(YearMonth.of(2016, 1));
+
+    assertTrue(detached.contains(LoanPartitionManager.partitionName(old)));
+    assertFalse(partitions.partitions().contains(old));
+    assertTrue(loans.findByMemberId(9002L).isEmpty());
+    assertEquals(1, jdbc.queryForObject(
+        "SELECT count(*) FROM " + LoanPartitionManager.partitionName(old), Integer.class));
+  }
+
+  @Test
+  void activeLoanCountersAreFilledWhenTheColumnIsAdded() {
+    Member member = new Member();
+    member.setMemberId("PARTITION-COUNTER");
+    member.setName("Counter Member");
+    member.setJoined(LocalDate.of(2020, 1, 1));
+    long memberId = members.save(member).getId();
+    loans.save(loan(memberId, LocalDate.now()));
+    loans.save(loan(memberId, LocalDate.now()));
+    Loan returned = loan(memberId, LocalDate.now());
+    returned.setStatus(LoanStatus.RETURNED);
+    loans.save(returned);
+
+    // A database from before the counter column, as ddl-auto would otherwise leave it.
+    jdbc.execute("ALTER TABLE members DROP COLUMN active_loans");
+    new ResourceDatabasePopulator(new ClassPathResource("db/postgres/schema.sql"))
+        .execute(dataSource);
+
+    assertEquals(2, jdbc.queryForObject(
+        "SELECT active_loans FROM members WHERE id = ?", Integer.class, memberId));
+  }
+
+  private static Loan loan(Long memberId, LocalDate loanDate) {
+    return new Loan(null, memberId, 1L, loanDate, loanDate.plusDays(14), null,
+        LoanStatus.ACTIVE, null, null);
+  }
+}
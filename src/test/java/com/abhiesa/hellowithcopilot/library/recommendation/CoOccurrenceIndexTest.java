@@ -0,0 +1,122 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoOccurrenceIndexTest {
+
+  private final LoanRepository loans = Mockito.mock(LoanRepository.class);
+
+  private CoOccurrenceIndex index(int topK, int maxBooksPerMember) {
+    return new CoOccurrenceIndex(loans, Mockito.mock(PlatformTransactionManager.class), topK,
+        maxBooksPerMember);
+  }
+
+  @Test
+  void ranksBooksByMembersWhoBorrowedBoth() {
+    CoOccurrenceIndex index = index(10, 100);
+    index.record(1, 100);
+    index.record(1, 200);
+    index.record(1, 300);
+    index.record(2, 100);
+    index.record(2, 300);
+    index.record(2, 100); // borrowing again adds nothing
+
+    RelatedRanking related = index.related(100);
+    assertArrayEquals(new long[] {300, 200}, related.bookIds());
+    assertArrayEquals(new int[] {2, 1}, related.counts());
+    assertArrayEquals(new long[] {100, 300}, index.related(200).bookIds());
+    assertEquals(0, index.related(999).size());
+  }
+
+  @Test
+  void checkoutEventsUpdateTheIndex() {
+    CoOccurrenceIndex index = index(10, 100);
+    index.onCheckout(new LoanCheckedOutEvent(1L, 7L, 10L, LocalDate.now()));
+    index.onCheckout(new LoanCheckedOutEvent(2L, 7L, 11L, LocalDate.now()));
+    assertArrayEquals(new long[] {11}, index.related(10).bookIds());
+  }
+
+  @Test
+  void boundedTopKMatchesExactCounts() {
+    int k = 5;
+    CoOccurrenceIndex index = index(k, 1_000);
+    Random random = new Random(7);
+    Map<Long, Set<Long>> history = new HashMap<>();
+    for (int i = 0; i < 5_000; i++) {
+      long member = 1 + random.nextInt(300);
+      // Skewed choice so that some pairs are far more common than others.
+      long book = 1 + (long) Math.floor(Math.pow(random.nextDouble(), 3) * 60);
+      index.record(member, book);
+      history.computeIfAbsent(member, m -> new HashSet<>()).add(book);
+    }
+    Map<Long, Map<Long, Integer>> exact = new HashMap<>();
+    for (Set<Long> books : history.values()) {
+      for (long a : books) {
+        for (long b : books) {
+          if (a != b) {
+            exact.computeIfAbsent(a, x -> new HashMap<>()).merge(b, 1, Integer::sum);
+          }
+        }
+      }
+    }
+    for (Map.Entry<Long, Map<Long, Integer>> entry : exact.entrySet()) {
+      int[] expected = entry.getValue().values().stream()
+          .sorted((x, y) -> Integer.compare(y, x)).limit(k).mapToInt(Integer::intValue).toArray();
+      RelatedRanking ranking = index.related(entry.getKey());
+      assertArrayEquals(expected, ranking.counts(), "book " + entry.getKey());
+      for (int i = 0; i < ranking.size(); i++) {
+        assertEquals(entry.getValue().get(ranking.bookIds()[i]), ranking.counts()[i]);
+      }
+    }
+  }
+
+  @Test
+  void heavyBorrowersArePairedOnlyUpToTheCap() {
+    CoOccurrenceIndex index = index(10, 2);
+    index.record(1, 100);
+    index.record(1, 200);
+    index.record(1, 300);
+    assertArrayEquals(new long[] {200}, index.related(100).bookIds());
+    assertEquals(0, index.related(300).size());
+  }
+
+  @Test
+  void rebuildStreamsLoansIntoAFreshMatrix() {
+    CoOccurrenceIndex index = index(10, 100);
+    index.record(9, 500);
+    index.record(9, 600);
+    List<Object[]> rows = new ArrayList<>(Arrays.asList(
+        new Object[] {1L, 100L}, new Object[] {1L, 200L}, new Object[] {2L, 200L},
+        new Object[] {2L, 100L}, new Object[] {3L, null}));
+    Mockito.when(loans.streamMemberBookPairs()).thenAnswer(inv -> rows.stream());
+
+    index.rebuild();
+
+    assertArrayEquals(new long[] {200}, index.related(100).bookIds());
+    assertArrayEquals(new int[] {2}, index.related(100).counts());
+    assertEquals(0, index.related(500).size(), "state not in the loans table is dropped");
+    Mockito.verify(loans).streamMemberBookPairs();
+  }
+
+  @Test
+  void rejectsInvalidIds() {
+    CoOccurrenceIndex index = index(10, 100);
+    assertThrows(IllegalArgumentException.class, () -> index.record(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> index.record(1, -1));
+  }
+}
@@ -0,0 +1,128 @@
+package com.abhiesa.hellowithcopilot.library.recommendation;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.service.BookService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingTrackerTest {
+
+  private static final long HOUR = Duration.ofHours(1).toMillis();
+
+  private final BookService books = Mockito.mock(BookService.class);
+  private final MutableClock clock = new MutableClock();
+
+  private TrendingTracker tracker(int candidates) {
+    return new TrendingTracker(books, clock, "hour=PT1H,week=P7D", 4, 1024, candidates);
+  }
+
+  @Test
+  void shortWindowsFavourRecentCheckouts() {
+    TrendingTracker tracker = tracker(10);
+    long start = clock.millis();
+    for (int i = 0; i < 10; i++) {
+      tracker.record(1, Category.FICTION, start);
+    }
+    clock.advance(Duration.ofHours(6));
+    for (int i = 0; i < 3; i++) {
+      tracker.record(2, Category.FICTION, start + 6 * HOUR);
+    }
+
+    assertArrayEquals(new long[] {2, 1}, tracker.trending("hour", null, 10).bookIds());
+    assertArrayEquals(new long[] {1, 2}, tracker.trending("week", null, 10).bookIds());
+    TrendingRanking hour = tracker.trending("hour", null, 10);
+    assertEquals(3.0, hour.scores()[0], 0.01);
+    assertEquals(10.0 / 64, hour.scores()[1], 0.01);
+  }
+
+  @Test
+  void categoriesAreRankedSeparately() {
+    TrendingTracker tracker = tracker(10);
+    long now = clock.millis();
+    tracker.record(1, Category.FICTION, now);
+    tracker.record(2, Category.SCIENCE, now);
+    tracker.record(2, Category.SCIENCE, now);
+    tracker.record(3, null, now);
+
+    assertArrayEquals(new long[] {2, 1, 3}, tracker.trending("week", null, 10).bookIds());
+    assertArrayEquals(new long[] {1}, tracker.trending("week", Category.FICTION, 10).bookIds());
+    assertEquals(0, tracker.trending("week", Category.HISTORY, 10).size());
+    assertEquals(1, tracker.trending("week", null, 1).size());
+    assertThrows(IllegalArgumentException.class, () -> tracker.trending("month", null, 10));
+  }
+
+  @Test
+  void memoryStaysBoundedAcrossAManyBookCatalogue() {
+    TrendingTracker tracker = tracker(20);
+    long now = clock.millis();
+    for (long book = 1; book <= 50_000; book++) {
+      tracker.record(book, Category.REFERENCE, now);
+    }
+    for (int i = 0; i < 50; i++) {
+      tracker.record(123_456, Category.REFERENCE, now);
+    }
+    TrendingRanking top = tracker.trending("hour", Category.REFERENCE, 100);
+    assertEquals(20, top.size());
+    assertEquals(123_456, top.bookIds()[0]);
+  }
+
+  @Test
+  void scoresSurviveLongRunsOfDecay() {
+    TrendingTracker tracker = tracker(10);
+    for (int day = 0; day < 30; day++) {
+      clock.advance(Duration.ofDays(1));
+      tracker.record(1, Category.HISTORY, clock.millis());
+    }
+    TrendingRanking hour = tracker.trending("hour", null, 10);
+    assertEquals(1.0, hour.scores()[0], 0.01);
+  }
+
+  @Test
+  void checkoutEventsLookUpTheCategory() {
+    Book book = new Book();
+    book.setId(5L);
+    book.setCategory(Category.CHILDREN);
+    Mockito.when(books.get(5L)).thenReturn(book);
+    Mockito.when(books.get(6L)).thenThrow(new NotFoundException("Book not found"));
+    TrendingTracker tracker = tracker(10);
+
+    tracker.onCheckout(new LoanCheckedOutEvent(1L, 1L, 5L, LocalDate.now()));
+    tracker.onCheckout(new LoanCheckedOutEvent(2L, 1L, 6L, LocalDate.now()));
+
+    assertArrayEquals(new long[] {5}, tracker.trending("hour", Category.CHILDREN, 10).bookIds());
+    assertArrayEquals(new long[] {5}, tracker.trending("week", null, 10).bookIds());
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.abhiesa.hellowithcopilot.library.reminder;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DueDateReminderSchedulerTest {
+
+  @TempDir
+  Path dir;
+
+  private MutableClock clock;
+  private LogFileReminderSink sink;
+  private DueDateReminderScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2026-03-02T08:00:00Z"));
+    sink = new LogFileReminderSink(dir.resolve("reminders.log"));
+    scheduler = new DueDateReminderScheduler(Mockito.mock(LoanRepository.class), sink, clock,
+        Mockito.mock(PlatformTransactionManager.class), new int[] {3, 0}, LocalTime.of(9, 0),
+        Duration.ofMinutes(1), 64);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    sink.close();
+  }
+
+  @Test
+  void sendsReminderBeforeAndOnDueDate() throws IOException {
+    scheduler.onCheckout(new LoanCheckedOutEvent(7L, 2L, 3L, LocalDate.of(2026, 3, 16)));
+    assertEquals(2, scheduler.pendingReminders());
+
+    clock.set(Instant.parse("2026-03-13T08:59:00Z"));
+    assertEquals(0, scheduler.sendDueReminders());
+    clock.set(Instant.parse("2026-03-13T09:00:00Z"));
+    assertEquals(1, scheduler.sendDueReminders());
+    clock.set(Instant.parse("2026-03-16T09:05:00Z"));
+    assertEquals(1, scheduler.sendDueReminders());
+
+    assertEquals(List.of(
+        "2026-03-13T09:00:00Z DUE_SOON loan=7 member=2 book=3 due=2026-03-16",
+        "2026-03-16T09:00:00Z DUE_TODAY loan=7 member=2 book=3 due=2026-03-16"),
+        Files.readAllLines(sink.file()));
+    assertEquals(0, scheduler.pendingReminders());
+  }
+
+  @Test
+  void returnCancelsPendingReminders() throws IOException {
+    scheduler.onCheckout(new LoanCheckedOutEvent(8L, 2L, 3L, LocalDate.of(2026, 3, 16)));
+    scheduler.onReturn(new LoanReturnedEvent(8L, 2L, 3L, LocalDate.of(2026, 3, 5)));
+    assertEquals(0, scheduler.pendingReminders());
+
+    clock.set(Instant.parse("2026-03-20T00:00:00Z"));
+    assertEquals(0, scheduler.sendDueReminders());
+    assertTrue(Files.readAllLines(sink.file()).isEmpty());
+  }
+
+  @Test
+  void shortLoanOnlyGetsRemindersThatAreStillAhead() throws IOException {
+    assertEquals(1, scheduler.schedule(9L, 2L, 3L, LocalDate.of(2026, 3, 3)));
+    clock.set(Instant.parse("2026-03-03T12:00:00Z"));
+    assertEquals(1, scheduler.schedule(10L, 2L, 3L, LocalDate.of(2026, 3, 3)));
+    assertEquals(2, scheduler.sendDueReminders());
+
+    assertEquals(List.of(
+        "2026-03-03T09:00:00Z DUE_TODAY loan=9 member=2 book=3 due=2026-03-03",
+        "2026-03-03T12:00:00Z DUE_TODAY loan=10 member=2 book=3 due=2026-03-03"),
+        Files.readAllLines(sink.file()));
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    private void set(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
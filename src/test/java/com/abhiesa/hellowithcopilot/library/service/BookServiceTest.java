@@ -1,11 +1,22 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.BrowseIndex;
+import com.abhiesa.hellowithcopilot.library.cache.CacheInvalidation;
+import com.abhiesa.hellowithcopilot.library.cache.InvalidationBus;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
 import com.abhiesa.hellowithcopilot.library.model.Book;
 import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
 import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,20 +25,26 @@ class BookServiceTest {
   @Test
   void testCreateBook() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    InvalidationBus bus = Mockito.mock(InvalidationBus.class);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), bus, Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     Book book = new Book();
     book.setTotalCopies(5);
     book.setAvailableCopies(0);
-    Mockito.when(repo.save(book)).thenReturn(book);
+    book.setIsbn("9780000000001");
+    Mockito.when(repo.save(book)).thenAnswer(inv -> {
+      book.setId(1L);
+      return book;
+    });
     Book created = service.create(book);
     assertEquals(book, created);
     assertEquals(5, created.getAvailableCopies());
+    Mockito.verify(bus).publish(CacheInvalidation.book(1L, "9780000000001"));
   }
 
   @Test
   void testGetBookFound() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     Book book = new Book();
     book.setId(1L);
     Mockito.when(repo.findById(1L)).thenReturn(Optional.of(book));
@@ -37,24 +54,55 @@ class BookServiceTest {
   @Test
   void testGetBookNotFound() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     Mockito.when(repo.findById(1L)).thenReturn(Optional.empty());
     assertThrows(NotFoundException.class, () -> service.get(1L));
   }
 
+  @Test
+  void testGetBookByIsbn() {
+    BookRepository repo = Mockito.mock(BookRepository.class);
+    NaturalKeyFilters filters = Mockito.mock(NaturalKeyFilters.class);
+    BookService service = new BookService(repo, filters, Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
+    Book book = new Book();
+    book.setId(1L);
+    Mockito.when(filters.mightContainIsbn("097522980X")).thenReturn(true);
+    Mockito.when(repo.findByIsbn("097522980X")).thenReturn(Optional.of(book));
+    assertEquals(book, service.getByIsbn("0-9752298-0-x"));
+  }
+
+  @Test
+  void testGetBookByIsbnRejectedByFilter() {
+    BookRepository repo = Mockito.mock(BookRepository.class);
+    NaturalKeyFilters filters = Mockito.mock(NaturalKeyFilters.class);
+    BookService service = new BookService(repo, filters, Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
+    assertThrows(NotFoundException.class, () -> service.getByIsbn("9780000000000"));
+    Mockito.verify(repo, Mockito.never()).findByIsbn(Mockito.anyString());
+  }
+
   @Test
   void testListBooks() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     List<Book> books = List.of(new Book());
     Mockito.when(repo.findAll()).thenReturn(books);
     assertEquals(books, service.list());
   }
 
+  @Test
+  void testGetAllBooks() {
+    BookRepository repo = Mockito.mock(BookRepository.class);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
+    List<Book> books = List.of(new Book());
+    Mockito.when(repo.findAllByIdInBatches(List.of(1L, 2L))).thenReturn(books);
+    assertEquals(books, service.getAll(List.of(1L, 2L)));
+    assertThrows(IllegalArgumentException.class, () -> service.getAll(List.of(1L, 0L)));
+  }
+
   @Test
   void testUpdateBook() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     Book book = new Book();
     book.setId(1L);
     Mockito.when(repo.findById(1L)).thenReturn(Optional.of(book));
@@ -65,8 +113,40 @@ class BookServiceTest {
   @Test
   void testDeleteBook() {
     BookRepository repo = Mockito.mock(BookRepository.class);
-    BookService service = new BookService(repo);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
     service.delete(1L);
     Mockito.verify(repo).deleteById(1L);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testConcurrentGetsShareOneQuery() throws Exception {
+    BookRepository repo = Mockito.mock(BookRepository.class);
+    BookService service = new BookService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(BrowseIndex.class), Mockito.mock(InvalidationBus.class), Mockito.mock(ShardedInventory.class), Mockito.mock(JournaledInventory.class), Duration.ofSeconds(5));
+    Book book = new Book();
+    book.setId(1L);
+    CountDownLatch release = new CountDownLatch(1);
+    Mockito.when(repo.findById(1L)).thenAnswer(inv -> {
+      release.await();
+      return Optional.of(book);
+    });
+    List<Thread> threads = new ArrayList<>();
+    List<Book> results = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 50; i++) {
+      threads.add(Thread.ofPlatform().start(() -> results.add(service.get(1L))));
+    }
+    // Once every thread is parked, one is inside the query and the others wait for it.
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING
+        || t.getState() == Thread.State.TIMED_WAITING)) {
+      assertTrue(System.nanoTime() < deadline, "Threads did not block");
+      Thread.sleep(1);
+    }
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(50, results.size());
+    assertTrue(results.stream().allMatch(b -> b == book));
+    Mockito.verify(repo, Mockito.times(1)).findById(1L);
+  }
+}
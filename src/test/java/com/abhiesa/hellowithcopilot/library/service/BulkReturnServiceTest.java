@@ -0,0 +1,91 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnItemDto;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnOutcomeDto.Outcome;
+import com.abhiesa.hellowithcopilot.library.dto.BulkReturnResultDto;
+import com.abhiesa.hellowithcopilot.library.event.LoanReturnedEvent;
+import com.abhiesa.hellowithcopilot.library.inventory.JournaledInventory;
+import com.abhiesa.hellowithcopilot.library.inventory.ShardedInventory;
+import com.abhiesa.hellowithcopilot.library.model.Loan;
+import com.abhiesa.hellowithcopilot.library.model.LoanStatus;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkReturnServiceTest {
+
+  private final LoanRepository repo = Mockito.mock(LoanRepository.class);
+  private final BookService bookService = Mockito.mock(BookService.class);
+  private final MemberService memberService = Mockito.mock(MemberService.class);
+  private final ActiveLoanCounters loanCounters = Mockito.mock(ActiveLoanCounters.class);
+  private final BranchService branchService = Mockito.mock(BranchService.class);
+  private final ShardedInventory shardedInventory = Mockito.mock(ShardedInventory.class);
+  private final JournaledInventory journaledInventory = Mockito.mock(JournaledInventory.class);
+  private final ApplicationEventPublisher events = Mockito.mock(ApplicationEventPublisher.class);
+
+  @Test
+  void countersAreRaisedOncePerBookAndBranchRow() {
+    List<Loan> stored = List.of(
+        loan(1L, 10L, null, LoanStatus.ACTIVE),
+        loan(2L, 10L, null, LoanStatus.ACTIVE),
+        loan(3L, 20L, 7L, LoanStatus.ACTIVE),
+        loan(4L, 20L, 7L, LoanStatus.ACTIVE),
+        loan(5L, 20L, 8L, LoanStatus.RETURNED));
+    Mockito.when(repo.lockAllById(Mockito.anyCollection())).thenAnswer(invocation -> {
+      List<Loan> found = new ArrayList<>();
+      for (Object id : invocation.<Collection<?>>getArgument(0)) {
+        stored.stream().filter(l -> l.getId().equals(id)).forEach(found::add);
+      }
+      return found;
+    });
+    Mockito.when(repo.markReturned(Mockito.anyCollection(), Mockito.any(), Mockito.any()))
+        .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+    BulkReturnService service =
+        new BulkReturnService(repo, bookService, memberService, loanCounters, branchService,
+            shardedInventory, journaledInventory, events, 2, 100, Duration.ofSeconds(5));
+
+    BulkReturnResultDto result = service.returnAll(List.of(item(1L), item(2L), item(3L),
+        item(4L), item(5L), item(2L)));
+
+    assertEquals(4, result.getReturned());
+    assertEquals(List.of(Outcome.RETURNED, Outcome.RETURNED, Outcome.RETURNED, Outcome.RETURNED,
+            Outcome.NOT_ACTIVE, Outcome.DUPLICATE),
+        result.getItems().stream().map(i -> i.getOutcome()).toList());
+    Mockito.verify(repo, Mockito.times(3)).lockAllById(Mockito.anyCollection());
+    Mockito.verify(repo).markReturned(Mockito.eq(List.of(1L, 2L)), Mockito.any(), Mockito.any());
+    Mockito.verify(repo).markReturned(Mockito.eq(List.of(3L, 4L)), Mockito.any(), Mockito.any());
+    Mockito.verify(loanCounters).release(Map.of(1L, 4));
+    Mockito.verify(bookService).returnCopies(Map.of(10L, 2));
+    Mockito.verify(branchService).returnCopies(7L, 20L, 2);
+    Mockito.verifyNoMoreInteractions(branchService);
+    Mockito.verify(events, Mockito.times(4)).publishEvent(Mockito.any(LoanReturnedEvent.class));
+  }
+
+  @Test
+  void oversizedBatchesAreRejected() {
+    BulkReturnService service =
+        new BulkReturnService(repo, bookService, memberService, loanCounters, branchService,
+            shardedInventory, journaledInventory, events, 2, 1, Duration.ofSeconds(5));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.returnAll(List.of(item(1L), item(2L))));
+    assertThrows(IllegalArgumentException.class, () -> service.returnAll(null));
+  }
+
+  private static BulkReturnItemDto item(Long loanId) {
+    return new BulkReturnItemDto(loanId, null, null);
+  }
+
+  private static Loan loan(Long id, Long bookId, Long branchId, LoanStatus status) {
+    return new Loan(id, 1L, bookId, LocalDate.now(), LocalDate.now().plusDays(14), null, status,
+        branchId, null);
+  }
+}
@@ -0,0 +1,73 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutBatcherTest {
+
+  private final EntityManager entityManager = Mockito.mock(EntityManager.class);
+  private final PlatformTransactionManager transactionManager =
+      Mockito.mock(PlatformTransactionManager.class);
+
+  @Test
+  void errorsFailTheBatchAndTheWorkerCarriesOn() {
+    Mockito.when(entityManager.unwrap(Session.class))
+        .thenThrow(new StackOverflowError())
+        .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+    CheckoutBatcher batcher = batcher(Duration.ofSeconds(10));
+    try {
+      IllegalStateException failed =
+          assertThrows(IllegalStateException.class, () -> batcher.checkout(1L, 1L, 14));
+      assertInstanceOf(StackOverflowError.class, failed.getCause());
+      assertThrows(DataAccessResourceFailureException.class, () -> batcher.checkout(1L, 1L, 14));
+    } finally {
+      batcher.shutdown();
+    }
+  }
+
+  @Test
+  void callersStopWaitingAfterTheTimeout() throws Exception {
+    CountDownLatch stuck = new CountDownLatch(1);
+    Mockito.when(transactionManager.getTransaction(ArgumentMatchers.any())).thenAnswer(inv -> {
+      stuck.await();
+      return null;
+    });
+    Mockito.when(entityManager.unwrap(Session.class))
+        .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+    CheckoutBatcher batcher = batcher(Duration.ofMillis(200));
+    try {
+      // The first checkout holds the worker; the second one times out still queued.
+      long start = System.nanoTime();
+      assertThrows(IllegalStateException.class, () -> batcher.checkout(1L, 1L, 14));
+      assertThrows(IllegalStateException.class, () -> batcher.checkout(2L, 2L, 14));
+      assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+      stuck.countDown();
+      Mockito.verify(transactionManager, Mockito.timeout(5000).times(1))
+          .rollback(ArgumentMatchers.any());
+      // The checkout that gave up in the queue is never applied.
+      Mockito.verify(transactionManager, Mockito.after(300).times(1))
+          .getTransaction(ArgumentMatchers.any());
+    } finally {
+      stuck.countDown();
+      batcher.shutdown();
+    }
+  }
+
+  private CheckoutBatcher batcher(Duration timeout) {
+    return new CheckoutBatcher(Mockito.mock(BookService.class),
+        Mockito.mock(ActiveLoanCounters.class), Mockito.mock(LoanRepository.class),
+        Mockito.mock(ApplicationEventPublisher.class), entityManager, transactionManager, true,
+        1, Duration.ZERO, timeout);
+  }
+}
@@ -0,0 +1,120 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout throughput of the per-request path against group commit, with many concurrent
+ * callers spread over a catalogue. The in-memory database commits almost for free, so the gap
+ * here mostly reflects fewer transactions and statements; against a database that syncs each
+ * commit to disk the difference is larger. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.root=WARN",
+    "logging.level.com.abhiesa.hellowithcopilot=WARN",
+    "library.checkout.group-commit.enabled=true",
+    "library.checkout.group-commit.window=PT0.001S",
+    "library.checkout.group-commit.max-batch=64"
+})
+class CheckoutGroupCommitBenchmarkTest {
+
+  private static final int BOOKS = 200;
+  private static final int MEMBERS = 200;
+  private static final int CALLERS = 64;
+  private static final long ROUND_MILLIS = 3_000;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private CheckoutBatcher batcher;
+
+  @Test
+  void checkoutThroughput() throws Exception {
+    List<Long> books = new ArrayList<>();
+    List<Long> members = new ArrayList<>();
+    tx.executeWithoutResult(status -> {
+      Author author = new Author(null, "Bench", "Author");
+      entityManager.persist(author);
+      for (int i = 0; i < BOOKS; i++) {
+        Book book = new Book();
+        book.setTitle("Group Commit Bench " + i);
+        book.setAuthors(List.of(author));
+        book.setCategory(Category.REFERENCE);
+        book.setIsbn(String.format("9780010%06d", i));
+        book.setTotalCopies(1_000_000);
+        book.setAvailableCopies(1_000_000);
+        book.setPublishedDate(LocalDate.of(2000, 1, 1));
+        entityManager.persist(book);
+        books.add(book.getId());
+      }
+      for (int i = 0; i < MEMBERS; i++) {
+        Member member = new Member();
+        member.setMemberId("BENCH-GC-" + i);
+        member.setName("Bench Member " + i);
+        member.setJoined(LocalDate.of(2020, 1, 1));
+        entityManager.persist(member);
+        members.add(member.getId());
+      }
+    });
+
+    Checkout perRequest = (book, member) -> loanService.checkout(book, member, 14);
+    Checkout grouped = (book, member) -> batcher.checkout(book, member, 14);
+    measure(perRequest, books, members);
+    measure(grouped, books, members);
+    double perRequestOps = measure(perRequest, books, members);
+    double groupedOps = measure(grouped, books, members);
+
+    System.out.printf("checkout with %d callers: per request %.0f ops/s, group commit %.0f ops/s "
+        + "(%.2fx)%n", CALLERS, perRequestOps, groupedOps, groupedOps / perRequestOps);
+    assertTrue(perRequestOps > 0 && groupedOps > 0);
+  }
+
+  private interface Checkout {
+    void run(Long bookId, Long memberId);
+  }
+
+  private static double measure(Checkout checkout, List<Long> books, List<Long> members)
+      throws InterruptedException {
+    LongAdder done = new LongAdder();
+    long start = System.nanoTime();
+    long end = start + ROUND_MILLIS * 1_000_000;
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int c = 0; c < CALLERS; c++) {
+        pool.execute(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          while (System.nanoTime() < end) {
+            checkout.run(books.get(random.nextInt(books.size())),
+                members.get(random.nextInt(members.size())));
+            done.increment();
+          }
+        });
+      }
+    }
+    return done.sum() / ((System.nanoTime() - start) / 1e9);
+  }
+}
@@ -1,14 +1,26 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.ActiveLoanCounters;
+import com.abhiesa.hellowithcopilot.library.dto.MemberLoansDto;
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
 import com.abhiesa.hellowithcopilot.library.model.*;
 import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
 import com.abhiesa.hellowithcopilot.library.exception.BusinessException;
 import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 
 class LoanServiceTest {
@@ -19,41 +31,84 @@ class LoanServiceTest {
         BookService bookService = Mockito.mock(BookService.class);
         MemberService memberService = Mockito.mock(MemberService.class);
 
-        Book book = new Book();
-        book.setId(1L);
-        book.setTotalCopies(6);
-        book.setAvailableCopies(2);
-        book.setTotalCopies(2);
-
-        Mockito.when(bookService.get(1L)).thenReturn(book);
-        Mockito.when(bookService.update(book)).thenReturn(book);
+        Mockito.when(bookService.takeCopies(Map.of(1L, 1))).thenReturn(Map.of(1L, 1));
 
-        Loan loan = new Loan(null, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
+        Loan loan = new Loan(null, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE, null, null);
         Mockito.when(repo.save(Mockito.any(Loan.class))).thenReturn(loan);
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        ApplicationEventPublisher events = Mockito.mock(ApplicationEventPublisher.class);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), events, Duration.ofSeconds(5));
         Loan result = service.checkout(1L, 1L, 14);
+        Mockito.verify(events).publishEvent(new LoanCheckedOutEvent(null, 1L, 1L, loan.getDueDate()));
 
         assertEquals(LoanStatus.ACTIVE, result.getStatus());
         assertEquals(1L, result.getBookId());
         assertEquals(1L, result.getMemberId());
-        assertEquals(1, book.getAvailableCopies());
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any());
     }
 
     @Test
-    void testCheckoutLoanNoCopies() {
+    void testCheckoutRecordsFlightRecorderEvent(@TempDir Path dir) throws Exception {
         LoanRepository repo = Mockito.mock(LoanRepository.class);
         BookService bookService = Mockito.mock(BookService.class);
         MemberService memberService = Mockito.mock(MemberService.class);
 
-        Book book = new Book();
-        book.setId(1L);
-        book.setAvailableCopies(0);
+        Mockito.when(bookService.takeCopies(Map.of(3L, 1))).thenReturn(Map.of(3L, 0));
+
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+        Path file = dir.resolve("checkout.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("library.LoanCheckout");
+            recording.start();
+            assertThrows(BusinessException.class, () -> service.checkout(3L, 5L, 7));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals(3L, event.getLong("bookId"));
+        assertEquals(5L, event.getLong("memberId"));
+        assertEquals("BusinessException", event.getString("outcome"));
+    }
+
+    @Test
+    void testCheckoutLoanNoCopies() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BookService bookService = Mockito.mock(BookService.class);
+        MemberService memberService = Mockito.mock(MemberService.class);
 
-        Mockito.when(bookService.get(1L)).thenReturn(book);
+        Mockito.when(bookService.takeCopies(Map.of(1L, 1))).thenReturn(Map.of(1L, 0));
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
         assertThrows(BusinessException.class, () -> service.checkout(1L, 1L, 14));
+        Mockito.verify(repo, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void testCheckoutUnknownBook() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BookService bookService = Mockito.mock(BookService.class);
+        Mockito.when(bookService.takeCopies(Map.of(9L, 1))).thenReturn(Map.of());
+
+        LoanService service = new LoanService(repo, bookService, Mockito.mock(MemberService.class), Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+        assertThrows(NotFoundException.class, () -> service.checkout(9L, 1L, 14));
+        Mockito.verify(repo, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void testCheckoutOverLoanLimitLeavesBookAlone() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BookService bookService = Mockito.mock(BookService.class);
+        ActiveLoanCounters counters = Mockito.mock(ActiveLoanCounters.class);
+
+        Mockito.when(counters.take(7L)).thenThrow(new BusinessException("Loan limit reached"));
+
+        LoanService service = new LoanService(repo, bookService, Mockito.mock(MemberService.class), counters, Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+        assertThrows(BusinessException.class, () -> service.checkout(1L, 7L, 14));
+        Mockito.verify(bookService, Mockito.never()).takeCopies(Mockito.any());
+        Mockito.verify(repo, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -62,37 +117,67 @@ class LoanServiceTest {
         BookService bookService = Mockito.mock(BookService.class);
         MemberService memberService = Mockito.mock(MemberService.class);
 
-        Loan loan = new Loan(1L, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
-        Book book = new Book();
-        book.setId(1L);
-        book.setTotalCopies(4);
-        book.setAvailableCopies(3);
-
+        Loan loan = new Loan(1L, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE, null, null);
 
-        Mockito.when(repo.findById(1L)).thenReturn(Optional.of(loan));
-        Mockito.when(bookService.get(1L)).thenReturn(book);
-        Mockito.when(bookService.update(book)).thenReturn(book);
+        Mockito.when(repo.lockById(1L)).thenReturn(Optional.of(loan));
         Mockito.when(repo.save(Mockito.any(Loan.class))).thenReturn(loan);
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
         Loan returned = service.returnLoan(1L);
 
         assertEquals(LoanStatus.RETURNED, returned.getStatus());
-        assertEquals(4, book.getAvailableCopies());
+        Mockito.verify(bookService).returnCopies(Map.of(1L, 1));
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any());
         assertNotNull(returned.getReturnedDate());
     }
 
+    @Test
+    void testBranchCheckoutAndReturnUseBranchCounter() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BookService bookService = Mockito.mock(BookService.class);
+        MemberService memberService = Mockito.mock(MemberService.class);
+        BranchService branchService = Mockito.mock(BranchService.class);
+        Mockito.when(repo.save(Mockito.any(Loan.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), branchService, Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+        Loan loan = service.checkout(1L, 2L, 14, 7L);
+
+        assertEquals(7L, loan.getBranchId());
+        Mockito.verify(branchService).takeCopy(7L, 1L);
+        Mockito.verify(bookService, Mockito.never()).get(Mockito.anyLong());
+
+        loan.setId(5L);
+        Mockito.when(repo.lockById(5L)).thenReturn(Optional.of(loan));
+        service.returnLoan(5L);
+
+        Mockito.verify(branchService).returnCopy(7L, 1L);
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any());
+    }
+
+    @Test
+    void testBranchCheckoutWithoutCopies() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BranchService branchService = Mockito.mock(BranchService.class);
+        Mockito.doThrow(new BusinessException("No copies available at branch"))
+            .when(branchService).takeCopy(7L, 1L);
+
+        LoanService service = new LoanService(repo, Mockito.mock(BookService.class), Mockito.mock(MemberService.class), Mockito.mock(ActiveLoanCounters.class), branchService, Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+
+        assertThrows(BusinessException.class, () -> service.checkout(1L, 2L, 14, 7L));
+        Mockito.verify(repo, Mockito.never()).save(Mockito.any());
+    }
+
     @Test
     void testReturnLoanNotActive() {
         LoanRepository repo = Mockito.mock(LoanRepository.class);
         BookService bookService = Mockito.mock(BookService.class);
         MemberService memberService = Mockito.mock(MemberService.class);
 
-        Loan loan = new Loan(1L, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.RETURNED);
+        Loan loan = new Loan(1L, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.RETURNED, null, null);
 
-        Mockito.when(repo.findById(1L)).thenReturn(Optional.of(loan));
+        Mockito.when(repo.lockById(1L)).thenReturn(Optional.of(loan));
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
         assertThrows(BusinessException.class, () -> service.returnLoan(1L));
     }
 
@@ -105,10 +190,39 @@ class LoanServiceTest {
         List<Loan> loans = List.of(new Loan());
         Mockito.when(repo.findByMemberId(1L)).thenReturn(loans);
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
         assertEquals(loans, service.memberLoans(1L));
     }
 
+    @Test
+    void testMemberLoansExpanded() {
+        LoanRepository repo = Mockito.mock(LoanRepository.class);
+        BookService bookService = Mockito.mock(BookService.class);
+        MemberService memberService = Mockito.mock(MemberService.class);
+
+        Member member = new Member();
+        member.setId(1L);
+        Loan first = new Loan(1L, 1L, 10L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE, null, null);
+        Loan second = new Loan(2L, 1L, 11L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE, null, null);
+        Loan again = new Loan(3L, 1L, 10L, LocalDate.now(), LocalDate.now().plusDays(14), null, LoanStatus.RETURNED, null, null);
+        Book book = new Book();
+        book.setId(10L);
+
+        Mockito.when(memberService.get(1L)).thenReturn(member);
+        Mockito.when(repo.findByMemberId(1L)).thenReturn(List.of(first, second, again));
+        Mockito.when(bookService.getAll(new LinkedHashSet<>(List.of(10L, 11L)))).thenReturn(List.of(book));
+
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
+        MemberLoansDto view = service.memberLoansExpanded(1L);
+
+        assertEquals(member, view.getMember());
+        assertEquals(3, view.getLoans().size());
+        assertEquals(book, view.getLoans().get(0).getBook());
+        assertNull(view.getLoans().get(1).getBook());
+        assertEquals(book, view.getLoans().get(2).getBook());
+        Mockito.verify(bookService, Mockito.times(1)).getAll(Mockito.anyCollection());
+    }
+
     @Test
     void testAllLoans() {
         LoanRepository repo = Mockito.mock(LoanRepository.class);
@@ -118,7 +232,7 @@ class LoanServiceTest {
         List<Loan> loans = List.of(new Loan());
         Mockito.when(repo.findAll()).thenReturn(loans);
 
-        LoanService service = new LoanService(repo, bookService, memberService);
+        LoanService service = new LoanService(repo, bookService, memberService, Mockito.mock(ActiveLoanCounters.class), Mockito.mock(BranchService.class), Mockito.mock(ApplicationEventPublisher.class), Duration.ofSeconds(5));
         assertEquals(loans, service.allLoans());
     }
 }
@@ -1,10 +1,13 @@
 package com.abhiesa.hellowithcopilot.library.service;
 
+import com.abhiesa.hellowithcopilot.library.cache.InvalidationBus;
+import com.abhiesa.hellowithcopilot.library.cache.NaturalKeyFilters;
 import com.abhiesa.hellowithcopilot.library.model.Member;
 import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
 import com.abhiesa.hellowithcopilot.library.exception.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -14,8 +17,9 @@ class MemberServiceTest {
     @Test
     void testCreateMember() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         Member member = new Member();
+        member.setId(1L);
         Mockito.when(repo.save(member)).thenReturn(member);
         assertEquals(member, service.create(member));
     }
@@ -23,7 +27,7 @@ class MemberServiceTest {
     @Test
     void testGetMemberFound() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         Member member = new Member();
         member.setId(1L);
         Mockito.when(repo.findById(1L)).thenReturn(Optional.of(member));
@@ -33,15 +37,29 @@ class MemberServiceTest {
     @Test
     void testGetMemberNotFound() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         Mockito.when(repo.findById(1L)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> service.get(1L));
     }
 
+    @Test
+    void testGetMemberByCard() {
+        MemberRepository repo = Mockito.mock(MemberRepository.class);
+        NaturalKeyFilters filters = Mockito.mock(NaturalKeyFilters.class);
+        MemberService service = new MemberService(repo, filters, Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
+        Member member = new Member();
+        member.setId(1L);
+        Mockito.when(filters.mightContainMemberId("LIB-0001")).thenReturn(true);
+        Mockito.when(repo.findByMemberId("LIB-0001")).thenReturn(Optional.of(member));
+        assertEquals(member, service.getByCard("LIB-0001"));
+        assertThrows(NotFoundException.class, () -> service.getByCard("LIB-9999"));
+        Mockito.verify(repo, Mockito.never()).findByMemberId("LIB-9999");
+    }
+
     @Test
     void testListMembers() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         List<Member> members = List.of(new Member());
         Mockito.when(repo.findAll()).thenReturn(members);
         assertEquals(members, service.list());
@@ -50,18 +68,31 @@ class MemberServiceTest {
     @Test
     void testUpdateMember() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         Member member = new Member();
         member.setId(1L);
-        Mockito.when(repo.findById(1L)).thenReturn(Optional.of(member));
+        Member stored = new Member();
+        stored.setId(1L);
+        stored.setActiveLoans(3);
+        Mockito.when(repo.lockAllById(List.of(1L))).thenReturn(List.of(stored));
         Mockito.when(repo.save(member)).thenReturn(member);
         assertEquals(member, service.update(member));
+        assertEquals(3, member.getActiveLoans());
+    }
+
+    @Test
+    void testUpdateMemberNotFound() {
+        MemberRepository repo = Mockito.mock(MemberRepository.class);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
+        Member member = new Member();
+        member.setId(1L);
+        assertThrows(NotFoundException.class, () -> service.update(member));
     }
 
     @Test
     void testDeleteMember() {
         MemberRepository repo = Mockito.mock(MemberRepository.class);
-        MemberService service = new MemberService(repo);
+        MemberService service = new MemberService(repo, Mockito.mock(NaturalKeyFilters.class), Mockito.mock(InvalidationBus.class), Duration.ofSeconds(5));
         service.delete(1L);
         Mockito.verify(repo).deleteById(1L);
     }
@@ -0,0 +1,124 @@
+package com.abhiesa.hellowithcopilot.library.service;
+
+import com.abhiesa.hellowithcopilot.library.model.Author;
+import com.abhiesa.hellowithcopilot.library.model.Book;
+import com.abhiesa.hellowithcopilot.library.model.Category;
+import com.abhiesa.hellowithcopilot.library.model.Member;
+import com.abhiesa.hellowithcopilot.library.support.Futures;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout throughput of the per-request path against the sharded inventory, with many
+ * concurrent callers over a small, popular catalogue where row locks on the book contend. Each
+ * caller waits for its own checkout, so the sharded path is measured end to end including the
+ * loan insert. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.root=WARN",
+    "logging.level.com.abhiesa.hellowithcopilot=WARN",
+    "library.inventory.engine=sharded"
+})
+class ShardedInventoryBenchmarkTest {
+
+  private static final Duration WAIT = Duration.ofSeconds(10);
+
+  private static final int BOOKS = 20;
+  private static final int MEMBERS = 200;
+  private static final int CALLERS = 64;
+  private static final long ROUND_MILLIS = 3_000;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private TransactionTemplate tx;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private ShardedLoanService shardedLoans;
+
+  @Test
+  void checkoutThroughput() throws Exception {
+    List<Long> books = new ArrayList<>();
+    List<Long> members = new ArrayList<>();
+    tx.executeWithoutResult(status -> {
+      Author author = new Author(null, "Bench", "Author");
+      entityManager.persist(author);
+      for (int i = 0; i < BOOKS; i++) {
+        Book book = new Book();
+        book.setTitle("Sharded Bench " + i);
+        book.setAuthors(List.of(author));
+        book.setCategory(Category.REFERENCE);
+        book.setIsbn(String.format("9780012%06d", i));
+        book.setTotalCopies(1_000_000);
+        book.setAvailableCopies(1_000_000);
+        book.setPublishedDate(LocalDate.of(2000, 1, 1));
+        entityManager.persist(book);
+        books.add(book.getId());
+      }
+      for (int i = 0; i < MEMBERS; i++) {
+        Member member = new Member();
+        member.setMemberId("BENCH-SH-" + i);
+        member.setName("Bench Member " + i);
+        member.setJoined(LocalDate.of(2020, 1, 1));
+        entityManager.persist(member);
+        members.add(member.getId());
+      }
+    });
+
+    Checkout perRequest = (book, member) -> loanService.checkout(book, member, 14);
+    Checkout sharded = (book, member) ->
+        Futures.await(shardedLoans.checkout(book, member, 14), WAIT);
+    measure(perRequest, books, members);
+    measure(sharded, books, members);
+    double perRequestOps = measure(perRequest, books, members);
+    double shardedOps = measure(sharded, books, members);
+
+    System.out.printf("checkout with %d callers on %d books: per request %.0f ops/s, sharded "
+        + "%.0f ops/s (%.2fx)%n", CALLERS, BOOKS, perRequestOps, shardedOps,
+        shardedOps / perRequestOps);
+    assertTrue(perRequestOps > 0 && shardedOps > 0);
+  }
+
+  private interface Checkout {
+    void run(Long bookId, Long memberId);
+  }
+
+  private static double measure(Checkout checkout, List<Long> books, List<Long> members)
+      throws InterruptedException {
+    LongAdder done = new LongAdder();
+    long start = System.nanoTime();
+    long end = start + ROUND_MILLIS * 1_000_000;
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int c = 0; c < CALLERS; c++) {
+        pool.execute(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          while (System.nanoTime() < end) {
+            checkout.run(books.get(random.nextInt(books.size())),
+                members.get(random.nextInt(members.size())));
+            done.increment();
+          }
+        });
+      }
+    }
+    return done.sum() / ((System.nanoTime() - start) / 1e9);
+  }
+}
@@ -0,0 +1,120 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+
+  @Test
+  void rowsSurviveARoundTripAcrossBlocks() throws IOException {
+    Map<SnapshotTable, List<Object[]>> tables = sample();
+    byte[] data = write(tables, 3);
+
+    Map<SnapshotTable, List<Object[]>> read = read(data);
+    assertEquals(tables.keySet().stream().toList(), read.keySet().stream().toList());
+    for (SnapshotTable table : tables.keySet()) {
+      List<Object[]> expected = tables.get(table);
+      List<Object[]> actual = read.get(table);
+      assertEquals(expected.size(), actual.size(), table.name());
+      for (int r = 0; r < expected.size(); r++) {
+        assertArrayEquals(expected.get(r), actual.get(r), table.name() + " row " + r);
+      }
+    }
+  }
+
+  @Test
+  void corruptedOrTruncatedSnapshotsAreRejected() throws IOException {
+    byte[] data = write(sample(), 3);
+    assertThrows(IOException.class, () -> read(Arrays.copyOf(data, data.length - 5)));
+    for (int i = SnapshotWriter.MAGIC.length + 2; i < data.length; i += 7) {
+      byte[] corrupt = data.clone();
+      corrupt[i] ^= 0x5A;
+      assertThrows(IOException.class, () -> read(corrupt), "flipped byte " + i);
+    }
+    byte[] notASnapshot = data.clone();
+    notASnapshot[0] = 'X';
+    assertThrows(IOException.class, () -> read(notASnapshot));
+  }
+
+  @Test
+  void headersThatDoNotMatchTheSchemaAreRejected() throws IOException {
+    SnapshotTable renamed = new SnapshotTable("authors", "id", List.of(
+        new SnapshotTable.Column("id", SnapshotTable.Type.LONG, false),
+        new SnapshotTable.Column("given_name", SnapshotTable.Type.STRING, true),
+        new SnapshotTable.Column("last_name", SnapshotTable.Type.STRING, true)));
+    Map<SnapshotTable, List<Object[]>> tables = new LinkedHashMap<>();
+    tables.put(renamed, List.<Object[]>of(new Object[] {1L, "Ada", "Lovelace"}));
+    byte[] data = write(tables, 10);
+
+    IOException e = assertThrows(IOException.class, () -> read(data));
+    assertTrue(e.getMessage().contains("authors.given_name"), e.getMessage());
+  }
+
+  private static Map<SnapshotTable, List<Object[]>> sample() {
+    Map<SnapshotTable, List<Object[]>> tables = new LinkedHashMap<>();
+    List<Object[]> authors = new ArrayList<>();
+    authors.add(new Object[] {1L, "Ada", "Lovelace"});
+    authors.add(new Object[] {2L, null, "Søren Kierkegaård"});
+    tables.put(SnapshotTable.named("authors"), authors);
+    List<Object[]> books = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      books.add(new Object[] {10L + i, "Title " + i, i % 2 == 0 ? null : i,
+          "978000000000" + i, 3, i % 4, i == 5 ? null : LocalDate.of(1960 + i, 2, 28)});
+    }
+    tables.put(SnapshotTable.named("books"), books);
+    tables.put(SnapshotTable.named("book_author"), List.of());
+    tables.put(SnapshotTable.named("members"), List.<Object[]>of(
+        new Object[] {7L, "M-1", "Member", "m@example.org", LocalDate.of(2020, 1, 1), true},
+        new Object[] {8L, "M-2", "Other", null, null, false}));
+    List<Object[]> loans = new ArrayList<>();
+    for (long id = 1; id <= 7; id++) {
+      loans.add(new Object[] {id, 7L, 10L + id, LocalDate.of(2024, 1, 1),
+          LocalDate.of(2024, 1, 15), id % 2 == 0 ? LocalDate.of(2024, 1, 3) : null,
+          (int) (id % 4), id == 3 ? 1_000_000_000_000L : null,
+          OffsetDateTime.of(2024, 1, 1, 12, 0, 0, (int) id * 1_000, ZoneOffset.UTC)});
+    }
+    loans.add(new Object[] {-1L, null, null, null, null, null, null, null, null});
+    tables.put(SnapshotTable.named("loans"), loans);
+    return tables;
+  }
+
+  private static byte[] write(Map<SnapshotTable, List<Object[]>> tables, int blockRows)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (SnapshotWriter writer = new SnapshotWriter(bytes, tables.size(), blockRows)) {
+      for (Map.Entry<SnapshotTable, List<Object[]>> table : tables.entrySet()) {
+        writer.beginTable(table.getKey());
+        for (Object[] row : table.getValue()) {
+          writer.write(row);
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Map<SnapshotTable, List<Object[]>> read(byte[] data) throws IOException {
+    Map<SnapshotTable, List<Object[]>> tables = new LinkedHashMap<>();
+    try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(data))) {
+      for (SnapshotTable table = reader.nextTable(); table != null; table = reader.nextTable()) {
+        List<Object[]> rows = new ArrayList<>();
+        for (List<Object[]> block = reader.nextBlock(); !block.isEmpty();
+            block = reader.nextBlock()) {
+          rows.addAll(block);
+        }
+        tables.put(table, rows);
+      }
+    }
+    return tables;
+  }
+}
@@ -0,0 +1,92 @@
+package com.abhiesa.hellowithcopilot.library.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restore and export time of a synthetic snapshot, written straight to the file format so that
+ * seeding does not dominate the run. The loan count is set with {@code -Dsnapshot.loans}
+ * (default one million); books, members and authors scale with it. Run with
+ * {@code mvn test -Pbenchmark -Dtest=SnapshotRestoreBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.root=WARN",
+    "logging.level.com.abhiesa.hellowithcopilot=WARN"
+})
+class SnapshotRestoreBenchmarkTest {
+
+  @Autowired
+  private DatabaseSnapshotService snapshots;
+
+  @Test
+  void restoreAndExportThroughput() throws IOException {
+    int loans = Integer.getInteger("snapshot.loans", 1_000_000);
+    int books = Math.max(1, loans / 10);
+    int members = Math.max(1, loans / 20);
+    int authors = Math.max(1, books / 10);
+    byte[] snapshot = synthesize(authors, books, members, loans);
+    long rows = authors + 2L * books + members + loans;
+
+    long started = System.nanoTime();
+    Map<String, Long> restored = snapshots.restore(new ByteArrayInputStream(snapshot));
+    double restoreSeconds = (System.nanoTime() - started) / 1e9;
+    assertEquals(loans, restored.get("loans"));
+
+    ByteArrayOutputStream exported = new ByteArrayOutputStream(snapshot.length);
+    started = System.nanoTime();
+    Map<String, Long> written = snapshots.export(exported);
+    double exportSeconds = (System.nanoTime() - started) / 1e9;
+    assertEquals(restored, written);
+
+    System.out.printf("snapshot of %d rows: %.1f MB (%.1f bytes/row)%n", rows,
+        exported.size() / 1e6, exported.size() / (double) rows);
+    System.out.printf("restore %.2f s (%.0f rows/s), export %.2f s (%.0f rows/s)%n",
+        restoreSeconds, rows / restoreSeconds, exportSeconds, rows / exportSeconds);
+  }
+
+  private static byte[] synthesize(int authors, int books, int members, int loans)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    LocalDate start = LocalDate.of(2020, 1, 1);
+    try (SnapshotWriter writer = new SnapshotWriter(bytes, SnapshotTable.ALL.size(), 4096)) {
+      writer.beginTable(SnapshotTable.named("authors"));
+      for (long id = 1; id <= authors; id++) {
+        writer.write(new Object[] {id, "Bench", "Author " + id});
+      }
+      writer.beginTable(SnapshotTable.named("books"));
+      for (long id = 1; id <= books; id++) {
+        writer.write(new Object[] {id, "Snapshot Bench Volume " + id, (int) (id % 7),
+            String.format("9780015%06d", id), 5, 5, start.minusDays(id % 20_000)});
+      }
+      writer.beginTable(SnapshotTable.named("book_author"));
+      for (long id = 1; id <= books; id++) {
+        writer.write(new Object[] {id, 1 + id % authors});
+      }
+      writer.beginTable(SnapshotTable.named("members"));
+      for (long id = 1; id <= members; id++) {
+        writer.write(new Object[] {id, "SB-" + id, "Bench Member " + id,
+            "bench" + id + "@example.org", start, true});
+      }
+      writer.beginTable(SnapshotTable.named("loans"));
+      for (long id = 1; id <= loans; id++) {
+        LocalDate day = start.plusDays(id % 1_500);
+        writer.write(new Object[] {id, 1 + id % members, 1 + id % books, day, day.plusDays(14),
+            day.plusDays(7), 1, null,
+            OffsetDateTime.of(day.plusDays(7).atStartOfDay(), ZoneOffset.UTC)});
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,46 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+  @Test
+  void addedKeysAreAlwaysReported() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("LIB-" + i);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("LIB-" + i));
+    }
+    assertEquals(10_000, filter.insertions());
+    assertFalse(filter.isSaturated());
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTarget() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("978" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("979" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void reportsSaturationPastExpectedLoad() {
+    BloomFilter filter = new BloomFilter(2, 0.01);
+    filter.add("a");
+    filter.add("b");
+    assertFalse(filter.isSaturated());
+    filter.add("c");
+    assertTrue(filter.isSaturated());
+    assertFalse(filter.mightContain(null));
+  }
+}
@@ -0,0 +1,45 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+  @Test
+  void estimatesNeverUnderReportAndStayWithinTheErrorBound() {
+    CountMinSketch sketch = new CountMinSketch(4, 1000);
+    assertEquals(1024, sketch.width());
+    Map<Long, Double> exact = new HashMap<>();
+    Random random = new Random(11);
+    double total = 0;
+    for (int i = 0; i < 100_000; i++) {
+      long key = 1 + (long) Math.pow(random.nextDouble(), 3) * 50_000;
+      exact.merge(key, 1.0, Double::sum);
+      sketch.add(key, 1.0);
+      total += 1;
+    }
+    double bound = Math.E / sketch.width() * total;
+    int beyondBound = 0;
+    for (Map.Entry<Long, Double> entry : exact.entrySet()) {
+      double estimate = sketch.estimate(entry.getKey());
+      assertTrue(estimate >= entry.getValue(), "under-reported " + entry.getKey());
+      if (estimate - entry.getValue() > bound) {
+        beyondBound++;
+      }
+    }
+    assertTrue(beyondBound <= exact.size() / 50, "too many estimates beyond bound: " + beyondBound);
+  }
+
+  @Test
+  void scalingShrinksEveryEstimate() {
+    CountMinSketch sketch = new CountMinSketch(2, 64);
+    sketch.add(7, 8);
+    sketch.scale(0.25);
+    assertEquals(2, sketch.estimate(7), 1e-9);
+    assertThrows(IllegalArgumentException.class, () -> sketch.scale(0));
+    assertThrows(IllegalArgumentException.class, () -> sketch.add(7, -1));
+  }
+}
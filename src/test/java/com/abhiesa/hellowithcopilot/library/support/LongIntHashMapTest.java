@@ -0,0 +1,70 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+  @Test
+  void countsMatchABoxedMapThroughGrowth() {
+    LongIntHashMap counts = new LongIntHashMap(2);
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(3);
+    for (int i = 0; i < 50_000; i++) {
+      long key = 1 + random.nextInt(10_000);
+      assertEquals(expected.merge(key, 1, Integer::sum), counts.addTo(key, 1));
+    }
+    assertEquals(expected.size(), counts.size());
+    expected.forEach((key, value) -> assertEquals(value, counts.get(key)));
+    Map<Long, Integer> visited = new HashMap<>();
+    counts.forEach(visited::put);
+    assertEquals(expected, visited);
+    assertEquals(0, counts.get(10_001));
+  }
+
+  @Test
+  void putOverwritesAndInsertsThroughGrowth() {
+    LongIntHashMap counts = new LongIntHashMap(2);
+    for (long key = 1; key <= 1_000; key++) {
+      counts.put(key, (int) key);
+    }
+    for (long key = 1; key <= 1_000; key += 2) {
+      counts.put(key, 0);
+    }
+    assertEquals(1_000, counts.size());
+    assertEquals(0, counts.get(999));
+    assertEquals(1_000, counts.get(1_000));
+    assertEquals(1_001, counts.addTo(1_000, 1));
+  }
+
+  @Test
+  void keyZeroIsReserved() {
+    LongIntHashMap counts = new LongIntHashMap(4);
+    assertThrows(IllegalArgumentException.class, () -> counts.addTo(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> counts.put(0, 1));
+    assertEquals(0, counts.get(0));
+  }
+
+  @Test
+  void setsAndObjectMapsHandleNegativeAndLargeKeys() {
+    LongHashSet set = new LongHashSet(0);
+    LongObjectHashMap<String> names = new LongObjectHashMap<>(0);
+    long[] keys = {-1, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 40, 42};
+    for (long key : keys) {
+      assertTrue(set.add(key));
+      assertFalse(set.add(key));
+      names.computeIfAbsent(key, Long::toString);
+    }
+    for (long key : keys) {
+      assertTrue(set.contains(key));
+      assertEquals(Long.toString(key), names.get(key));
+    }
+    assertEquals(keys.length, set.size());
+    assertEquals(keys.length, names.size());
+    assertFalse(set.contains(7));
+    assertNull(names.get(7));
+  }
+}
@@ -0,0 +1,65 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+  @Test
+  void rejectsOffersWhenFullAndReusesDrainedSlots() {
+    RingBuffer<Integer> ring = new RingBuffer<>(4);
+    assertTrue(ring.isEmpty());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.offer(i));
+    }
+    assertFalse(ring.offer(4));
+
+    List<Integer> drained = new ArrayList<>();
+    assertEquals(3, ring.drain(drained::add, 3));
+    assertEquals(List.of(0, 1, 2), drained);
+    assertTrue(ring.offer(5));
+    assertEquals(2, ring.drain(drained::add, 10));
+    assertEquals(List.of(0, 1, 2, 3, 5), drained);
+    assertTrue(ring.isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6));
+  }
+
+  @Test
+  void concurrentProducersLoseNothingAndKeepTheirOwnOrder() throws Exception {
+    RingBuffer<long[]> ring = new RingBuffer<>(64);
+    int producers = 8;
+    int perProducer = 20_000;
+    Map<Long, Long> lastSeen = new HashMap<>();
+    int received = 0;
+    try (ExecutorService pool = Executors.newFixedThreadPool(producers)) {
+      for (int p = 0; p < producers; p++) {
+        long producer = p;
+        pool.execute(() -> {
+          for (long n = 0; n < perProducer; n++) {
+            long[] item = {producer, n};
+            while (!ring.offer(item)) {
+              Thread.onSpinWait();
+            }
+          }
+        });
+      }
+      List<long[]> batch = new ArrayList<>();
+      while (received < producers * perProducer) {
+        batch.clear();
+        received += ring.drain(batch::add, 128);
+        for (long[] item : batch) {
+          Long previous = lastSeen.put(item[0], item[1]);
+          assertEquals(previous == null ? 0 : previous + 1, item[1]);
+        }
+      }
+    }
+    assertEquals(producers * perProducer, received);
+    assertTrue(ring.isEmpty());
+  }
+}
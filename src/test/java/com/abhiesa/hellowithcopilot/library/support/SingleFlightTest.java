@@ -0,0 +1,111 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+  @Test
+  void concurrentLoadsShareOneCall() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<String> leader = pool.submit(() -> flight.load(7L, () -> {
+        calls.incrementAndGet();
+        entered.countDown();
+        await(release);
+        return "book-7";
+      }));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+      List<Future<String>> followers = new ArrayList<>();
+      for (int i = 0; i < 31; i++) {
+        followers.add(pool.submit(() -> flight.load(7L, () -> {
+          calls.incrementAndGet();
+          return "again";
+        })));
+      }
+      awaitWaiting(flight, 7L, 31);
+      release.countDown();
+
+      assertEquals("book-7", leader.get());
+      for (Future<String> follower : followers) {
+        assertEquals("book-7", follower.get());
+      }
+    }
+    assertEquals(1, calls.get());
+    assertEquals(0, flight.waiting(7L));
+    assertEquals("fresh", flight.load(7L, () -> "fresh"));
+  }
+
+  @Test
+  void failuresReachEveryWaiter() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+    IllegalStateException failure = new IllegalStateException("database down");
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<String> leader = pool.submit(() -> flight.load(1L, () -> {
+        entered.countDown();
+        await(release);
+        throw failure;
+      }));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+      Future<String> follower = pool.submit(() -> flight.load(1L, () -> "unused"));
+      awaitWaiting(flight, 1L, 1);
+      release.countDown();
+
+      ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+      ExecutionException followerError = assertThrows(ExecutionException.class, follower::get);
+      assertSame(failure, leaderError.getCause());
+      assertSame(failure, followerError.getCause());
+    }
+  }
+
+  @Test
+  void waitersLoadThemselvesAfterTimeout() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<String> leader = pool.submit(() -> flight.load(2L, () -> {
+        entered.countDown();
+        await(release);
+        return "slow";
+      }));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+      assertEquals("own", flight.load(2L, () -> "own"));
+      release.countDown();
+      assertEquals("slow", leader.get());
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void awaitWaiting(SingleFlight<Long, String> flight, long key, int count)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (flight.waiting(key) < count) {
+      assertTrue(System.nanoTime() < deadline, "Waiters did not arrive");
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.abhiesa.hellowithcopilot.library.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+  @Test
+  void firesEntriesInDeadlineOrderAcrossLevels() {
+    TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+    wheel.schedule("far", 5_000);
+    wheel.schedule("near", 25);
+    wheel.schedule("middle", 300);
+    List<String> fired = new ArrayList<>();
+
+    assertEquals(0, wheel.advance(19, fired::add));
+    assertEquals(1, wheel.advance(30, fired::add));
+    assertEquals(1, wheel.advance(4_999, fired::add));
+    assertEquals(1, wheel.advance(5_010, fired::add));
+    assertEquals(List.of("near", "middle", "far"), fired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void cancelledEntriesNeverFire() {
+    TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+    TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 1_000);
+    wheel.schedule("kept", 1_000);
+    assertTrue(cancelled.cancel());
+    assertFalse(cancelled.cancel());
+    List<String> fired = new ArrayList<>();
+    wheel.advance(2_000, fired::add);
+    assertEquals(List.of("kept"), fired);
+  }
+
+  @Test
+  void pastDeadlinesAreNotScheduled() {
+    TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1_000);
+    assertNull(wheel.schedule("late", 995));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void handlesManyEntriesWithLargeJumps() {
+    TimingWheel<Integer> wheel = new TimingWheel<>(1, 16, 0);
+    for (int i = 1; i <= 100_000; i++) {
+      wheel.schedule(i, i * 37L);
+    }
+    List<Integer> fired = new ArrayList<>();
+    wheel.advance(1_850_000, fired::add);
+    assertEquals(50_000, fired.size());
+    wheel.advance(Long.MAX_VALUE / 2, fired::add);
+    assertEquals(100_000, fired.size());
+    for (int i = 0; i < fired.size(); i++) {
+      assertEquals(i + 1, fired.get(i));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.abhiesa.hellowithcopilot.library.warmup;
+
+import com.abhiesa.hellowithcopilot.library.event.LoanCheckedOutEvent;
+import com.abhiesa.hellowithcopilot.library.repository.BookRepository;
+import com.abhiesa.hellowithcopilot.library.repository.LoanRepository;
+import com.abhiesa.hellowithcopilot.library.repository.MemberRepository;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "library.warmup.enabled=true",
+    "library.warmup.iterations=25",
+    "management.endpoint.health.probes.enabled=true"
+})
+@AutoConfigureMockMvc
+class WarmupRunnerTest {
+
+  @Autowired
+  private WarmupRunner warmup;
+
+  @Autowired
+  private ApplicationAvailability availability;
+
+  @Autowired
+  private BookRepository books;
+
+  @Autowired
+  private MemberRepository members;
+
+  @Autowired
+  private LoanRepository loans;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void readyOnlyAfterWarmupAndLeavesNoData() throws Exception {
+    assertEquals(25, warmup.completedIterations());
+    // Seen from inside the warm-up's own checkouts, while the runner still held readiness back.
+    assertEquals(25, ReadinessProbe.seen.size());
+    assertTrue(ReadinessProbe.seen.stream().allMatch(ReadinessState.REFUSING_TRAFFIC::equals));
+    assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+    mockMvc.perform(get("/actuator/health/readiness"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("UP"));
+
+    assertTrue(books.findByIsbn(WarmupRunner.ISBN).isEmpty());
+    assertTrue(members.findByMemberId(WarmupRunner.CARD).isEmpty());
+    assertEquals(0, loans.count());
+  }
+
+  /** Records the readiness state whenever a checkout is published. */
+  @TestConfiguration
+  static class ReadinessProbe {
+
+    static final List<ReadinessState> seen = new CopyOnWriteArrayList<>();
+
+    private final ApplicationAvailability availability;
+
+    ReadinessProbe(ApplicationAvailability availability) {
+      this.availability = availability;
+    }
+
+    @EventListener
+    void checkedOut(LoanCheckedOutEvent event) {
+      seen.add(availability.getReadinessState());
+    }
+  }
+}